@@ -0,0 +1,131 @@
+"""
+JMH eredmények összehasonlítása a rögzített alappal (baseline.json), regresszió esetén 1-es kilépési kóddal.
+
+Az összetartozó mérések kulcsa a benchmark neve, a mód és a paraméterek. Regresszió:
+- idő módokban (avgt, sample, ss) a pontszám, áteresztőképességnél (thrpt) a pontszám csökkenése
+  nagyobb a küszöbnél, és a különbség a két mérés hibahatárán is túlmegy,
+- a műveletenkénti allokáció (gc.alloc.rate.norm, a -prof gc kimenete) a küszöbnél és min_alloc_bytes-nál
+  jobban nő.
+
+Az alap a referencia gépen --update-tel készül (hiányzó fájlnál létrejön); részleges futtatás eredménye csak a
+lefutott benchmarkok sorait cseréli, a többit megtartja. Az alapot a referencia gépen rögzítve kell commitolni.
+
+Használat: python compare_results.py baseline.json results.json [--threshold 10] [--update]
+"""
+import argparse
+import json
+import math
+import os
+import sys
+
+ALLOC_METRIC = "gc.alloc.rate.norm"
+
+
+def load(path):
+    if not os.path.exists(path):
+        return []
+    with open(path, encoding="utf-8") as f:
+        content = f.read().strip()
+    return json.loads(content) if content else []
+
+
+def key(result):
+    params = result.get("params") or {}
+    param_text = ",".join(f"{name}={params[name]}" for name in sorted(params))
+    short_name = result["benchmark"].rsplit(".", 2)
+    short_name = ".".join(short_name[-2:])
+    return f"{short_name} [{result['mode']}]" + (f" ({param_text})" if param_text else "")
+
+
+def index(results):
+    return {key(result): result for result in results}
+
+
+def alloc_norm(result):
+    # A JMH régebbi változatai "·gc.alloc.rate.norm" néven adják ki
+    for name, metric in (result.get("secondaryMetrics") or {}).items():
+        if name.lstrip("·") == ALLOC_METRIC:
+            return metric.get("score")
+    return None
+
+
+def error_of(metric):
+    error = metric.get("scoreError")
+    return 0.0 if error is None or (isinstance(error, float) and math.isnan(error)) else error
+
+
+def compare(baseline, current, threshold, min_alloc_bytes):
+    """A (kulcs, leírás, regresszió-e) sorok listája."""
+    rows = []
+    for name, result in current.items():
+        old = baseline.get(name)
+        if old is None:
+            rows.append((name, "new", False))
+            continue
+
+        new_metric, old_metric = result["primaryMetric"], old["primaryMetric"]
+        new_score, old_score = new_metric["score"], old_metric["score"]
+        unit = new_metric.get("scoreUnit", "")
+        higher_is_better = result["mode"] == "thrpt"
+        if old_score:
+            change = (new_score - old_score) / old_score * 100
+            worse = -change if higher_is_better else change
+            beyond_noise = abs(new_score - old_score) > error_of(new_metric) + error_of(old_metric)
+            regressed = worse > threshold and beyond_noise
+            rows.append((name, f"{old_score:.3f} -> {new_score:.3f} {unit} ({change:+.1f}%)", regressed))
+
+        new_alloc, old_alloc = alloc_norm(result), alloc_norm(old)
+        if new_alloc is not None and old_alloc is not None:
+            growth = new_alloc - old_alloc
+            change = growth / old_alloc * 100 if old_alloc else (math.inf if growth > 0 else 0.0)
+            regressed = change > threshold and growth > min_alloc_bytes
+            rows.append((name, f"alloc {old_alloc:.0f} -> {new_alloc:.0f} B/op ({change:+.1f}%)", regressed))
+
+    for name in baseline:
+        if name not in current:
+            rows.append((name, "missing from current run", False))
+    return rows
+
+
+def main():
+    parser = argparse.ArgumentParser(description="Compare JMH results (-rf json) against a baseline")
+    parser.add_argument("baseline")
+    parser.add_argument("current")
+    parser.add_argument("--threshold", type=float, default=10.0,
+                        help="regression threshold in percent (default: 10)")
+    parser.add_argument("--min-alloc-bytes", type=float, default=64.0,
+                        help="ignore allocation growth below this many bytes per operation (default: 64)")
+    parser.add_argument("--update", action="store_true",
+                        help="merge the current results into the baseline (creating it if missing) after comparing")
+    args = parser.parse_args()
+
+    baseline = index(load(args.baseline))
+    current = index(load(args.current))
+    if not current:
+        print(f"No results in {args.current}")
+        return 2
+
+    regressions = 0
+    if not baseline:
+        print(f"Baseline {args.baseline} is missing or empty, nothing to compare against (use --update to record one)")
+    else:
+        for name, text, regressed in compare(baseline, current, args.threshold, args.min_alloc_bytes):
+            if regressed:
+                regressions += 1
+            print(f"{'REGRESSION' if regressed else 'ok':<10} {name}: {text}")
+        print(f"{regressions} regression(s) beyond {args.threshold:g}% in {len(current)} benchmark(s)")
+
+    if args.update:
+        # A lefutott benchmarkok felülírják a régi sorokat, a többi mérés megmarad
+        merged = dict(baseline)
+        merged.update(current)
+        with open(args.baseline, "w", encoding="utf-8") as f:
+            json.dump(list(merged.values()), f, indent=2)
+            f.write("\n")
+        print(f"Baseline {args.baseline} updated with {len(current)} result(s) from {args.current}")
+        return 0
+    return 1 if regressions else 0
+
+
+if __name__ == "__main__":
+    sys.exit(main())
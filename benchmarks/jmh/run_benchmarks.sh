@@ -0,0 +1,27 @@
+#!/usr/bin/env bash
+# A JMH benchmarkok futtatása GC/allokáció profilozással (-prof gc), majd összehasonlítás a baseline.json-nal.
+# A további argumentumok a JMH-hoz kerülnek, pl. ./run_benchmarks.sh PredictionDataProcessorBenchmark -p vmCount=100
+# Környezeti változók: RESULT (eredményfájl), THRESHOLD (regressziós küszöb százalékban),
+# UPDATE_BASELINE=1 (az eredmény beírása a baseline.json-ba; hiányzó baseline esetén automatikus)
+set -euo pipefail
+cd "$(dirname "$0")"
+
+RESULT=${RESULT:-results.json}
+THRESHOLD=${THRESHOLD:-10}
+UPDATE_BASELINE=${UPDATE_BASELINE:-0}
+
+# Az alkalmazás jar a helyi Maven repositoryba, majd a benchmarks.jar
+(cd ../.. && mvn -B -q install -DskipTests)
+mvn -B -q package
+
+java -jar target/benchmarks.jar -prof gc -rf json -rff "$RESULT" "$@"
+
+if [ ! -s baseline.json ]; then
+    echo "No baseline.json yet, recording it from $RESULT (commit it only if this is the reference machine)"
+    UPDATE_BASELINE=1
+fi
+if [ "$UPDATE_BASELINE" = "1" ]; then
+    python3 compare_results.py baseline.json "$RESULT" --threshold "$THRESHOLD" --update
+else
+    python3 compare_results.py baseline.json "$RESULT" --threshold "$THRESHOLD"
+fi
@@ -0,0 +1,13 @@
+#!/usr/bin/env bash
+# Teljes szimulációs futások skálázódása (SimulationScalingHarness); az eredmény a scaling-results.csv végére kerül,
+# a sorok a git commit szerint jelölve. A további argumentumok a harnesshez kerülnek, pl. --vms 10,100 --heap 8g
+set -euo pipefail
+cd "$(dirname "$0")"
+
+LABEL=${LABEL:-$(git rev-parse --short HEAD 2>/dev/null || echo dev)}
+
+(cd ../.. && mvn -B -q install -DskipTests)
+mvn -B -q package
+
+java -cp target/benchmarks.jar hu.digital_twin.benchmarks.SimulationScalingHarness \
+  --output scaling-results.csv --label "$LABEL" "$@"
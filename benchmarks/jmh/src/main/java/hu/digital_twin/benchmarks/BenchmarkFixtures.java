@@ -0,0 +1,184 @@
+package hu.digital_twin.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import hu.digital_twin.config.SimulationConfig;
+import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.model.FleetSnapshot;
+import hu.digital_twin.service.simulation.SimulationRunner;
+import hu.digital_twin.service.simulation.sandbox.SandboxEntryPoint;
+import hu.digital_twin.service.util.ResourceCalculationService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * A benchmarkok közös, determinisztikus bemenetei: szintetikus flotta, predikciós sorozatok és UPDATE kérés,
+ * valamint a szimulációs komponensek kézi összerakása (ugyanúgy, mint a sandbox folyamatban).
+ */
+public final class BenchmarkFixtures {
+
+    // Egy fizikai gépen 8 mag van, a benchmark VM-ek 1 magosak
+    static final int VMS_PER_PHYSICAL_MACHINE = 8;
+
+    private static final int VM_CPU = 1;
+    private static final long VM_RAM = 1_073_741_824L;
+    private static final double VM_CORE_PROCESSING_POWER = 0.001;
+    // A felhő repository (100 GiB) minden VM képét tárolja, ezért a lemezméret kicsi
+    private static final long VM_DISK = 268_435_456L;
+    private static final int VM_STARTUP_PROCESS = 100;
+
+    private static final long SEED = 42;
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Szimulációs lépések a Spring kontextus nélkül; a fizikai gépek száma annyi, hogy a VM-ek
+     * (skálázásnál a backup VM-ekkel együtt) elférjenek.
+     */
+    static SimulationRunner createRunner(int vmCount) {
+        int physicalMachines = Math.max(1, (vmCount + VMS_PER_PHYSICAL_MACHINE - 1) / VMS_PER_PHYSICAL_MACHINE);
+        SimulationConfig config = new SimulationConfig();
+        config.setDefaultPhysicalMachines(physicalMachines);
+        config.setScalingPhysicalMachines(physicalMachines * 2);
+        return SandboxEntryPoint.createRunner(config);
+    }
+
+    /**
+     * vmCount darab egyforma VM-ből álló flotta (vm0 ... vm(n-1)) különböző terheléssel.
+     */
+    static FleetSnapshot fleet(int vmCount) {
+        return fleet(vmCount, VM_DISK);
+    }
+
+    /**
+     * Mint a fleet(vmCount), megadott lemezmérettel (nagy flottáknál a VM képeknek el kell férniük a felhő repositoryban).
+     */
+    static FleetSnapshot fleet(int vmCount, long reqDisk) {
+        String[] names = new String[vmCount];
+        double[] usage = new double[vmCount];
+        Random random = new Random(SEED);
+        for (int i = 0; i < vmCount; i++) {
+            names[i] = "vm" + i;
+            usage[i] = 10 + random.nextDouble() * 80;
+        }
+        return new FleetSnapshot(1L, "2025-01-01 12:00:00", names,
+                filled(new int[vmCount], VM_CPU),
+                filled(new long[vmCount], VM_RAM),
+                filled(new double[vmCount], VM_CORE_PROCESSING_POWER),
+                filled(new int[vmCount], VM_STARTUP_PROCESS),
+                filled(new long[vmCount], reqDisk),
+                filled(new double[vmCount], 0.0001),
+                filled(new int[vmCount], 400),
+                usage,
+                filled(new int[vmCount], 10));
+    }
+
+    /**
+     * VM-enként predictionLength perc előrejelzés, percenként readingsPerMinute értékkel (0-100 közötti terhelés).
+     * Minden harmadik VM terhelése időnként 80 fölé megy, hogy a skálázás backup VM-eket is indítson.
+     */
+    static Map<String, List<Double>> predictionData(FleetSnapshot fleet, int predictionLength, int readingsPerMinute) {
+        Map<String, List<Double>> predictionData = new HashMap<>();
+        Random random = new Random(SEED);
+        int values = predictionLength * readingsPerMinute;
+        for (int vm = 0; vm < fleet.size(); vm++) {
+            double base = fleet.usage()[vm];
+            double amplitude = vm % 3 == 0 ? 40 : 10;
+            List<Double> series = new ArrayList<>(values);
+            for (int i = 0; i < values; i++) {
+                double value = base + amplitude * Math.sin(i * 2 * Math.PI / Math.max(1, values / 2))
+                        + random.nextGaussian() * 2;
+                series.add(Math.max(0, Math.min(100, value)));
+            }
+            predictionData.put(fleet.names()[vm], series);
+        }
+        return predictionData;
+    }
+
+    /**
+     * Szimulációs kontextus infrastruktúra nélkül, csak a predikció feldolgozásához szükséges VM adatokkal.
+     */
+    static SimulationContext processingContext(FleetSnapshot fleet) {
+        SimulationContext context = new SimulationContext(null);
+        ResourceCalculationService resourceCalculationService = new ResourceCalculationService();
+        for (int i = 0; i < fleet.size(); i++) {
+            context.getMaxInstrPerSecond().put(fleet.names()[i],
+                    resourceCalculationService.calculateMaxInstructionsPerSecond(fleet.cpu()[i], fleet.coreProcessingPower()[i]));
+            context.getFileSizes().put(fleet.names()[i], fleet.dataSinceLastSave()[i]);
+        }
+        return context;
+    }
+
+    /**
+     * Egy UPDATE kérés a Dummy App formátumában, vmCount VM adattal.
+     */
+    static ObjectNode updateRequest(ObjectMapper objectMapper, int vmCount) {
+        FleetSnapshot fleet = fleet(vmCount);
+        ObjectNode request = objectMapper.createObjectNode();
+        request.put("requestType", "UPDATE");
+        request.put("vmsCount", vmCount);
+        request.put("timestamp", fleet.timestamp());
+        ArrayNode vmData = request.putArray("vmData");
+        for (int i = 0; i < vmCount; i++) {
+            ObjectNode vm = vmData.addObject();
+            vm.put("name", fleet.names()[i]);
+            vm.put("cpu", fleet.cpu()[i]);
+            vm.put("ram", fleet.ram()[i]);
+            vm.put("coreProcessingPower", fleet.coreProcessingPower()[i]);
+            vm.put("startupProcess", fleet.startupProcess()[i]);
+            vm.put("reqDisk", fleet.reqDisk()[i]);
+            vm.put("pricePerTick", fleet.pricePerTick()[i]);
+            vm.put("status", "RUNNING");
+            vm.put("type", "a1.small");
+            vm.put("networkTraffic", fleet.networkTraffic()[i]);
+            vm.put("usage", fleet.usage()[i]);
+            vm.put("dataSinceLastSave", fleet.dataSinceLastSave()[i]);
+        }
+        return request;
+    }
+
+    /**
+     * VM-enként samples darab tanító minta 5 másodperces lépésközzel, a predikciós sorozatokhoz hasonló alakkal.
+     */
+    static double[][] trainingTimestamps(int vmCount, int samples) {
+        double[][] timestamps = new double[vmCount][samples];
+        for (double[] vmTimestamps : timestamps) {
+            for (int i = 0; i < samples; i++) {
+                vmTimestamps[i] = i * 5.0;
+            }
+        }
+        return timestamps;
+    }
+
+    static double[][] trainingValues(int vmCount, int samples) {
+        FleetSnapshot fleet = fleet(vmCount);
+        Map<String, List<Double>> series = predictionData(fleet, 1, samples);
+        double[][] values = new double[vmCount][];
+        for (int vm = 0; vm < vmCount; vm++) {
+            values[vm] = series.get(fleet.names()[vm]).stream().mapToDouble(Double::doubleValue).toArray();
+        }
+        return values;
+    }
+
+    private static int[] filled(int[] array, int value) {
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    private static long[] filled(long[] array, long value) {
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    private static double[] filled(double[] array, double value) {
+        Arrays.fill(array, value);
+        return array;
+    }
+}
@@ -0,0 +1,136 @@
+package hu.digital_twin.benchmarks;
+
+import hu.digital_twin.config.PredictionConfig;
+import hu.digital_twin.service.prediction.TrainingSeries;
+import hu.digital_twin.service.prediction.forecast.Forecaster;
+import hu.digital_twin.service.prediction.forecast.ForecasterRegistry;
+import hu.digital_twin.service.prediction.worker.PredictionWorkerPool;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Előrejelzés ugyanarra a tanító ablakra: Java előrejelző (lr, arima), előre indított Python worker
+ * és egyszeri Python folyamat (a predikciós szolgáltatás három útvonala).
+ *
+ * A Python változatokhoz a szkriptek függőségei kellenek; a szkriptek könyvtára a benchmark.scripts.dir,
+ * a Python parancs a benchmark.python rendszertulajdonsággal állítható. Python nélkül:
+ * java -jar target/benchmarks.jar ForecasterBenchmark.nativeForecast
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForecasterBenchmark {
+
+    static final String SCRIPTS_DIR = System.getProperty("benchmark.scripts.dir", "../../src/main/resources/scripts");
+    static final String PYTHON = System.getProperty("benchmark.python", "python");
+
+    @Param({"3", "10"})
+    public int vmCount;
+
+    // Az előrejelzés hossza percben
+    @Param({"10", "60"})
+    public int predictionLength;
+
+    // A tanító ablak hossza percben (basedOnLast), percenként 12 mintával
+    @Param({"60"})
+    public int basedOnLast;
+
+    @Param({"lr", "arima"})
+    public String modelType;
+
+    private Forecaster forecaster;
+    private TrainingSeries series;
+    private byte[] frame;
+
+    @Setup
+    public void setUp() {
+        forecaster = new ForecasterRegistry().forModelType(modelType).orElseThrow();
+        int samples = basedOnLast * 12;
+        String[] vmNames = BenchmarkFixtures.fleet(vmCount).names();
+        series = new TrainingSeries(vmNames, BenchmarkFixtures.trainingTimestamps(vmCount, samples),
+                BenchmarkFixtures.trainingValues(vmCount, samples));
+        frame = series.toFrame();
+    }
+
+    @Benchmark
+    public void nativeForecast(Blackhole blackhole) {
+        for (int vm = 0; vm < series.vmCount(); vm++) {
+            blackhole.consume(forecaster.forecast(series.timestamps()[vm], series.values()[vm], predictionLength * 60));
+        }
+    }
+
+    @Benchmark
+    public String pythonWorker(WorkerPoolState pool) throws Exception {
+        return pool.workerPool.predict(predictionLength * 60, modelType, frame);
+    }
+
+    // Egyszeri folyamat: indítás, importok, keret a stdin-en, a teljes kimenet kiolvasása
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 10)
+    public int pythonOneShot() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(PYTHON, Path.of(SCRIPTS_DIR, "prediction_new.py").toString(),
+                Integer.toString(predictionLength * 60), modelType)
+                .redirectErrorStream(true)
+                .start();
+        try (OutputStream stdin = process.getOutputStream()) {
+            stdin.write(frame);
+        }
+        int outputBytes;
+        try (InputStream stdout = process.getInputStream()) {
+            outputBytes = stdout.readAllBytes().length;
+        }
+        if (process.waitFor() != 0) {
+            throw new IOException("Prediction script exited with " + process.exitValue());
+        }
+        return outputBytes;
+    }
+
+    /**
+     * Az előre indított workerek; csak a pythonWorker mérés indítja el őket.
+     */
+    @State(Scope.Benchmark)
+    public static class WorkerPoolState {
+
+        PredictionWorkerPool workerPool;
+
+        @Setup(Level.Trial)
+        public void start() {
+            PredictionConfig config = new PredictionConfig();
+            config.setPythonCommand(PYTHON);
+            config.setWorkerScriptPath(Path.of(SCRIPTS_DIR, "prediction_worker.py").toString());
+            config.setMode(PredictionConfig.Mode.WORKER);
+            config.setWorkerPoolSize(1);
+            config.setMaxConcurrentCalls(1);
+            workerPool = new PredictionWorkerPool(config);
+            workerPool.start();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            workerPool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package hu.digital_twin.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import hu.digital_twin.config.IngestConfig;
+import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.VmData;
+import hu.digital_twin.service.io.RequestDataStreamReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Az UPDATE kérések beolvasása (RequestDataStreamReader): teljes bekötés a RequestData objektumba,
+ * darabolt (streamelt) VmData feldolgozás, és összehasonlításként a sima ObjectMapper.readValue.
+ * A setup formátumonként kiírja a kódolt törzs méretét tömörítetlenül és gzip-pel (payload sor a JMH kimenetében).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestBindingBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int vmCount;
+
+    @Param({"application/json", "application/cbor", "application/x-jackson-smile"})
+    public String contentType;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private RequestDataStreamReader reader;
+    private ObjectMapper formatMapper;
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        reader = new RequestDataStreamReader(objectMapper, new IngestConfig());
+        formatMapper = switch (contentType) {
+            case "application/cbor" -> new ObjectMapper(new CBORFactory());
+            case "application/x-jackson-smile" -> new ObjectMapper(new SmileFactory());
+            default -> objectMapper;
+        };
+        ObjectNode request = BenchmarkFixtures.updateRequest(objectMapper, vmCount);
+        body = formatMapper.writeValueAsBytes(request);
+        System.out.printf("payload contentType=%s vmCount=%d raw_bytes=%d gzip_bytes=%d%n",
+                contentType, vmCount, body.length, gzip(body).length);
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public RequestData readWhole() throws IOException {
+        return reader.read(new ByteArrayInputStream(body), contentType, RequestDataStreamReader.VmDataListener.NONE);
+    }
+
+    @Benchmark
+    public RequestData readStreaming(Blackhole blackhole) throws IOException {
+        return reader.read(new ByteArrayInputStream(body), contentType, new RequestDataStreamReader.VmDataListener() {
+            @Override
+            public boolean acceptsStreaming(RequestData header) {
+                return true;
+            }
+
+            @Override
+            public void onChunk(RequestData header, List<VmData> chunk) {
+                blackhole.consume(chunk);
+            }
+
+            @Override
+            public void onComplete(RequestData requestData) {
+            }
+        });
+    }
+
+    // Összehasonlítási alap: a Spring MVC alapértelmezett bekötése (a teljes fa egyben)
+    @Benchmark
+    public RequestData objectMapperReadValue() throws IOException {
+        return formatMapper.readValue(body, RequestData.class);
+    }
+}
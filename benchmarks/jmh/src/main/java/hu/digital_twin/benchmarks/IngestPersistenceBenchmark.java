@@ -0,0 +1,108 @@
+package hu.digital_twin.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import hu.digital_twin.config.SchemaInitializer;
+import hu.digital_twin.config.SqliteConfig;
+import hu.digital_twin.config.SqlitePoolFactory;
+import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.RequestDataBatchRepository;
+import hu.digital_twin.model.VmRollupRepository;
+import hu.digital_twin.model.VmTelemetryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * UPDATE kérések mentése egy ideiglenes SQLite fájlba, az alkalmazás író poolján (WAL, ugyanazok a pragmák):
+ * requests darab kérés egyenként, kérésenként egy tranzakcióban (mint az egyedi /request mentés),
+ * illetve egyetlen tranzakcióban, JDBC batch-csel (mint a /request/batch és a write-behind ürítés).
+ * Mindkét művelet requests darab kérést ment, így az eredmények közvetlenül összehasonlíthatók.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IngestPersistenceBenchmark {
+
+    @Param({"10", "100"})
+    public int requests;
+
+    @Param({"10", "100"})
+    public int vmCount;
+
+    private Path databaseDirectory;
+    private HikariDataSource writer;
+    private TransactionTemplate transactionTemplate;
+    private RequestDataBatchRepository repository;
+    private List<RequestData> requestDataList;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        databaseDirectory = Files.createTempDirectory("ingest-persistence");
+        String url = "jdbc:sqlite:" + databaseDirectory.resolve("bench.db");
+        writer = SqlitePoolFactory.createWriter("bench", url, new SqliteConfig(), new SimpleMeterRegistry());
+        SchemaInitializer.initializeSchema(writer);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(writer);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(writer));
+        repository = new RequestDataBatchRepository(jdbcTemplate,
+                new VmTelemetryRepository(jdbcTemplate, new VmRollupRepository(jdbcTemplate)));
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        requestDataList = new ArrayList<>(requests);
+        for (int i = 0; i < requests; i++) {
+            RequestData requestData = objectMapper.treeToValue(
+                    BenchmarkFixtures.updateRequest(objectMapper, vmCount), RequestData.class);
+            requestDataList.add(requestData);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        writer.close();
+        try (var files = Files.list(databaseDirectory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(databaseDirectory);
+    }
+
+    // Kérésenként külön tranzakció és commit
+    @Benchmark
+    public void singleInserts() {
+        for (RequestData requestData : requestDataList) {
+            transactionTemplate.executeWithoutResult(status -> repository.insertAll(List.of(requestData)));
+        }
+    }
+
+    // Az összes kérés egy tranzakcióban, a VM sorok JDBC batch-ekben
+    @Benchmark
+    public void batchInsert() {
+        transactionTemplate.executeWithoutResult(status -> repository.insertAll(requestDataList));
+    }
+}
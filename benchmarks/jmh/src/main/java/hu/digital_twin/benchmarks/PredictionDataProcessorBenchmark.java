@@ -0,0 +1,60 @@
+package hu.digital_twin.benchmarks;
+
+import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.model.FleetSnapshot;
+import hu.digital_twin.model.ProcessedPredictionData;
+import hu.digital_twin.service.prediction.PredictionDataProcessor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PredictionDataProcessor.processPerMinuteData: a predikciós sorozatok percenkénti átlagolása
+ * és az utasításszámok kiszámítása. Tisztán CPU és allokáció, infrastruktúra nélkül.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PredictionDataProcessorBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int vmCount;
+
+    // Az előrejelzés hossza percben
+    @Param({"10", "60"})
+    public int predictionLength;
+
+    @Param({"12", "60"})
+    public int readingsPerMinute;
+
+    private final PredictionDataProcessor processor = new PredictionDataProcessor();
+    private Map<String, List<Double>> predictionData;
+    private SimulationContext context;
+
+    @Setup
+    public void setUp() {
+        FleetSnapshot fleet = BenchmarkFixtures.fleet(vmCount);
+        predictionData = BenchmarkFixtures.predictionData(fleet, predictionLength, readingsPerMinute);
+        context = BenchmarkFixtures.processingContext(fleet);
+    }
+
+    @Benchmark
+    public ProcessedPredictionData processPerMinuteData() {
+        return processor.processPerMinuteData(predictionData, context, readingsPerMinute);
+    }
+}
@@ -0,0 +1,80 @@
+package hu.digital_twin.benchmarks;
+
+import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.model.FleetSnapshot;
+import hu.digital_twin.model.ProcessedPredictionData;
+import hu.digital_twin.service.prediction.PredictionDataProcessor;
+import hu.digital_twin.service.simulation.SimulationRunner;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ScalingManager.executeScalingTasks: a skálázó stratégia feladat kiosztása, a küszöb fölötti perceknél
+ * backup VM indítással és a szimulációs óra léptetésével. A mérés módja a TaskExecutorBenchmark szerinti.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalingManagerBenchmark {
+
+    @Param({"8", "32", "64"})
+    public int vmCount;
+
+    // Az előrejelzés hossza percben
+    @Param({"10", "60"})
+    public int predictionLength;
+
+    @Param({"12"})
+    public int readingsPerMinute;
+
+    @Param({"70"})
+    public double loadThreshold;
+
+    private SimulationRunner runner;
+    private FleetSnapshot fleet;
+    private SimulationContext context;
+    private ProcessedPredictionData predictionData;
+    private Map<String, VirtualMachine> backUpVms;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        Timed.resetTimed();
+        runner = BenchmarkFixtures.createRunner(vmCount);
+        fleet = BenchmarkFixtures.fleet(vmCount);
+        context = runner.initializeSimulation(runner.getConfig().getScalingPhysicalMachines(), fleet);
+        predictionData = new PredictionDataProcessor().processPerMinuteData(
+                BenchmarkFixtures.predictionData(fleet, predictionLength, readingsPerMinute), context, readingsPerMinute);
+        Timed.simulateUntilLastEvent();
+        backUpVms = new ConcurrentHashMap<>();
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        Timed.resetTimed();
+    }
+
+    @Benchmark
+    public int executeScalingTasks() throws Exception {
+        return runner.executeScalingTasks(context, predictionData, fleet, backUpVms, loadThreshold);
+    }
+}
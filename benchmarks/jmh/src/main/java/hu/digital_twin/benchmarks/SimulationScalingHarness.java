@@ -0,0 +1,313 @@
+package hu.digital_twin.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.digital_twin.config.SimulationConfig;
+import hu.digital_twin.model.FleetSnapshot;
+import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.SimulationInput;
+import hu.digital_twin.service.simulation.sandbox.SandboxEntryPoint;
+import hu.digital_twin.strategy.SimulationStrategy;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Teljes szimulációs futások (a SimulationService által használt stratégiák) skálázódása a flotta méretével,
+ * a fizikai gépek számával és az előrejelzés hosszával. Szintetikus flottát és predikciót használ,
+ * adatbázis és Python nélkül.
+ *
+ * A mátrix minden cellája külön JVM-ben fut, hogy a heap csúcs és az allokáció ne keveredjen
+ * a korábbi cellák szemetével. Az eredmény soronként egy cella a CSV fájl végén, így a verziók
+ * (--label) egy fájlban követhetők.
+ *
+ * Használat: java -cp target/benchmarks.jar hu.digital_twin.benchmarks.SimulationScalingHarness [options]
+ */
+public class SimulationScalingHarness {
+
+    static final String USAGE = """
+            Usage: SimulationScalingHarness [options]
+              --vms <n,...>             a flották mérete (alapértelmezés: 10,100,1000,10000)
+              --pms <n|fit,...>         fizikai gépek száma; fit = a legkisebb, amelyen a VM-ek elférnek (alapértelmezés: fit)
+              --horizons <min,...>      az előrejelzés hossza percben (alapértelmezés: 60,360,1440,10080)
+              --strategies <s,...>      baseline, prediction_no_scaling, prediction_with_scaling
+                                        (alapértelmezés: baseline,prediction_with_scaling)
+              --output <file>           a CSV fájl, új sorok a végére kerülnek (alapértelmezés: scaling-results.csv)
+              --label <text>            a mért verzió jelölése, pl. git commit (alapértelmezés: dev)
+              --heap <size>             a cellák JVM-jének -Xmx értéke, pl. 8g (alapértelmezés: a JVM alapértelmezése)
+              --timeout-minutes <n>     egy cella időkorlátja (alapértelmezés: 60)
+            """;
+
+    static final String CSV_HEADER = "label,timestamp,strategy,vm_count,physical_machines,horizon_minutes,status,"
+            + "wall_ms,simulated_seconds,simulated_seconds_per_wall_second,dissect_consumption_events,"
+            + "allocated_mb,allocation_rate_mb_per_s,peak_heap_mb,heap_limit_mb,java_version";
+
+    // A cella JVM kimenetében ez előzi meg az eredményt (a DISSECT-CF is írhat a kimenetre)
+    private static final String RESULT_PREFIX = "SCALING_RESULT ";
+
+    // A felhő repository 100 GiB, ebben minden VM képe elfér 10 000 VM esetén is
+    private static final long VM_DISK = 8_388_608L;
+    private static final double LOAD_THRESHOLD = 70.0;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--cell")) {
+            runCell(args[1], Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]));
+            return;
+        }
+
+        Map<String, String> options;
+        try {
+            options = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+            return;
+        }
+
+        Path output = Path.of(options.get("--output"));
+        if (!Files.exists(output)) {
+            Files.writeString(output, CSV_HEADER + System.lineSeparator(), StandardCharsets.UTF_8);
+        }
+        long timeoutMinutes = Long.parseLong(options.get("--timeout-minutes"));
+        for (String strategy : split(options.get("--strategies"))) {
+            for (String vms : split(options.get("--vms"))) {
+                int vmCount = Integer.parseInt(vms);
+                for (String pms : split(options.get("--pms"))) {
+                    int physicalMachines = pms.equals("fit") ? requiredPhysicalMachines(strategy, vmCount) : Integer.parseInt(pms);
+                    for (String horizon : split(options.get("--horizons"))) {
+                        Map<String, Object> row = runIsolated(strategy, vmCount, physicalMachines,
+                                Integer.parseInt(horizon), options.get("--heap"), timeoutMinutes);
+                        row.put("label", options.get("--label"));
+                        appendRow(output, row);
+                        System.out.printf("%-24s vms %6d  pms %5d  horizon %6s min  %-8s %10s ms%n",
+                                strategy, vmCount, physicalMachines, horizon, row.get("status"), row.getOrDefault("wall_ms", ""));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A legkevesebb fizikai gép, amelyen a flotta elfér (skálázásnál minden VM mellé egy backup VM is).
+     */
+    static int requiredPhysicalMachines(String strategy, int vmCount) {
+        int vms = "prediction_with_scaling".equals(strategy) ? vmCount * 2 : vmCount;
+        return Math.max(1, (vms + BenchmarkFixtures.VMS_PER_PHYSICAL_MACHINE - 1) / BenchmarkFixtures.VMS_PER_PHYSICAL_MACHINE);
+    }
+
+    // Egy cella futtatása külön JVM-ben; a kimenet ideiglenes fájlba kerül, hogy a pipe ne teljen meg
+    private static Map<String, Object> runIsolated(String strategy, int vmCount, int physicalMachines, int horizon,
+                                                   String heap, long timeoutMinutes) throws IOException, InterruptedException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("timestamp", Instant.now().toString());
+        row.put("strategy", strategy);
+        row.put("vm_count", vmCount);
+        row.put("physical_machines", physicalMachines);
+        row.put("horizon_minutes", horizon);
+        if (physicalMachines < requiredPhysicalMachines(strategy, vmCount)) {
+            row.put("status", "skipped");
+            return row;
+        }
+
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (heap != null) {
+            command.add("-Xmx" + heap);
+        }
+        command.addAll(List.of("-cp", System.getProperty("java.class.path"), SimulationScalingHarness.class.getName(),
+                "--cell", strategy, Integer.toString(vmCount), Integer.toString(physicalMachines), Integer.toString(horizon)));
+
+        File log = File.createTempFile("scaling-cell", ".log");
+        try {
+            Process process = new ProcessBuilder(command)
+                    .redirectOutput(log)
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            if (!process.waitFor(timeoutMinutes, TimeUnit.MINUTES)) {
+                process.destroyForcibly().waitFor();
+                row.put("status", "timeout");
+                return row;
+            }
+            String result = Files.readAllLines(log.toPath(), StandardCharsets.UTF_8).stream()
+                    .filter(line -> line.startsWith(RESULT_PREFIX))
+                    .reduce((first, second) -> second)
+                    .orElse(null);
+            if (process.exitValue() != 0 || result == null) {
+                row.put("status", "failed");
+                return row;
+            }
+            JsonNode metrics = MAPPER.readTree(result.substring(RESULT_PREFIX.length()));
+            metrics.fields().forEachRemaining(field -> row.put(field.getKey(), field.getValue().asText()));
+            row.put("status", "ok");
+            return row;
+        } finally {
+            Files.deleteIfExists(log.toPath());
+        }
+    }
+
+    // Egy cella a saját JVM-jében: a mért szakasz csak a stratégia futása, a bemenetek előtte készülnek el
+    private static void runCell(String strategyName, int vmCount, int physicalMachines, int horizon) throws Exception {
+        SimulationConfig config = new SimulationConfig();
+        config.setDefaultPhysicalMachines(physicalMachines);
+        config.setScalingPhysicalMachines(physicalMachines);
+        SimulationStrategy strategy = SandboxEntryPoint.createStrategy(strategyName, SandboxEntryPoint.createRunner(config));
+
+        RequestData requestData = new RequestData();
+        requestData.setRequestType("REQUEST FUTURE BEHAVIOUR");
+        requestData.setVmsCount(vmCount);
+        requestData.setPredictionLength(horizon);
+        requestData.setThreshold(LOAD_THRESHOLD);
+        FleetSnapshot fleet = BenchmarkFixtures.fleet(vmCount, VM_DISK);
+        SimulationInput input = new SimulationInput(requestData, fleet,
+                "baseline".equals(strategyName) ? null : syntheticPredictionData(fleet, horizon));
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        List<MemoryPoolMXBean> heapPools = ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+        System.gc();
+        heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+        long allocatedBefore = threads.getTotalThreadAllocatedBytes();
+        long start = System.nanoTime();
+
+        String stats = strategy.execute(input);
+
+        long wallNanos = System.nanoTime() - start;
+        long allocated = threads.getTotalThreadAllocatedBytes() - allocatedBefore;
+        // A heap területek csúcsainak összege (felső becslés, a területek nem egyszerre érik el a csúcsot)
+        long peakHeap = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+
+        JsonNode statsJson = MAPPER.readTree(stats);
+        double wallSeconds = wallNanos / 1e9;
+        double simulatedSeconds = statsJson.path("runtime_ms").asLong() / 1000.0;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("wall_ms", wallNanos / 1_000_000);
+        metrics.put("simulated_seconds", simulatedSeconds);
+        metrics.put("simulated_seconds_per_wall_second", round(simulatedSeconds / wallSeconds));
+        metrics.put("dissect_consumption_events", statsJson.path("dissect_consumption_events").asLong());
+        metrics.put("allocated_mb", round(allocated / 1048576.0));
+        metrics.put("allocation_rate_mb_per_s", round(allocated / 1048576.0 / wallSeconds));
+        metrics.put("peak_heap_mb", round(peakHeap / 1048576.0));
+        metrics.put("heap_limit_mb", Runtime.getRuntime().maxMemory() / 1048576);
+        metrics.put("java_version", Runtime.version().toString());
+        System.out.println(RESULT_PREFIX + MAPPER.writeValueAsString(metrics));
+    }
+
+    /**
+     * VM-enként horizon perc, percenként 12 értékű előrejelzés. A sorozatok az értékeket lekéréskor számolják,
+     * így a 10 000 VM-es, 7 napos bemenet sem foglal memóriát; a mért futás allokációja a szimulációé.
+     */
+    static Map<String, List<Double>> syntheticPredictionData(FleetSnapshot fleet, int horizon) {
+        Map<String, List<Double>> predictionData = new HashMap<>();
+        for (int vm = 0; vm < fleet.size(); vm++) {
+            predictionData.put(fleet.names()[vm], new SyntheticSeries(vm, fleet.usage()[vm], horizon * 12));
+        }
+        return predictionData;
+    }
+
+    private static void appendRow(Path output, Map<String, Object> row) throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (String column : CSV_HEADER.split(",")) {
+            if (!line.isEmpty()) {
+                line.append(',');
+            }
+            line.append(row.getOrDefault(column, ""));
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8, StandardOpenOption.APPEND)) {
+            writer.write(line.toString());
+            writer.newLine();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        options.put("--vms", "10,100,1000,10000");
+        options.put("--pms", "fit");
+        options.put("--horizons", "60,360,1440,10080");
+        options.put("--strategies", "baseline,prediction_with_scaling");
+        options.put("--output", "scaling-results.csv");
+        options.put("--label", "dev");
+        options.put("--timeout-minutes", "60");
+        for (int i = 0; i < args.length; i++) {
+            if (!options.containsKey(args[i]) && !args[i].equals("--heap")) {
+                throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + args[i]);
+            }
+            options.put(args[i], args[++i]);
+        }
+        for (String strategy : split(options.get("--strategies"))) {
+            if (!List.of("baseline", "prediction_no_scaling", "prediction_with_scaling").contains(strategy)) {
+                throw new IllegalArgumentException("Unknown simulation strategy: " + strategy);
+            }
+        }
+        return options;
+    }
+
+    private static List<String> split(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(s -> !s.isEmpty()).toList();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    /**
+     * Napi ciklusú terhelés zajjal; minden harmadik VM nagyobb kilengéssel, hogy a skálázás backup VM-eket indítson.
+     */
+    private static final class SyntheticSeries extends AbstractList<Double> implements RandomAccess {
+        private static final double READINGS_PER_DAY = 24 * 60 * 12;
+
+        private final int vm;
+        private final double base;
+        private final double amplitude;
+        private final int size;
+
+        SyntheticSeries(int vm, double base, int size) {
+            this.vm = vm;
+            this.base = base;
+            this.amplitude = vm % 3 == 0 ? 40 : 10;
+            this.size = size;
+        }
+
+        @Override
+        public Double get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            // Determinisztikus zaj a VM és az index alapján (-2 .. 2)
+            long hash = (vm * 0x9E3779B97F4A7C15L) ^ (index * 0xC2B2AE3D27D4EB4FL);
+            hash ^= hash >>> 31;
+            double noise = ((hash & 0xFFFF) / 65535.0 - 0.5) * 4;
+            double value = base + amplitude * Math.sin(2 * Math.PI * index / READINGS_PER_DAY) + noise;
+            return Math.max(0, Math.min(100, value));
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package hu.digital_twin.benchmarks;
+
+import com.zaxxer.hikari.HikariDataSource;
+import hu.digital_twin.config.SchemaInitializer;
+import hu.digital_twin.config.SqliteConfig;
+import hu.digital_twin.config.SqlitePoolFactory;
+import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.RequestDataBatchRepository;
+import hu.digital_twin.model.VmData;
+import hu.digital_twin.model.VmRollupRepository;
+import hu.digital_twin.model.VmTelemetryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UPDATE mentés és előzmény olvasás párhuzamos terhelés alatt egy ideiglenes tenant SQLite fájlon.
+ * Két kapcsolat beállítást hasonlít össze ugyanazzal a sémával és ugyanazokkal a repositorykkal:
+ * - driver: minden művelethez új kapcsolat (DriverManagerDataSource), rollback napló, synchronous=FULL,
+ * - pooled: a tenant író és olvasó poolja (SqlitePoolFactory: WAL, synchronous=NORMAL, busy_timeout,
+ *   cache_size, mmap_size, egy író és READERS csak olvasó kapcsolat).
+ * Az írók egy-egy UPDATE-et mentenek tranzakcióban (request_data, vm_data, vm_telemetry és az összesítések),
+ * az olvasók a predikció tanító ablakát (az utolsó 120 minta) és az utolsó óra perces összesítéseit kérik le.
+ * A SampleTime mód műveletenkénti késleltetés percentiliseket ad; a zárolási hibák száma a trial végén
+ * (busy errors sor) jelenik meg, a hibás műveletek nem számítanak a mérésbe.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqlitePoolBenchmark {
+
+    private static final int WRITERS = 2;
+    private static final int READERS = 8;
+    private static final int TRAINING_SAMPLES = 120;
+    private static final long STEP_MILLIS = 5_000;
+    private static final long HOUR_MILLIS = 3_600_000;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    @Param({"driver", "pooled"})
+    public String configuration;
+
+    @Param({"20"})
+    public int vmCount;
+
+    // Előtöltött UPDATE kérések száma, hogy az olvasások ne üres táblán fussanak
+    @Param({"2000"})
+    public int preload;
+
+    private Path databaseDirectory;
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private TransactionTemplate writeTransaction;
+    private TransactionTemplate readTransaction;
+    private RequestDataBatchRepository requestDataBatchRepository;
+    private VmTelemetryRepository readTelemetry;
+    private VmRollupRepository readRollups;
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger nextVm = new AtomicInteger();
+    private final AtomicLong busyErrors = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        databaseDirectory = Files.createTempDirectory("sqlite-pool");
+        String url = "jdbc:sqlite:" + databaseDirectory.resolve("tenant.db");
+
+        DataSource writer;
+        DataSource readers;
+        if ("pooled".equals(configuration)) {
+            SqliteConfig sqliteConfig = new SqliteConfig();
+            sqliteConfig.setReaderPoolSize(READERS);
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            HikariDataSource writerPool = SqlitePoolFactory.createWriter("bench", url, sqliteConfig, meterRegistry);
+            pools.add(writerPool);
+            SchemaInitializer.initializeSchema(writerPool);
+            HikariDataSource readerPool = SqlitePoolFactory.createReaders("bench", url, sqliteConfig, meterRegistry);
+            pools.add(readerPool);
+            writer = writerPool;
+            readers = readerPool;
+        } else {
+            DriverManagerDataSource driver = new DriverManagerDataSource();
+            driver.setDriverClassName("org.sqlite.JDBC");
+            driver.setUrl(url);
+            SchemaInitializer.initializeSchema(driver);
+            writer = driver;
+            readers = driver;
+        }
+
+        JdbcTemplate writeTemplate = new JdbcTemplate(writer);
+        writeTransaction = new TransactionTemplate(new DataSourceTransactionManager(writer));
+        requestDataBatchRepository = new RequestDataBatchRepository(writeTemplate,
+                new VmTelemetryRepository(writeTemplate, new VmRollupRepository(writeTemplate)));
+
+        JdbcTemplate readTemplate = new JdbcTemplate(readers);
+        readTransaction = new TransactionTemplate(new DataSourceTransactionManager(readers));
+        readRollups = new VmRollupRepository(readTemplate);
+        readTelemetry = new VmTelemetryRepository(readTemplate, readRollups);
+
+        List<RequestData> preloaded = new ArrayList<>(preload);
+        for (int i = 0; i < preload; i++) {
+            preloaded.add(update(clock.incrementAndGet()));
+        }
+        writeTransaction.executeWithoutResult(status -> requestDataBatchRepository.insertAll(preloaded));
+        busyErrors.set(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.out.println("busy errors (" + configuration + "): " + busyErrors.get());
+        for (HikariDataSource pool : pools) {
+            pool.close();
+        }
+        pools.clear();
+        try (var files = Files.list(databaseDirectory)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(databaseDirectory);
+    }
+
+    // Egy UPDATE kérés mentése saját tranzakcióban, mint az egyedi /request mentés
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(WRITERS)
+    public void ingest() {
+        RequestData requestData = update(clock.incrementAndGet());
+        try {
+            writeTransaction.executeWithoutResult(status -> requestDataBatchRepository.insertAll(List.of(requestData)));
+        } catch (DataAccessException e) {
+            busyErrors.incrementAndGet();
+        }
+    }
+
+    // A tanító ablak és az utolsó óra perces összesítései egy VM-re, egy olvasó tranzakcióban
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(READERS)
+    public void readHistory(Blackhole blackhole) {
+        String vmName = "vm" + Math.floorMod(nextVm.getAndIncrement(), vmCount);
+        long latestMillis = epochMillis(clock.get());
+        try {
+            readTransaction.executeWithoutResult(status -> {
+                blackhole.consume(readTelemetry.findLatestSamples(vmName, "usage", TRAINING_SAMPLES));
+                blackhole.consume(readRollups.findBuckets(VmRollupRepository.Resolution.MINUTE, vmName,
+                        latestMillis - HOUR_MILLIS, latestMillis + 1));
+            });
+        } catch (DataAccessException e) {
+            busyErrors.incrementAndGet();
+        }
+    }
+
+    // A tick-edik UPDATE kérés: 5 másodperces lépésköz, VM-enként változó terhelés
+    private RequestData update(long tick) {
+        RequestData requestData = new RequestData();
+        requestData.setRequestType("UPDATE");
+        requestData.setTimestamp(TIMESTAMP_FORMAT.format(START.plusSeconds(tick * STEP_MILLIS / 1000)));
+        requestData.setVmsCount(vmCount);
+        List<VmData> vmData = new ArrayList<>(vmCount);
+        for (int vm = 0; vm < vmCount; vm++) {
+            VmData data = new VmData();
+            data.setName("vm" + vm);
+            data.setCpu(4);
+            data.setRam(4_294_967_296L);
+            data.setCoreProcessingPower(0.001);
+            data.setStartupProcess(100);
+            data.setReqDisk(1_073_741_824L);
+            data.setPricePerTick(0.0001);
+            data.setStatus("RUNNING");
+            data.setType("a1.large");
+            data.setNetworkTraffic(400 + vm);
+            data.setUsage((tick * 7 + vm) % 100 / 100.0);
+            data.setDataSinceLastSave(10);
+            vmData.add(data);
+        }
+        requestData.setVmData(vmData);
+        return requestData;
+    }
+
+    private static long epochMillis(long tick) {
+        return VmTelemetryRepository.toEpochMillis(TIMESTAMP_FORMAT.format(START.plusSeconds(tick * STEP_MILLIS / 1000)));
+    }
+}
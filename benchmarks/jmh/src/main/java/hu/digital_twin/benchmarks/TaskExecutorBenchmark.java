@@ -0,0 +1,92 @@
+package hu.digital_twin.benchmarks;
+
+import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.model.FleetSnapshot;
+import hu.digital_twin.model.ProcessedPredictionData;
+import hu.digital_twin.service.prediction.PredictionDataProcessor;
+import hu.digital_twin.service.simulation.SimulationRunner;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TaskExecutor.executeTask a nem skálázott stratégia útvonalán (executeNonScalingTasks minden VM-re):
+ * a számítási feladatok beütemezése, illetve a beütemezés és a DISSECT-CF szimuláció lefuttatása együtt.
+ *
+ * A szimulációs óra (Timed) globális és a feladatok állapotot hagynak maguk után, ezért minden mérés
+ * egyetlen hívás (SingleShotTime), előtte friss infrastruktúrával és elindult VM-ekkel.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 10)
+@Measurement(iterations = 30)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TaskExecutorBenchmark {
+
+    @Param({"8", "32", "64"})
+    public int vmCount;
+
+    // Az előrejelzés hossza percben
+    @Param({"10", "60"})
+    public int predictionLength;
+
+    @Param({"12"})
+    public int readingsPerMinute;
+
+    private SimulationRunner runner;
+    private FleetSnapshot fleet;
+    private SimulationContext context;
+    private ProcessedPredictionData predictionData;
+    private List<VirtualMachine> vms;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws Exception {
+        Timed.resetTimed();
+        runner = BenchmarkFixtures.createRunner(vmCount);
+        fleet = BenchmarkFixtures.fleet(vmCount);
+        context = runner.initializeSimulation(runner.getConfig().getDefaultPhysicalMachines(), fleet);
+        predictionData = new PredictionDataProcessor().processPerMinuteData(
+                BenchmarkFixtures.predictionData(fleet, predictionLength, readingsPerMinute), context, readingsPerMinute);
+        // A VM-ek elindítása (energiamérés nélkül, az a feladatok költségét nem befolyásolja)
+        Timed.simulateUntilLastEvent();
+        vms = runner.getAllVirtualMachines(context);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        Timed.resetTimed();
+    }
+
+    @Benchmark
+    public long scheduleTasks() throws Exception {
+        for (VirtualMachine vm : vms) {
+            runner.executeNonScalingTasks(vm, predictionData, context);
+        }
+        return context.getMetrics().getTotalTasks();
+    }
+
+    @Benchmark
+    public long scheduleAndSimulate() throws Exception {
+        for (VirtualMachine vm : vms) {
+            runner.executeNonScalingTasks(vm, predictionData, context);
+        }
+        runner.runSimulation(context, predictionLength);
+        return Timed.getFireCount();
+    }
+}
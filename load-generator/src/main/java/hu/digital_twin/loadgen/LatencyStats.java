@@ -0,0 +1,63 @@
+package hu.digital_twin.loadgen;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Egy kéréstípus eredményei: sikeres, elutasított (429) és hibás kérések, valamint a sikeres kérések késleltetése.
+ * A késleltetés a tervezett küldési időponttól számít, nem a tényleges küldéstől, így ha a rendszer
+ * lemarad és a generátor emiatt később küld, a várakozás is beleszámít (coordinated omission).
+ */
+public class LatencyStats {
+
+    private long[] latencies = new long[1024];
+    private int size = 0;
+    private long rejected = 0;
+    private long errors = 0;
+    private long vmSamples = 0;
+
+    public synchronized void recordSuccess(long latencyNanos, int vmCount) {
+        if (size == latencies.length) {
+            latencies = Arrays.copyOf(latencies, size * 2);
+        }
+        latencies[size++] = latencyNanos;
+        vmSamples += vmCount;
+    }
+
+    public synchronized void recordRejected() {
+        rejected++;
+    }
+
+    public synchronized void recordError() {
+        errors++;
+    }
+
+    /**
+     * Összesítés: darabszámok, áteresztőképesség a futás idejére vetítve és késleltetés percentilisek (ms).
+     */
+    public synchronized Map<String, Object> summary(double elapsedSeconds) {
+        long[] sorted = Arrays.copyOf(latencies, size);
+        Arrays.sort(sorted);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("succeeded", size);
+        summary.put("rejected", rejected);
+        summary.put("errors", errors);
+        summary.put("requests_per_second", elapsedSeconds > 0 ? size / elapsedSeconds : 0.0);
+        summary.put("vm_samples_per_second", elapsedSeconds > 0 ? vmSamples / elapsedSeconds : 0.0);
+        summary.put("latency_p50_ms", percentileMillis(sorted, 0.50));
+        summary.put("latency_p90_ms", percentileMillis(sorted, 0.90));
+        summary.put("latency_p99_ms", percentileMillis(sorted, 0.99));
+        summary.put("latency_max_ms", sorted.length == 0 ? 0.0 : sorted[sorted.length - 1] / 1_000_000.0);
+        return summary;
+    }
+
+    private static double percentileMillis(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int index = Math.min(sorted.length - 1, (int) Math.ceil(fraction * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,250 @@
+package hu.digital_twin.loadgen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Terhelésgeneráló: rögzített RequestData kérések (JSON sorok) visszajátszása a /simulator/request végpontra.
+ * - minden tenant a teljes felvételt játssza le, egymáshoz képest egy küldési intervallumon belül eltolva,
+ * - az időpontok a felvétel szerintiek, a speedup-pal tömörítve (pl. 100 = százszoros sebesség),
+ * - egyszerre legfeljebb concurrency kérés fut; ha mind foglalt, a küldés késik (ez a késleltetésben megjelenik),
+ * - a REQUEST FUTURE BEHAVIOUR kérésekre a válasz csak a szimulációk lefutása és az eredmények kézbesítése
+ *   után érkezik, így ezek késleltetése a teljes átfutási idő; a kézbesítéseket a beépített fogadó számolja.
+ * A végén jelentés készül: típusonként áteresztőképesség és késleltetés percentilisek.
+ *
+ * Használat: mvn -f load-generator/pom.xml compile exec:java -Dexec.args="--input updates.jsonl --speedup 100"
+ */
+public class LoadGenerator {
+
+    static final String REQUEST_PATH = "/simulator/request";
+
+    private static final String FUTURE_BEHAVIOUR = "REQUEST FUTURE BEHAVIOUR";
+
+    private final ReplayOptions options;
+    private final List<RecordedRequest> recording;
+    private final HttpClient client;
+
+    // Kéréstípusonkénti eredmények
+    private final Map<String, LatencyStats> stats = new ConcurrentHashMap<>();
+
+    public LoadGenerator(ReplayOptions options, List<RecordedRequest> recording) {
+        this.options = options;
+        this.recording = recording;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        ReplayOptions options;
+        try {
+            options = ReplayOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(ReplayOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+
+        List<RecordedRequest> recording = RecordedRequest.load(options.getInput(), options.getIntervalMillis());
+        if (recording.isEmpty()) {
+            System.err.println("No requests in " + options.getInput());
+            System.exit(2);
+            return;
+        }
+
+        ReceiverStub receiver = options.getReceiverPort() > 0 ? new ReceiverStub(options.getReceiverPort()) : null;
+        try {
+            Map<String, Object> report = new LoadGenerator(options, recording).run(receiver);
+            System.out.println(format(report));
+            if (options.getReport() != null) {
+                new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                        .writeValue(options.getReport().toFile(), report);
+            }
+        } finally {
+            if (receiver != null) {
+                receiver.close();
+            }
+        }
+    }
+
+    /**
+     * A visszajátszás futtatása; a visszatérés a jelentés (snake_case kulcsokkal, mint az alkalmazás stats végpontjai).
+     */
+    public Map<String, Object> run(ReceiverStub receiver) throws InterruptedException {
+        List<String> tenants = options.getTenants().isEmpty() ? Collections.singletonList(null) : options.getTenants();
+        double speedup = options.getSpeedup();
+        long recordingMillis = recording.get(recording.size() - 1).offsetMillis() + options.getIntervalMillis();
+        // A tenantok egyenletesen elosztva indulnak egy küldési intervallumon belül, hogy ne egyszerre küldjenek
+        long staggerMillis = tenants.size() > 1 ? options.getIntervalMillis() / tenants.size() : 0;
+
+        // Tenantonként egy kurzor a felvételen; mindig a legkorábban esedékes kérés megy ki
+        PriorityQueue<Cursor> due = new PriorityQueue<>((a, b) -> Long.compare(a.dueMillis(), b.dueMillis()));
+        for (int i = 0; i < tenants.size(); i++) {
+            Cursor cursor = new Cursor(tenants.get(i), i * staggerMillis);
+            cursor.dueMillis = cursor.startMillis + recording.get(0).offsetMillis();
+            due.add(cursor);
+        }
+
+        Semaphore inFlight = new Semaphore(options.getConcurrency());
+        ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+        long maxLagNanos = 0;
+        long startNanos = System.nanoTime();
+        while (!due.isEmpty()) {
+            Cursor cursor = due.poll();
+            RecordedRequest request = recording.get(cursor.index);
+            long intendedNanos = startNanos + (speedup > 0 ? (long) (cursor.dueMillis * 1_000_000L / speedup) : 0);
+
+            // Várakozás a tervezett időpontig, majd egy szabad kérés helyre
+            long waitNanos;
+            while ((waitNanos = intendedNanos - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(waitNanos);
+            }
+            inFlight.acquire();
+            if (speedup > 0) {
+                maxLagNanos = Math.max(maxLagNanos, System.nanoTime() - intendedNanos);
+            }
+            String tenant = cursor.tenant;
+            long intended = speedup > 0 ? intendedNanos : System.nanoTime();
+            senders.execute(() -> {
+                try {
+                    send(tenant, request, intended);
+                } finally {
+                    inFlight.release();
+                }
+            });
+
+            if (cursor.advance(recording, options.getLoops(), recordingMillis)) {
+                due.add(cursor);
+            }
+        }
+        senders.shutdown();
+        senders.awaitTermination(options.getTimeoutSeconds() + 60, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("target", options.getTarget() + REQUEST_PATH);
+        report.put("tenants", options.getTenants().size());
+        report.put("recorded_requests", recording.size());
+        report.put("loops", options.getLoops());
+        report.put("speedup", speedup);
+        report.put("concurrency", options.getConcurrency());
+        report.put("elapsed_seconds", elapsedSeconds);
+        report.put("max_dispatch_lag_ms", maxLagNanos / 1_000_000.0);
+        Map<String, Object> byType = new LinkedHashMap<>();
+        stats.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> byType.put(entry.getKey(), entry.getValue().summary(elapsedSeconds)));
+        report.put("by_request_type", byType);
+        if (receiver != null) {
+            report.put("receiver", receiver.summary());
+        }
+        return report;
+    }
+
+    // Egy kérés elküldése; a késleltetés a tervezett időponttól a válasz megérkezéséig tart
+    private void send(String tenant, RecordedRequest request, long intendedNanos) {
+        LatencyStats typeStats = stats.computeIfAbsent(request.requestType(), type -> new LatencyStats());
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(options.getTarget() + REQUEST_PATH))
+                .timeout(Duration.ofSeconds(options.getTimeoutSeconds()))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(request.body()));
+        if (tenant != null) {
+            builder.header("X-Tenant-ID", tenant);
+        }
+        try {
+            HttpResponse<Void> response = client.send(builder.build(), HttpResponse.BodyHandlers.discarding());
+            long latency = System.nanoTime() - intendedNanos;
+            int status = response.statusCode();
+            if (status == 429) {
+                typeStats.recordRejected();
+            } else if (status >= 200 && status < 300) {
+                typeStats.recordSuccess(latency, "UPDATE".equals(request.requestType()) ? request.vmCount() : 0);
+            } else {
+                typeStats.recordError();
+            }
+        } catch (IOException e) {
+            typeStats.recordError();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            typeStats.recordError();
+        }
+    }
+
+    // A jelentés olvasható, táblázatos formában
+    @SuppressWarnings("unchecked")
+    static String format(Map<String, Object> report) {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("target %s | tenants %s | requests %s x %s loops | speedup %s | concurrency %s%n",
+                report.get("target"), report.get("tenants"), report.get("recorded_requests"), report.get("loops"),
+                report.get("speedup"), report.get("concurrency")));
+        text.append(String.format("elapsed %.1f s | max dispatch lag %.1f ms%n",
+                (Double) report.get("elapsed_seconds"), (Double) report.get("max_dispatch_lag_ms")));
+        Map<String, Map<String, Object>> byType = (Map<String, Map<String, Object>>) report.get("by_request_type");
+        for (Map.Entry<String, Map<String, Object>> entry : byType.entrySet()) {
+            Map<String, Object> s = entry.getValue();
+            text.append(String.format("%-26s ok %7d  429 %5d  err %5d | %8.1f req/s %9.1f vm/s | "
+                            + "p50 %8.1f  p90 %8.1f  p99 %8.1f  max %8.1f ms%n",
+                    FUTURE_BEHAVIOUR.equals(entry.getKey()) ? entry.getKey() + " (e2e)" : entry.getKey(),
+                    s.get("succeeded"), s.get("rejected"), s.get("errors"),
+                    s.get("requests_per_second"), s.get("vm_samples_per_second"),
+                    s.get("latency_p50_ms"), s.get("latency_p90_ms"), s.get("latency_p99_ms"), s.get("latency_max_ms")));
+        }
+        if (report.get("receiver") instanceof Map<?, ?> receiver) {
+            text.append(String.format("receiver %s deliveries, %s bytes%n", receiver.get("deliveries"), receiver.get("bytes")));
+        }
+        return text.toString();
+    }
+
+    // Egy tenant helye a felvételben: a következő kérés indexe, az ismétlés és az esedékesség (felvételbeli ms)
+    private static final class Cursor {
+        private final String tenant;
+        private final long startMillis;
+        private int index = 0;
+        private int loop = 0;
+        private long dueMillis;
+
+        Cursor(String tenant, long startMillis) {
+            this.tenant = tenant;
+            this.startMillis = startMillis;
+        }
+
+        long dueMillis() {
+            return dueMillis;
+        }
+
+        // Továbblépés a következő kérésre; false, ha a tenant végzett az összes ismétléssel
+        boolean advance(List<RecordedRequest> recording, int loops, long recordingMillis) {
+            index++;
+            if (index == recording.size()) {
+                index = 0;
+                loop++;
+                if (loop == loops) {
+                    return false;
+                }
+            }
+            dueMillis = startMillis + loop * recordingMillis + recording.get(index).offsetMillis();
+            return true;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package hu.digital_twin.loadgen;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A Dummy App eredményfogadó végpontjának (http://localhost:8082/dummy/receiveData) helyettesítője,
+ * hogy a REQUEST FUTURE BEHAVIOUR kérések szimulációs eredményei a Dummy App nélkül is kézbesíthetők legyenek.
+ * Csak megszámolja a kézbesítéseket és a bájtokat, a tartalmat eldobja.
+ */
+public class ReceiverStub implements AutoCloseable {
+
+    static final String PATH = "/dummy/receiveData";
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final AtomicLong deliveries = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+
+    public ReceiverStub(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(port), 128);
+        server.createContext(PATH, this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        long received = 0;
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                received += read;
+            }
+        }
+        bytes.addAndGet(received);
+        deliveries.incrementAndGet();
+        exchange.sendResponseHeaders(200, -1);
+        exchange.close();
+    }
+
+    public Map<String, Object> summary() {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("deliveries", deliveries.get());
+        summary.put("bytes", bytes.get());
+        return summary;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
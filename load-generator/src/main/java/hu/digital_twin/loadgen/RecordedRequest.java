@@ -0,0 +1,94 @@
+package hu.digital_twin.loadgen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Egy rögzített kérés: a változatlanul visszaküldött törzs, a típusa, a VM-ek száma
+ * és a felvétel kezdetéhez képesti időpontja.
+ *
+ * @param body a kérés JSON törzse (UTF-8)
+ * @param requestType a kérés típusa (UPDATE, REQUEST FUTURE BEHAVIOUR, ...)
+ * @param vmCount a kérésben szereplő VM-ek száma
+ * @param offsetMillis az időpont a felvétel első kéréséhez képest
+ */
+public record RecordedRequest(byte[] body, String requestType, int vmCount, long offsetMillis) {
+
+    // A RequestData timestamp formátuma
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * A felvétel beolvasása (soronként egy RequestData JSON, az üres sorok kimaradnak).
+     * Az időpontok a timestamp mezőből jönnek; ha ez hiányzik vagy nem növekvő, az előző kérés után
+     * intervalMillis-szel következik (a Dummy App alapértelmezett küldési üteme 5 másodperc).
+     *
+     * @throws IllegalArgumentException ha egy sor nem érvényes JSON objektum
+     */
+    public static List<RecordedRequest> load(Path path, long intervalMillis) throws IOException {
+        List<RecordedRequest> requests = new ArrayList<>();
+        Long firstMillis = null;
+        long previousOffset = -intervalMillis;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonNode node;
+                try {
+                    node = MAPPER.readTree(line);
+                } catch (IOException e) {
+                    throw new IllegalArgumentException("Invalid JSON on line " + lineNumber + ": " + e.getMessage());
+                }
+                if (node == null || !node.isObject()) {
+                    throw new IllegalArgumentException("Line " + lineNumber + " is not a JSON object");
+                }
+
+                String requestType = node.path("requestType").asText("UNKNOWN").toUpperCase();
+                JsonNode vmData = node.path("vmData");
+                int vmCount = vmData.isArray() ? vmData.size() : node.path("vmsCount").asInt(0);
+
+                long offset = previousOffset + intervalMillis;
+                Long epochMillis = parseTimestamp(node.path("timestamp").asText(null));
+                if (epochMillis != null) {
+                    if (firstMillis == null) {
+                        firstMillis = epochMillis - Math.max(0, offset);
+                    }
+                    if (epochMillis - firstMillis >= previousOffset) {
+                        offset = epochMillis - firstMillis;
+                    }
+                }
+                previousOffset = offset;
+                requests.add(new RecordedRequest(line.getBytes(StandardCharsets.UTF_8), requestType, vmCount, offset));
+            }
+        }
+        return requests;
+    }
+
+    private static Long parseTimestamp(String timestamp) {
+        if (timestamp == null || timestamp.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(timestamp.replace('T', ' '), TIMESTAMP_FORMAT).toEpochSecond(ZoneOffset.UTC) * 1000;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
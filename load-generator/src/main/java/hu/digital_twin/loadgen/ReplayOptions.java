@@ -0,0 +1,96 @@
+package hu.digital_twin.loadgen;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A visszajátszás parancssori beállításai.
+ */
+public class ReplayOptions {
+
+    static final String USAGE = """
+            Usage: LoadGenerator --input <requests.jsonl> [options]
+              --input <file>            rögzített RequestData JSON sorok (soronként egy kérés)
+              --target <url>            a Digital Twin App címe (alapértelmezés: http://localhost:8080)
+              --tenants <a,b,...>       a tenantok (X-Tenant-ID), mindegyik a teljes felvételt játssza vissza
+              --tenant-count <n>        n darab tenant: <tenant-prefix>0 ... <tenant-prefix>(n-1)
+              --tenant-prefix <p>       a generált tenant nevek előtagja (alapértelmezés: tenant-)
+              --speedup <x>             időtömörítés, pl. 100 = százszoros sebesség; 0 = amilyen gyorsan csak lehet
+              --concurrency <n>         egyszerre futó kérések maximális száma (alapértelmezés: 16)
+              --loops <n>               a felvétel ismétléseinek száma (alapértelmezés: 1)
+              --interval-ms <ms>        két kérés közötti idő, ha a felvételben nincs timestamp (alapértelmezés: 5000)
+              --timeout-seconds <s>     kérésenkénti időkorlát (alapértelmezés: 600)
+              --receiver-port <port>    a beépített eredményfogadó portja, 0 = kikapcsolva (alapértelmezés: 8082)
+              --report <file>           a jelentés JSON-ként is ide kerül
+            """;
+
+    private Path input;
+    private String target = "http://localhost:8080";
+    private List<String> tenants = new ArrayList<>();
+    private double speedup = 1.0;
+    private int concurrency = 16;
+    private int loops = 1;
+    private long intervalMillis = 5000;
+    private long timeoutSeconds = 600;
+    private int receiverPort = 8082;
+    private Path report;
+
+    /**
+     * A parancssori argumentumok feldolgozása.
+     *
+     * @throws IllegalArgumentException hiányzó vagy hibás argumentum esetén
+     */
+    public static ReplayOptions parse(String[] args) {
+        ReplayOptions options = new ReplayOptions();
+        int tenantCount = 0;
+        String tenantPrefix = "tenant-";
+        for (int i = 0; i < args.length; i++) {
+            String name = args[i];
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value for " + name);
+            }
+            String value = args[++i];
+            switch (name) {
+                case "--input" -> options.input = Path.of(value);
+                case "--target" -> options.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                case "--tenants" -> options.tenants = new ArrayList<>(Arrays.asList(value.split(",")));
+                case "--tenant-count" -> tenantCount = Integer.parseInt(value);
+                case "--tenant-prefix" -> tenantPrefix = value;
+                case "--speedup" -> options.speedup = Double.parseDouble(value);
+                case "--concurrency" -> options.concurrency = Integer.parseInt(value);
+                case "--loops" -> options.loops = Integer.parseInt(value);
+                case "--interval-ms" -> options.intervalMillis = Long.parseLong(value);
+                case "--timeout-seconds" -> options.timeoutSeconds = Long.parseLong(value);
+                case "--receiver-port" -> options.receiverPort = Integer.parseInt(value);
+                case "--report" -> options.report = Path.of(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + name);
+            }
+        }
+        for (int i = 0; i < tenantCount; i++) {
+            options.tenants.add(tenantPrefix + i);
+        }
+        options.tenants.removeIf(String::isBlank);
+
+        if (options.input == null) {
+            throw new IllegalArgumentException("--input is required");
+        }
+        if (options.speedup < 0 || options.concurrency < 1 || options.loops < 1 || options.intervalMillis < 0) {
+            throw new IllegalArgumentException("--speedup, --concurrency, --loops and --interval-ms must be positive");
+        }
+        return options;
+    }
+
+    public Path getInput() { return input; }
+    public String getTarget() { return target; }
+    // Üres lista esetén nem kerül X-Tenant-ID fejléc a kérésekbe (alapértelmezett tenant)
+    public List<String> getTenants() { return tenants; }
+    public double getSpeedup() { return speedup; }
+    public int getConcurrency() { return concurrency; }
+    public int getLoops() { return loops; }
+    public long getIntervalMillis() { return intervalMillis; }
+    public long getTimeoutSeconds() { return timeoutSeconds; }
+    public int getReceiverPort() { return receiverPort; }
+    public Path getReport() { return report; }
+}
@@ -1,29 +1,36 @@
 package hu.digital_twin.config;
 
+import hu.digital_twin.context.TenantContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
 import javax.sql.DataSource;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.HashMap;
 
 // Konfigurációs osztály az adatforrások kezeléséhez több-bérlős környezetben
+// Tenantonként egy író (egy kapcsolat) és egy olvasó pool tartozik, WAL módban; a csak olvasó
+// tranzakciók (pl. JPA lekérdezések, readOnly TransactionTemplate) az olvasó poolból kapnak kapcsolatot.
+// A tenant adatforrásokat a TenantDataSourceRegistry nyitja meg, tartja nyilván és zárja le.
 @Configuration
 public class DataSourceConfig {
-    private final Map<Object, Object> dataSources = new ConcurrentHashMap<>();
+
+    private final TenantDataSourceRegistry registry;
+
+    public DataSourceConfig(TenantDataSourceRegistry registry) {
+        this.registry = registry;
+    }
 
     // Spring Bean létrehozása az alapértelmezett DataSource-hoz (ez lesz a routing datasource)
     @Bean
     public DataSource dataSource() {
         // Létrehoz egy speciális DataSource-t, amely képes bérlő szerint váltani (routing)
-        TenantRoutingDataSource routingDataSource = new TenantRoutingDataSource();
+        TenantRoutingDataSource routingDataSource = new TenantRoutingDataSource(registry);
 
-        // Beállítja az összes elérhető tenant adatforrást (jelenlegi üres vagy bővülő)
-        routingDataSource.setTargetDataSources(dataSources);
+        // A tenantok a nyilvántartásból jönnek, a routing map üres marad (és nem kell újraépíteni)
+        routingDataSource.setTargetDataSources(new HashMap<>());
 
-        // Beállítja az alapértelmezett adatforrást (ha nincs tenant kiválasztva)
-        routingDataSource.setDefaultTargetDataSource(createAndRegister("default"));
+        // Az alapértelmezett tenant már induláskor megnyílik
+        routingDataSource.setDefaultTargetDataSource(createAndRegister(TenantContext.DEFAULT_TENANT));
 
         // Frissíti a routing datasource belső állapotát
         routingDataSource.afterPropertiesSet();
@@ -32,31 +39,8 @@ public class DataSourceConfig {
         return routingDataSource;
     }
 
-    // Tenant-hez tartozó adatbázis létrehozása és regisztrálása, ha még nem létezik
-    public synchronized DataSource createAndRegister(String tenantId) {
-        // Csak akkor hoz létre új DataSource-t, ha még nincs ilyen tenant regisztrálva
-        if (!dataSources.containsKey(tenantId)) {
-            // SQLite adatbázis elérési útjának összeállítása tenant ID alapján
-            String url = "jdbc:sqlite:src/main/resources/db/" + tenantId + ".db";
-
-            // Létrehoz egy új SQLite DataSource-t
-            DriverManagerDataSource ds = new DriverManagerDataSource();
-            ds.setDriverClassName("org.sqlite.JDBC");
-            ds.setUrl(url);
-
-            // Inicializálja az adatbázis sémát (táblák, stb.)
-            SchemaInitializer.initializeSchema(ds);
-
-            // Hozzáadja az új DataSource-t a tárolóhoz
-            dataSources.put(tenantId, ds);
-
-            // Frissíti a TenantRoutingDataSource adatforrásait a bővített Map-el
-            ((TenantRoutingDataSource) dataSource()).setTargetDataSources(dataSources);
-
-            // Újrainicializálja a routing datasource-t, hogy felismerje az új tenantot
-            ((TenantRoutingDataSource) dataSource()).afterPropertiesSet();
-        }
-        // Visszatér a meglévő vagy frissen létrehozott tenant DataSource-szal
-        return (DataSource) dataSources.get(tenantId);
+    // Tenant-hez tartozó adatbázis megnyitása (első használatkor) és visszaadása; zárolás nélkül
+    public DataSource createAndRegister(String tenantId) {
+        return registry.get(tenantId);
     }
 }
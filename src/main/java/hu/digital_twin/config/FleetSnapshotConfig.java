@@ -0,0 +1,18 @@
+package hu.digital_twin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties("fleet-snapshot")
+@Component
+public class FleetSnapshotConfig {
+    // A legutóbbi flottaállapot memóriában tartása tenantonként (kikapcsolva minden olvasás az adatbázisból jön)
+    private boolean enabled = true;
+    // Az összes tenant pillanatképének becsült memóriakerete bájtban; efölött a legrégebben használt törlődik
+    private long maxBytes = 64L * 1024 * 1024;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public long getMaxBytes() { return maxBytes; }
+    public void setMaxBytes(long maxBytes) { this.maxBytes = maxBytes; }
+}
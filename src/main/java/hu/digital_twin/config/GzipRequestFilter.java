@@ -0,0 +1,150 @@
+package hu.digital_twin.config;
+
+import hu.digital_twin.exception.RequestBodyTooLargeException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.zip.GZIPInputStream;
+
+// Szűrő, amely a "Content-Encoding: gzip" fejlécű kérések törzsét menet közben kitömöríti,
+// így a controllerek és a streaming parser tömörítetlen adatot látnak.
+// A kitömörített méret korlátos (ingest.max-inflated-bytes), a túllépés RequestBodyTooLargeException (413)
+@Component
+public class GzipRequestFilter extends OncePerRequestFilter {
+
+    private final IngestConfig ingestConfig;
+
+    public GzipRequestFilter(IngestConfig ingestConfig) {
+        this.ingestConfig = ingestConfig;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+
+        // Csak gzip kódolású kérések esetén csomagoljuk be a kérést
+        if (encoding != null && encoding.trim().equalsIgnoreCase("gzip")) {
+            filterChain.doFilter(new GzipRequestWrapper(request, ingestConfig.getMaxInflatedBytes()), response);
+        } else {
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    // Kéréscsomagoló, amely a törzset GZIPInputStream-en keresztül adja vissza
+    private static class GzipRequestWrapper extends HttpServletRequestWrapper {
+
+        private final long maxInflatedBytes;
+        private ServletInputStream inputStream;
+
+        GzipRequestWrapper(HttpServletRequest request, long maxInflatedBytes) {
+            super(request);
+            this.maxInflatedBytes = maxInflatedBytes;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = new GzipServletInputStream(new GZIPInputStream(super.getInputStream()), maxInflatedBytes);
+            }
+            return inputStream;
+        }
+
+        // A kitömörített törzs hossza előre nem ismert
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1L;
+        }
+
+        // A Content-Encoding fejlécet elrejtjük, mert a törzs már tömörítetlen
+        @Override
+        public String getHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    ? Collections.emptyEnumeration()
+                    : super.getHeaders(name);
+        }
+    }
+
+    // ServletInputStream adapter egy tetszőleges InputStream köré, a kiolvasott bájtok korlátozásával (gzip bomba ellen)
+    private static class GzipServletInputStream extends ServletInputStream {
+
+        private final InputStream delegate;
+        private final long maxBytes;
+        private long readBytes = 0;
+        private boolean finished = false;
+
+        GzipServletInputStream(InputStream delegate, long maxBytes) {
+            this.delegate = delegate;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = delegate.read();
+            finished = value < 0;
+            if (!finished) {
+                count(1);
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = delegate.read(buffer, offset, length);
+            finished = count < 0;
+            if (!finished) {
+                count(count);
+            }
+            return count;
+        }
+
+        private void count(int bytes) throws RequestBodyTooLargeException {
+            readBytes += bytes;
+            if (readBytes > maxBytes) {
+                throw new RequestBodyTooLargeException("Inflated request body exceeds " + maxBytes + " bytes");
+            }
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            throw new UnsupportedOperationException("Non-blocking reads are not supported for gzip request bodies");
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package hu.digital_twin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties("ingest")
+@Component
+public class IngestConfig {
+    // Streaming beolvasásnál egy darabban a spool fájlba írt, majd onnan egy JDBC batch-ben mentett VmData elemek száma
+    private int chunkSize = 500;
+    // A gzip tömörített kérés törzs kitömörített méretének felső korlátja bájtban, efölött 413 a válasz
+    private long maxInflatedBytes = 268_435_456L;
+    // Egy streamelt kérés törzsének beolvasására fordítható teljes idő, utána 408 a válasz
+    private long readTimeoutMs = 30_000;
+    // Egy kérésben elfogadott VM adatok maximális száma (streamelt mentésnél a spool fájl, aszinkron sorba állításnál
+    // és jobnál a memóriában tartott lista korlátja), efölött 413
+    private int maxRequestVms = 100_000;
+    // Aszinkron (write-behind) mentés: az UPDATE kérések sorba kerülnek és 202-vel nyugtázódnak
+    private boolean asyncEnabled = false;
+    // Tenantonkénti sor maximális mérete (kérésben), efölött 429 a válasz
+    private int queueCapacity = 10_000;
+    // Tenantonként a sorban lévő VM rekordok maximális száma, efölött 429 a válasz
+    private int queueMaxVms = 500_000;
+    // Egy mentési körben kiírt kérések maximális száma
+    private int flushSize = 200;
+    // Két időzített ürítés közötti idő milliszekundumban
+    private long flushIntervalMs = 1000;
+    // Egy batch mentésének próbálkozásai; utána a kérések egyenként mentődnek, a hibásak a dead-letter fájlba kerülnek
+    private int maxFlushAttempts = 3;
+    // A nem menthető kérések könyvtára (tenantonként egy JSON Lines fájl)
+    private String deadLetterDir = "dead-letter";
+
+    public int getChunkSize() { return chunkSize; }
+    public void setChunkSize(int chunkSize) { this.chunkSize = chunkSize; }
+    public long getMaxInflatedBytes() { return maxInflatedBytes; }
+    public void setMaxInflatedBytes(long maxInflatedBytes) { this.maxInflatedBytes = maxInflatedBytes; }
+    public long getReadTimeoutMs() { return readTimeoutMs; }
+    public void setReadTimeoutMs(long readTimeoutMs) { this.readTimeoutMs = readTimeoutMs; }
+    public int getMaxRequestVms() { return maxRequestVms; }
+    public void setMaxRequestVms(int maxRequestVms) { this.maxRequestVms = maxRequestVms; }
+    public boolean isAsyncEnabled() { return asyncEnabled; }
+    public void setAsyncEnabled(boolean asyncEnabled) { this.asyncEnabled = asyncEnabled; }
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    public int getQueueMaxVms() { return queueMaxVms; }
+    public void setQueueMaxVms(int queueMaxVms) { this.queueMaxVms = queueMaxVms; }
+    public int getFlushSize() { return flushSize; }
+    public void setFlushSize(int flushSize) { this.flushSize = flushSize; }
+    public long getFlushIntervalMs() { return flushIntervalMs; }
+    public void setFlushIntervalMs(long flushIntervalMs) { this.flushIntervalMs = flushIntervalMs; }
+    public int getMaxFlushAttempts() { return maxFlushAttempts; }
+    public void setMaxFlushAttempts(int maxFlushAttempts) { this.maxFlushAttempts = maxFlushAttempts; }
+    public String getDeadLetterDir() { return deadLetterDir; }
+    public void setDeadLetterDir(String deadLetterDir) { this.deadLetterDir = deadLetterDir; }
+}
@@ -0,0 +1,55 @@
+package hu.digital_twin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties("prediction")
+@Component
+public class PredictionConfig {
+    // oneshot: hívásonként új Python folyamat; worker: előre indított, hosszan futó Python workerek
+    public enum Mode { ONESHOT, WORKER }
+
+    // A Python értelmező parancsa
+    private String pythonCommand = "python";
+    // A predikciós szkript elérési útja
+    private String scriptPath = "src/main/resources/scripts/prediction_new.py";
+    // Egy predikciós hívás maximális ideje másodpercben, utána a folyamat leállításra kerül
+    private long timeoutSeconds = 300;
+    // lr és arima modellek Java-ban, Python folyamat nélkül (a többi modell továbbra is Pythonban fut);
+    // az egyezést a Python eredményekkel a ForecasterGoldenTest ellenőrzi (arima esetén a statsmodels-szel
+    // előállított referencia értékek kellenek hozzá), addig alapból ki van kapcsolva
+    private boolean nativeForecasting = false;
+    // Predikció futtatási módja; worker módban indítási hiba esetén a oneshot mód a tartalék
+    private Mode mode = Mode.WORKER;
+    // A hosszan futó worker szkript elérési útja
+    private String workerScriptPath = "src/main/resources/scripts/prediction_worker.py";
+    // Az előre indított Python workerek száma
+    private int workerPoolSize = 2;
+    // Egyszerre futó predikciók maximális száma (a többi hívó addig vár)
+    private int maxConcurrentCalls = 2;
+    // A worker indulására (importok betöltésére) szánt idő másodpercben
+    private long workerStartTimeoutSeconds = 120;
+    // A szabad workerek állapotellenőrzésének gyakorisága másodpercben
+    private long healthCheckIntervalSeconds = 30;
+
+    public String getPythonCommand() { return pythonCommand; }
+    public void setPythonCommand(String pythonCommand) { this.pythonCommand = pythonCommand; }
+    public String getScriptPath() { return scriptPath; }
+    public void setScriptPath(String scriptPath) { this.scriptPath = scriptPath; }
+    public long getTimeoutSeconds() { return timeoutSeconds; }
+    public void setTimeoutSeconds(long timeoutSeconds) { this.timeoutSeconds = timeoutSeconds; }
+    public boolean isNativeForecasting() { return nativeForecasting; }
+    public void setNativeForecasting(boolean nativeForecasting) { this.nativeForecasting = nativeForecasting; }
+    public Mode getMode() { return mode; }
+    public void setMode(Mode mode) { this.mode = mode; }
+    public String getWorkerScriptPath() { return workerScriptPath; }
+    public void setWorkerScriptPath(String workerScriptPath) { this.workerScriptPath = workerScriptPath; }
+    public int getWorkerPoolSize() { return workerPoolSize; }
+    public void setWorkerPoolSize(int workerPoolSize) { this.workerPoolSize = workerPoolSize; }
+    public int getMaxConcurrentCalls() { return maxConcurrentCalls; }
+    public void setMaxConcurrentCalls(int maxConcurrentCalls) { this.maxConcurrentCalls = maxConcurrentCalls; }
+    public long getWorkerStartTimeoutSeconds() { return workerStartTimeoutSeconds; }
+    public void setWorkerStartTimeoutSeconds(long workerStartTimeoutSeconds) { this.workerStartTimeoutSeconds = workerStartTimeoutSeconds; }
+    public long getHealthCheckIntervalSeconds() { return healthCheckIntervalSeconds; }
+    public void setHealthCheckIntervalSeconds(long healthCheckIntervalSeconds) { this.healthCheckIntervalSeconds = healthCheckIntervalSeconds; }
+}
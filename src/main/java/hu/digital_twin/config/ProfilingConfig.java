@@ -0,0 +1,31 @@
+package hu.digital_twin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties("profiling")
+@Component
+public class ProfilingConfig {
+    // A JFR felvétel végpontok engedélyezése (kikapcsolva a végpontok 404-et adnak); a végpontok hitelesítés
+    // nélküliek, ezért alapból ki vannak kapcsolva
+    private boolean enabled = false;
+    // A letöltött .jfr fájlok könyvtára
+    private String recordingDirectory = "recordings";
+    // A JFR beállítás készlet: default (kb. 1% többlet) vagy profile (részletesebb, kb. 2%)
+    private String settings = "default";
+    // A felvétel legfeljebb ennyi percig fut, ha nem állítják le (utána a végpont a már rögzített adatot adja)
+    private long maxDurationMinutes = 30;
+    // A felvétel lemezen tartott méretének felső korlátja bájtban (a régebbi adatok törlődnek)
+    private long maxSizeBytes = 256L * 1024 * 1024;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public String getRecordingDirectory() { return recordingDirectory; }
+    public void setRecordingDirectory(String recordingDirectory) { this.recordingDirectory = recordingDirectory; }
+    public String getSettings() { return settings; }
+    public void setSettings(String settings) { this.settings = settings; }
+    public long getMaxDurationMinutes() { return maxDurationMinutes; }
+    public void setMaxDurationMinutes(long maxDurationMinutes) { this.maxDurationMinutes = maxDurationMinutes; }
+    public long getMaxSizeBytes() { return maxSizeBytes; }
+    public void setMaxSizeBytes(long maxSizeBytes) { this.maxSizeBytes = maxSizeBytes; }
+}
@@ -18,5 +18,8 @@ public class SchemaInitializer {
 
         // Lefuttatja a szkriptet a megadott DataSource-on
         populator.execute(dataSource);
+
+        // A meglévő VM adatok átmásolása az idősor táblába (csak az első indításkor)
+        TelemetryMigration.migrate(dataSource);
     }
 }
@@ -0,0 +1,22 @@
+package hu.digital_twin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties("simulation.cache")
+@Component
+public class SimulationCacheConfig {
+    // Szimulációs eredmények gyorsítótárazása azonos bemenet esetén
+    private boolean enabled = true;
+    // A tárolt eredmények maximális száma, efölött a legrégebben használt törlődik (LRU)
+    private int maxEntries = 1000;
+    // Egy eredmény élettartama percben
+    private long ttlMinutes = 30;
+
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+    public int getMaxEntries() { return maxEntries; }
+    public void setMaxEntries(int maxEntries) { this.maxEntries = maxEntries; }
+    public long getTtlMinutes() { return ttlMinutes; }
+    public void setTtlMinutes(long ttlMinutes) { this.ttlMinutes = ttlMinutes; }
+}
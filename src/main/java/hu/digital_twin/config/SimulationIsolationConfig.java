@@ -0,0 +1,47 @@
+package hu.digital_twin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@ConfigurationProperties("simulation.isolation")
+@Component
+public class SimulationIsolationConfig {
+
+    // A szimulációk futtatási módja
+    public enum Mode {
+        // Izoláció nélkül, egymás után, a közös JVM állapoton
+        NONE,
+        // Sandboxonként külön classloader (külön DISSECT-CF állapot), párhuzamosan ugyanabban a JVM-ben
+        CLASSLOADER,
+        // Előre elindított, külön worker JVM-ekben (saját heap, egy összeomlás nem érinti a webalkalmazást)
+        PROCESS
+    }
+
+    private Mode mode = Mode.CLASSLOADER;
+    // Párhuzamosan használható sandboxok, illetve worker JVM-ek száma
+    private int poolSize = 3;
+    // Worker JVM-enkénti maximális heap (-Xmx)
+    private String workerMaxHeap = "512m";
+    // További JVM kapcsolók a worker folyamatoknak
+    private List<String> workerJvmArgs = new ArrayList<>();
+    // Egy worker indulásának (osztálybetöltés, bemelegítés) maximális ideje másodpercben
+    private long workerStartTimeoutSeconds = 60;
+    // Egy szimuláció maximális futásideje worker módban másodpercben, utána a worker újraindul
+    private long workerTaskTimeoutSeconds = 600;
+
+    public Mode getMode() { return mode; }
+    public void setMode(Mode mode) { this.mode = mode; }
+    public int getPoolSize() { return poolSize; }
+    public void setPoolSize(int poolSize) { this.poolSize = poolSize; }
+    public String getWorkerMaxHeap() { return workerMaxHeap; }
+    public void setWorkerMaxHeap(String workerMaxHeap) { this.workerMaxHeap = workerMaxHeap; }
+    public List<String> getWorkerJvmArgs() { return workerJvmArgs; }
+    public void setWorkerJvmArgs(List<String> workerJvmArgs) { this.workerJvmArgs = workerJvmArgs; }
+    public long getWorkerStartTimeoutSeconds() { return workerStartTimeoutSeconds; }
+    public void setWorkerStartTimeoutSeconds(long workerStartTimeoutSeconds) { this.workerStartTimeoutSeconds = workerStartTimeoutSeconds; }
+    public long getWorkerTaskTimeoutSeconds() { return workerTaskTimeoutSeconds; }
+    public void setWorkerTaskTimeoutSeconds(long workerTaskTimeoutSeconds) { this.workerTaskTimeoutSeconds = workerTaskTimeoutSeconds; }
+}
@@ -0,0 +1,45 @@
+package hu.digital_twin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@ConfigurationProperties("simulation.jobs")
+@Component
+public class SimulationJobConfig {
+    // Várakozó (még el nem indult) szimulációs jobok maximális száma, efölött 429 a válasz
+    private int queueCapacity = 32;
+    // Egy tenant egyszerre legfeljebb ennyi várakozó jobot tarthat, hogy ne töltse meg egyedül a sort
+    private int tenantQueueCapacity = 8;
+    // Egyszerre futó jobok száma; 0 esetén a szimulációs kapacitásból számolva (izoláció módja és pool mérete)
+    private int maxConcurrent = 0;
+    // Tenantonkénti súlyok a fair ütemezéshez (alapértelmezés 1), pl. simulation.jobs.tenant-weights.tenantA=3
+    private Map<String, Integer> tenantWeights = new HashMap<>();
+    // Alapértelmezett határidő milliszekundumban: ennyi idő után a még el nem indult job nem fut le
+    private long defaultDeadlineMs = 600_000;
+    // A várakozó jobok határidejének ellenőrzése ennyi milliszekundumonként (a lejártak onExpired-del zárulnak)
+    private long deadlineSweepIntervalMs = 1000;
+    // Long-poll lekérdezés maximális várakozási ideje milliszekundumban
+    private long maxWaitMs = 30_000;
+    // Befejezett jobok megőrzési ideje percben, utána törlődnek
+    private long retentionMinutes = 60;
+
+    public int getQueueCapacity() { return queueCapacity; }
+    public void setQueueCapacity(int queueCapacity) { this.queueCapacity = queueCapacity; }
+    public int getTenantQueueCapacity() { return tenantQueueCapacity; }
+    public void setTenantQueueCapacity(int tenantQueueCapacity) { this.tenantQueueCapacity = tenantQueueCapacity; }
+    public int getMaxConcurrent() { return maxConcurrent; }
+    public void setMaxConcurrent(int maxConcurrent) { this.maxConcurrent = maxConcurrent; }
+    public Map<String, Integer> getTenantWeights() { return tenantWeights; }
+    public void setTenantWeights(Map<String, Integer> tenantWeights) { this.tenantWeights = tenantWeights; }
+    public long getDefaultDeadlineMs() { return defaultDeadlineMs; }
+    public void setDefaultDeadlineMs(long defaultDeadlineMs) { this.defaultDeadlineMs = defaultDeadlineMs; }
+    public long getDeadlineSweepIntervalMs() { return deadlineSweepIntervalMs; }
+    public void setDeadlineSweepIntervalMs(long deadlineSweepIntervalMs) { this.deadlineSweepIntervalMs = deadlineSweepIntervalMs; }
+    public long getMaxWaitMs() { return maxWaitMs; }
+    public void setMaxWaitMs(long maxWaitMs) { this.maxWaitMs = maxWaitMs; }
+    public long getRetentionMinutes() { return retentionMinutes; }
+    public void setRetentionMinutes(long retentionMinutes) { this.retentionMinutes = retentionMinutes; }
+}
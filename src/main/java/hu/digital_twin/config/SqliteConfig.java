@@ -0,0 +1,34 @@
+package hu.digital_twin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties("sqlite")
+@Component
+public class SqliteConfig {
+    // A tenant adatbázisok könyvtára (tenantonként egy <tenant>.db fájl)
+    private String databaseDirectory = "src/main/resources/db";
+    // Tenantonkénti olvasó kapcsolatok száma (írásra tenantonként egyetlen kapcsolat van)
+    private int readerPoolSize = 4;
+    // Ennyi ideig vár egy hívó szabad kapcsolatra a poolból, milliszekundumban
+    private long connectionTimeoutMs = 30_000;
+    // SQLite busy_timeout: zárolt adatbázis esetén ennyi ideig próbálkozik újra, milliszekundumban
+    private int busyTimeoutMs = 5000;
+    // SQLite cache_size kapcsolatonként, KiB-ban (negatív cache_size pragma értékként kerül beállításra)
+    private int cacheSizeKib = 16_384;
+    // SQLite mmap_size bájtban, 0 esetén nincs memóriába leképezett I/O
+    private long mmapSizeBytes = 268_435_456L;
+
+    public String getDatabaseDirectory() { return databaseDirectory; }
+    public void setDatabaseDirectory(String databaseDirectory) { this.databaseDirectory = databaseDirectory; }
+    public int getReaderPoolSize() { return readerPoolSize; }
+    public void setReaderPoolSize(int readerPoolSize) { this.readerPoolSize = readerPoolSize; }
+    public long getConnectionTimeoutMs() { return connectionTimeoutMs; }
+    public void setConnectionTimeoutMs(long connectionTimeoutMs) { this.connectionTimeoutMs = connectionTimeoutMs; }
+    public int getBusyTimeoutMs() { return busyTimeoutMs; }
+    public void setBusyTimeoutMs(int busyTimeoutMs) { this.busyTimeoutMs = busyTimeoutMs; }
+    public int getCacheSizeKib() { return cacheSizeKib; }
+    public void setCacheSizeKib(int cacheSizeKib) { this.cacheSizeKib = cacheSizeKib; }
+    public long getMmapSizeBytes() { return mmapSizeBytes; }
+    public void setMmapSizeBytes(long mmapSizeBytes) { this.mmapSizeBytes = mmapSizeBytes; }
+}
@@ -0,0 +1,93 @@
+package hu.digital_twin.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Segédosztály a tenantonkénti SQLite kapcsolat poolok létrehozásához
+// - az író pool egyetlen kapcsolat (az SQLite egyszerre úgyis csak egy írót enged, így az írók a poolban várnak),
+// - az olvasó pool több, csak olvasásra (query_only) használt kapcsolat, amelyek WAL módban nem várnak az íróra,
+// - minden új fizikai kapcsolat megkapja a beállított pragmákat (busy_timeout, synchronous, cache_size, mmap_size),
+// - a poolok statisztikái (aktív, tétlen, várakozó kapcsolatok, várakozási idő) a Micrometer registrybe kerülnek
+public class SqlitePoolFactory {
+
+    // Az író pool: egyetlen kapcsolat, amely a fájlt WAL naplózási módba állítja
+    public static HikariDataSource createWriter(String tenantId, String url, SqliteConfig config,
+                                                MeterRegistry meterRegistry) {
+        return createPool("sqlite-writer-" + tenantId, url, 1, pragmas(config, false), config, meterRegistry);
+    }
+
+    // Az olvasó pool: csak olvasható kapcsolatok a csak olvasó tranzakciókhoz
+    public static HikariDataSource createReaders(String tenantId, String url, SqliteConfig config,
+                                                 MeterRegistry meterRegistry) {
+        return createPool("sqlite-reader-" + tenantId, url, Math.max(1, config.getReaderPoolSize()),
+                pragmas(config, true), config, meterRegistry);
+    }
+
+    private static HikariDataSource createPool(String poolName, String url, int size, List<String> pragmas,
+                                               SqliteConfig config, MeterRegistry meterRegistry) {
+        DriverManagerDataSource driver = new DriverManagerDataSource();
+        driver.setDriverClassName("org.sqlite.JDBC");
+        driver.setUrl(url);
+
+        HikariConfig hikari = new HikariConfig();
+        hikari.setPoolName(poolName);
+        hikari.setDataSource(new PragmaDataSource(driver, pragmas));
+        hikari.setMaximumPoolSize(size);
+        hikari.setMinimumIdle(1);
+        hikari.setConnectionTimeout(config.getConnectionTimeoutMs());
+        // A pool lezárásakor (tenant kiléptetése) a metrikái is törlődnek
+        hikari.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+        return new HikariDataSource(hikari);
+    }
+
+    // A kapcsolat megnyitásakor lefuttatott pragmák; a busy_timeout az első, hogy a többi is kivárja a zárat
+    private static List<String> pragmas(SqliteConfig config, boolean readOnly) {
+        List<String> pragmas = new ArrayList<>();
+        pragmas.add("PRAGMA busy_timeout = " + config.getBusyTimeoutMs());
+        if (!readOnly) {
+            // A WAL mód a fájlban megmarad, ezért elég az író kapcsolaton beállítani
+            pragmas.add("PRAGMA journal_mode = WAL");
+        }
+        pragmas.add("PRAGMA synchronous = NORMAL");
+        pragmas.add("PRAGMA cache_size = " + (-Math.abs(config.getCacheSizeKib())));
+        pragmas.add("PRAGMA mmap_size = " + config.getMmapSizeBytes());
+        if (readOnly) {
+            pragmas.add("PRAGMA query_only = 1");
+        }
+        return pragmas;
+    }
+
+    // A Hikari ezen keresztül nyit fizikai kapcsolatot, így a pragmák kapcsolatonként egyszer futnak le
+    private static class PragmaDataSource extends DelegatingDataSource {
+        private final List<String> pragmas;
+
+        PragmaDataSource(DriverManagerDataSource target, List<String> pragmas) {
+            super(target);
+            this.pragmas = pragmas;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = obtainTargetDataSource().getConnection();
+            try (Statement statement = connection.createStatement()) {
+                for (String pragma : pragmas) {
+                    statement.execute(pragma);
+                }
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            return connection;
+        }
+    }
+}
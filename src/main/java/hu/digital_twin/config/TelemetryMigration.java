@@ -0,0 +1,46 @@
+package hu.digital_twin.config;
+
+import hu.digital_twin.model.VmRollupRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+// Egyszeri migráció: a meglévő vm_data sorok átmásolása a vm_telemetry táblába, amíg az még üres,
+// majd a percenkénti és óránkénti összesítések feltöltése, ha azok még hiányoznak
+public class TelemetryMigration {
+
+    // Statikus metódus, amelyet a séma inicializálása után kell futtatni
+    public static void migrate(DataSource dataSource) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+        // Ha már van telemetria, a migráció korábban lefutott (vagy a tenant új)
+        if (jdbcTemplate.queryForList("SELECT 1 FROM vm_telemetry LIMIT 1").size() > 0) {
+            migrateRollups(jdbcTemplate);
+            return;
+        }
+
+        // A régi (Hibernate által generált) adatbázisokban a data_since_last_save oszlop hiányozhat
+        List<String> columns = jdbcTemplate.queryForList("SELECT name FROM pragma_table_info('vm_data')", String.class);
+        String dataSinceLastSave = columns.contains("data_since_last_save") ? "vd.data_since_last_save" : "0";
+
+        jdbcTemplate.update(
+                "INSERT OR IGNORE INTO vm_telemetry (vm_name, epoch_millis, request_data_id, core_processing_power, " +
+                "cpu, data_since_last_save, network_traffic, price_per_tick, ram, req_disk, startup_process, usage) " +
+                "SELECT vd.name, CAST(strftime('%s', rd.timestamp) AS INTEGER) * 1000, rd.id, " +
+                "vd.core_processing_power, vd.cpu, " + dataSinceLastSave + ", vd.network_traffic, vd.price_per_tick, " +
+                "vd.ram, vd.req_disk, vd.startup_process, vd.usage " +
+                "FROM vm_data vd JOIN request_data rd ON rd.id = vd.request_data_id " +
+                "WHERE vd.name IS NOT NULL AND strftime('%s', rd.timestamp) IS NOT NULL");
+        migrateRollups(jdbcTemplate);
+    }
+
+    // Az összesítések feltöltése a telemetriából, ha van telemetria, de még nincs összesítés
+    private static void migrateRollups(JdbcTemplate jdbcTemplate) {
+        if (jdbcTemplate.queryForList("SELECT 1 FROM vm_rollup_hour LIMIT 1").size() > 0
+                || jdbcTemplate.queryForList("SELECT 1 FROM vm_telemetry LIMIT 1").isEmpty()) {
+            return;
+        }
+        VmRollupRepository.rebuildAll(jdbcTemplate);
+    }
+}
@@ -0,0 +1,284 @@
+package hu.digital_twin.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import hu.digital_twin.context.TenantContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A megnyitott tenant adatbázisok nyilvántartása, globális zár nélkül.
+ * - egy tenant adatforrása az első használatkor, pontosan egyszer jön létre (az első hívó nyitja meg,
+ *   a többi egyidejű hívó ugyanarra az inicializálásra vár; más tenantok hívásait ez nem tartja fel),
+ * - a beállított ideig tétlen tenantok adatforrásai lezárulnak, a következő kérés újranyitja őket,
+ * - a nyitott tenantok száma korlátos, efölött a legrégebben használt tenant zárul le,
+ * - a kiléptetett tenant kapcsolat poolja csak akkor zárul le, ha már nincs használatban lévő kapcsolata.
+ */
+@Component
+public class TenantDataSourceRegistry {
+
+    private final SqliteConfig sqliteConfig;
+    private final TenantRegistryConfig registryConfig;
+    // A kapcsolat poolok Hikari metrikái is ide kerülnek (hikaricp.connections.*, pool címke: sqlite-writer-<tenant>)
+    private final MeterRegistry meterRegistry;
+
+    private final ConcurrentHashMap<String, TenantEntry> tenants = new ConcurrentHashMap<>();
+    // Kiléptetett, de még lezáratlan (esetleg éppen használt) adatforrások
+    private final ConcurrentLinkedQueue<Retired> retired = new ConcurrentLinkedQueue<>();
+
+    // Metrikák
+    private final AtomicLong opened = new AtomicLong();
+    private final AtomicLong idleEvictions = new AtomicLong();
+    private final AtomicLong capacityEvictions = new AtomicLong();
+
+    private final ScheduledExecutorService sweeper;
+
+    public TenantDataSourceRegistry(SqliteConfig sqliteConfig, TenantRegistryConfig registryConfig,
+                                    MeterRegistry meterRegistry) {
+        this.sqliteConfig = sqliteConfig;
+        this.registryConfig = registryConfig;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("twin.tenants.open", tenants, Map::size)
+                .description("Tenant databases currently open")
+                .register(meterRegistry);
+        FunctionCounter.builder("twin.tenants.opened", opened, AtomicLong::get)
+                .description("Tenant databases opened")
+                .register(meterRegistry);
+        FunctionCounter.builder("twin.tenants.evictions", idleEvictions, AtomicLong::get)
+                .description("Tenant databases closed by the registry")
+                .tag("cause", "idle")
+                .register(meterRegistry);
+        FunctionCounter.builder("twin.tenants.evictions", capacityEvictions, AtomicLong::get)
+                .description("Tenant databases closed by the registry")
+                .tag("cause", "capacity")
+                .register(meterRegistry);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tenant-registry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = Math.max(1, registryConfig.getSweepIntervalSeconds());
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.SECONDS);
+    }
+
+    /**
+     * A tenant adatforrása; az első hívás megnyitja (és inicializálja a sémát), a többi a megnyitottat kapja.
+     *
+     * @param tenantId a tenant azonosítója, null esetén az alapértelmezett tenant
+     */
+    public DataSource get(String tenantId) {
+        String id = tenantId != null ? tenantId : TenantContext.DEFAULT_TENANT;
+        TenantEntry entry = tenants.computeIfAbsent(id, TenantEntry::new);
+        entry.lastAccessNanos = System.nanoTime();
+
+        if (entry.initializing.compareAndSet(false, true)) {
+            try {
+                entry.ready.complete(open(id));
+                opened.incrementAndGet();
+            } catch (RuntimeException e) {
+                // Sikertelen megnyitás: a bejegyzés törlődik, a következő hívás újra megpróbálja
+                tenants.remove(id, entry);
+                entry.ready.completeExceptionally(e);
+                throw e;
+            }
+            enforceCapacity(entry);
+        }
+
+        try {
+            return entry.ready.join().dataSource();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * A nyilvántartás metrikái: nyitott tenantok száma, megnyitások és kiléptetések.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("open_tenants", tenants.size());
+        stats.put("max_open_tenants", registryConfig.getMaxOpenTenants());
+        stats.put("idle_ttl_minutes", registryConfig.getIdleTtlMinutes());
+        stats.put("opened", opened.get());
+        stats.put("idle_evictions", idleEvictions.get());
+        stats.put("capacity_evictions", capacityEvictions.get());
+        stats.put("pending_close", retired.size());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        tenants.values().forEach(entry -> {
+            if (isOpen(entry)) {
+                entry.ready.join().close();
+            }
+        });
+        tenants.clear();
+        Retired entry;
+        while ((entry = retired.poll()) != null) {
+            entry.sources().close();
+        }
+    }
+
+    // A tenant adatbázisának megnyitása: író pool (WAL, séma), olvasó pool és a kettő közötti választó proxy
+    private TenantDataSources open(String tenantId) {
+        String url = "jdbc:sqlite:" + sqliteConfig.getDatabaseDirectory() + "/" + tenantId + ".db";
+
+        // Az író pool nyitja meg először a fájlt és állítja WAL módba, utána jöhetnek az olvasók
+        HikariDataSource writer = SqlitePoolFactory.createWriter(tenantId, url, sqliteConfig, meterRegistry);
+        try {
+            // Inicializálja az adatbázis sémát (táblák, stb.)
+            SchemaInitializer.initializeSchema(writer);
+
+            HikariDataSource readers = SqlitePoolFactory.createReaders(tenantId, url, sqliteConfig, meterRegistry);
+
+            // A kapcsolat csak az első utasításnál kerül kiválasztásra, addigra kiderül, hogy a tranzakció csak olvasó-e
+            LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(writer);
+            dataSource.setReadOnlyDataSource(readers);
+            return new TenantDataSources(writer, readers, dataSource);
+        } catch (RuntimeException e) {
+            writer.close();
+            throw e;
+        }
+    }
+
+    // A korlát feletti tenantok közül a legrégebben használtak kiléptetése (az alapértelmezett és az új kivételével)
+    private void enforceCapacity(TenantEntry added) {
+        int excess = tenants.size() - Math.max(1, registryConfig.getMaxOpenTenants());
+        if (excess <= 0) {
+            return;
+        }
+        List<TenantEntry> candidates = new ArrayList<>();
+        for (TenantEntry entry : tenants.values()) {
+            if (entry != added && isEvictable(entry)) {
+                candidates.add(entry);
+            }
+        }
+        candidates.sort(Comparator.comparingLong(entry -> entry.lastAccessNanos));
+        for (int i = 0; i < candidates.size() && excess > 0; i++) {
+            if (evict(candidates.get(i))) {
+                capacityEvictions.incrementAndGet();
+                excess--;
+            }
+        }
+    }
+
+    // Tétlen tenantok kiléptetése és a már nem használt kiléptetett poolok lezárása
+    private void sweep() {
+        try {
+            long ttlMinutes = registryConfig.getIdleTtlMinutes();
+            if (ttlMinutes > 0) {
+                long threshold = System.nanoTime() - TimeUnit.MINUTES.toNanos(ttlMinutes);
+                for (TenantEntry entry : tenants.values()) {
+                    if (entry.lastAccessNanos - threshold < 0 && isEvictable(entry) && evict(entry)) {
+                        idleEvictions.incrementAndGet();
+                    }
+                }
+            }
+            closeRetired();
+        } catch (RuntimeException e) {
+            // Nem végzetes: a következő kör újra megpróbálja
+            e.printStackTrace();
+        }
+    }
+
+    // Egy kiléptetett pool legalább egy söprési környi ideig nyitva marad, hogy a kiléptetés előtt
+    // megkapott adatforrás még használható legyen; utána akkor zárul le, ha nincs használatban lévő kapcsolata
+    private void closeRetired() {
+        long grace = TimeUnit.SECONDS.toNanos(Math.max(1, registryConfig.getSweepIntervalSeconds()));
+        long now = System.nanoTime();
+        int count = retired.size();
+        for (int i = 0; i < count; i++) {
+            Retired entry = retired.poll();
+            if (entry == null) {
+                break;
+            }
+            if (now - entry.retiredAtNanos() < grace || entry.sources().inUse()) {
+                retired.offer(entry);
+            } else {
+                entry.sources().close();
+            }
+        }
+    }
+
+    // Csak megnyitott, éppen nem használt tenant léptethető ki; az alapértelmezett tenant mindig nyitva marad
+    private boolean isEvictable(TenantEntry entry) {
+        return !TenantContext.DEFAULT_TENANT.equals(entry.tenantId)
+                && isOpen(entry)
+                && !entry.ready.join().inUse();
+    }
+
+    private static boolean isOpen(TenantEntry entry) {
+        return entry.ready.isDone() && !entry.ready.isCompletedExceptionally();
+    }
+
+    // A bejegyzés eltávolítása; a poolok lezárása később, a söprési körökben történik
+    private boolean evict(TenantEntry entry) {
+        if (!tenants.remove(entry.tenantId, entry)) {
+            return false;
+        }
+        retired.offer(new Retired(entry.ready.join(), System.nanoTime()));
+        return true;
+    }
+
+    private static final class TenantEntry {
+        private final String tenantId;
+        private final AtomicBoolean initializing = new AtomicBoolean(false);
+        private final CompletableFuture<TenantDataSources> ready = new CompletableFuture<>();
+        private volatile long lastAccessNanos = System.nanoTime();
+
+        TenantEntry(String tenantId) {
+            this.tenantId = tenantId;
+        }
+    }
+
+    private record Retired(TenantDataSources sources, long retiredAtNanos) {
+    }
+
+    // Egy tenant kapcsolat pooljai és az alkalmazás által használt adatforrás
+    private record TenantDataSources(HikariDataSource writer, HikariDataSource readers, DataSource dataSource) {
+
+        boolean inUse() {
+            return activeConnections(writer) > 0 || activeConnections(readers) > 0;
+        }
+
+        void close() {
+            readers.close();
+            writer.close();
+        }
+
+        private static int activeConnections(HikariDataSource pool) {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            return bean != null ? bean.getActiveConnections() : 0;
+        }
+    }
+}
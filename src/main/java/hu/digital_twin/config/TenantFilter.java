@@ -0,0 +1,29 @@
+package hu.digital_twin.config;
+
+import hu.digital_twin.context.TenantContext;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Szűrő, amely minden HTTP kérést a hozzá tartozó tenant hatókörében futtat.
+// A hatókör a kérés végén automatikusan lezárul, így a tenant nem szivároghat át másik kérésre.
+@Component
+public class TenantFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        // Kinyeri az 'X-Tenant-ID' HTTP fejlécet, amely az aktuális tenant azonosítót tartalmazza
+        // Ha nincs megadva fejléc, akkor "default" tenant-ot használ
+        String tenantId = request.getHeader("X-Tenant-ID");
+
+        try (TenantContext.Scope ignored = TenantContext.enter(tenantId != null ? tenantId : TenantContext.DEFAULT_TENANT)) {
+            filterChain.doFilter(request, response);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package hu.digital_twin.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@ConfigurationProperties("tenants")
+@Component
+public class TenantRegistryConfig {
+    // Ennyi perc tétlenség után a tenant adatbázisa lezárul (a következő kérés újranyitja), 0 esetén soha
+    private long idleTtlMinutes = 30;
+    // Egyszerre nyitva tartott tenant adatbázisok maximális száma; efölött a legrégebben használt zárul le
+    private int maxOpenTenants = 500;
+    // A tétlen tenantok keresése ennyi másodpercenként fut
+    private long sweepIntervalSeconds = 60;
+    // A twin.* metrikák tenant címkéjében megkülönböztetett tenantok száma; a többi "other" címkét kap, 0 esetén nincs korlát
+    private int maxMetricTenants = 100;
+
+    public long getIdleTtlMinutes() { return idleTtlMinutes; }
+    public void setIdleTtlMinutes(long idleTtlMinutes) { this.idleTtlMinutes = idleTtlMinutes; }
+    public int getMaxOpenTenants() { return maxOpenTenants; }
+    public void setMaxOpenTenants(int maxOpenTenants) { this.maxOpenTenants = maxOpenTenants; }
+    public long getSweepIntervalSeconds() { return sweepIntervalSeconds; }
+    public void setSweepIntervalSeconds(long sweepIntervalSeconds) { this.sweepIntervalSeconds = sweepIntervalSeconds; }
+    public int getMaxMetricTenants() { return maxMetricTenants; }
+    public void setMaxMetricTenants(int maxMetricTenants) { this.maxMetricTenants = maxMetricTenants; }
+}
@@ -3,13 +3,29 @@ package hu.digital_twin.config;
 import hu.digital_twin.context.TenantContext;
 import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
 
+import javax.sql.DataSource;
+
 // Egyedi RoutingDataSource implementáció, amely tenant ID alapján vált adatforrást
+// Az adatforrások nem egy újraépített map-ből, hanem a TenantDataSourceRegistry-ből jönnek (szükség esetén megnyitva)
 public class TenantRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final TenantDataSourceRegistry registry;
+
+    public TenantRoutingDataSource(TenantDataSourceRegistry registry) {
+        this.registry = registry;
+    }
+
     // Ezt a metódust hívja meg a Spring minden adatbázis lekérésnél
     @Override
     protected Object determineCurrentLookupKey() {
-        // Visszaadja az aktuális tenant ID-t, amit a TenantContext tárol (ThreadLocal)
-        // Ez alapján választja ki a megfelelő DataSource-t a targetDataSources map-ből
+        // Visszaadja az aktuális hatókör tenant ID-ját (TenantContext), ami a gyerek feladatokba is átöröklődik
+        // Hatókörön kívül (null) az alapértelmezett tenant kerül használatra
         return TenantContext.getTenantId();
     }
+
+    // A kiválasztott tenant adatforrása a nyilvántartásból, zárolás nélkül
+    @Override
+    protected DataSource determineTargetDataSource() {
+        return registry.get((String) determineCurrentLookupKey());
+    }
 }
@@ -0,0 +1,16 @@
+package hu.digital_twin.config;
+
+import hu.digital_twin.context.TenantContext;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+// A Spring task executorok (applicationTaskExecutor) minden feladatát a beküldő tenant hatókörében futtatja.
+// Platform és virtuális szálas módban egyaránt érvényes.
+@Component
+public class TenantTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        return TenantContext.wrap(runnable);
+    }
+}
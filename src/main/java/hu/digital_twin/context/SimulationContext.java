@@ -21,6 +21,14 @@ public class SimulationContext {
     // Aktuálisan kezelendő virtuális gépek száma a szimulációban
     private int numberOfVms = 0;
 
+    // A szimuláció kezdő- és végidőpontja (szimulációs idő), futásonként külön
+    private long startTime = 0;
+    private long stopTime = 0;
+
+    // A futás címkéi a profilozó (JFR) eseményekhez: tenant és stratégia
+    private String tenantId = "default";
+    private String strategy = "";
+
     // Konstruktor, inicializálja az összetevőket
     public SimulationContext(IaaSContext iaasContext) {
         this.iaasContext = iaasContext;
@@ -46,4 +54,16 @@ public class SimulationContext {
 
     // VM számláló növelése, amikor új VM-et hozunk létre vagy kezelünk
     public void incrementVmCount() { this.numberOfVms++; }
+
+    // Getterek és setterek a szimulációs kezdő- és végidőponthoz
+    public long getStartTime() { return startTime; }
+    public void setStartTime(long startTime) { this.startTime = startTime; }
+    public long getStopTime() { return stopTime; }
+    public void setStopTime(long stopTime) { this.stopTime = stopTime; }
+
+    // Getterek és setterek a futás címkéihez
+    public String getTenantId() { return tenantId; }
+    public void setTenantId(String tenantId) { this.tenantId = tenantId; }
+    public String getStrategy() { return strategy; }
+    public void setStrategy(String strategy) { this.strategy = strategy; }
 }
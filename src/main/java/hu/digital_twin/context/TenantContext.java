@@ -1,15 +1,23 @@
 package hu.digital_twin.context;
 
+import java.util.concurrent.Callable;
+
 /**
  * TenantContext osztály a multi-tenant alkalmazásokhoz.
- * Egy ThreadLocal változót használ, hogy minden szálnak külön bérlő-azonosítója lehessen.
+ * A tenant azonosító egy strukturált hatókörhöz (scope) kötődik: az enter/runWithTenant/callWithTenant
+ * a blokk végén visszaállítja az előző értéket, a wrap pedig a gyerek feladatokba is átviszi
+ * (pl. executor szálak, virtuális szálak), hasonlóan a ScopedValue-hoz.
  */
 public class TenantContext {
-    // ThreadLocal változó, amely minden szálon elkülönítve tárolja az aktuális tenant azonosítót
+    // Az alapértelmezett tenant, ha a kérés nem ad meg X-Tenant-ID fejlécet
+    public static final String DEFAULT_TENANT = "default";
+
+    // Szálanként tárolt aktuális tenant azonosító (a hatókörök ezt állítják és állítják vissza)
     private static final ThreadLocal<String> currentTenant = new ThreadLocal<>();
 
     /**
      * Beállítja az aktuális szál tenant azonosítóját.
+     * Új kódban az enter / runWithTenant használata javasolt, mert az automatikusan visszaállít.
      * @param tenantId a bérlő azonosítója
      */
     public static void setTenantId(String tenantId) {
@@ -31,5 +39,71 @@ public class TenantContext {
     public static void clear() {
         currentTenant.remove();
     }
-}
 
+    /**
+     * Hatókör megnyitása az adott tenanttal; a visszaadott Scope lezárása visszaállítja az előző értéket.
+     * try-with-resources blokkban használandó.
+     * @param tenantId a bérlő azonosítója
+     * @return a lezárandó hatókör
+     */
+    public static Scope enter(String tenantId) {
+        String previous = currentTenant.get();
+        currentTenant.set(tenantId);
+        return new Scope(previous);
+    }
+
+    /**
+     * Egy feladat futtatása az adott tenant hatókörében.
+     */
+    public static void runWithTenant(String tenantId, Runnable action) {
+        try (Scope ignored = enter(tenantId)) {
+            action.run();
+        }
+    }
+
+    /**
+     * Egy értéket visszaadó feladat futtatása az adott tenant hatókörében.
+     */
+    public static <T> T callWithTenant(String tenantId, Callable<T> action) throws Exception {
+        try (Scope ignored = enter(tenantId)) {
+            return action.call();
+        }
+    }
+
+    /**
+     * A feladatot becsomagolja úgy, hogy a létrehozáskori tenant hatókörében fusson,
+     * bármelyik szálon is hajtják végre.
+     */
+    public static Runnable wrap(Runnable task) {
+        String tenantId = currentTenant.get();
+        return () -> runWithTenant(tenantId, task);
+    }
+
+    /**
+     * A Callable-t becsomagolja úgy, hogy a létrehozáskori tenant hatókörében fusson.
+     */
+    public static <T> Callable<T> wrap(Callable<T> task) {
+        String tenantId = currentTenant.get();
+        return () -> callWithTenant(tenantId, task);
+    }
+
+    /**
+     * Lezárható tenant hatókör, amely lezáráskor visszaállítja az előző tenant azonosítót.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final String previous;
+
+        private Scope(String previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                currentTenant.remove();
+            } else {
+                currentTenant.set(previous);
+            }
+        }
+    }
+}
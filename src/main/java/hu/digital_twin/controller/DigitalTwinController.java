@@ -1,51 +1,322 @@
 package hu.digital_twin.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.digital_twin.config.TenantDataSourceRegistry;
+import hu.digital_twin.exception.IngestQueueFullException;
+import hu.digital_twin.exception.RequestBodyTooLargeException;
 import hu.digital_twin.exception.SimulationException;
-import hu.digital_twin.context.TenantContext;
+import hu.digital_twin.exception.SimulationJobRejectedException;
 import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.VmTelemetryRepository;
 import hu.digital_twin.service.io.RequestHandlerService;
+import hu.digital_twin.service.io.RequestOutcome;
+import hu.digital_twin.service.io.TelemetryExportService;
+import hu.digital_twin.service.io.TelemetryHistoryService;
+import hu.digital_twin.service.io.WriteBehindIngestService;
+import hu.digital_twin.service.simulation.SimulationJob;
+import hu.digital_twin.service.simulation.SimulationJobService;
+import hu.digital_twin.service.util.FlightRecordingService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/simulator") // Az összes endpoint ezen az útvonalon belül lesz
 public class DigitalTwinController {
 
     private final RequestHandlerService requestHandlerService;
+    private final WriteBehindIngestService writeBehindIngestService;
+    private final SimulationJobService simulationJobService;
+    private final TelemetryHistoryService telemetryHistoryService;
+    private final TelemetryExportService telemetryExportService;
+    private final TenantDataSourceRegistry tenantDataSourceRegistry;
+    private final FlightRecordingService flightRecordingService;
 
-    // Konstruktorban injektáljuk a RequestHandlerService-t
-    public DigitalTwinController(RequestHandlerService requestHandlerService) {
+    // Konstruktorban injektáljuk a RequestHandlerService-t, az aszinkron mentési, a job, az előzmény és az export
+    // szolgáltatást, a tenant adatbázisok nyilvántartását, valamint a JFR felvételek kezelését
+    public DigitalTwinController(RequestHandlerService requestHandlerService,
+                                 WriteBehindIngestService writeBehindIngestService,
+                                 SimulationJobService simulationJobService,
+                                 TelemetryHistoryService telemetryHistoryService,
+                                 TelemetryExportService telemetryExportService,
+                                 TenantDataSourceRegistry tenantDataSourceRegistry,
+                                 FlightRecordingService flightRecordingService) {
         this.requestHandlerService = requestHandlerService;
+        this.writeBehindIngestService = writeBehindIngestService;
+        this.simulationJobService = simulationJobService;
+        this.telemetryHistoryService = telemetryHistoryService;
+        this.telemetryExportService = telemetryExportService;
+        this.tenantDataSourceRegistry = tenantDataSourceRegistry;
+        this.flightRecordingService = flightRecordingService;
     }
 
     // POST metódus a /simulator/request végponton
     @PostMapping("/request")
-    public ResponseEntity<String> request(@RequestBody String jsonContent) {
-        ObjectMapper objectMapper = new ObjectMapper();
-
+    public ResponseEntity<String> request(HttpServletRequest request) {
         try {
-            // A JSON tartalom deszerializálása RequestData objektummá
-            RequestData requestData = objectMapper.readValue(jsonContent, RequestData.class);
-
-            // A beérkezett adat kezelése a service rétegben
-            requestHandlerService.handleRequest(requestData);
-
-            // TenantContext törlése, hogy elkerüljük szálkezelési hibákat
-            TenantContext.clear();
+            // A törzs közvetlenül a streamből kerül feldolgozásra, a teljes szöveg beolvasása nélkül
+            // A formátumot (JSON, CBOR, Smile) a Content-Type határozza meg
+            RequestOutcome outcome = requestHandlerService.handleStream(request.getInputStream(), request.getContentType());
 
+            if (outcome == RequestOutcome.QUEUED) {
+                return ResponseEntity.accepted().body("Data has been queued.");
+            }
             return ResponseEntity.ok("Data has been processed.");
+        } catch (IngestQueueFullException | SimulationJobRejectedException e) {
+            return tooManyRequests(e);
+        } catch (IllegalArgumentException e) {
+            // Hiányzó vagy ismeretlen kéréstípus
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RequestBodyTooLargeException e) {
+            return payloadTooLarge(e);
+        } catch (SocketTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body(e.getMessage());
         } catch (IOException e) {
             e.printStackTrace();
-            TenantContext.clear();
             return ResponseEntity.status(500).body("Error while processing data.");
         } catch (SimulationException e) {
             throw new RuntimeException(e);
         }
     }
+
+    // POST metódus a /simulator/request/batch végponton, több UPDATE üzenet egy hívásban
+    @PostMapping("/request/batch")
+    public ResponseEntity<String> requestBatch(@RequestBody List<RequestData> requestDataList) {
+        try {
+            // A kérések mentése egy tranzakcióban, JDBC batch beszúrással (vagy sorba állítása)
+            RequestOutcome outcome = requestHandlerService.handleBatch(requestDataList);
+
+            if (outcome == RequestOutcome.QUEUED) {
+                return ResponseEntity.accepted().body(requestDataList.size() + " records have been queued.");
+            }
+            return ResponseEntity.ok(requestDataList.size() + " records have been processed.");
+        } catch (IngestQueueFullException e) {
+            return tooManyRequests(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // POST metódus a /simulator/jobs végponton: REQUEST FUTURE BEHAVIOUR beküldése háttérben futó jobként
+    // Azonnal visszaadja a job azonosítót, az állapot a Location fejlécben megadott címen kérdezhető le
+    // Az opcionális X-Deadline-Ms fejléc megadja, legfeljebb mennyit várhat a job az indulásra
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitJob(HttpServletRequest request,
+                                       @RequestHeader(value = "X-Deadline-Ms", required = false) Long deadlineMs) {
+        try {
+            SimulationJob job = requestHandlerService.submitFutureBehaviourJob(
+                    request.getInputStream(), request.getContentType(), deadlineMs);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/simulator/jobs/" + job.getId()))
+                    .body(job.snapshot());
+        } catch (SimulationJobRejectedException e) {
+            return tooManyRequests(e);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (RequestBodyTooLargeException e) {
+            return payloadTooLarge(e);
+        } catch (SocketTimeoutException e) {
+            return ResponseEntity.status(HttpStatus.REQUEST_TIMEOUT).body(e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("Error while processing data.");
+        }
+    }
+
+    // GET metódus a szimulációs ütemező metrikáihoz (sorhossz, várakozási és futási idő, elutasítások)
+    @GetMapping("/jobs/stats")
+    public Map<String, Object> jobStats() {
+        return simulationJobService.getStats();
+    }
+
+    // GET metódus a /simulator/jobs/{id} végponton: a job állapota és a stratégiánkénti eredmények
+    // waitMs > 0 esetén long-poll: a válasz a "version"-nél újabb állapotig vagy a job végéig várakozik
+    @GetMapping("/jobs/{jobId}")
+    public DeferredResult<ResponseEntity<Map<String, Object>>> getJob(@PathVariable String jobId,
+                                                                      @RequestParam(defaultValue = "-1") long version,
+                                                                      @RequestParam(defaultValue = "0") long waitMs) {
+        Optional<SimulationJob> found = simulationJobService.findJob(jobId);
+        if (found.isEmpty()) {
+            DeferredResult<ResponseEntity<Map<String, Object>>> notFound = new DeferredResult<>();
+            notFound.setResult(ResponseEntity.notFound().build());
+            return notFound;
+        }
+        SimulationJob job = found.get();
+
+        long timeout = Math.max(0, Math.min(waitMs, simulationJobService.getMaxWaitMs()));
+        DeferredResult<ResponseEntity<Map<String, Object>>> result = new DeferredResult<>(timeout > 0 ? timeout : null);
+        if (timeout == 0) {
+            result.setResult(ResponseEntity.ok(job.snapshot()));
+            return result;
+        }
+
+        // Várakozás a következő állapotváltozásig; időtúllépéskor az aktuális állapot kerül vissza
+        Consumer<Map<String, Object>> waiter = snapshot -> result.setResult(ResponseEntity.ok(snapshot));
+        result.onTimeout(() -> {
+            job.removeWaiter(waiter);
+            result.setResult(ResponseEntity.ok(job.snapshot()));
+        });
+        job.awaitChange(version, waiter);
+        return result;
+    }
+
+    // GET metódus az aszinkron mentési sor metrikáihoz (sormélység, ürítési késleltetés)
+    @GetMapping("/ingest/stats")
+    public Map<String, Object> ingestStats() {
+        return writeBehindIngestService.getStats();
+    }
+
+    // GET metódus a tenant adatbázisok nyilvántartásának metrikáihoz (nyitott tenantok, kiléptetések)
+    @GetMapping("/tenants/stats")
+    public Map<String, Object> tenantStats() {
+        return tenantDataSourceRegistry.getStats();
+    }
+
+    // GET metódus a /simulator/history/{vmName} végponton: egy VM jellemzőjének előzményei [from, to) időszakra
+    // (epoch ms); a resolutionSeconds-nál nem ritkább legdurvább felbontás kerül kiolvasásra (nyers, perc, óra)
+    @GetMapping("/history/{vmName}")
+    public ResponseEntity<?> history(@PathVariable String vmName,
+                                     @RequestParam(defaultValue = "usage") String feature,
+                                     @RequestParam(defaultValue = "0") long from,
+                                     @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                                     @RequestParam(defaultValue = "60") long resolutionSeconds) {
+        try {
+            return ResponseEntity.ok(telemetryHistoryService.getHistory(vmName, feature, from, to, resolutionSeconds));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // GET metódus a /simulator/export végponton: a tenant telemetriája [from, to) időszakra (epoch ms) NDJSON vagy
+    // CSV formában, opcionálisan csak a megadott VM-ekre (vm=a&vm=b) és gzip tömörítéssel (Content-Encoding: gzip)
+    // A válasz közvetlenül a kérés szálán, a JDBC kurzorból íródik ki, így nincs aszinkron időkorlát és teljes lista
+    @GetMapping("/export")
+    public void export(@RequestParam(defaultValue = "ndjson") String format,
+                       @RequestParam(defaultValue = "0") long from,
+                       @RequestParam(defaultValue = "" + Long.MAX_VALUE) long to,
+                       @RequestParam(name = "vm", required = false) List<String> vmNames,
+                       @RequestParam(defaultValue = "false") boolean gzip,
+                       HttpServletResponse response) throws IOException {
+        TelemetryExportService.Format exportFormat;
+        try {
+            exportFormat = TelemetryExportService.Format.parse(format);
+            if (vmNames != null && vmNames.size() > VmTelemetryRepository.MAX_EXPORT_VM_NAMES) {
+                throw new IllegalArgumentException(
+                        "At most " + VmTelemetryRepository.MAX_EXPORT_VM_NAMES + " VM names can be exported at once");
+            }
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"telemetry." + exportFormat.getExtension() + "\"");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        try {
+            telemetryExportService.export(exportFormat, vmNames, from, to, gzip, response.getOutputStream());
+        } catch (IOException | RuntimeException e) {
+            // A válasz már részben kiküldésre kerülhetett, ezért a kapcsolat megszakad (csonka export)
+            e.printStackTrace();
+            throw e;
+        }
+    }
+
+    // GET metódus a JFR felvétel állapotához
+    @GetMapping("/profiling/recording")
+    public ResponseEntity<Map<String, Object>> recordingStatus() {
+        if (!flightRecordingService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(flightRecordingService.getStatus());
+    }
+
+    // POST metódus JFR felvétel indításához (settings: default vagy profile); ha már fut egy, 409-es válasz
+    @PostMapping("/profiling/recording/start")
+    public ResponseEntity<?> startRecording(@RequestParam(required = false) String settings) {
+        if (!flightRecordingService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(flightRecordingService.start(settings));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    // POST metódus a JFR felvétel leállításához: a mentett .jfr fájl letöltésként jön vissza
+    @PostMapping("/profiling/recording/stop")
+    public ResponseEntity<?> stopRecording() {
+        if (!flightRecordingService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            Path file = flightRecordingService.stop();
+            Resource resource = new FileSystemResource(file);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                    .body(resource);
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (IOException e) {
+            e.printStackTrace();
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    // A @RequestBody bekötés hibája: túl nagy kitömörített törzs esetén 413, egyébként 400 (mint alapértelmezésben)
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<String> unreadableBody(HttpMessageNotReadableException e) {
+        for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+            if (cause instanceof RequestBodyTooLargeException tooLarge) {
+                return payloadTooLarge(tooLarge);
+            }
+        }
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    // 413-as válasz, ha a kitömörített törzs meghaladja az ingest.max-inflated-bytes korlátot
+    private ResponseEntity<String> payloadTooLarge(RequestBodyTooLargeException e) {
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(e.getMessage());
+    }
+
+    // 429-es válasz teli mentési vagy job sor esetén, a kliens egy másodperc múlva próbálkozhat újra
+    private ResponseEntity<String> tooManyRequests(RuntimeException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(e.getMessage());
+    }
 }
@@ -2,6 +2,9 @@ package hu.digital_twin.event;
 
 import hu.digital_twin.service.util.TransferHelperService;
 import hu.digital_twin.context.IaaSContext;
+import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.jfr.DataTransferEvent;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
 import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode;
 import hu.mta.sztaki.lpds.cloud.simulator.io.Repository;
@@ -12,13 +15,16 @@ import hu.mta.sztaki.lpds.cloud.simulator.iaas.resourcemodel.ConsumptionEventAda
 public class DataTransferEventHandler extends ConsumptionEventAdapter {
 
     private final VirtualMachine vm;              // Az érintett virtuális gép
+    private final SimulationContext simulation;    // A szimuláció kontextusa (tenant, metrikák)
     private final IaaSContext context;             // Szimulációs IaaS kontextus (tárolja a fizikai gépeket, repository-kat stb.)
     private final int fileSize;                     // Átviteli méret bájtban vagy más egységben
     private final Runnable onDataTransferred;      // Callback, amit az adatátvitel befejezése után futtatunk
 
     // Konstruktor: beállítja az összes szükséges mezőt
-    public DataTransferEventHandler(IaaSContext context, VirtualMachine vm, int fileSize, Runnable onDataTransferred) {
-        this.context = context;
+    public DataTransferEventHandler(SimulationContext simulation, VirtualMachine vm, int fileSize,
+                                    Runnable onDataTransferred) {
+        this.simulation = simulation;
+        this.context = simulation.getIaasContext();
         this.vm = vm;
         this.fileSize = fileSize;
         this.onDataTransferred = onDataTransferred;
@@ -27,6 +33,11 @@ public class DataTransferEventHandler extends ConsumptionEventAdapter {
     // Amikor a taskok szimulációja befejeződik, ezt a metódust hívja a szimuláció
     @Override
     public void conComplete() {
+        // A számítási feladat befejeződött
+        simulation.getMetrics().addCompletedConsumption();
+
+        DataTransferEvent event = new DataTransferEvent();
+        event.begin();
         Repository source = null;
         Repository target = null;
 
@@ -49,12 +60,28 @@ public class DataTransferEventHandler extends ConsumptionEventAdapter {
         try {
             // Létrehoz egy TransferHelperService-t az adat átvitelére a source és target repository között
             // A StorageObject a továbbítandó adatot reprezentálja
-            new TransferHelperService(source, target, new StorageObject("data", fileSize, false));
+            new TransferHelperService(source, target, new StorageObject("data", fileSize, false),
+                    simulation.getMetrics()::addCompletedConsumption);
 
             // Ha sikeres az adatátvitel, futtatja a callback-et: metrikák frissítése
             onDataTransferred.run();
+            commit(event, true);
         } catch (NetworkNode.NetworkException e) {
+            commit(event, false);
             throw new RuntimeException("Transfer failed", e);
         }
     }
+
+    // Az átvitel ütemezésének rögzítése JFR eseményként, ha a felvétel kéri
+    private void commit(DataTransferEvent event, boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.tenant = simulation.getTenantId();
+            event.vm = vm.getVa().id;
+            event.fileSize = fileSize;
+            event.simulatedTime = Timed.getFireCount();
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
 }
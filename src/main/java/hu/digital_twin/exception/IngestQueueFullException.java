@@ -0,0 +1,8 @@
+package hu.digital_twin.exception;
+
+// Akkor dobódik, ha a tenant aszinkron mentési sora megtelt (backpressure, HTTP 429)
+public class IngestQueueFullException extends RuntimeException {
+    public IngestQueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package hu.digital_twin.exception;
+
+// Akkor dobódik, ha nem sikerül Python predikciós workert indítani (ilyenkor a oneshot mód a tartalék)
+public class PredictionWorkerUnavailableException extends RuntimeException {
+    public PredictionWorkerUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,10 @@
+package hu.digital_twin.exception;
+
+import java.io.IOException;
+
+// Akkor dobódik, ha a kitömörített kérés törzs meghaladja a beállított korlátot (HTTP 413)
+public class RequestBodyTooLargeException extends IOException {
+    public RequestBodyTooLargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package hu.digital_twin.exception;
+
+// Akkor dobódik, ha a szimulációs job sor megtelt, és új job nem fogadható (HTTP 429)
+public class SimulationJobRejectedException extends RuntimeException {
+    public SimulationJobRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,46 @@
+package hu.digital_twin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Egy backup VM létrehozása a skálázó stratégiában, a VM indulásáig léptetett szimulációval együtt.
+ */
+@Name("hu.digital_twin.BackupVmCreation")
+@Label("Backup VM Creation")
+@Category({"Digital Twin", "Simulation"})
+@Description("A backup VM created by the scaling strategy for an overloaded VM")
+@StackTrace(false)
+public class BackupVmCreationEvent extends jdk.jfr.Event {
+
+    @Label("Tenant")
+    public String tenant;
+
+    @Label("VM")
+    @Description("The overloaded VM")
+    public String vm;
+
+    @Label("Minute")
+    @Description("Minute of the prediction in which the load crossed the threshold")
+    public int minute;
+
+    @Label("Load")
+    @Description("Predicted load in percent")
+    public double load;
+
+    @Label("Backup VMs")
+    @Description("Backup VMs created so far, including this one")
+    public int backupVms;
+
+    @Label("Simulated Start")
+    @Description("Simulated time before the creation, in milliseconds")
+    public long simulatedStart;
+
+    @Label("Simulated Span")
+    @Timespan(Timespan.MILLISECONDS)
+    public long simulatedSpan;
+}
@@ -0,0 +1,35 @@
+package hu.digital_twin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Egy VM feladat végén indított adatátvitel ütemezése (DataTransferEventHandler).
+ */
+@Name("hu.digital_twin.DataTransfer")
+@Label("Data Transfer")
+@Category({"Digital Twin", "Simulation"})
+@Description("A data transfer started when a VM task completes")
+@StackTrace(false)
+public class DataTransferEvent extends jdk.jfr.Event {
+
+    @Label("Tenant")
+    public String tenant;
+
+    @Label("VM")
+    public String vm;
+
+    @Label("File Size")
+    @Description("Transferred data in MB")
+    public int fileSize;
+
+    @Label("Simulated Time")
+    @Description("Simulated time of the transfer, in milliseconds")
+    public long simulatedTime;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
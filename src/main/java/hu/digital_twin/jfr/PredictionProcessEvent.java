@@ -0,0 +1,45 @@
+package hu.digital_twin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Egy Python predikció hívás: egyszeri szkript folyamat vagy a worker pool egy kérése.
+ */
+@Name("hu.digital_twin.PredictionProcess")
+@Label("Prediction Process Call")
+@Category({"Digital Twin", "Prediction"})
+@Description("A call to the Python prediction script, as a one-shot process or a worker request")
+@StackTrace(false)
+public class PredictionProcessEvent extends jdk.jfr.Event {
+
+    public static final String ONE_SHOT = "oneshot";
+    public static final String WORKER = "worker";
+
+    @Label("Tenant")
+    public String tenant;
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Model Type")
+    public String modelType;
+
+    @Label("VMs")
+    public int vmCount;
+
+    @Label("Prediction Length")
+    @Description("Forecast horizon in seconds")
+    public int predictionSeconds;
+
+    @Label("Frame Size")
+    @DataAmount
+    public long frameBytes;
+
+    @Label("Succeeded")
+    public boolean succeeded;
+}
@@ -0,0 +1,53 @@
+package hu.digital_twin.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Egy szimulációs stratégia egy lépése (inicializálás, predikció feldolgozás, indítás, ütemezés, futtatás, lezárás).
+ * Az esemény időtartama a falióra idő, a simulatedSpan a közben eltelt szimulációs idő.
+ */
+@Name("hu.digital_twin.SimulationPhase")
+@Label("Simulation Phase")
+@Category({"Digital Twin", "Simulation"})
+@Description("A phase of a simulation strategy")
+@StackTrace(false)
+public class SimulationPhaseEvent extends jdk.jfr.Event {
+
+    @Label("Tenant")
+    public String tenant;
+
+    @Label("Strategy")
+    public String strategy;
+
+    @Label("Phase")
+    public String phase;
+
+    @Label("Fleet VMs")
+    @Description("VMs created from the latest fleet snapshot")
+    public int fleetVms;
+
+    @Label("Scheduled VMs")
+    @Description("VMs (including backup VMs) that received tasks so far")
+    public int scheduledVms;
+
+    @Label("Simulated Start")
+    @Description("Simulated time at the start of the phase, in milliseconds")
+    public long simulatedStart;
+
+    @Label("Simulated Span")
+    @Timespan(Timespan.MILLISECONDS)
+    public long simulatedSpan;
+
+    @Label("Tasks")
+    @Description("Compute tasks scheduled so far")
+    public long tasks;
+
+    @Label("Consumption Events")
+    @Description("DISSECT-CF resource consumptions (compute and transfer) started so far")
+    public long consumptionEvents;
+}
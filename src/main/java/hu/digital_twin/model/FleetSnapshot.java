@@ -0,0 +1,153 @@
+package hu.digital_twin.model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Egy tenant legutóbbi mentett kérésének VM flottája tömör, oszlopos (struct-of-arrays) formában.
+ * VM-enként egy-egy tömbelem jellemzőnként, entitás gráf és lusta betöltés nélkül; a szimulációk,
+ * a költségszámítás és a VirtualMachineFactory ezt olvassa. A példány megváltoztathatatlan:
+ * a tömböket létrehozás után senki nem módosíthatja (a builder és az of másolatot készít).
+ */
+public record FleetSnapshot(Long requestDataId,
+                            String timestamp,
+                            String[] names,
+                            int[] cpu,
+                            long[] ram,
+                            double[] coreProcessingPower,
+                            int[] startupProcess,
+                            long[] reqDisk,
+                            double[] pricePerTick,
+                            int[] networkTraffic,
+                            double[] usage,
+                            int[] dataSinceLastSave) {
+
+    // Becsült fix méret (objektum fejlécek, tömb fejlécek, mezők) a memóriakerethez
+    private static final long BASE_BYTES = 256;
+    // Becsült méret VM-enként: a primitív oszlopok és a név (String objektum és karakterek nélkül)
+    private static final long BYTES_PER_VM = 4 + 8 + 8 + 4 + 8 + 8 + 4 + 8 + 4 + 8 + 56;
+
+    /**
+     * Pillanatkép egy mentett kérésből (a VM adatok sorrendjében).
+     */
+    public static FleetSnapshot of(RequestData requestData) {
+        Builder builder = new Builder(requestData.getVmData() == null ? 0 : requestData.getVmData().size());
+        if (requestData.getVmData() != null) {
+            builder.addAll(requestData.getVmData());
+        }
+        return builder.build(requestData.getId(), requestData.getTimestamp());
+    }
+
+    /**
+     * A VM-ek száma.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * A VM indexe név szerint, vagy -1, ha nincs ilyen VM.
+     */
+    public int indexOf(String name) {
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A pillanatkép becsült memóriaigénye bájtban.
+     */
+    public long estimatedBytes() {
+        long nameChars = 0;
+        for (String name : names) {
+            nameChars += name.length();
+        }
+        return BASE_BYTES + BYTES_PER_VM * names.length + nameChars;
+    }
+
+    /**
+     * Pillanatkép építése VM adat darabokból (pl. streamelt mentésnél).
+     */
+    public static class Builder {
+        private int size = 0;
+        private String[] names;
+        private int[] cpu;
+        private long[] ram;
+        private double[] coreProcessingPower;
+        private int[] startupProcess;
+        private long[] reqDisk;
+        private double[] pricePerTick;
+        private int[] networkTraffic;
+        private double[] usage;
+        private int[] dataSinceLastSave;
+
+        public Builder(int expectedSize) {
+            int capacity = Math.max(4, expectedSize);
+            names = new String[capacity];
+            cpu = new int[capacity];
+            ram = new long[capacity];
+            coreProcessingPower = new double[capacity];
+            startupProcess = new int[capacity];
+            reqDisk = new long[capacity];
+            pricePerTick = new double[capacity];
+            networkTraffic = new int[capacity];
+            usage = new double[capacity];
+            dataSinceLastSave = new int[capacity];
+        }
+
+        // A név nélküli VM-ek kimaradnak (a szimuláció név alapján azonosítja a VM-eket)
+        public Builder addAll(List<VmData> vmData) {
+            for (VmData vm : vmData) {
+                if (vm.getName() == null) {
+                    continue;
+                }
+                if (size == names.length) {
+                    grow();
+                }
+                names[size] = vm.getName();
+                cpu[size] = vm.getCpu();
+                ram[size] = vm.getRam();
+                coreProcessingPower[size] = vm.getCoreProcessingPower();
+                startupProcess[size] = vm.getStartupProcess();
+                reqDisk[size] = vm.getReqDisk();
+                pricePerTick[size] = vm.getPricePerTick();
+                networkTraffic[size] = vm.getNetworkTraffic();
+                usage[size] = vm.getUsage();
+                dataSinceLastSave[size] = vm.getDataSinceLastSave();
+                size++;
+            }
+            return this;
+        }
+
+        public FleetSnapshot build(Long requestDataId, String timestamp) {
+            return new FleetSnapshot(requestDataId, timestamp,
+                    Arrays.copyOf(names, size),
+                    Arrays.copyOf(cpu, size),
+                    Arrays.copyOf(ram, size),
+                    Arrays.copyOf(coreProcessingPower, size),
+                    Arrays.copyOf(startupProcess, size),
+                    Arrays.copyOf(reqDisk, size),
+                    Arrays.copyOf(pricePerTick, size),
+                    Arrays.copyOf(networkTraffic, size),
+                    Arrays.copyOf(usage, size),
+                    Arrays.copyOf(dataSinceLastSave, size));
+        }
+
+        private void grow() {
+            int capacity = names.length * 2;
+            names = Arrays.copyOf(names, capacity);
+            cpu = Arrays.copyOf(cpu, capacity);
+            ram = Arrays.copyOf(ram, capacity);
+            coreProcessingPower = Arrays.copyOf(coreProcessingPower, capacity);
+            startupProcess = Arrays.copyOf(startupProcess, capacity);
+            reqDisk = Arrays.copyOf(reqDisk, capacity);
+            pricePerTick = Arrays.copyOf(pricePerTick, capacity);
+            networkTraffic = Arrays.copyOf(networkTraffic, capacity);
+            usage = Arrays.copyOf(usage, capacity);
+            dataSinceLastSave = Arrays.copyOf(dataSinceLastSave, capacity);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package hu.digital_twin.model;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RequestData és VmData rekordok tömeges mentése JDBC batch beszúrással.
+ * A JPA IDENTITY generálás miatt a Hibernate nem tud batch-elni, ezért itt a request_data sorok egyenként,
+ * az adatbázis által generált azonosítóval kerülnek be, a (jóval több) vm_data sor pedig JDBC batch-ekben.
+ * Az azonosítót az adatbázis adja (nem előre kiosztva), így a régi, AUTOINCREMENT nélküli (sqlite_sequence
+ * táblát nem tartalmazó) tenant adatbázisokkal is működik, és párhuzamos írók sem kaphatják ugyanazt.
+ */
+@Repository
+public class RequestDataBatchRepository {
+
+    // Egy JDBC batch-ben elküldött sorok maximális száma
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_REQUEST_DATA =
+            "INSERT INTO request_data (request_type, timestamp, vms_count) VALUES (?, ?, ?)";
+
+    private static final String INSERT_VM_DATA =
+            "INSERT INTO vm_data (core_processing_power, cpu, data_since_last_save, name, network_traffic, " +
+            "price_per_tick, ram, req_disk, startup_process, status, type, usage, request_data_id) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final VmTelemetryRepository vmTelemetryRepository;
+
+    public RequestDataBatchRepository(JdbcTemplate jdbcTemplate, VmTelemetryRepository vmTelemetryRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.vmTelemetryRepository = vmTelemetryRepository;
+    }
+
+    /**
+     * Az összes kérés és a hozzájuk tartozó VM adatok mentése egyetlen tranzakcióban.
+     * A mentett RequestData példányok megkapják a generált azonosítójukat.
+     *
+     * @param requests a mentendő kérések (timestamp már beállítva)
+     */
+    @Transactional
+    public void insertAll(List<RequestData> requests) {
+        if (requests.isEmpty()) {
+            return;
+        }
+
+        // Először a szülő sorok (a generált azonosítóért egyenként), utána a VM sorok batch-ben, végül az idősor minták
+        List<Object[]> vmRows = new ArrayList<>();
+        for (RequestData requestData : requests) {
+            insertRequestRow(requestData);
+            if (requestData.getVmData() != null) {
+                for (VmData vmData : requestData.getVmData()) {
+                    vmRows.add(toVmRow(vmData, requestData.getId()));
+                }
+            }
+        }
+
+        insertVmRows(vmRows);
+        for (RequestData requestData : requests) {
+            vmTelemetryRepository.insert(requestData.getId(), requestData.getTimestamp(), requestData.getVmData());
+        }
+    }
+
+    /**
+     * Egyetlen request_data sor beszúrása, a VM adatok nélkül.
+     * Darabolt (streaming) mentésnél használatos, a VM sorok utána az insertVmData-val kerülnek be.
+     *
+     * @param requestData a mentendő kérés fejléce, megkapja a generált azonosítót
+     */
+    @Transactional
+    public void insertHeader(RequestData requestData) {
+        insertRequestRow(requestData);
+    }
+
+    /**
+     * VM adatok egy darabjának beszúrása egy már létező request_data sorhoz (és az idősor táblába).
+     *
+     * @param header a már beszúrt kérés fejléce (azonosító és timestamp)
+     */
+    @Transactional
+    public void insertVmData(RequestData header, List<VmData> vmDataChunk) {
+        insertVmData(header, vmDataChunk, vmDataChunk);
+    }
+
+    /**
+     * VM adatok egy darabjának beszúrása, ahol az idősor táblába csak a telemetryChunk kerül
+     * (pl. darabokon átívelő ismétlődő VM nevek esetén csak a kérésbeli utolsó előfordulás).
+     *
+     * @param header a már beszúrt kérés fejléce (azonosító és timestamp)
+     * @param vmDataChunk a vm_data sorokként mentett VM adatok
+     * @param telemetryChunk az idősor mintaként mentett VM adatok
+     */
+    @Transactional
+    public void insertVmData(RequestData header, List<VmData> vmDataChunk, List<VmData> telemetryChunk) {
+        List<Object[]> vmRows = new ArrayList<>(vmDataChunk.size());
+        for (VmData vmData : vmDataChunk) {
+            vmRows.add(toVmRow(vmData, header.getId()));
+        }
+        insertVmRows(vmRows);
+        vmTelemetryRepository.insert(header.getId(), header.getTimestamp(), telemetryChunk);
+    }
+
+    /**
+     * Egy request_data sor beszúrása; a kérés megkapja az adatbázis által generált azonosítót (rowid).
+     */
+    private void insertRequestRow(RequestData requestData) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(INSERT_REQUEST_DATA, Statement.RETURN_GENERATED_KEYS);
+            statement.setString(1, requestData.getRequestType());
+            statement.setString(2, requestData.getTimestamp());
+            statement.setInt(3, requestData.getVmsCount());
+            return statement;
+        }, keyHolder);
+        Number key = keyHolder.getKey();
+        if (key == null) {
+            throw new IllegalStateException("No generated id for request_data");
+        }
+        requestData.setId(key.longValue());
+    }
+
+    /**
+     * VM sorok beszúrása BATCH_SIZE méretű JDBC batch-ekben.
+     */
+    private void insertVmRows(List<Object[]> vmRows) {
+        for (int from = 0; from < vmRows.size(); from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, vmRows.size());
+            jdbcTemplate.batchUpdate(INSERT_VM_DATA, vmRows.subList(from, to));
+        }
+    }
+
+    /**
+     * Egy VmData rekord paraméterlistája az INSERT_VM_DATA utasításhoz.
+     */
+    private Object[] toVmRow(VmData vmData, long requestDataId) {
+        return new Object[]{
+                vmData.getCoreProcessingPower(),
+                vmData.getCpu(),
+                vmData.getDataSinceLastSave(),
+                vmData.getName(),
+                vmData.getNetworkTraffic(),
+                vmData.getPricePerTick(),
+                vmData.getRam(),
+                vmData.getReqDisk(),
+                vmData.getStartupProcess(),
+                vmData.getStatus(),
+                vmData.getType(),
+                vmData.getUsage(),
+                requestDataId
+        };
+    }
+}
@@ -1,7 +1,10 @@
 package hu.digital_twin.model;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 public interface RequestDataRepository extends JpaRepository<RequestData, Long> {
+    // A VM adatok is betöltődnek, mert a szimuláció a kérésen kívül (háttérszálon, sandboxban) használja őket
+    @EntityGraph(attributePaths = "vmData")
     RequestData findTopByOrderByIdDesc();
 }
@@ -0,0 +1,76 @@
+package hu.digital_twin.model;
+
+import java.util.List;
+import java.util.Map;
+
+// Egy szimulációs futás összes bemenete: a kérés, a legutóbbi flottaállapot és (ha szükséges) a predikció.
+// Az adatbázis- és predikciós hívások a szimuláció előtt történnek, így maga a szimuláció
+// külső függőség nélkül, izolált környezetben (sandboxban) is futtatható.
+public class SimulationInput {
+
+    // A szimulációt kérő REQUEST FUTURE BEHAVIOUR kérés (időtartam, küszöbérték stb.)
+    private RequestData requestData;
+
+    // Az utolsó mentett UPDATE kérés VM-jeinek adatai (oszlopos pillanatkép)
+    private FleetSnapshot fleet;
+
+    // VM-enkénti terhelés-előrejelzés (baseline stratégiánál null)
+    private Map<String, List<Double>> predictionData;
+
+    // A szimulációt kérő tenant (a szimuláción belüli profilozó események címkéje)
+    private String tenantId;
+
+    // A predikció falióra ideje nanoszekundumban (a szimuláció statisztikájához; baseline esetén 0)
+    private long predictionNanos;
+
+    // Üres konstruktor a deszerializáláshoz
+    public SimulationInput() {
+    }
+
+    public SimulationInput(RequestData requestData, FleetSnapshot fleet,
+                           Map<String, List<Double>> predictionData) {
+        this.requestData = requestData;
+        this.fleet = fleet;
+        this.predictionData = predictionData;
+    }
+
+    public RequestData getRequestData() {
+        return requestData;
+    }
+
+    public void setRequestData(RequestData requestData) {
+        this.requestData = requestData;
+    }
+
+    public FleetSnapshot getFleet() {
+        return fleet;
+    }
+
+    public void setFleet(FleetSnapshot fleet) {
+        this.fleet = fleet;
+    }
+
+    public Map<String, List<Double>> getPredictionData() {
+        return predictionData;
+    }
+
+    public void setPredictionData(Map<String, List<Double>> predictionData) {
+        this.predictionData = predictionData;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    public long getPredictionNanos() {
+        return predictionNanos;
+    }
+
+    public void setPredictionNanos(long predictionNanos) {
+        this.predictionNanos = predictionNanos;
+    }
+}
@@ -0,0 +1,200 @@
+package hu.digital_twin.model;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Percenkénti és óránkénti VM összesítések (vm_rollup_minute, vm_rollup_hour) kezelése.
+ * Mentéskor a telemetria mintákkal együtt, inkrementálisan (UPSERT) frissülnek, így a hosszabb
+ * időszakokra vonatkozó lekérdezéseknek nem kell a nyers mintákat újra átlagolniuk.
+ * Törléskor a min/max/utolsó érték nem vonható vissza, ezért az érintett vödrök a vm_telemetry-ből újraszámolódnak.
+ */
+@Repository
+public class VmRollupRepository {
+
+    // Egy JDBC batch-ben elküldött sorok maximális száma
+    private static final int BATCH_SIZE = 500;
+
+    // Egyszerre a JDBC driverből kért sorok száma
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String COLUMNS =
+            "vm_name, bucket_millis, sample_count, usage_sum, usage_min, usage_max, usage_last, " +
+            "network_traffic_sum, network_traffic_min, network_traffic_max, network_traffic_last, last_millis";
+
+    // Egy minta hozzáadása a vödörhöz; az "utolsó" érték a legkésőbbi időbélyegű mintáé
+    private static final String UPSERT =
+            "INSERT INTO %s (" + COLUMNS + ") VALUES (?, ?, 1, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (vm_name, bucket_millis) DO UPDATE SET " +
+            "sample_count = sample_count + 1, " +
+            "usage_sum = usage_sum + excluded.usage_sum, " +
+            "usage_min = MIN(usage_min, excluded.usage_min), " +
+            "usage_max = MAX(usage_max, excluded.usage_max), " +
+            "usage_last = CASE WHEN excluded.last_millis >= last_millis THEN excluded.usage_last ELSE usage_last END, " +
+            "network_traffic_sum = network_traffic_sum + excluded.network_traffic_sum, " +
+            "network_traffic_min = MIN(network_traffic_min, excluded.network_traffic_min), " +
+            "network_traffic_max = MAX(network_traffic_max, excluded.network_traffic_max), " +
+            "network_traffic_last = CASE WHEN excluded.last_millis >= last_millis " +
+            "THEN excluded.network_traffic_last ELSE network_traffic_last END, " +
+            "last_millis = MAX(last_millis, excluded.last_millis)";
+
+    // Vödrök újraszámolása a nyers mintákból egy VM egy időszakára (vagy a teljes táblára)
+    private static final String REBUILD =
+            "INSERT OR REPLACE INTO %1$s (" + COLUMNS + ") " +
+            "WITH b AS (SELECT vm_name, (epoch_millis / %2$d) * %2$d AS bucket_millis, COUNT(*) AS sample_count, " +
+            "SUM(usage) AS usage_sum, MIN(usage) AS usage_min, MAX(usage) AS usage_max, " +
+            "SUM(network_traffic) AS network_traffic_sum, MIN(network_traffic) AS network_traffic_min, " +
+            "MAX(network_traffic) AS network_traffic_max, MAX(epoch_millis) AS last_millis " +
+            "FROM vm_telemetry %3$s GROUP BY vm_name, bucket_millis) " +
+            "SELECT b.vm_name, b.bucket_millis, b.sample_count, b.usage_sum, b.usage_min, b.usage_max, " +
+            "(SELECT t.usage FROM vm_telemetry t WHERE t.vm_name = b.vm_name AND t.epoch_millis = b.last_millis " +
+            "ORDER BY t.request_data_id DESC LIMIT 1), " +
+            "b.network_traffic_sum, b.network_traffic_min, b.network_traffic_max, " +
+            "(SELECT t.network_traffic FROM vm_telemetry t WHERE t.vm_name = b.vm_name AND t.epoch_millis = b.last_millis " +
+            "ORDER BY t.request_data_id DESC LIMIT 1), " +
+            "b.last_millis FROM b";
+
+    /**
+     * Az összesítések felbontásai (a vödör szélessége és a tábla neve).
+     */
+    public enum Resolution {
+        MINUTE(60_000L, "vm_rollup_minute"),
+        HOUR(3_600_000L, "vm_rollup_hour");
+
+        private final long bucketMillis;
+        private final String table;
+
+        Resolution(long bucketMillis, String table) {
+            this.bucketMillis = bucketMillis;
+            this.table = table;
+        }
+
+        public long getBucketMillis() { return bucketMillis; }
+
+        // A mintát tartalmazó vödör kezdete
+        public long bucketOf(long epochMillis) {
+            return Math.floorDiv(epochMillis, bucketMillis) * bucketMillis;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public VmRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Minták hozzáadása mindkét felbontás összesítéseihez.
+     *
+     * @param samples a mentett telemetria minták
+     */
+    public void add(List<Sample> samples) {
+        if (samples.isEmpty()) {
+            return;
+        }
+        for (Resolution resolution : Resolution.values()) {
+            List<Object[]> rows = new ArrayList<>(samples.size());
+            for (Sample sample : samples) {
+                rows.add(new Object[]{
+                        sample.vmName(),
+                        resolution.bucketOf(sample.epochMillis()),
+                        sample.usage(), sample.usage(), sample.usage(), sample.usage(),
+                        sample.networkTraffic(), sample.networkTraffic(), sample.networkTraffic(), sample.networkTraffic(),
+                        sample.epochMillis()
+                });
+            }
+            String upsert = String.format(UPSERT, resolution.table);
+            for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+                int to = Math.min(from + BATCH_SIZE, rows.size());
+                jdbcTemplate.batchUpdate(upsert, rows.subList(from, to));
+            }
+        }
+    }
+
+    /**
+     * Egy VM adott időpontot tartalmazó vödreinek újraszámolása (mindkét felbontásban), pl. minták törlése után.
+     * Ha a vödörben már nincs minta, a vödör törlődik.
+     */
+    public void rebuild(String vmName, long epochMillis) {
+        for (Resolution resolution : Resolution.values()) {
+            long bucket = resolution.bucketOf(epochMillis);
+            jdbcTemplate.update("DELETE FROM " + resolution.table + " WHERE vm_name = ? AND bucket_millis = ?",
+                    vmName, bucket);
+            jdbcTemplate.update(String.format(REBUILD, resolution.table, resolution.bucketMillis,
+                            "WHERE vm_name = ? AND epoch_millis >= ? AND epoch_millis < ?"),
+                    vmName, bucket, bucket + resolution.bucketMillis);
+        }
+    }
+
+    /**
+     * Az összes összesítés újraszámolása a teljes vm_telemetry táblából (migrációhoz).
+     */
+    public static void rebuildAll(JdbcTemplate jdbcTemplate) {
+        for (Resolution resolution : Resolution.values()) {
+            jdbcTemplate.update("DELETE FROM " + resolution.table);
+            jdbcTemplate.update(String.format(REBUILD, resolution.table, resolution.bucketMillis, ""));
+        }
+    }
+
+    public void deleteAll() {
+        for (Resolution resolution : Resolution.values()) {
+            jdbcTemplate.update("DELETE FROM " + resolution.table);
+        }
+    }
+
+    /**
+     * Egy VM összesített vödrei egy időszakban, időben növekvő sorrendben (a klaszterezett kulcson).
+     *
+     * @param resolution a felbontás
+     * @param vmName a VM neve
+     * @param fromMillis az időszak eleje (epoch ms, a vödör kezdete ettől nem kisebb)
+     * @param toMillis az időszak vége (epoch ms, kizárólagos)
+     */
+    public List<Bucket> findBuckets(Resolution resolution, String vmName, long fromMillis, long toMillis) {
+        String query = "SELECT " + COLUMNS + " FROM " + resolution.table +
+                " WHERE vm_name = ? AND bucket_millis >= ? AND bucket_millis < ? ORDER BY bucket_millis";
+        List<Bucket> buckets = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(query);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setString(1, vmName);
+            statement.setLong(2, fromMillis);
+            statement.setLong(3, toMillis);
+            return statement;
+        }, rs -> {
+            long count = rs.getLong("sample_count");
+            buckets.add(new Bucket(
+                    rs.getLong("bucket_millis"),
+                    count,
+                    rs.getDouble("usage_sum") / count,
+                    rs.getDouble("usage_min"),
+                    rs.getDouble("usage_max"),
+                    rs.getDouble("usage_last"),
+                    (double) rs.getLong("network_traffic_sum") / count,
+                    rs.getLong("network_traffic_min"),
+                    rs.getLong("network_traffic_max"),
+                    rs.getLong("network_traffic_last")));
+        });
+        return buckets;
+    }
+
+    /**
+     * Egy mentett telemetria minta az összesítésekhez.
+     */
+    public record Sample(String vmName, long epochMillis, double usage, long networkTraffic) {
+    }
+
+    /**
+     * Egy összesített vödör: kezdete (epoch ms), a minták száma, valamint átlag, min, max és utolsó érték
+     * a usage és a networkTraffic jellemzőre.
+     */
+    public record Bucket(long bucketMillis, long count,
+                         double usageMean, double usageMin, double usageMax, double usageLast,
+                         double networkTrafficMean, long networkTrafficMin, long networkTrafficMax,
+                         long networkTrafficLast) {
+    }
+}
@@ -0,0 +1,276 @@
+package hu.digital_twin.model;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A vm_telemetry idősor tábla kezelése: VM-enként, epoch milliszekundum szerint rendezett minták.
+ * Minden mentett UPDATE VM adatai ide is bekerülnek (ugyanabban a tranzakcióban, mint a vm_data sorok),
+ * a előzmény lekérdezések (pl. a predikció tanító ablaka) már ezt a táblát olvassák.
+ * A percenkénti és óránkénti összesítések (VmRollupRepository) a mintákkal együtt frissülnek.
+ */
+@Repository
+public class VmTelemetryRepository {
+
+    // Egy JDBC batch-ben elküldött sorok maximális száma
+    private static final int BATCH_SIZE = 500;
+
+    // Egyszerre a JDBC driverből kért sorok száma
+    private static final int FETCH_SIZE = 1000;
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // A lekérdezhető (numerikus) jellemzők; az oszlopnév a kérésből jön, ezért csak ezek engedélyezettek
+    private static final Set<String> FEATURE_COLUMNS = Set.of(
+            "core_processing_power", "cpu", "data_since_last_save", "network_traffic",
+            "price_per_tick", "ram", "req_disk", "startup_process", "usage");
+
+    private static final String INSERT_TELEMETRY =
+            "INSERT OR REPLACE INTO vm_telemetry (vm_name, epoch_millis, request_data_id, core_processing_power, cpu, " +
+            "data_since_last_save, network_traffic, price_per_tick, ram, req_disk, startup_process, usage) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Exportnál a VM szűrőben megadható nevek maximális száma (SQLite paraméter korlát alatt)
+    public static final int MAX_EXPORT_VM_NAMES = 500;
+
+    private static final String EXPORT_COLUMNS =
+            "SELECT vm_name, epoch_millis, request_data_id, core_processing_power, cpu, data_since_last_save, " +
+            "network_traffic, price_per_tick, ram, req_disk, startup_process, usage FROM vm_telemetry ";
+
+    private static final String LATEST_VM_NAMES =
+            "SELECT vm_name FROM vm_telemetry " +
+            "WHERE request_data_id = (SELECT MAX(request_data_id) FROM vm_telemetry) " +
+            "ORDER BY vm_name LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final VmRollupRepository vmRollupRepository;
+
+    public VmTelemetryRepository(JdbcTemplate jdbcTemplate, VmRollupRepository vmRollupRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.vmRollupRepository = vmRollupRepository;
+    }
+
+    /**
+     * Egy kérés VM adatainak mentése telemetria mintaként (a név nélküli VM-ek kimaradnak).
+     * Egy VM név többszöri előfordulásakor az utolsó adat számít (mint az INSERT OR REPLACE-nél),
+     * így az összesítésekbe is csak egyszer kerül be.
+     *
+     * @param requestDataId a kérés azonosítója
+     * @param timestamp a kérés időbélyege (yyyy-MM-dd HH:mm:ss)
+     * @param vmData a kérés VM adatai
+     */
+    public void insert(long requestDataId, String timestamp, List<VmData> vmData) {
+        if (vmData == null || vmData.isEmpty() || timestamp == null) {
+            return;
+        }
+        long epochMillis = toEpochMillis(timestamp);
+        Map<String, VmData> latest = new LinkedHashMap<>();
+        for (VmData vm : vmData) {
+            if (vm.getName() != null) {
+                latest.put(vm.getName(), vm);
+            }
+        }
+        List<Object[]> rows = new ArrayList<>(latest.size());
+        List<VmRollupRepository.Sample> samples = new ArrayList<>(latest.size());
+        for (VmData vm : latest.values()) {
+            rows.add(new Object[]{
+                    vm.getName(),
+                    epochMillis,
+                    requestDataId,
+                    vm.getCoreProcessingPower(),
+                    vm.getCpu(),
+                    vm.getDataSinceLastSave(),
+                    vm.getNetworkTraffic(),
+                    vm.getPricePerTick(),
+                    vm.getRam(),
+                    vm.getReqDisk(),
+                    vm.getStartupProcess(),
+                    vm.getUsage()
+            });
+            samples.add(new VmRollupRepository.Sample(vm.getName(), epochMillis, vm.getUsage(), vm.getNetworkTraffic()));
+        }
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            int to = Math.min(from + BATCH_SIZE, rows.size());
+            jdbcTemplate.batchUpdate(INSERT_TELEMETRY, rows.subList(from, to));
+        }
+        vmRollupRepository.add(samples);
+    }
+
+    /**
+     * Egy kérés mintáinak törlése; az érintett összesítő vödrök a megmaradt mintákból újraszámolódnak.
+     */
+    public void deleteByRequestDataId(long requestDataId) {
+        List<Map<String, Object>> removed = jdbcTemplate.queryForList(
+                "SELECT vm_name, epoch_millis FROM vm_telemetry WHERE request_data_id = ?", requestDataId);
+        jdbcTemplate.update("DELETE FROM vm_telemetry WHERE request_data_id = ?", requestDataId);
+        for (Map<String, Object> row : removed) {
+            vmRollupRepository.rebuild((String) row.get("vm_name"), ((Number) row.get("epoch_millis")).longValue());
+        }
+    }
+
+    public void deleteAll() {
+        jdbcTemplate.update("DELETE FROM vm_telemetry");
+        vmRollupRepository.deleteAll();
+    }
+
+    /**
+     * A legutóbbi kérésben szereplő VM-ek neve, név szerint rendezve.
+     *
+     * @param limit a visszaadott nevek maximális száma
+     */
+    public List<String> findLatestVmNames(int limit) {
+        return jdbcTemplate.queryForList(LATEST_VM_NAMES, String.class, limit);
+    }
+
+    /**
+     * Egy VM legutóbbi mintái egy jellemzőre, időben csökkenő sorrendben (a klaszterezett kulcson, rendezés nélkül).
+     *
+     * @param vmName a VM neve
+     * @param feature a jellemző oszlopneve (pl. usage)
+     * @param limit a minták maximális száma
+     */
+    public Samples findLatestSamples(String vmName, String feature, int limit) {
+        if (feature == null || !FEATURE_COLUMNS.contains(feature)) {
+            throw new IllegalArgumentException("Unknown feature: " + feature);
+        }
+        String query = "SELECT epoch_millis, " + feature + " FROM vm_telemetry WHERE vm_name = ? " +
+                "ORDER BY epoch_millis DESC, request_data_id DESC LIMIT ?";
+
+        long[] epochMillis = new long[Math.max(0, limit)];
+        double[] values = new double[Math.max(0, limit)];
+        int[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(query);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setString(1, vmName);
+            statement.setInt(2, limit);
+            return statement;
+        }, (ResultSet rs) -> {
+            int i = count[0]++;
+            epochMillis[i] = rs.getLong(1);
+            values[i] = rs.getDouble(2);
+        });
+        return new Samples(epochMillis, values, count[0]);
+    }
+
+    /**
+     * Egy VM nyers mintái egy jellemzőre egy időszakban, időben növekvő sorrendben.
+     *
+     * @param vmName a VM neve
+     * @param feature a jellemző oszlopneve (pl. usage)
+     * @param fromMillis az időszak eleje (epoch ms, bezárólagos)
+     * @param toMillis az időszak vége (epoch ms, kizárólagos)
+     */
+    public List<Sample> findRange(String vmName, String feature, long fromMillis, long toMillis) {
+        if (feature == null || !FEATURE_COLUMNS.contains(feature)) {
+            throw new IllegalArgumentException("Unknown feature: " + feature);
+        }
+        String query = "SELECT epoch_millis, " + feature + " FROM vm_telemetry " +
+                "WHERE vm_name = ? AND epoch_millis >= ? AND epoch_millis < ? ORDER BY epoch_millis, request_data_id";
+
+        List<Sample> samples = new ArrayList<>();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(query);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setString(1, vmName);
+            statement.setLong(2, fromMillis);
+            statement.setLong(3, toMillis);
+            return statement;
+        }, (ResultSet rs) -> {
+            samples.add(new Sample(rs.getLong(1), rs.getDouble(2)));
+        });
+        return samples;
+    }
+
+    /**
+     * A minták sorról sorra olvasása egy időszakra, a klaszterezett kulcs sorrendjében (VM, idő, kérés), rendezés nélkül.
+     * Csak előre haladó kurzor, rögzített fetch mérettel: egyszerre csak egy sor van a memóriában,
+     * a tábla méretétől függetlenül.
+     *
+     * @param vmNames a VM-ek neve, üres vagy null esetén az összes VM
+     * @param fromMillis az időszak eleje (epoch ms, bezárólagos)
+     * @param toMillis az időszak vége (epoch ms, kizárólagos)
+     * @param consumer a sorok feldolgozója; az IOException-t UncheckedIOException-ként dobja tovább
+     */
+    public void streamRange(List<String> vmNames, long fromMillis, long toMillis, RowConsumer consumer) {
+        List<String> names = vmNames == null ? Collections.emptyList() : vmNames;
+        if (names.size() > MAX_EXPORT_VM_NAMES) {
+            throw new IllegalArgumentException("At most " + MAX_EXPORT_VM_NAMES + " VM names can be exported at once");
+        }
+        StringBuilder query = new StringBuilder(EXPORT_COLUMNS).append("WHERE epoch_millis >= ? AND epoch_millis < ?");
+        if (!names.isEmpty()) {
+            query.append(" AND vm_name IN (").append(String.join(", ", Collections.nCopies(names.size(), "?"))).append(")");
+        }
+        query.append(" ORDER BY vm_name, epoch_millis, request_data_id");
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(query.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(FETCH_SIZE);
+            statement.setLong(1, fromMillis);
+            statement.setLong(2, toMillis);
+            for (int i = 0; i < names.size(); i++) {
+                statement.setString(3 + i, names.get(i));
+            }
+            return statement;
+        }, (ResultSet rs) -> {
+            try {
+                consumer.accept(new Row(rs.getString(1), rs.getLong(2), rs.getLong(3), rs.getDouble(4), rs.getInt(5),
+                        rs.getInt(6), rs.getInt(7), rs.getDouble(8), rs.getLong(9), rs.getLong(10), rs.getInt(11),
+                        rs.getDouble(12)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * A mentett timestamp formátum epoch milliszekundumként (UTC-ként értelmezve, mint az SQLite strftime('%s')).
+     */
+    public static long toEpochMillis(String timestamp) {
+        return LocalDateTime.parse(timestamp, TIMESTAMP_FORMAT).toEpochSecond(ZoneOffset.UTC) * 1000;
+    }
+
+    /**
+     * Egy VM lekérdezett mintái: az első size elem érvényes, időben csökkenő sorrendben.
+     */
+    public record Samples(long[] epochMillis, double[] values, int size) {
+    }
+
+    /**
+     * Egy nyers minta: időbélyeg (epoch ms) és a jellemző értéke.
+     */
+    public record Sample(long epochMillis, double value) {
+    }
+
+    /**
+     * Egy telemetria sor az összes jellemzővel (exporthoz).
+     */
+    public record Row(String vmName, long epochMillis, long requestDataId, double coreProcessingPower, int cpu,
+                      int dataSinceLastSave, int networkTraffic, double pricePerTick, long ram, long reqDisk,
+                      int startupProcess, double usage) {
+    }
+
+    /**
+     * A streamelt sorok feldolgozója (pl. a válasz kimenetére író export).
+     */
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(Row row) throws IOException;
+    }
+}
@@ -2,8 +2,7 @@ package hu.digital_twin.service.infrastructure;
 
 import hu.digital_twin.builder.VmBuilder;
 import hu.digital_twin.context.SimulationContext;
-import hu.digital_twin.model.RequestData;
-import hu.digital_twin.model.VmData;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.digital_twin.service.util.ResourceCalculationService;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
 import org.springframework.stereotype.Service;
@@ -21,16 +20,16 @@ public class VirtualMachineFactory {
     }
 
     /**
-     * Virtuális gépek létrehozása az adott kérés (RequestData) alapján.
+     * Virtuális gépek létrehozása a legutóbbi flottaállapot (FleetSnapshot) alapján.
      *
-     * @param requestData a VM konfigurációs adatait tartalmazza
+     * @param fleet a VM-ek konfigurációs adatai
      * @param context a szimulációs környezet, amibe a VM-ek kerülnek
      * @throws Exception ha a VM építése sikertelen
      */
-    public void createVirtualMachines(RequestData requestData, SimulationContext context) throws Exception {
-        for (VmData vmData : requestData.getVmData()) {
-            createVirtualMachine(vmData, context);
-            calculateAndStoreVmMetrics(vmData, context);
+    public void createVirtualMachines(FleetSnapshot fleet, SimulationContext context) throws Exception {
+        for (int i = 0; i < fleet.size(); i++) {
+            createVirtualMachine(fleet, i, context);
+            calculateAndStoreVmMetrics(fleet, i, context);
         }
     }
 
@@ -39,47 +38,46 @@ public class VirtualMachineFactory {
      * A backup VM az eredeti VM adatait veszi alapul, de például startupProcess 0.
      *
      * @param vmId a backup VM alapjául szolgáló VM neve
-     * @param requestData a kérés, amiben megtalálható az eredeti VM adata
+     * @param fleet a flottaállapot, amiben megtalálható az eredeti VM adata
      * @param context a szimulációs kontextus
      * @return az elkészült backup VM példány
      * @throws Exception ha a VM létrehozása nem sikerül vagy a vmId nem található
      */
-    public VirtualMachine createBackupVirtualMachine(String vmId, RequestData requestData, SimulationContext context) throws Exception {
-        for (VmData vmData : requestData.getVmData()) {
-            if (vmData.getName().equals(vmId)) {
-                return new VmBuilder()
-                        .withName(vmData.getName() + "_backup")
-                        .withStartupProcess(0)  // Backup VM gyors indítása
-                        .withNetworkTraffic(vmData.getNetworkTraffic())
-                        .withDisk(vmData.getReqDisk())
-                        .withResources(vmData.getCpu(), vmData.getCoreProcessingPower(), vmData.getRam())
-                        .build(context);
-            }
+    public VirtualMachine createBackupVirtualMachine(String vmId, FleetSnapshot fleet, SimulationContext context) throws Exception {
+        int i = fleet.indexOf(vmId);
+        if (i < 0) {
+            throw new IllegalArgumentException("VM not found with ID: " + vmId);
         }
-        throw new IllegalArgumentException("VM not found with ID: " + vmId);
+        return new VmBuilder()
+                .withName(fleet.names()[i] + "_backup")
+                .withStartupProcess(0)  // Backup VM gyors indítása
+                .withNetworkTraffic(fleet.networkTraffic()[i])
+                .withDisk(fleet.reqDisk()[i])
+                .withResources(fleet.cpu()[i], fleet.coreProcessingPower()[i], fleet.ram()[i])
+                .build(context);
     }
 
     /**
-     * Egyedi virtuális gép létrehozása a megadott VM adatok alapján.
+     * Egyedi virtuális gép létrehozása a flotta i-edik VM-jének adatai alapján.
      */
-    private void createVirtualMachine(VmData vmData, SimulationContext context) throws Exception {
+    private void createVirtualMachine(FleetSnapshot fleet, int i, SimulationContext context) throws Exception {
         new VmBuilder()
-                .withName(vmData.getName())
-                .withStartupProcess(vmData.getStartupProcess())
-                .withNetworkTraffic(vmData.getNetworkTraffic())
-                .withDisk(vmData.getReqDisk())
-                .withResources(vmData.getCpu(), vmData.getCoreProcessingPower(), vmData.getRam())
+                .withName(fleet.names()[i])
+                .withStartupProcess(fleet.startupProcess()[i])
+                .withNetworkTraffic(fleet.networkTraffic()[i])
+                .withDisk(fleet.reqDisk()[i])
+                .withResources(fleet.cpu()[i], fleet.coreProcessingPower()[i], fleet.ram()[i])
                 .build(context);
     }
 
     /**
      * Kiszámolja egy VM maximális másodpercenkénti utasításszámát és eltárolja a szimulációs kontextusban.
      */
-    private void calculateAndStoreVmMetrics(VmData vmData, SimulationContext context) {
+    private void calculateAndStoreVmMetrics(FleetSnapshot fleet, int i, SimulationContext context) {
         long maxInstr = resourceCalculationService.calculateMaxInstructionsPerSecond(
-                vmData.getCpu(), vmData.getCoreProcessingPower());
+                fleet.cpu()[i], fleet.coreProcessingPower()[i]);
 
-        context.getMaxInstrPerSecond().put(vmData.getName(), maxInstr);
-        context.getFileSizes().put(vmData.getName(), vmData.getDataSinceLastSave());
+        context.getMaxInstrPerSecond().put(fleet.names()[i], maxInstr);
+        context.getFileSizes().put(fleet.names()[i], fleet.dataSinceLastSave()[i]);
     }
 }
@@ -0,0 +1,170 @@
+package hu.digital_twin.service.io;
+
+import hu.digital_twin.config.FleetSnapshotConfig;
+import hu.digital_twin.model.FleetSnapshot;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tenantonként a legutóbbi mentett kérés flottaállapota (FleetSnapshot), írás-átvezetéssel (write-through):
+ * minden mentés után a RequestDataService frissíti, így a szimulációknak nem kell az adatbázisból
+ * (kérés és lusta VM lista) újra betölteniük. Hiányzó tenant esetén a hívó tölti be és teszi be.
+ * Az összes pillanatkép becsült mérete korlátos, a keret felett a legrégebben használt tenant kerül ki.
+ * Tenantonként egy verziószám számolja az érvénytelenítéseket: a betöltés előtt lekért verzióval betett
+ * pillanatkép elvész, ha a betöltés közben érvénytelenítés történt (a betöltött állapot már elavult lehet).
+ */
+@Service
+public class FleetSnapshotStore {
+
+    private final FleetSnapshotConfig config;
+
+    // Hozzáférési sorrendű LinkedHashMap: a legrégebben használt tenant kerül ki először; a lock maga a map
+    private final LinkedHashMap<String, FleetSnapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes = 0;
+    // Tenantonként az érvénytelenítések száma (a snapshots zárja alatt)
+    private final Map<String, Long> versions = new HashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public FleetSnapshotStore(FleetSnapshotConfig config) {
+        this.config = config;
+    }
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    /**
+     * A tenant tárolt pillanatképe, vagy null, ha nincs betöltve.
+     */
+    public FleetSnapshot get(String tenantId) {
+        FleetSnapshot snapshot;
+        synchronized (snapshots) {
+            snapshot = snapshots.get(tenantId);
+        }
+        (snapshot != null ? hits : misses).incrementAndGet();
+        return snapshot;
+    }
+
+    /**
+     * Frissen mentett (tehát legutóbbi) kérés pillanatképe; régebbi azonosítójú kérés nem írja felül az újabbat.
+     */
+    public void publish(String tenantId, FleetSnapshot snapshot) {
+        if (!config.isEnabled() || snapshot.requestDataId() == null) {
+            return;
+        }
+        synchronized (snapshots) {
+            FleetSnapshot current = snapshots.get(tenantId);
+            if (current == null || current.requestDataId() == null
+                    || current.requestDataId() <= snapshot.requestDataId()) {
+                store(tenantId, snapshot);
+            }
+        }
+    }
+
+    /**
+     * A tenant aktuális verziója; az adatbázisból betöltés előtt kell lekérni, és a putLoaded-nak átadni.
+     */
+    public long version(String tenantId) {
+        synchronized (snapshots) {
+            return versions.getOrDefault(tenantId, 0L);
+        }
+    }
+
+    /**
+     * Az adatbázisból betöltött pillanatkép; csak akkor kerül be, ha közben nem érkezett írás-átvezetett újabb,
+     * és a betöltés kezdete (loadedVersion) óta nem volt érvénytelenítés.
+     */
+    public void putLoaded(String tenantId, FleetSnapshot snapshot, long loadedVersion) {
+        if (!config.isEnabled()) {
+            return;
+        }
+        synchronized (snapshots) {
+            if (!snapshots.containsKey(tenantId) && versions.getOrDefault(tenantId, 0L) == loadedVersion) {
+                store(tenantId, snapshot);
+            }
+        }
+    }
+
+    /**
+     * Egy módosított kérés pillanatképe; csak akkor kerül be, ha éppen az a tenant legutóbbi kérése.
+     */
+    public void replaceIfCurrent(String tenantId, FleetSnapshot snapshot) {
+        synchronized (snapshots) {
+            FleetSnapshot current = snapshots.get(tenantId);
+            if (current != null && snapshot.requestDataId() != null
+                    && snapshot.requestDataId().equals(current.requestDataId())) {
+                store(tenantId, snapshot);
+            }
+        }
+    }
+
+    /**
+     * A tenant pillanatképének eldobása (pl. a legutóbbi kérés törlésekor); a következő olvasás újratölti.
+     */
+    public void invalidate(String tenantId) {
+        synchronized (snapshots) {
+            versions.merge(tenantId, 1L, Long::sum);
+            FleetSnapshot removed = snapshots.remove(tenantId);
+            if (removed != null) {
+                totalBytes -= removed.estimatedBytes();
+            }
+        }
+    }
+
+    /**
+     * A tárolt pillanatképek metrikái: tenantok száma, becsült méret, találati arány, kiszorítások.
+     */
+    public Map<String, Object> getStats() {
+        int size;
+        long bytes;
+        synchronized (snapshots) {
+            size = snapshots.size();
+            bytes = totalBytes;
+        }
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", config.isEnabled());
+        stats.put("tenants", size);
+        stats.put("estimated_bytes", bytes);
+        stats.put("max_bytes", config.getMaxBytes());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_ratio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    // Beszúrás és a memóriakeret betartatása (a hívó tartja a zárat); a most beszúrt tenant nem kerül ki
+    private void store(String tenantId, FleetSnapshot snapshot) {
+        // A keretnél nagyobb pillanatkép nem tárolható, az ilyen tenant mindig az adatbázisból olvas
+        if (snapshot.estimatedBytes() > config.getMaxBytes()) {
+            FleetSnapshot removed = snapshots.remove(tenantId);
+            if (removed != null) {
+                totalBytes -= removed.estimatedBytes();
+            }
+            return;
+        }
+        FleetSnapshot previous = snapshots.put(tenantId, snapshot);
+        totalBytes += snapshot.estimatedBytes() - (previous != null ? previous.estimatedBytes() : 0);
+
+        Iterator<Map.Entry<String, FleetSnapshot>> eldest = snapshots.entrySet().iterator();
+        while (totalBytes > config.getMaxBytes() && eldest.hasNext()) {
+            Map.Entry<String, FleetSnapshot> entry = eldest.next();
+            if (entry.getKey().equals(tenantId)) {
+                continue;
+            }
+            totalBytes -= entry.getValue().estimatedBytes();
+            eldest.remove();
+            evictions.incrementAndGet();
+        }
+    }
+}
@@ -1,15 +1,41 @@
 package hu.digital_twin.service.io;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import hu.digital_twin.config.DataSourceConfig;
+import hu.digital_twin.config.IngestConfig;
 import hu.digital_twin.context.TenantContext;
+import hu.digital_twin.exception.RequestBodyTooLargeException;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.RequestDataBatchRepository;
 import hu.digital_twin.model.RequestDataRepository;
+import hu.digital_twin.model.VmData;
+import hu.digital_twin.model.VmTelemetryRepository;
+import hu.digital_twin.service.simulation.SimulationResultCache;
+import hu.digital_twin.service.util.PipelineMetrics;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * Szolgáltatás a RequestData entitások kezelésére, több bérlős (multi-tenant) környezetben.
@@ -17,13 +43,57 @@ import java.util.List;
 @Service
 public class RequestDataService {
 
+    // A mentett rekordok timestamp formátuma
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    // A streamelt VM adat darabok ideiglenes (spool) fájljának formátuma
+    private static final ObjectMapper SPOOL_MAPPER = new ObjectMapper(new SmileFactory());
+
     private final RequestDataRepository requestDataRepository;
 
+    private final RequestDataBatchRepository requestDataBatchRepository;
+
+    private final RequestDataStreamReader requestDataStreamReader;
+
+    private final TransactionTemplate transactionTemplate;
+
+    // Csak olvasó tranzakció: a kapcsolat a tenant olvasó poolából jön, így nem vár az íróra
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
     private final DataSourceConfig dataSourceConfig;
 
-    public RequestDataService(RequestDataRepository requestDataRepository, DataSourceConfig dataSourceConfig) {
+    private final SimulationResultCache simulationResultCache;
+
+    private final VmTelemetryRepository vmTelemetryRepository;
+
+    private final FleetSnapshotStore fleetSnapshotStore;
+
+    private final PipelineMetrics pipelineMetrics;
+
+    private final IngestConfig ingestConfig;
+
+    public RequestDataService(RequestDataRepository requestDataRepository,
+                              RequestDataBatchRepository requestDataBatchRepository,
+                              RequestDataStreamReader requestDataStreamReader,
+                              TransactionTemplate transactionTemplate,
+                              DataSourceConfig dataSourceConfig,
+                              SimulationResultCache simulationResultCache,
+                              VmTelemetryRepository vmTelemetryRepository,
+                              FleetSnapshotStore fleetSnapshotStore,
+                              PipelineMetrics pipelineMetrics,
+                              IngestConfig ingestConfig) {
         this.requestDataRepository = requestDataRepository;
+        this.requestDataBatchRepository = requestDataBatchRepository;
+        this.requestDataStreamReader = requestDataStreamReader;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
         this.dataSourceConfig = dataSourceConfig;
+        this.simulationResultCache = simulationResultCache;
+        this.vmTelemetryRepository = vmTelemetryRepository;
+        this.fleetSnapshotStore = fleetSnapshotStore;
+        this.pipelineMetrics = pipelineMetrics;
+        this.ingestConfig = ingestConfig;
     }
 
     /**
@@ -50,12 +120,145 @@ public class RequestDataService {
         dataSourceConfig.createAndRegister(TenantContext.getTenantId());
 
         // Aktuális timestamp beállítása
-        LocalDateTime currentDateTime = LocalDateTime.now();
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        String formattedDateTime = currentDateTime.format(formatter);
-        requestData.setTimestamp(formattedDateTime);
+        requestData.setTimestamp(currentTimestamp());
+
+        // A kérés és az idősor minták egy tranzakcióban
+        long start = System.nanoTime();
+        RequestData saved = transactionTemplate.execute(status -> {
+            RequestData inserted = requestDataRepository.save(requestData);
+            vmTelemetryRepository.insert(inserted.getId(), inserted.getTimestamp(), inserted.getVmData());
+            return inserted;
+        });
+        recordSave(start, List.of(saved));
+        fleetSnapshotStore.publish(currentTenant(), FleetSnapshot.of(saved));
+        dataChanged();
+    }
+
+    /**
+     * Több RequestData rekord létrehozása egyetlen tranzakcióban, JDBC batch beszúrással.
+     * Minden rekord ugyanazt a timestamp-et kapja.
+     */
+    public void createRequestDataBatch(List<RequestData> requestDataList) {
+        dataSourceConfig.createAndRegister(TenantContext.getTenantId());
+
+        String timestamp = currentTimestamp();
+        for (RequestData requestData : requestDataList) {
+            requestData.setTimestamp(timestamp);
+        }
+
+        long start = System.nanoTime();
+        requestDataBatchRepository.insertAll(requestDataList);
+        recordSave(start, requestDataList);
+        publishLatest(requestDataList);
+        dataChanged();
+    }
+
+    /**
+     * Az aszinkron sorból érkező, már időbélyeggel ellátott kérések mentése egy tranzakcióban.
+     * A timestamp-et nem írja felül, az a sorba állítás idejét őrzi.
+     */
+    public void persistQueuedBatch(List<RequestData> requestDataList) {
+        dataSourceConfig.createAndRegister(TenantContext.getTenantId());
+        long start = System.nanoTime();
+        requestDataBatchRepository.insertAll(requestDataList);
+        recordSave(start, requestDataList);
+        publishLatest(requestDataList);
+        dataChanged();
+    }
 
-        requestDataRepository.save(requestData);
+    /**
+     * Kérés beolvasása a streamből mentés nélkül (aszinkron sorba állításhoz és jobokhoz, ahol a kérés a memóriában vár).
+     * A beolvasás adatbázis kapcsolat nélkül történik: a VM adatok legfeljebb ingest.max-request-vms darabig
+     * a memóriába kerülnek, a törzs olvasására legfeljebb ingest.read-timeout-ms idő jut.
+     *
+     * @throws RequestBodyTooLargeException ha a kérés túl sok VM adatot tartalmaz
+     * @throws SocketTimeoutException ha a törzs nem érkezik meg időben
+     */
+    public RequestData readRequest(InputStream in, String contentType) throws IOException {
+        long start = System.nanoTime();
+        BufferingVmDataListener listener = new BufferingVmDataListener(ingestConfig.getMaxRequestVms());
+        try {
+            RequestData requestData = requestDataStreamReader.read(
+                    new DeadlineInputStream(in, ingestConfig.getReadTimeoutMs()), contentType, listener);
+            pipelineMetrics.record(PipelineMetrics.INGEST_PARSE, start);
+            return requestData;
+        } catch (UncheckedIOException e) {
+            pipelineMetrics.recordFailure(PipelineMetrics.INGEST_PARSE);
+            throw e.getCause();
+        } catch (IOException e) {
+            pipelineMetrics.recordFailure(PipelineMetrics.INGEST_PARSE);
+            throw e;
+        }
+    }
+
+    /**
+     * Kérés beolvasása közvetlenül a streamből, majd UPDATE kérés esetén mentése.
+     * A VM adatok darabonként (ingest.chunk-size) egy ideiglenes spool fájlba kerülnek, így a memóriában egyszerre
+     * csak egy darab van. A (lassú kliensnél hosszú) beolvasás adatbázis kapcsolat nélkül történik; a tenant egyetlen
+     * író kapcsolatát csak a beolvasás utáni mentés foglalja, amely a spool fájlt darabonként, helyi lemez sebességgel
+     * írja be egy tranzakcióba (így félig mentett kérés nem látszik). Más típusú kérés nem nyit tranzakciót.
+     *
+     * @param in a kérés törzse
+     * @param contentType a törzs formátuma (JSON, CBOR vagy Smile)
+     * @return a beolvasott kérés; UPDATE esetén a vmData lista null (a VM adatok már mentésre kerültek)
+     * @throws IOException hibás, túl nagy vagy időben be nem érkező bemenet esetén (ilyenkor semmi nem kerül mentésre)
+     */
+    public RequestData ingestStream(InputStream in, String contentType) throws IOException {
+        int chunkSize = Math.max(1, ingestConfig.getChunkSize());
+        try (SpoolingVmDataListener listener = new SpoolingVmDataListener(ingestConfig.getMaxRequestVms())) {
+            long start = System.nanoTime();
+            RequestData requestData;
+            try {
+                requestData = requestDataStreamReader.read(
+                        new DeadlineInputStream(in, ingestConfig.getReadTimeoutMs()), contentType, listener);
+                pipelineMetrics.record(PipelineMetrics.INGEST_PARSE, start);
+            } catch (UncheckedIOException e) {
+                pipelineMetrics.recordFailure(PipelineMetrics.INGEST_PARSE);
+                throw e.getCause();
+            } catch (IOException e) {
+                pipelineMetrics.recordFailure(PipelineMetrics.INGEST_PARSE);
+                throw e;
+            }
+
+            if (!"UPDATE".equalsIgnoreCase(requestData.getRequestType())) {
+                // Más típusú kérésnél a (ritka) VM adatok a kérés listájába kerülnek, mentés nélkül
+                if (listener.spooledVms > 0) {
+                    List<VmData> vmData = new ArrayList<>(listener.spooledVms);
+                    listener.forEachChunk(chunkSize, (chunk, latestSamples) -> vmData.addAll(chunk));
+                    requestData.setVmData(vmData);
+                }
+                return requestData;
+            }
+            persistSpooled(requestData, listener, chunkSize);
+            return requestData;
+        }
+    }
+
+    // A spool fájlba írt UPDATE kérés mentése egy tranzakcióban: fejléc, majd a VM adatok darabonként
+    private void persistSpooled(RequestData requestData, SpoolingVmDataListener listener, int chunkSize)
+            throws IOException {
+        dataSourceConfig.createAndRegister(TenantContext.getTenantId());
+        requestData.setTimestamp(currentTimestamp());
+
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                requestDataBatchRepository.insertHeader(requestData);
+                try {
+                    listener.forEachChunk(chunkSize, (chunk, latestSamples) ->
+                            requestDataBatchRepository.insertVmData(requestData, chunk, latestSamples));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            pipelineMetrics.recordFailure(PipelineMetrics.DB_SAVE);
+            throw e.getCause();
+        }
+        pipelineMetrics.record(PipelineMetrics.DB_SAVE, start);
+        pipelineMetrics.countVmSamples(listener.spooledVms);
+        fleetSnapshotStore.publish(currentTenant(), listener.fleet.build(requestData.getId(), requestData.getTimestamp()));
+        dataChanged();
     }
 
     /**
@@ -63,7 +266,12 @@ public class RequestDataService {
      */
     public void deleteRequestData(Long id) {
         dataSourceConfig.createAndRegister(TenantContext.getTenantId());
-        requestDataRepository.deleteById(id);
+        transactionTemplate.executeWithoutResult(status -> {
+            requestDataRepository.deleteById(id);
+            vmTelemetryRepository.deleteByRequestDataId(id);
+        });
+        // Ha a legutóbbi kérés törlődött, az előző lesz a legutóbbi: a következő olvasás újratölti
+        invalidateAfterCommit();
     }
 
     /**
@@ -82,7 +290,16 @@ public class RequestDataService {
         existingData.getVmData().clear();
         existingData.getVmData().addAll(requestData.getVmData());
 
-        return requestDataRepository.save(existingData);
+        RequestData saved = transactionTemplate.execute(status -> {
+            RequestData updated = requestDataRepository.save(existingData);
+            // Az idősor minták cseréje az új VM adatokra, az eredeti időbélyeggel
+            vmTelemetryRepository.deleteByRequestDataId(id);
+            vmTelemetryRepository.insert(id, updated.getTimestamp(), updated.getVmData());
+            return updated;
+        });
+        fleetSnapshotStore.replaceIfCurrent(currentTenant(), FleetSnapshot.of(saved));
+        dataChanged();
+        return saved;
     }
 
     /**
@@ -93,6 +310,52 @@ public class RequestDataService {
         return requestDataRepository.findTopByOrderByIdDesc();
     }
 
+    /**
+     * A legutóbbi mentett kérés flottaállapota a memóriából; ha nincs betöltve, az adatbázisból töltődik be.
+     *
+     * @return a pillanatkép, vagy null, ha még nincs mentett kérés
+     */
+    public FleetSnapshot getLatestFleet() {
+        String tenantId = currentTenant();
+        FleetSnapshot snapshot = fleetSnapshotStore.isEnabled() ? fleetSnapshotStore.get(tenantId) : null;
+        if (snapshot != null) {
+            return snapshot;
+        }
+        // A betöltés közbeni törlés után a (már elavult) betöltött állapot nem kerül be
+        long version = fleetSnapshotStore.version(tenantId);
+        RequestData lastData = getLastData();
+        if (lastData == null) {
+            return null;
+        }
+        snapshot = FleetSnapshot.of(lastData);
+        fleetSnapshotStore.putLoaded(tenantId, snapshot, version);
+        return snapshot;
+    }
+
+    /**
+     * A flottaállapot pillanatképek metrikái.
+     */
+    public Map<String, Object> getFleetSnapshotStats() {
+        return fleetSnapshotStore.getStats();
+    }
+
+    /**
+     * A legutóbbi kérésben szereplő VM-ek neve (legfeljebb limit darab), név szerint rendezve.
+     */
+    public List<String> getLatestVmNames(int limit) {
+        dataSourceConfig.createAndRegister(TenantContext.getTenantId());
+        return readOnlyTransactionTemplate.execute(status -> vmTelemetryRepository.findLatestVmNames(limit));
+    }
+
+    /**
+     * Egy VM legutóbbi mintái egy jellemzőre az idősor táblából, időben csökkenő sorrendben.
+     */
+    public VmTelemetryRepository.Samples getLatestSamples(String vmName, String feature, int limit) {
+        dataSourceConfig.createAndRegister(TenantContext.getTenantId());
+        return readOnlyTransactionTemplate.execute(status ->
+                vmTelemetryRepository.findLatestSamples(vmName, feature, limit));
+    }
+
     /**
      * Minden adat törlése egy tranzakcióban.
      */
@@ -100,5 +363,244 @@ public class RequestDataService {
     public void deleteAllData() {
         dataSourceConfig.createAndRegister(TenantContext.getTenantId());
         requestDataRepository.deleteAll();
+        vmTelemetryRepository.deleteAll();
+        invalidateAfterCommit();
+    }
+
+    /**
+     * Az aktuális idő a mentett rekordok timestamp formátumában.
+     */
+    public static String currentTimestamp() {
+        return LocalDateTime.now().format(TIMESTAMP_FORMAT);
+    }
+
+    // A kötegben mentett kérések közül a legnagyobb azonosítójú a legutóbbi
+    private void publishLatest(List<RequestData> requestDataList) {
+        RequestData latest = null;
+        for (RequestData requestData : requestDataList) {
+            if (requestData.getId() != null && (latest == null || requestData.getId() > latest.getId())) {
+                latest = requestData;
+            }
+        }
+        if (latest != null) {
+            fleetSnapshotStore.publish(currentTenant(), FleetSnapshot.of(latest));
+        }
+    }
+
+    // Mentési idő és a mentett VM adatok száma a metrikákba
+    private void recordSave(long startNanos, List<RequestData> requestDataList) {
+        pipelineMetrics.record(PipelineMetrics.DB_SAVE, startNanos);
+        long samples = 0;
+        for (RequestData requestData : requestDataList) {
+            if (requestData.getVmData() != null) {
+                samples += requestData.getVmData().size();
+            }
+        }
+        pipelineMetrics.countVmSamples(samples);
+    }
+
+    private static String currentTenant() {
+        String tenantId = TenantContext.getTenantId();
+        return tenantId != null ? tenantId : TenantContext.DEFAULT_TENANT;
+    }
+
+    // A tenant adatai változtak: a korábbi szimulációs eredmények már nem érvényesek
+    private void dataChanged() {
+        simulationResultCache.invalidateTenant(TenantContext.getTenantId());
+    }
+
+    /**
+     * Törlés után a pillanatkép és a szimulációs eredmények érvénytelenítése a commit után: a commit előtti
+     * érvénytelenítés után egy párhuzamos olvasó a még látható régi állapotot tölthetné vissza.
+     * Aktív tranzakción kívül azonnal történik.
+     */
+    private void invalidateAfterCommit() {
+        String snapshotTenantId = currentTenant();
+        String cacheTenantId = TenantContext.getTenantId();
+        Runnable invalidation = () -> {
+            fleetSnapshotStore.invalidate(snapshotTenantId);
+            simulationResultCache.invalidateTenant(cacheTenantId);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidation.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidation.run();
+            }
+        });
+    }
+
+    /**
+     * Streaming listener, amely a VM adatok darabjait legfeljebb maxVms darabig összegyűjti,
+     * és a beolvasás végén a kérés vmData listájába teszi.
+     */
+    private static class BufferingVmDataListener implements RequestDataStreamReader.VmDataListener {
+
+        private final int maxVms;
+        private final List<VmData> vmData = new ArrayList<>();
+        private boolean streamed = false;
+
+        private BufferingVmDataListener(int maxVms) {
+            this.maxVms = maxVms;
+        }
+
+        @Override
+        public boolean acceptsStreaming(RequestData header) {
+            return true;
+        }
+
+        @Override
+        public void onChunk(RequestData header, List<VmData> chunk) {
+            if (vmData.size() + chunk.size() > maxVms) {
+                throw new UncheckedIOException(new RequestBodyTooLargeException(
+                        "Request contains more than " + maxVms + " VM entries"));
+            }
+            vmData.addAll(chunk);
+            streamed = true;
+        }
+
+        @Override
+        public void onComplete(RequestData requestData) {
+            if (streamed) {
+                requestData.setVmData(vmData);
+            }
+        }
+    }
+
+    /**
+     * Streaming listener, amely a VM adatok darabjait egy ideiglenes Smile fájlba írja (legfeljebb maxVms darabot),
+     * és közben a flottaállapot pillanatképet (tömör, primitív tömbös formában) építi.
+     * VM nevenként megjegyzi az utolsó előfordulás sorszámát, hogy a darabokon átívelő ismétlődésekből csak az
+     * utolsó kerüljön az idősor táblába. A mentés a fájlt darabonként olvassa vissza; lezáráskor a fájl törlődik.
+     */
+    private static class SpoolingVmDataListener implements RequestDataStreamReader.VmDataListener, AutoCloseable {
+
+        private final int maxVms;
+        private final FleetSnapshot.Builder fleet = new FleetSnapshot.Builder(0);
+        // VM név -> az utolsó előfordulás sorszáma a kérésben
+        private final Map<String, Integer> lastOccurrence = new HashMap<>();
+        private Path spoolFile;
+        private SequenceWriter spoolWriter;
+        private int spooledVms = 0;
+
+        private SpoolingVmDataListener(int maxVms) {
+            this.maxVms = maxVms;
+        }
+
+        @Override
+        public boolean acceptsStreaming(RequestData header) {
+            return true;
+        }
+
+        @Override
+        public void onChunk(RequestData header, List<VmData> chunk) {
+            if (spooledVms + chunk.size() > maxVms) {
+                throw new UncheckedIOException(new RequestBodyTooLargeException(
+                        "Request contains more than " + maxVms + " VM entries"));
+            }
+            try {
+                if (spoolWriter == null) {
+                    spoolFile = Files.createTempFile("ingest-spool-", ".smile");
+                    spoolWriter = SPOOL_MAPPER.writerFor(VmData.class).writeValues(spoolFile.toFile());
+                }
+                spoolWriter.writeAll(chunk);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (VmData vm : chunk) {
+                if (vm.getName() != null) {
+                    lastOccurrence.put(vm.getName(), spooledVms);
+                }
+                spooledVms++;
+            }
+            fleet.addAll(chunk);
+        }
+
+        @Override
+        public void onComplete(RequestData requestData) {
+            if (spoolWriter != null) {
+                try {
+                    spoolWriter.close();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        // A spool fájl visszaolvasása legfeljebb chunkSize elemű darabokban; a második lista a darab azon elemei,
+        // amelyek a nevük utolsó előfordulásai a kérésben
+        void forEachChunk(int chunkSize, BiConsumer<List<VmData>, List<VmData>> consumer) throws IOException {
+            if (spoolFile == null) {
+                return;
+            }
+            try (MappingIterator<VmData> vmData = SPOOL_MAPPER.readerFor(VmData.class).readValues(spoolFile.toFile())) {
+                List<VmData> chunk = new ArrayList<>(chunkSize);
+                List<VmData> latestSamples = new ArrayList<>(chunkSize);
+                int index = 0;
+                while (vmData.hasNextValue()) {
+                    VmData vm = vmData.nextValue();
+                    chunk.add(vm);
+                    if (vm.getName() != null && lastOccurrence.get(vm.getName()) == index) {
+                        latestSamples.add(vm);
+                    }
+                    index++;
+                    if (chunk.size() >= chunkSize) {
+                        consumer.accept(chunk, latestSamples);
+                        chunk = new ArrayList<>(chunkSize);
+                        latestSamples = new ArrayList<>(chunkSize);
+                    }
+                }
+                if (!chunk.isEmpty()) {
+                    consumer.accept(chunk, latestSamples);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (spoolWriter != null) {
+                spoolWriter.close();
+            }
+            if (spoolFile != null) {
+                Files.deleteIfExists(spoolFile);
+            }
+        }
+    }
+
+    /**
+     * A törzs olvasásának teljes időkorlátja: a határidő után minden olvasás SocketTimeoutException-t dob.
+     * Egy-egy blokkoló olvasást a server.tomcat.connection-timeout korlátoz.
+     */
+    private static class DeadlineInputStream extends FilterInputStream {
+
+        private final long deadlineNanos;
+        private final long timeoutMs;
+
+        private DeadlineInputStream(InputStream in, long timeoutMs) {
+            super(in);
+            this.timeoutMs = timeoutMs;
+            this.deadlineNanos = System.nanoTime() + timeoutMs * 1_000_000L;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkDeadline();
+            return super.read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            checkDeadline();
+            return super.read(buffer, offset, length);
+        }
+
+        private void checkDeadline() throws SocketTimeoutException {
+            if (System.nanoTime() - deadlineNanos > 0) {
+                throw new SocketTimeoutException("Request body was not received within " + timeoutMs + " ms");
+            }
+        }
     }
 }
@@ -0,0 +1,200 @@
+package hu.digital_twin.service.io;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import hu.digital_twin.config.IngestConfig;
+import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.VmData;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * RequestData beolvasása közvetlenül a kérés InputStream-jéből, a Jackson streaming API-jával.
+ * A vmData tömb elemeit egyenként köti be, és ha a listener kéri, darabokban (chunk) továbbadja,
+ * így az olvasó egyszerre csak egy darabot tart a memóriában; hogy a darabok hova kerülnek (spool fájl,
+ * memóriabeli lista), a listener dönti el.
+ * A formátumot a Content-Type választja ki: JSON (alapértelmezett), CBOR vagy Smile.
+ */
+@Component
+public class RequestDataStreamReader {
+
+    private static final String VM_DATA_FIELD = "vmData";
+
+    public static final MediaType APPLICATION_SMILE = new MediaType("application", "x-jackson-smile");
+
+    private final ObjectMapper objectMapper;
+    // Bináris formátumok parser gyárai (szálbiztosak, újrahasznosíthatók)
+    private final JsonFactory cborFactory = new CBORFactory();
+    private final JsonFactory smileFactory = new SmileFactory();
+    private final ObjectReader requestDataReader;
+    private final ObjectReader vmDataReader;
+    private final IngestConfig ingestConfig;
+
+    public RequestDataStreamReader(ObjectMapper objectMapper, IngestConfig ingestConfig) {
+        this.objectMapper = objectMapper;
+        // Előre konfigurált, szálbiztos reader-ek, amelyeket minden kérés újrahasznál
+        this.requestDataReader = objectMapper.readerFor(RequestData.class);
+        this.vmDataReader = objectMapper.readerFor(VmData.class);
+        this.ingestConfig = ingestConfig;
+    }
+
+    /**
+     * Egy RequestData objektum beolvasása a streamből.
+     * Ha a listener a fejléc alapján elfogadja a streaminget, a VmData elemek darabokban
+     * a listenerhez kerülnek, és a visszaadott objektum vmData listája null marad.
+     *
+     * @param in a kérés törzse
+     * @param contentType a kérés Content-Type fejléce (null esetén JSON)
+     * @param listener a VmData darabok fogadója
+     * @return a beolvasott kérés (fejléc mezők, illetve nem streamelt esetben a VM lista is)
+     * @throws IOException hibás vagy csonka bemenet esetén
+     */
+    public RequestData read(InputStream in, String contentType, VmDataListener listener) throws IOException {
+        try (JsonParser parser = factoryFor(contentType).createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected a RequestData object");
+            }
+
+            RequestData requestData = new RequestData();
+            ObjectNode headerFields = objectMapper.createObjectNode();
+
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.currentName();
+                parser.nextToken();
+
+                if (VM_DATA_FIELD.equals(fieldName)) {
+                    // Az eddig látott fejléc mezők alkalmazása, hogy a listener dönthessen
+                    applyHeaderFields(requestData, headerFields);
+                    readVmData(parser, requestData, listener);
+                } else {
+                    // Skalár fejléc mező gyűjtése, a bekötés a Jackson konfiguráció szerint történik
+                    headerFields.set(fieldName, objectMapper.readTree(parser));
+                }
+            }
+
+            applyHeaderFields(requestData, headerFields);
+            listener.onComplete(requestData);
+            return requestData;
+        }
+    }
+
+    /**
+     * A Content-Type alapján kiválasztja a parser gyárat.
+     * Ismeretlen vagy hiányzó típus esetén JSON-t feltételez (a korábbi viselkedés szerint).
+     */
+    private JsonFactory factoryFor(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return objectMapper.getFactory();
+        }
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            if (MediaType.APPLICATION_CBOR.includes(mediaType)) {
+                return cborFactory;
+            }
+            if (APPLICATION_SMILE.includes(mediaType)) {
+                return smileFactory;
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Értelmezhetetlen fejléc: JSON-ként próbáljuk beolvasni
+        }
+        return objectMapper.getFactory();
+    }
+
+    /**
+     * A vmData tömb beolvasása elemenként.
+     */
+    private void readVmData(JsonParser parser, RequestData requestData, VmDataListener listener) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_NULL) {
+            return;
+        }
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            throw new JsonParseException(parser, "Expected vmData to be an array");
+        }
+
+        boolean streaming = listener.acceptsStreaming(requestData);
+        int chunkSize = Math.max(1, ingestConfig.getChunkSize());
+        List<VmData> buffer = new ArrayList<>(streaming ? chunkSize : 16);
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            buffer.add(vmDataReader.readValue(parser));
+
+            // Teli darab továbbadása a listenernek, utána új puffer
+            if (streaming && buffer.size() >= chunkSize) {
+                listener.onChunk(requestData, buffer);
+                buffer = new ArrayList<>(chunkSize);
+            }
+        }
+
+        if (streaming) {
+            if (!buffer.isEmpty()) {
+                listener.onChunk(requestData, buffer);
+            }
+        } else {
+            requestData.setVmData(buffer);
+        }
+    }
+
+    /**
+     * Az összegyűjtött fejléc mezők rákötése a RequestData példányra.
+     */
+    private void applyHeaderFields(RequestData requestData, ObjectNode headerFields) throws IOException {
+        if (headerFields.isEmpty()) {
+            return;
+        }
+        requestDataReader.withValueToUpdate(requestData).readValue((JsonNode) headerFields);
+        headerFields.removeAll();
+    }
+
+    /**
+     * A streamelt VmData darabok fogadója.
+     */
+    public interface VmDataListener {
+
+        /**
+         * Listener, amely nem kér streaminget: a teljes VM lista a visszaadott objektumba kerül.
+         */
+        VmDataListener NONE = new VmDataListener() {
+            @Override
+            public boolean acceptsStreaming(RequestData header) {
+                return false;
+            }
+
+            @Override
+            public void onChunk(RequestData header, List<VmData> chunk) {
+            }
+
+            @Override
+            public void onComplete(RequestData requestData) {
+            }
+        };
+
+        /**
+         * Eldönti, hogy az adott fejlécű kérés VM adatai darabokban feldolgozhatók-e.
+         */
+        boolean acceptsStreaming(RequestData header);
+
+        /**
+         * Egy VmData darab feldolgozása. A listát a hívó a hívás után nem használja újra.
+         */
+        void onChunk(RequestData header, List<VmData> chunk);
+
+        /**
+         * A teljes kérés beolvasása után hívódik meg.
+         */
+        void onComplete(RequestData requestData);
+    }
+}
@@ -1,10 +1,17 @@
 package hu.digital_twin.service.io;
 
+import hu.digital_twin.config.IngestConfig;
 import hu.digital_twin.exception.SimulationException;
 import hu.digital_twin.model.RequestData;
 import hu.digital_twin.service.simulation.SimulationHandlerService;
+import hu.digital_twin.service.simulation.SimulationJob;
+import hu.digital_twin.service.simulation.SimulationJobService;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
 /**
  * A beérkező szimulációs kérések feldolgozásáért felelős szolgáltatás.
  */
@@ -13,24 +20,42 @@ public class RequestHandlerService {
 
     private final RequestDataService requestDataService;
     private final SimulationHandlerService simulationHandlerService;
+    private final WriteBehindIngestService writeBehindIngestService;
+    private final SimulationJobService simulationJobService;
+    private final IngestConfig ingestConfig;
 
     public RequestHandlerService(RequestDataService requestDataService,
-                                 SimulationHandlerService simulationHandlerService) {
+                                 SimulationHandlerService simulationHandlerService,
+                                 WriteBehindIngestService writeBehindIngestService,
+                                 SimulationJobService simulationJobService,
+                                 IngestConfig ingestConfig) {
         this.requestDataService = requestDataService;
         this.simulationHandlerService = simulationHandlerService;
+        this.writeBehindIngestService = writeBehindIngestService;
+        this.simulationJobService = simulationJobService;
+        this.ingestConfig = ingestConfig;
     }
 
     /**
      * A beérkező kérés feldolgozása a típus alapján.
      *
      * @param requestData a kérés tartalma
+     * @return PROCESSED, vagy QUEUED ha az UPDATE az aszinkron mentési sorba került
      * @throws SimulationException ha a predikciós szimuláció során hiba történik
      */
-    public void handleRequest(RequestData requestData) throws SimulationException {
+    public RequestOutcome handleRequest(RequestData requestData) throws SimulationException {
+        if (requestData.getRequestType() == null) {
+            throw new IllegalArgumentException("Missing request type");
+        }
         String requestType = requestData.getRequestType().toUpperCase();
 
         switch (requestType) {
             case "UPDATE":
+                if (ingestConfig.isAsyncEnabled()) {
+                    // Sorba állítás, a mentést a write-behind háttérszál végzi
+                    writeBehindIngestService.enqueue(requestData);
+                    return RequestOutcome.QUEUED;
+                }
                 // Mentés az adatbázisba
                 requestDataService.createRequestData(requestData);
                 break;
@@ -48,5 +73,81 @@ public class RequestHandlerService {
             default:
                 throw new IllegalArgumentException("Unknown request type: " + requestType);
         }
+        return RequestOutcome.PROCESSED;
+    }
+
+    /**
+     * A kérés feldolgozása közvetlenül a HTTP törzs streamjéből.
+     * UPDATE kérés esetén a beolvasás után egy rövid batch tranzakcióban mentődik,
+     * minden más típus (tranzakció nélkül) a szokásos módon, a handleRequest-en keresztül kerül feldolgozásra.
+     * Aszinkron módban a kérés mentés nélkül kerül beolvasásra, és a handleRequest állítja sorba.
+     *
+     * @param body a kérés törzse
+     * @param contentType a törzs formátuma (JSON, CBOR vagy Smile)
+     * @return a feldolgozás eredménye (PROCESSED vagy QUEUED)
+     * @throws IOException ha a törzs nem olvasható, nem érvényes, túl nagy vagy nem érkezik meg időben
+     * @throws IllegalArgumentException ha a kérés típusa hiányzik vagy ismeretlen
+     * @throws SimulationException ha a predikciós szimuláció során hiba történik
+     */
+    public RequestOutcome handleStream(InputStream body, String contentType) throws IOException, SimulationException {
+        if (ingestConfig.isAsyncEnabled()) {
+            // Teli sor esetén a törzs beolvasása (pufferelése) nélkül 429
+            writeBehindIngestService.ensureCapacity();
+            return handleRequest(requestDataService.readRequest(body, contentType));
+        }
+
+        RequestData requestData = requestDataService.ingestStream(body, contentType);
+
+        if (!"UPDATE".equalsIgnoreCase(requestData.getRequestType())) {
+            return handleRequest(requestData);
+        }
+        return RequestOutcome.PROCESSED;
+    }
+
+    /**
+     * Több UPDATE kérés együttes feldolgozása egyetlen mentéssel.
+     *
+     * @param requestDataList a kérések listája
+     * @return PROCESSED, vagy QUEUED aszinkron módban
+     * @throws IllegalArgumentException ha a listában nem UPDATE típusú kérés is szerepel
+     */
+    public RequestOutcome handleBatch(List<RequestData> requestDataList) {
+        for (RequestData requestData : requestDataList) {
+            if (requestData.getRequestType() == null || !"UPDATE".equalsIgnoreCase(requestData.getRequestType())) {
+                throw new IllegalArgumentException("Only UPDATE requests can be batched: " + requestData.getRequestType());
+            }
+        }
+
+        if (ingestConfig.isAsyncEnabled()) {
+            writeBehindIngestService.enqueueAll(requestDataList);
+            return RequestOutcome.QUEUED;
+        }
+
+        // Mentés az adatbázisba egy tranzakcióban
+        requestDataService.createRequestDataBatch(requestDataList);
+        return RequestOutcome.PROCESSED;
+    }
+
+    /**
+     * REQUEST FUTURE BEHAVIOUR kérés beküldése háttérben futó jobként.
+     * A hívás nem várja meg a szimulációkat, a job állapota az azonosítóján keresztül kérdezhető le.
+     *
+     * @param body a kérés törzse
+     * @param contentType a törzs formátuma (JSON, CBOR vagy Smile)
+     * @param deadlineMs relatív határidő milliszekundumban, ameddig a jobnak el kell indulnia (null: alapértelmezett)
+     * @return a létrehozott job
+     * @throws IOException ha a törzs nem olvasható vagy nem érvényes
+     * @throws IllegalArgumentException ha a kérés nem REQUEST FUTURE BEHAVIOUR típusú
+     */
+    public SimulationJob submitFutureBehaviourJob(InputStream body, String contentType, Long deadlineMs) throws IOException {
+        RequestData requestData = requestDataService.readRequest(body, contentType);
+        if (!"REQUEST FUTURE BEHAVIOUR".equalsIgnoreCase(requestData.getRequestType())) {
+            throw new IllegalArgumentException("Only REQUEST FUTURE BEHAVIOUR requests can be submitted as jobs: "
+                    + requestData.getRequestType());
+        }
+        if (deadlineMs == null) {
+            return simulationJobService.submit(requestData);
+        }
+        return simulationJobService.submit(requestData, System.currentTimeMillis() + deadlineMs);
     }
 }
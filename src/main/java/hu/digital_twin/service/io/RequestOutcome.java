@@ -0,0 +1,11 @@
+package hu.digital_twin.service.io;
+
+/**
+ * Egy beérkező kérés feldolgozásának eredménye.
+ */
+public enum RequestOutcome {
+    // A kérés feldolgozása (és mentése) szinkron módon megtörtént
+    PROCESSED,
+    // A kérés az aszinkron mentési sorba került, a mentés később történik
+    QUEUED
+}
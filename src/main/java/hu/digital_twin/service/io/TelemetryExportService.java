@@ -0,0 +1,184 @@
+package hu.digital_twin.service.io;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import hu.digital_twin.config.DataSourceConfig;
+import hu.digital_twin.context.TenantContext;
+import hu.digital_twin.model.VmTelemetryRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Egy tenant teljes telemetria előzményének exportja (pl. offline modell tanításhoz) NDJSON vagy CSV formában.
+ * A sorok közvetlenül a JDBC kurzorból kerülnek a kimenetre, entitások és listák nélkül,
+ * így a memóriahasználat az előzmény méretétől független. A sorrend VM, majd idő szerinti
+ * (a vm_telemetry klaszterezett kulcsa), így az adatbázisnak sem kell rendeznie.
+ */
+@Service
+public class TelemetryExportService {
+
+    // A kimeneti puffer mérete (a gzip tömörítő és a szöveges író is ekkora darabokban ír)
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final String CSV_HEADER = "vm_name,epoch_millis,request_data_id,core_processing_power,cpu," +
+            "data_since_last_save,network_traffic,price_per_tick,ram,req_disk,startup_process,usage";
+
+    // A gyökér szintű értékek közé nem kerül elválasztó (alapból szóköz), a sortörést a soríró teszi ki
+    private static final JsonFactory JSON_FACTORY = new JsonFactory().setRootValueSeparator(null);
+
+    /**
+     * Az export formátuma.
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() { return contentType; }
+        public String getExtension() { return extension; }
+
+        public static Format parse(String value) {
+            for (Format format : values()) {
+                if (format.name().equalsIgnoreCase(value)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export format: " + value);
+        }
+    }
+
+    private final DataSourceConfig dataSourceConfig;
+
+    private final VmTelemetryRepository vmTelemetryRepository;
+
+    // Csak olvasó tranzakció: az export a tenant olvasó poolját használja, és végig egy konzisztens pillanatképet lát
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public TelemetryExportService(DataSourceConfig dataSourceConfig,
+                                  VmTelemetryRepository vmTelemetryRepository,
+                                  TransactionTemplate transactionTemplate) {
+        this.dataSourceConfig = dataSourceConfig;
+        this.vmTelemetryRepository = vmTelemetryRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Az aktuális tenant telemetriájának kiírása a kimenetre.
+     *
+     * @param format a kimenet formátuma
+     * @param vmNames a VM-ek neve, üres esetén az összes VM
+     * @param fromMillis az időszak eleje (epoch ms, bezárólagos)
+     * @param toMillis az időszak vége (epoch ms, kizárólagos)
+     * @param gzip true esetén a kimenet gzip tömörített
+     * @param out a kimenet (a metódus nem zárja le)
+     * @return a kiírt sorok száma
+     */
+    public long export(Format format, List<String> vmNames, long fromMillis, long toMillis, boolean gzip,
+                       OutputStream out) throws IOException {
+        dataSourceConfig.createAndRegister(TenantContext.getTenantId());
+
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : null;
+        Writer writer = new BufferedWriter(
+                new OutputStreamWriter(compressed != null ? compressed : out, StandardCharsets.UTF_8), BUFFER_SIZE);
+        long[] count = {0};
+        try {
+            if (format == Format.CSV) {
+                writer.write(CSV_HEADER);
+                writer.write('\n');
+                readOnlyTransactionTemplate.executeWithoutResult(status ->
+                        vmTelemetryRepository.streamRange(vmNames, fromMillis, toMillis, row -> {
+                            writeCsv(writer, row);
+                            count[0]++;
+                        }));
+            } else {
+                JsonGenerator generator = JSON_FACTORY.createGenerator(writer);
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                readOnlyTransactionTemplate.executeWithoutResult(status ->
+                        vmTelemetryRepository.streamRange(vmNames, fromMillis, toMillis, row -> {
+                            writeJson(generator, row);
+                            count[0]++;
+                        }));
+                generator.flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+        if (compressed != null) {
+            compressed.finish();
+        }
+        return count[0];
+    }
+
+    // Egy sor NDJSON-ként (egy JSON objektum soronként)
+    private static void writeJson(JsonGenerator generator, VmTelemetryRepository.Row row) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("vm_name", row.vmName());
+        generator.writeNumberField("epoch_millis", row.epochMillis());
+        generator.writeNumberField("request_data_id", row.requestDataId());
+        generator.writeNumberField("core_processing_power", row.coreProcessingPower());
+        generator.writeNumberField("cpu", row.cpu());
+        generator.writeNumberField("data_since_last_save", row.dataSinceLastSave());
+        generator.writeNumberField("network_traffic", row.networkTraffic());
+        generator.writeNumberField("price_per_tick", row.pricePerTick());
+        generator.writeNumberField("ram", row.ram());
+        generator.writeNumberField("req_disk", row.reqDisk());
+        generator.writeNumberField("startup_process", row.startupProcess());
+        generator.writeNumberField("usage", row.usage());
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    // Egy sor CSV-ként; a VM név idézőjelek közé kerül, ha vesszőt, idézőjelet vagy sortörést tartalmaz
+    private static void writeCsv(Writer writer, VmTelemetryRepository.Row row) throws IOException {
+        writer.write(csvField(row.vmName()));
+        writer.write(',');
+        writer.write(Long.toString(row.epochMillis()));
+        writer.write(',');
+        writer.write(Long.toString(row.requestDataId()));
+        writer.write(',');
+        writer.write(Double.toString(row.coreProcessingPower()));
+        writer.write(',');
+        writer.write(Integer.toString(row.cpu()));
+        writer.write(',');
+        writer.write(Integer.toString(row.dataSinceLastSave()));
+        writer.write(',');
+        writer.write(Integer.toString(row.networkTraffic()));
+        writer.write(',');
+        writer.write(Double.toString(row.pricePerTick()));
+        writer.write(',');
+        writer.write(Long.toString(row.ram()));
+        writer.write(',');
+        writer.write(Long.toString(row.reqDisk()));
+        writer.write(',');
+        writer.write(Integer.toString(row.startupProcess()));
+        writer.write(',');
+        writer.write(Double.toString(row.usage()));
+        writer.write('\n');
+    }
+
+    private static String csvField(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,127 @@
+package hu.digital_twin.service.io;
+
+import hu.digital_twin.config.DataSourceConfig;
+import hu.digital_twin.context.TenantContext;
+import hu.digital_twin.model.VmRollupRepository;
+import hu.digital_twin.model.VmTelemetryRepository;
+import hu.digital_twin.service.simulation.SimulationConstants;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * VM előzmények lekérdezése a kért felbontásban.
+ * A legdurvább olyan felbontás kerül kiolvasásra, amely még megfelel a kérésnek:
+ * nyers (5 mp-es) minták, percenkénti vagy óránkénti összesítések.
+ * Összesítés csak a usage és a network_traffic jellemzőre van, a többi jellemző mindig nyers mintákból jön.
+ */
+@Service
+public class TelemetryHistoryService {
+
+    // Az összesített jellemzők (vm_rollup_minute, vm_rollup_hour)
+    private static final Set<String> ROLLUP_FEATURES = Set.of("usage", "network_traffic");
+
+    private final DataSourceConfig dataSourceConfig;
+
+    private final VmTelemetryRepository vmTelemetryRepository;
+
+    private final VmRollupRepository vmRollupRepository;
+
+    // Csak olvasó tranzakció: a lekérdezés a tenant olvasó poolját használja
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public TelemetryHistoryService(DataSourceConfig dataSourceConfig,
+                                   VmTelemetryRepository vmTelemetryRepository,
+                                   VmRollupRepository vmRollupRepository,
+                                   TransactionTemplate transactionTemplate) {
+        this.dataSourceConfig = dataSourceConfig;
+        this.vmTelemetryRepository = vmTelemetryRepository;
+        this.vmRollupRepository = vmRollupRepository;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Egy VM egy jellemzőjének előzményei.
+     *
+     * @param vmName a VM neve
+     * @param feature a jellemző oszlopneve (pl. usage, network_traffic)
+     * @param fromMillis az időszak eleje (epoch ms, bezárólagos)
+     * @param toMillis az időszak vége (epoch ms, kizárólagos)
+     * @param resolutionSeconds a pontok közötti legnagyobb megengedett távolság másodpercben
+     * @return a választott felbontás és a pontok (időbélyeg, darab, átlag, min, max, utolsó)
+     */
+    public Map<String, Object> getHistory(String vmName, String feature, long fromMillis, long toMillis,
+                                          long resolutionSeconds) {
+        dataSourceConfig.createAndRegister(TenantContext.getTenantId());
+
+        VmRollupRepository.Resolution resolution = chooseResolution(feature, resolutionSeconds);
+        List<Map<String, Object>> points = readOnlyTransactionTemplate.execute(status ->
+                readPoints(resolution, vmName, feature, fromMillis, toMillis));
+
+        Map<String, Object> history = new LinkedHashMap<>();
+        history.put("vm_name", vmName);
+        history.put("feature", feature);
+        history.put("resolution", resolution == null ? "raw" : resolution.name().toLowerCase());
+        history.put("resolution_seconds", resolution == null
+                ? SimulationConstants.SECONDS_PER_READING
+                : resolution.getBucketMillis() / 1000);
+        history.put("points", points);
+        return history;
+    }
+
+    private List<Map<String, Object>> readPoints(VmRollupRepository.Resolution resolution, String vmName,
+                                                 String feature, long fromMillis, long toMillis) {
+        List<Map<String, Object>> points = new ArrayList<>();
+        if (resolution == null) {
+            for (VmTelemetryRepository.Sample sample : vmTelemetryRepository.findRange(vmName, feature, fromMillis, toMillis)) {
+                double value = sample.value();
+                points.add(point(sample.epochMillis(), 1, value, value, value, value));
+            }
+        } else {
+            // A kezdőpontot tartalmazó vödör is benne van, a végpontot tartalmazó vödör is
+            long from = resolution.bucketOf(fromMillis);
+            for (VmRollupRepository.Bucket bucket : vmRollupRepository.findBuckets(resolution, vmName, from, toMillis)) {
+                if ("usage".equals(feature)) {
+                    points.add(point(bucket.bucketMillis(), bucket.count(), bucket.usageMean(),
+                            bucket.usageMin(), bucket.usageMax(), bucket.usageLast()));
+                } else {
+                    points.add(point(bucket.bucketMillis(), bucket.count(), bucket.networkTrafficMean(),
+                            bucket.networkTrafficMin(), bucket.networkTrafficMax(), bucket.networkTrafficLast()));
+                }
+            }
+        }
+        return points;
+    }
+
+    // A legdurvább összesítés, amelynek vödre nem szélesebb a kértnél; null esetén nyers minták
+    private static VmRollupRepository.Resolution chooseResolution(String feature, long resolutionSeconds) {
+        if (!ROLLUP_FEATURES.contains(feature)) {
+            return null;
+        }
+        VmRollupRepository.Resolution chosen = null;
+        for (VmRollupRepository.Resolution resolution : VmRollupRepository.Resolution.values()) {
+            if (resolution.getBucketMillis() <= resolutionSeconds * 1000) {
+                chosen = resolution;
+            }
+        }
+        return chosen;
+    }
+
+    private static Map<String, Object> point(long timestamp, long count, double mean, double min, double max,
+                                             double last) {
+        Map<String, Object> point = new LinkedHashMap<>();
+        point.put("timestamp", timestamp);
+        point.put("count", count);
+        point.put("mean", mean);
+        point.put("min", min);
+        point.put("max", max);
+        point.put("last", last);
+        return point;
+    }
+}
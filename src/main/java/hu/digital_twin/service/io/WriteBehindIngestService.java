@@ -0,0 +1,330 @@
+package hu.digital_twin.service.io;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.digital_twin.config.IngestConfig;
+import hu.digital_twin.context.TenantContext;
+import hu.digital_twin.exception.IngestQueueFullException;
+import hu.digital_twin.model.RequestData;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Aszinkron (write-behind) mentés az UPDATE kérésekhez.
+ * A kérések tenantonként egy korlátos sorba kerülnek, amelyet egy háttérszál
+ * flushSize méretű batch-ekben, flushIntervalMs időközönként (vagy teli batch esetén azonnal)
+ * ír ki az adatbázisba. Teli sor esetén (kérésszám vagy VM rekordszám alapján) a kérés elutasításra kerül (backpressure).
+ * Egy sikertelen batch legfeljebb maxFlushAttempts alkalommal kerül újrapróbálásra, utána a kérések egyenként
+ * mentődnek, a hibás kérés(ek) pedig a tenant dead-letter fájljába kerülnek, így egy rossz rekord nem állítja meg a sort.
+ */
+@Service
+public class WriteBehindIngestService {
+
+    private final RequestDataService requestDataService;
+    private final IngestConfig ingestConfig;
+    private final ObjectMapper objectMapper;
+
+    // Tenant azonosító -> a tenant mentésre váró kérései
+    private final Map<String, TenantQueue> queues = new ConcurrentHashMap<>();
+
+    // Háttérszál az időzített és a teli batch által kiváltott ürítésekhez
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ingest-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Metrikák
+    private final AtomicLong enqueuedRecords = new AtomicLong();
+    private final AtomicLong rejectedRecords = new AtomicLong();
+    private final AtomicLong flushedRecords = new AtomicLong();
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong deadLetteredRecords = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private final AtomicLong lastFlushNanos = new AtomicLong();
+
+    public WriteBehindIngestService(RequestDataService requestDataService, IngestConfig ingestConfig,
+                                    ObjectMapper objectMapper) {
+        this.requestDataService = requestDataService;
+        this.ingestConfig = ingestConfig;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Az időzített ürítés elindítása, ha az aszinkron mód be van kapcsolva.
+     */
+    @PostConstruct
+    public void start() {
+        if (ingestConfig.isAsyncEnabled()) {
+            long interval = Math.max(1, ingestConfig.getFlushIntervalMs());
+            flusher.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Leállításkor a háttérszál megállítása és a sorokban maradt kérések kiírása.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(30, TimeUnit.SECONDS);
+        flushAll();
+    }
+
+    /**
+     * Egy UPDATE kérés sorba állítása az aktuális tenanthoz.
+     *
+     * @throws IngestQueueFullException ha a tenant sora megtelt
+     */
+    public void enqueue(RequestData requestData) {
+        enqueueAll(List.of(requestData));
+    }
+
+    /**
+     * Ellenőrzés a kérés beolvasása előtt: teli sor esetén a törzs pufferelése nélkül utasítjuk el a kérést.
+     *
+     * @throws IngestQueueFullException ha az aktuális tenant sora már megtelt
+     */
+    public void ensureCapacity() {
+        String tenantId = TenantContext.getTenantId();
+        TenantQueue queue = queues.get(tenantId);
+        if (queue != null && (queue.records.remainingCapacity() == 0
+                || queue.queuedVms.get() >= ingestConfig.getQueueMaxVms())) {
+            rejectedRecords.incrementAndGet();
+            throw new IngestQueueFullException("Ingest queue is full for tenant: " + tenantId);
+        }
+    }
+
+    /**
+     * Több UPDATE kérés sorba állítása. Vagy mind bekerül, vagy egyik sem.
+     *
+     * @throws IngestQueueFullException ha a tenant sorában nincs elég hely
+     */
+    public void enqueueAll(List<RequestData> requestDataList) {
+        String tenantId = TenantContext.getTenantId();
+        TenantQueue queue = queues.computeIfAbsent(tenantId, id -> new TenantQueue(ingestConfig.getQueueCapacity()));
+
+        // A timestamp az érkezés idejét tükrözze, ne a későbbi mentését
+        String timestamp = RequestDataService.currentTimestamp();
+        for (RequestData requestData : requestDataList) {
+            requestData.setTimestamp(timestamp);
+        }
+
+        int vms = vmCount(requestDataList);
+        synchronized (queue) {
+            if (queue.records.remainingCapacity() < requestDataList.size()
+                    || queue.queuedVms.get() + vms > ingestConfig.getQueueMaxVms()) {
+                rejectedRecords.addAndGet(requestDataList.size());
+                throw new IngestQueueFullException("Ingest queue is full for tenant: " + tenantId);
+            }
+            queue.records.addAll(requestDataList);
+            queue.queuedVms.addAndGet(vms);
+        }
+        enqueuedRecords.addAndGet(requestDataList.size());
+
+        // Teli batch esetén nem várunk az időzített ürítésre
+        if (queue.records.size() >= ingestConfig.getFlushSize() && queue.flushScheduled.compareAndSet(false, true)) {
+            flusher.execute(() -> flushTenant(tenantId, queue));
+        }
+    }
+
+    /**
+     * Az összes tenant sorának ürítése.
+     */
+    public void flushAll() {
+        queues.forEach(this::flushTenant);
+    }
+
+    /**
+     * Egy tenant sorának ürítése flushSize méretű batch-ekben, amíg van teli batch.
+     * Sikertelen mentés esetén a batch megmarad, és a következő ürítéskor újra próbálkozunk;
+     * maxFlushAttempts sikertelen próbálkozás után a batch kérései egyenként mentődnek (isolateFailures).
+     */
+    private void flushTenant(String tenantId, TenantQueue queue) {
+        queue.flushScheduled.set(false);
+        if (!queue.flushLock.tryLock()) {
+            return; // Egy másik ürítés már folyamatban van ennél a tenantnál
+        }
+
+        int flushSize = Math.max(1, ingestConfig.getFlushSize());
+        // Az ürítés a tenant hatókörében fut, a hatókör a blokk végén automatikusan lezárul
+        try (TenantContext.Scope ignored = TenantContext.enter(tenantId)) {
+            while (true) {
+                List<RequestData> batch = queue.pending;
+                if (batch == null) {
+                    batch = new ArrayList<>(flushSize);
+                    queue.records.drainTo(batch, flushSize);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                long start = System.nanoTime();
+                try {
+                    requestDataService.persistQueuedBatch(batch);
+                    queue.pending = null;
+                    queue.pendingAttempts = 0;
+                    recordFlush(System.nanoTime() - start, batch.size());
+                } catch (RuntimeException e) {
+                    failedFlushes.incrementAndGet();
+                    e.printStackTrace();
+                    if (++queue.pendingAttempts < Math.max(1, ingestConfig.getMaxFlushAttempts())) {
+                        // A batch megtartása az újrapróbálkozáshoz
+                        queue.pending = batch;
+                        break;
+                    }
+                    queue.pending = null;
+                    queue.pendingAttempts = 0;
+                    isolateFailures(tenantId, batch);
+                }
+                queue.queuedVms.addAndGet(-vmCount(batch));
+
+                if (batch.size() < flushSize) {
+                    break;
+                }
+            }
+        } finally {
+            queue.flushLock.unlock();
+        }
+    }
+
+    /**
+     * A többször sikertelen batch kéréseinek egyenkénti mentése; a hibás kérések a dead-letter fájlba kerülnek.
+     */
+    private void isolateFailures(String tenantId, List<RequestData> batch) {
+        for (RequestData requestData : batch) {
+            long start = System.nanoTime();
+            try {
+                requestDataService.persistQueuedBatch(List.of(requestData));
+                recordFlush(System.nanoTime() - start, 1);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                deadLetter(tenantId, requestData);
+            }
+        }
+    }
+
+    /**
+     * Egy nem menthető kérés hozzáfűzése a tenant dead-letter fájljához (soronként egy JSON kérés,
+     * a /request végpont formátumában, így később újraküldhető).
+     */
+    private void deadLetter(String tenantId, RequestData requestData) {
+        deadLetteredRecords.incrementAndGet();
+        try {
+            Path dir = Paths.get(ingestConfig.getDeadLetterDir());
+            Files.createDirectories(dir);
+            try (Writer writer = Files.newBufferedWriter(dir.resolve(tenantId + ".jsonl"), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(objectMapper.writeValueAsString(requestData));
+                writer.write(System.lineSeparator());
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static int vmCount(List<RequestData> requestDataList) {
+        int vms = 0;
+        for (RequestData requestData : requestDataList) {
+            vms += requestData.getVmData() == null ? 0 : requestData.getVmData().size();
+        }
+        return vms;
+    }
+
+    /**
+     * Egy sikeres ürítés metrikáinak rögzítése.
+     */
+    private void recordFlush(long nanos, int records) {
+        flushCount.incrementAndGet();
+        flushedRecords.addAndGet(records);
+        totalFlushNanos.addAndGet(nanos);
+        lastFlushNanos.set(nanos);
+        maxFlushNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    /**
+     * Egy tenant sorában mentésre váró kérések száma (a sikertelen, újrapróbálandó batch-csel együtt).
+     */
+    public int getQueueDepth(String tenantId) {
+        TenantQueue queue = queues.get(tenantId);
+        return queue == null ? 0 : queue.depth();
+    }
+
+    /**
+     * Az aszinkron mentés metrikái (sorok mélysége, ürítési késleltetés, elutasítások).
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Integer> depthPerTenant = new TreeMap<>();
+        int totalDepth = 0;
+        long totalVms = 0;
+        for (Map.Entry<String, TenantQueue> entry : queues.entrySet()) {
+            int depth = entry.getValue().depth();
+            depthPerTenant.put(entry.getKey(), depth);
+            totalDepth += depth;
+            totalVms += entry.getValue().queuedVms.get();
+        }
+
+        long flushes = flushCount.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("async_enabled", ingestConfig.isAsyncEnabled());
+        stats.put("queue_depth_total", totalDepth);
+        stats.put("queue_depth_per_tenant", depthPerTenant);
+        stats.put("queued_vms_total", totalVms);
+        stats.put("enqueued_records", enqueuedRecords.get());
+        stats.put("rejected_records", rejectedRecords.get());
+        stats.put("flushed_records", flushedRecords.get());
+        stats.put("flush_count", flushes);
+        stats.put("failed_flushes", failedFlushes.get());
+        stats.put("dead_lettered_records", deadLetteredRecords.get());
+        stats.put("flush_latency_last_ms", lastFlushNanos.get() / 1_000_000.0);
+        stats.put("flush_latency_avg_ms", flushes == 0 ? 0.0 : totalFlushNanos.get() / 1_000_000.0 / flushes);
+        stats.put("flush_latency_max_ms", maxFlushNanos.get() / 1_000_000.0);
+        return stats;
+    }
+
+    /**
+     * Egy tenant mentésre váró kérései.
+     */
+    private static class TenantQueue {
+        private final ArrayBlockingQueue<RequestData> records;
+        private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+        private final ReentrantLock flushLock = new ReentrantLock();
+        // A sorban (és a sikertelen batch-ben) lévő VM rekordok száma
+        private final AtomicLong queuedVms = new AtomicLong();
+        // Sikertelenül mentett batch és a próbálkozások száma, csak a flushLock birtokában érhető el
+        private volatile List<RequestData> pending;
+        private int pendingAttempts;
+
+        private TenantQueue(int capacity) {
+            this.records = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        }
+
+        private int depth() {
+            List<RequestData> retry = pending;
+            return records.size() + (retry == null ? 0 : retry.size());
+        }
+    }
+}
@@ -24,6 +24,15 @@ public class PredictionDataProcessor {
      */
     public ProcessedPredictionData processPerMinuteData(Map<String, List<Double>> predictionData,
                                                         SimulationContext context) {
+        return processPerMinuteData(predictionData, context, SimulationConstants.READINGS_PER_MINUTE);
+    }
+
+    /**
+     * Mint a processPerMinuteData, de megadható, hány predikciós érték esik egy percre
+     * (a benchmarkok ezzel változtatják a mintavételezés sűrűségét).
+     */
+    public ProcessedPredictionData processPerMinuteData(Map<String, List<Double>> predictionData,
+                                                        SimulationContext context, int readingsPerMinute) {
         Map<String, List<Double>> avgLoadsPerMinute = new HashMap<>();
         Map<String, List<Integer>> taskInstructionsPerMinute = new HashMap<>();
 
@@ -33,7 +42,7 @@ public class PredictionDataProcessor {
             List<Double> loadValues = entry.getValue();
 
             // Egy VM adatainak feldolgozása
-            ProcessedMinuteData minuteData = processVmLoadData(vmId, loadValues, context);
+            ProcessedMinuteData minuteData = processVmLoadData(vmId, loadValues, context, readingsPerMinute);
 
             // Eredmények tárolása szinkronizált módon
             synchronized (avgLoadsPerMinute) {
@@ -50,13 +59,14 @@ public class PredictionDataProcessor {
      * Egy VM predikciós sorozatának feldolgozása:
      * percenként átlagolás + utasításszám kiszámítás
      */
-    private ProcessedMinuteData processVmLoadData(String vmId, List<Double> loadValues, SimulationContext context) {
+    private ProcessedMinuteData processVmLoadData(String vmId, List<Double> loadValues, SimulationContext context,
+                                                  int readingsPerMinute) {
         List<Double> avgLoads = new ArrayList<>();
         List<Integer> instructions = new ArrayList<>();
 
         // A teljes lista feldarabolása percenkénti ablakokra
-        for (int i = 0; i < loadValues.size(); i += SimulationConstants.READINGS_PER_MINUTE) {
-            int endIdx = Math.min(i + SimulationConstants.READINGS_PER_MINUTE, loadValues.size());
+        for (int i = 0; i < loadValues.size(); i += readingsPerMinute) {
+            int endIdx = Math.min(i + readingsPerMinute, loadValues.size());
             List<Double> window = loadValues.subList(i, endIdx);
 
             // Átlagterhelés és utasításszám kiszámítása
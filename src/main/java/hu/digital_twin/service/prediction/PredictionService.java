@@ -2,59 +2,296 @@ package hu.digital_twin.service.prediction;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.SerializationFeature;
-import hu.digital_twin.context.TenantContext;
+import hu.digital_twin.config.PredictionConfig;
+import hu.digital_twin.exception.PredictionWorkerUnavailableException;
+import hu.digital_twin.jfr.PredictionProcessEvent;
+import hu.digital_twin.model.VmTelemetryRepository;
 import hu.digital_twin.model.RequestData;
+import hu.digital_twin.service.io.RequestDataService;
+import hu.digital_twin.service.prediction.forecast.Forecaster;
+import hu.digital_twin.service.prediction.forecast.ForecasterRegistry;
+import hu.digital_twin.service.prediction.worker.PredictionWorkerPool;
+import hu.digital_twin.service.util.PipelineMetrics;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.util.*;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Predikciós szolgáltatás, amely gépi tanulási modellt hív meg Python szkripttel.
  * Jelenleg lineáris regressziós modellre épülő CPU-terhelés előrejelzésre használják.
+ * Bekapcsolt prediction.native-forecasting esetén az lr és arima modellek Java-ban futnak (ForecasterRegistry),
+ * egyébként és a többi modellnél Pythonban:
+ * worker módban egy előre elindított Python workerben; ha worker nem indítható,
+ * vagy oneshot módban, minden hívás új Python folyamatot indít.
  */
 @Service
 public class PredictionService {
 
+    private static final TypeReference<Map<String, List<Double>>> PREDICTION_TYPE = new TypeReference<>() {};
+
+    private final PredictionConfig predictionConfig;
+    private final AsyncTaskExecutor blockingExecutor;
+    private final PredictionWorkerPool workerPool;
+    private final ForecasterRegistry forecasterRegistry;
+    private final RequestDataService requestDataService;
+    private final PipelineMetrics pipelineMetrics;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public PredictionService(PredictionConfig predictionConfig,
+                             @Qualifier("applicationTaskExecutor") AsyncTaskExecutor blockingExecutor,
+                             PredictionWorkerPool workerPool,
+                             ForecasterRegistry forecasterRegistry,
+                             RequestDataService requestDataService,
+                             PipelineMetrics pipelineMetrics) {
+        this.predictionConfig = predictionConfig;
+        this.blockingExecutor = blockingExecutor;
+        this.workerPool = workerPool;
+        this.forecasterRegistry = forecasterRegistry;
+        this.requestDataService = requestDataService;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
     /**
-     * Python alapú gépi tanulási modell meghívása terhelés-előrejelzéshez.
-     * A paraméterek alapján elindítja a szkriptet, majd JSON formátumban várja az előrejelzéseket.
+     * Gépi tanulási modell meghívása terhelés-előrejelzéshez.
+     * A tanító ablak egyszer, indexelt lekérdezéssel kerül beolvasásra a tenant adatbázisából.
+     * Java-ban elérhető modell esetén a JVM-en belül fut, egyébként a Python szkript bináris keretként kapja meg
+     * az ablakot (adatbázis hozzáférés nélkül): worker módban egy szabad Python worker végzi,
+     * oneshot módban (vagy ha worker nem indítható) új szkript folyamat.
      *
      * @param requestData Predikciós paraméterek
      * @return VM-enkénti terhelési előrejelzések (map VM név és a hozzátartozó terhelési értékek listája)
      */
     public Map<String, List<Double>> predict(RequestData requestData) {
+        long start = System.nanoTime();
+        Map<String, List<Double>> predictions = runPrediction(requestData);
+        pipelineMetrics.record(PipelineMetrics.PREDICTION, start);
+        if (predictions.isEmpty()) {
+            // Hiba esetén a lépések üres map-et adnak vissza
+            pipelineMetrics.recordFailure(PipelineMetrics.PREDICTION);
+        }
+        return predictions;
+    }
+
+    private Map<String, List<Double>> runPrediction(RequestData requestData) {
+        int predictionLength = requestData.getPredictionLength() * 60;  // előrejelzés hossza másodpercben
+        TrainingSeries series;
+        long loadStart = System.nanoTime();
         try {
-            // A python szkript elérési útja
-            String scriptPath = "src/main/resources/scripts/prediction_new.py";
+            series = loadTrainingSeries(requestData);
+            pipelineMetrics.record(PipelineMetrics.PREDICTION_TRAINING_LOAD, loadStart);
+        } catch (Exception e) {
+            e.printStackTrace();
+            pipelineMetrics.recordFailure(PipelineMetrics.PREDICTION_TRAINING_LOAD);
+            // Hiba (pl. kevés adat) esetén üres map
+            return Collections.emptyMap();
+        }
+
+        if (predictionConfig.isNativeForecasting()) {
+            Optional<Forecaster> forecaster = forecasterRegistry.forModelType(requestData.getModelType());
+            if (forecaster.isPresent()) {
+                long nativeStart = System.nanoTime();
+                Map<String, List<Double>> predictions = predictNative(series, forecaster.get(), predictionLength);
+                pipelineMetrics.record(PipelineMetrics.PREDICTION_NATIVE, nativeStart);
+                return predictions;
+            }
+        }
+
+        byte[] frame = series.toFrame();
+        if (workerPool.isEnabled()) {
+            PredictionProcessEvent event = new PredictionProcessEvent();
+            event.begin();
+            try {
+                long callStart = System.nanoTime();
+                String response = workerPool.predict(predictionLength, requestData.getModelType(), frame);
+                pipelineMetrics.record(PipelineMetrics.PREDICTION_WORKER_CALL, callStart);
+                Map<String, List<Double>> predictions = withVmNames(parsePredictions(response), series);
+                commitProcessEvent(event, PredictionProcessEvent.WORKER, requestData, series, predictionLength, frame, true);
+                return predictions;
+            } catch (PredictionWorkerUnavailableException e) {
+                // Tartalék: a worker nem indítható, a predikció egyszeri folyamatban fut
+                e.printStackTrace();
+                commitProcessEvent(event, PredictionProcessEvent.WORKER, requestData, series, predictionLength, frame, false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                commitProcessEvent(event, PredictionProcessEvent.WORKER, requestData, series, predictionLength, frame, false);
+                return Collections.emptyMap();
+            } catch (Exception e) {
+                e.printStackTrace();
+                pipelineMetrics.recordFailure(PipelineMetrics.PREDICTION_WORKER_CALL);
+                commitProcessEvent(event, PredictionProcessEvent.WORKER, requestData, series, predictionLength, frame, false);
+                return Collections.emptyMap();
+            }
+        }
+        PredictionProcessEvent event = new PredictionProcessEvent();
+        event.begin();
+        Map<String, List<Double>> predictions = predictOneShot(predictionLength, requestData.getModelType(), frame);
+        commitProcessEvent(event, PredictionProcessEvent.ONE_SHOT, requestData, series, predictionLength, frame,
+                !predictions.isEmpty());
+        return withVmNames(predictions, series);
+    }
+
+    // A Python hívás rögzítése JFR eseményként, ha a felvétel kéri
+    private static void commitProcessEvent(PredictionProcessEvent event, String mode, RequestData requestData,
+                                           TrainingSeries series, int predictionLength, byte[] frame, boolean succeeded) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.tenant = PipelineMetrics.currentTenant();
+            event.mode = mode;
+            event.modelType = requestData.getModelType();
+            event.vmCount = series.vmCount();
+            event.predictionSeconds = predictionLength;
+            event.frameBytes = frame.length;
+            event.succeeded = succeeded;
+            event.commit();
+        }
+    }
+
+    /**
+     * A tanító ablak az idősor táblából: a legutóbbi kérés (legfeljebb vmsCount) VM-jének
+     * utolsó basedOnLast * 12 mintája VM-enként.
+     */
+    private TrainingSeries loadTrainingSeries(RequestData requestData) {
+        int samplesPerVm = requestData.getBasedOnLast() * 12;  // bemeneti minta hossz
+        List<String> vmNames = requestDataService.getLatestVmNames(requestData.getVmsCount());
+        List<VmTelemetryRepository.Samples> samples = new ArrayList<>(vmNames.size());
+        for (String vmName : vmNames) {
+            samples.add(requestDataService.getLatestSamples(vmName, requestData.getFeatureName(), samplesPerVm));
+        }
+        return TrainingSeries.fromSamples(vmNames, samples, samplesPerVm);
+    }
+
+    /**
+     * A Python szkript VM0, VM1, ... kulcsainak cseréje a tanító ablak VM neveire (a keret sorrendje szerint).
+     */
+    private static Map<String, List<Double>> withVmNames(Map<String, List<Double>> predictions, TrainingSeries series) {
+        if (predictions.isEmpty()) {
+            return predictions;
+        }
+        Map<String, List<Double>> named = new LinkedHashMap<>();
+        for (int vm = 0; vm < series.vmCount(); vm++) {
+            List<Double> values = predictions.get("VM" + vm);
+            if (values != null) {
+                named.put(series.vmNames()[vm], values);
+            }
+        }
+        return named;
+    }
+
+    // A Python kimenet (worker vagy szkript) JSON feldolgozása, időméréssel
+    private Map<String, List<Double>> parsePredictions(String json) throws IOException {
+        long start = System.nanoTime();
+        Map<String, List<Double>> predictions = objectMapper.readValue(json, PREDICTION_TYPE);
+        pipelineMetrics.record(PipelineMetrics.PREDICTION_JSON_PARSE, start);
+        return predictions;
+    }
+
+    /**
+     * Előrejelzés a JVM-en belül, VM-enként.
+     */
+    private Map<String, List<Double>> predictNative(TrainingSeries series, Forecaster forecaster, int predictionLength) {
+        try {
+            Map<String, List<Double>> predictions = new LinkedHashMap<>();
+            for (int vm = 0; vm < series.vmCount(); vm++) {
+                double[] forecast = forecaster.forecast(series.timestamps()[vm], series.values()[vm], predictionLength);
+                List<Double> result = new ArrayList<>(forecast.length);
+                for (double value : forecast) {
+                    result.add(value);
+                }
+                predictions.put(series.vmNames()[vm], result);
+            }
+            return predictions;
+        } catch (Exception e) {
+            e.printStackTrace();
+            // Hiba esetén üres map, ahogy a Python szkript hibájakor is
+            return Collections.emptyMap();
+        }
+    }
 
+    /**
+     * A szkript futtatása külön folyamatban: a tanító ablak a stdin-re kerül, az előrejelzések JSON-ként jönnek vissza.
+     * A szkript kimenetét a blokkoló feladatok executora olvassa (virtuális szálas módban virtuális szálon),
+     * a hívó legfeljebb a beállított időkorlátig vár, utána a folyamat leállításra kerül.
+     */
+    private Map<String, List<Double>> predictOneShot(int predictionLength, String modelType, byte[] frame) {
+        Process process = null;
+        try {
             // ProcessBuilder konfigurálása a python script paraméterezett futtatására
             ProcessBuilder processBuilder = new ProcessBuilder(
-                    "python", scriptPath,
-                    requestData.getFeatureName(),                                // prediktálandó jellemző (pl. CPU)
-                    Integer.toString(requestData.getBasedOnLast() * 12),        // bemeneti minta hossz
-                    Integer.toString(requestData.getPredictionLength() * 60),   // előrejelzés hossza másodpercben
-                    Integer.toString(requestData.getVmsCount()),                // érintett VM-ek száma
-                    TenantContext.getTenantId(),                                // aktuális tenant ID
-                    requestData.getModelType()                                  // használt modell típusa (pl. linear_regression, arima, stb.)
+                    predictionConfig.getPythonCommand(), predictionConfig.getScriptPath(),
+                    Integer.toString(predictionLength),   // előrejelzés hossza másodpercben
+                    modelType                             // használt modell típusa (pl. lr, arima, rf)
             );
 
             processBuilder.redirectErrorStream(true);
 
-            // Szkript futtatása
-            Process process = processBuilder.start();
-            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+            // Szkript futtatása, a kimenet olvasása a blokkoló executoron
+            long spawnStart = System.nanoTime();
+            Process started = processBuilder.start();
+            pipelineMetrics.record(PipelineMetrics.PREDICTION_SPAWN, spawnStart);
+            process = started;
+            Future<String> output = blockingExecutor.submit(() -> readJsonBlock(started.getInputStream()));
+
+            // A tanító ablak átadása, majd a stdin lezárása jelzi a keret végét
+            try (OutputStream stdin = started.getOutputStream()) {
+                stdin.write(frame);
+            }
+
+            // A kimenetre várakozás ideje (a szkript futásával együtt)
+            String jsonData;
+            long readStart = System.nanoTime();
+            try {
+                jsonData = output.get(predictionConfig.getTimeoutSeconds(), TimeUnit.SECONDS);
+                pipelineMetrics.record(PipelineMetrics.PREDICTION_STDOUT_READ, readStart);
+            } catch (TimeoutException e) {
+                output.cancel(true);
+                pipelineMetrics.recordFailure(PipelineMetrics.PREDICTION_STDOUT_READ);
+                throw e;
+            }
 
-            StringBuilder jsonData = new StringBuilder();
-            boolean jsonStarted = false;
-            boolean jsonEnded = false;
-            String line;
+            // Megvárja a szkript teljes befejezését
+            started.waitFor();
 
-            // A python kimenet JSON adatát olvassa be két jelölő között: JSON_DATA_START / END
+            // JSON adat feldolgozása, ha van ilyen
+            if (!jsonData.isEmpty()) {
+                return parsePredictions(jsonData); // A JSON egy Map<String, List<Double>> formátumú
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            e.printStackTrace();
+        } finally {
+            // Időtúllépés vagy hiba esetén a folyamat nem maradhat futva
+            if (process != null && process.isAlive()) {
+                process.destroyForcibly();
+            }
+        }
+
+        // Hiba esetén üres map visszaadása
+        return Collections.emptyMap();
+    }
+
+    /**
+     * A python kimenet JSON adatát olvassa be két jelölő között: JSON_DATA_START / END.
+     * A teljes kimenetet végigolvassa, hogy a folyamat ne akadjon meg teli pipe miatt.
+     */
+    private String readJsonBlock(InputStream stdout) throws IOException {
+        StringBuilder jsonData = new StringBuilder();
+        boolean jsonStarted = false;
+        boolean jsonEnded = false;
+        String line;
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stdout))) {
             while ((line = reader.readLine()) != null) {
-                //System.out.println(line);
                 if (line.equals("JSON_DATA_START")) {
                     jsonStarted = true;
                     continue;
@@ -67,22 +304,7 @@ public class PredictionService {
                     jsonData.append(line);
                 }
             }
-
-            // JSON adat feldolgozása, ha van ilyen
-            if (!jsonData.isEmpty()) {
-                ObjectMapper objectMapper = new ObjectMapper();
-                objectMapper.enable(SerializationFeature.INDENT_OUTPUT);
-                return objectMapper.readValue(jsonData.toString(),
-                        new TypeReference<Map<String, List<Double>>>() {}); // A JSON egy Map<String, List<Double>> formátumú
-            }
-
-            // Megvárja a szkript teljes befejezését
-            process.waitFor();
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-
-        // Hiba esetén üres map visszaadása
-        return Collections.emptyMap();
+        return jsonData.toString();
     }
 }
@@ -0,0 +1,70 @@
+package hu.digital_twin.service.prediction;
+
+import hu.digital_twin.model.VmTelemetryRepository;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * A predikció tanító adatai VM-enként: a minták időpontja (másodperc a VM első mintájától) és értéke.
+ * Egyszer kerül lekérdezésre; a Java előrejelzők közvetlenül, a Python szkript bináris keretként kapja meg.
+ *
+ * @param vmNames a VM-ek neve (az előrejelzések kulcsa)
+ * @param timestamps VM-enként a minták időpontjai, időrendben
+ * @param values VM-enként a minták értékei, időrendben
+ */
+public record TrainingSeries(String[] vmNames, double[][] timestamps, double[][] values) {
+
+    /**
+     * VM-enként lekérdezett (időben csökkenő sorrendű) minták összefűzése időrendbe.
+     *
+     * @param vmNames a VM-ek neve
+     * @param samples VM-enként a legutóbbi minták (azonos sorrendben, mint a nevek)
+     * @param samplesPerVm a VM-enként szükséges minták száma
+     * @throws IllegalArgumentException ha valamelyik VM-hez kevesebb minta van, mint samplesPerVm
+     */
+    public static TrainingSeries fromSamples(List<String> vmNames, List<VmTelemetryRepository.Samples> samples,
+                                             int samplesPerVm) {
+        int vmCount = vmNames.size();
+        double[][] timestamps = new double[vmCount][samplesPerVm];
+        double[][] values = new double[vmCount][samplesPerVm];
+        for (int vm = 0; vm < vmCount; vm++) {
+            VmTelemetryRepository.Samples vmSamples = samples.get(vm);
+            if (vmSamples.size() < samplesPerVm) {
+                throw new IllegalArgumentException("Not enough data");
+            }
+            // A legrégebbi felhasznált minta a legutolsó a csökkenő sorrendű tömbben
+            long start = vmSamples.epochMillis()[samplesPerVm - 1];
+            for (int sample = 0; sample < samplesPerVm; sample++) {
+                int row = samplesPerVm - 1 - sample;
+                timestamps[vm][sample] = (vmSamples.epochMillis()[row] - start) / 1000.0;
+                values[vm][sample] = vmSamples.values()[row];
+            }
+        }
+        return new TrainingSeries(vmNames.toArray(new String[0]), timestamps, values);
+    }
+
+    public int vmCount() {
+        return values.length;
+    }
+
+    /**
+     * Bináris keret a Python szkript számára (big-endian):
+     * [int VM-ek száma][int minták száma VM-enként], majd VM-enként az időpontok és az értékek double-ként.
+     */
+    public byte[] toFrame() {
+        int samples = vmCount() == 0 ? 0 : values[0].length;
+        ByteBuffer buffer = ByteBuffer.allocate(8 + vmCount() * samples * 16);
+        buffer.putInt(vmCount());
+        buffer.putInt(samples);
+        for (int vm = 0; vm < vmCount(); vm++) {
+            for (double timestamp : timestamps[vm]) {
+                buffer.putDouble(timestamp);
+            }
+            for (double value : values[vm]) {
+                buffer.putDouble(value);
+            }
+        }
+        return buffer.array();
+    }
+}
@@ -0,0 +1,620 @@
+package hu.digital_twin.service.prediction.forecast;
+
+import java.util.Arrays;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * ARIMA(p, d, q) becslés és előrejelzés (a Python ArimaModel megfelelője, alapértelmezetten ARIMA(4, 0, 1)).
+ * A becslés a statsmodels ARIMA.fit() alapértelmezését követi (egzakt állapottér maximum likelihood):
+ * - d-szeres differenciálás, d = 0 esetén konstans (átlag) taggal, ARMA hibatagú regresszióként,
+ * - kezdőértékek Hannan-Rissanen módszerrel, majd a feltételes négyzetösszeg (CSS) minimalizálásával,
+ * - az egzakt Gauss likelihood maximalizálása Kalman-szűrővel (stacionárius kezdeti állapot, a szórásnégyzet
+ *   kiemelve), BFGS lépésekkel; a stacionaritás és invertálhatóság a parciális autokorrelációs
+ *   paraméterezéssel (Monahan) biztosított, mint a statsmodels enforce_stationarity/enforce_invertibility esetén.
+ * Az előrejelzés a Kalman-szűrő utolsó állapotából indul; végül a differenciálás visszafordítása.
+ * Az egyezést a statsmodels előrejelzéseivel az ForecasterGoldenTest ellenőrzi (az optimalizálók eltérő
+ * leállási feltétele miatt tűréssel).
+ */
+public class ArimaForecaster implements Forecaster {
+
+    private static final int MAX_ITERATIONS = 100;
+    private static final double CONVERGENCE_TOLERANCE = 1e-10;
+
+    // A likelihood maximalizálás (BFGS) leállási feltételei; a célfüggvény megfigyelésenkénti átlag
+    private static final int MAX_LIKELIHOOD_ITERATIONS = 500;
+    private static final double GRADIENT_TOLERANCE = 1e-9;
+
+    private final int p;
+    private final int d;
+    private final int q;
+
+    public ArimaForecaster(int p, int d, int q) {
+        if (p < 0 || d < 0 || q < 0) {
+            throw new IllegalArgumentException("ARIMA orders must be non-negative");
+        }
+        this.p = p;
+        this.d = d;
+        this.q = q;
+    }
+
+    @Override
+    public double[] forecast(double[] timestamps, double[] values, int predictionLength) {
+        double[] series = values;
+        // A differenciálás szintjeinek utolsó értékei a visszaalakításhoz
+        double[] lastLevels = new double[d];
+        for (int level = 0; level < d; level++) {
+            if (series.length < 2) {
+                throw new IllegalArgumentException("Not enough data");
+            }
+            lastLevels[level] = series[series.length - 1];
+            series = difference(series);
+        }
+        if (series.length < p + q + 2) {
+            throw new IllegalArgumentException("Not enough data");
+        }
+
+        boolean includeMean = d == 0;
+        double[] params = fit(series, includeMean);
+        double[] forecast = forecastSeries(series, params, includeMean, Math.max(0, predictionLength));
+
+        // Differenciálás visszafordítása, a legbelső szinttől kifelé
+        for (int level = d - 1; level >= 0; level--) {
+            double previous = lastLevels[level];
+            for (int i = 0; i < forecast.length; i++) {
+                previous += forecast[i];
+                forecast[i] = previous;
+            }
+        }
+        return forecast;
+    }
+
+    // Paraméter vektor: [átlag (ha van), phi_1..phi_p, theta_1..theta_q]
+    private double[] fit(double[] series, boolean includeMean) {
+        double[] params = hannanRissanen(series, includeMean);
+        double[] refined = levenbergMarquardt(series, params, includeMean);
+        double[] start = refined != null ? refined : params;
+
+        double[] unconstrained = minimize(
+                x -> concentratedLikelihood(series, constrain(x, includeMean), includeMean).objective(),
+                unconstrain(start, includeMean));
+        return constrain(unconstrained, includeMean);
+    }
+
+    // Kezdőbecslés: hosszú AR modell reziduumaival mint hibatagokkal egyetlen lineáris regresszió
+    private double[] hannanRissanen(double[] series, boolean includeMean) {
+        int n = series.length;
+        double mean = includeMean ? mean(series) : 0;
+        double[] centered = new double[n];
+        for (int i = 0; i < n; i++) {
+            centered[i] = series[i] - mean;
+        }
+
+        double[] residuals = new double[n];
+        int longOrder = 0;
+        if (q > 0) {
+            longOrder = Math.min(Math.max(p + q, 10), (n - 1) / 3);
+            if (longOrder > 0) {
+                double[] ar = fitAutoregression(centered, longOrder);
+                for (int t = longOrder; t < n; t++) {
+                    double predicted = 0;
+                    for (int i = 0; i < longOrder; i++) {
+                        predicted += ar[i] * centered[t - 1 - i];
+                    }
+                    residuals[t] = centered[t] - predicted;
+                }
+            }
+        }
+
+        int start = Math.max(p, longOrder + q);
+        int rows = n - start;
+        int cols = p + q;
+        double[] params = new double[(includeMean ? 1 : 0) + cols];
+        if (includeMean) {
+            params[0] = mean;
+        }
+        if (cols == 0 || rows <= cols) {
+            return params;
+        }
+
+        double[][] design = new double[rows][cols];
+        double[] target = new double[rows];
+        for (int r = 0; r < rows; r++) {
+            int t = start + r;
+            for (int i = 0; i < p; i++) {
+                design[r][i] = centered[t - 1 - i];
+            }
+            for (int j = 0; j < q; j++) {
+                design[r][p + j] = residuals[t - 1 - j];
+            }
+            target[r] = centered[t];
+        }
+        double[] coefficients = LeastSquares.solve(design, target);
+        System.arraycopy(coefficients, 0, params, includeMean ? 1 : 0, cols);
+        return params;
+    }
+
+    // AR(order) együtthatók OLS becslése egy nulla átlagú sorra
+    private static double[] fitAutoregression(double[] centered, int order) {
+        int rows = centered.length - order;
+        double[][] design = new double[rows][order];
+        double[] target = new double[rows];
+        for (int r = 0; r < rows; r++) {
+            int t = order + r;
+            for (int i = 0; i < order; i++) {
+                design[r][i] = centered[t - 1 - i];
+            }
+            target[r] = centered[t];
+        }
+        return LeastSquares.solve(design, target);
+    }
+
+    // A CSS célfüggvény minimalizálása numerikus Jacobi-mátrixszal; null, ha nem sikerült javítani
+    private double[] levenbergMarquardt(double[] series, double[] initial, boolean includeMean) {
+        int k = initial.length;
+        if (k == 0) {
+            return null;
+        }
+        double[] params = initial.clone();
+        double[] residuals = residuals(series, params, includeMean);
+        double cost = sumOfSquares(residuals);
+        if (!Double.isFinite(cost)) {
+            return null;
+        }
+        double lambda = 1e-3;
+
+        for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+            double[][] jacobian = jacobian(series, params, residuals, includeMean);
+
+            // (J^T J + lambda * diag(J^T J)) delta = -J^T r
+            double[][] normal = new double[k][k];
+            double[] gradient = new double[k];
+            for (int t = 0; t < residuals.length; t++) {
+                for (int i = 0; i < k; i++) {
+                    gradient[i] += jacobian[t][i] * residuals[t];
+                    for (int j = 0; j < k; j++) {
+                        normal[i][j] += jacobian[t][i] * jacobian[t][j];
+                    }
+                }
+            }
+
+            boolean improved = false;
+            while (lambda < 1e10) {
+                double[][] damped = new double[k][k];
+                double[] rhs = new double[k];
+                for (int i = 0; i < k; i++) {
+                    damped[i] = normal[i].clone();
+                    damped[i][i] += lambda * Math.max(normal[i][i], 1e-12);
+                    rhs[i] = -gradient[i];
+                }
+                double[] delta = LeastSquares.solve(damped, rhs);
+                double[] candidate = params.clone();
+                for (int i = 0; i < k; i++) {
+                    candidate[i] += delta[i];
+                }
+                double[] candidateResiduals = residuals(series, candidate, includeMean);
+                double candidateCost = sumOfSquares(candidateResiduals);
+                if (Double.isFinite(candidateCost) && candidateCost < cost) {
+                    boolean converged = (cost - candidateCost) <= CONVERGENCE_TOLERANCE * Math.max(cost, 1e-300);
+                    params = candidate;
+                    residuals = candidateResiduals;
+                    cost = candidateCost;
+                    lambda = Math.max(lambda / 10, 1e-12);
+                    improved = true;
+                    if (converged) {
+                        return params;
+                    }
+                    break;
+                }
+                lambda *= 10;
+            }
+            if (!improved) {
+                break;
+            }
+        }
+        return params;
+    }
+
+    private double[][] jacobian(double[] series, double[] params, double[] residuals, boolean includeMean) {
+        int k = params.length;
+        double[][] jacobian = new double[residuals.length][k];
+        for (int i = 0; i < k; i++) {
+            double step = 1e-6 * Math.max(Math.abs(params[i]), 1);
+            double[] shifted = params.clone();
+            shifted[i] += step;
+            double[] shiftedResiduals = residuals(series, shifted, includeMean);
+            for (int t = 0; t < residuals.length; t++) {
+                jacobian[t][i] = (shiftedResiduals[t] - residuals[t]) / step;
+            }
+        }
+        return jacobian;
+    }
+
+    // Feltételes reziduumok t >= p-re (a kezdeti hibatagok nullák)
+    private double[] residuals(double[] series, double[] params, boolean includeMean) {
+        int offset = includeMean ? 1 : 0;
+        double mean = includeMean ? params[0] : 0;
+        int n = series.length;
+        double[] errors = new double[n];
+        for (int t = p; t < n; t++) {
+            double predicted = 0;
+            for (int i = 0; i < p; i++) {
+                predicted += params[offset + i] * (series[t - 1 - i] - mean);
+            }
+            for (int j = 0; j < q && t - 1 - j >= 0; j++) {
+                predicted += params[offset + p + j] * errors[t - 1 - j];
+            }
+            errors[t] = series[t] - mean - predicted;
+        }
+        return Arrays.copyOfRange(errors, p, n);
+    }
+
+    private double[] forecastSeries(double[] series, double[] params, boolean includeMean, int horizon) {
+        double mean = includeMean ? params[0] : 0;
+        StateSpace model = stateSpace(params, includeMean);
+
+        // A szűrő utolsó (n + 1. időpontra előrejelzett) állapotától az átmenet ismétlésével
+        double[] state = concentratedLikelihood(series, params, includeMean).nextState();
+        double[] forecast = new double[horizon];
+        for (int h = 0; h < horizon; h++) {
+            forecast[h] = mean + state[0];
+            state = model.transition(state);
+        }
+        return forecast;
+    }
+
+    /**
+     * Kalman-szűrés egységnyi szórásnégyzettel, stacionárius (Ljapunov-egyenletből számolt) kezdeti kovarianciával.
+     * A célfüggvény a kiemelt szórásnégyzetű negatív log-likelihood megfigyelésenként, konstans tagok nélkül:
+     * log(sigma2) + átlag(log F_t), ahol sigma2 = átlag(v_t^2 / F_t).
+     */
+    private LikelihoodResult concentratedLikelihood(double[] series, double[] params, boolean includeMean) {
+        double mean = includeMean ? params[0] : 0;
+        StateSpace model = stateSpace(params, includeMean);
+        int r = model.dimension();
+        double[] state = new double[r];
+        double[][] covariance = model.stationaryCovariance();
+        if (covariance == null) {
+            return new LikelihoodResult(Double.POSITIVE_INFINITY, state);
+        }
+
+        double sumLogVariance = 0;
+        double sumScaledSquares = 0;
+        for (double observation : series) {
+            double error = observation - mean - state[0];
+            double variance = covariance[0][0];
+            if (!(variance > 0)) {
+                return new LikelihoodResult(Double.POSITIVE_INFINITY, state);
+            }
+            sumLogVariance += Math.log(variance);
+            sumScaledSquares += error * error / variance;
+
+            // Frissítés a megfigyeléssel, majd előrejelzés a következő időpontra
+            double[] gain = new double[r];
+            for (int i = 0; i < r; i++) {
+                gain[i] = covariance[i][0];
+            }
+            double[] updated = new double[r];
+            double[][] updatedCovariance = new double[r][r];
+            for (int i = 0; i < r; i++) {
+                updated[i] = state[i] + gain[i] * error / variance;
+                for (int j = 0; j < r; j++) {
+                    updatedCovariance[i][j] = covariance[i][j] - gain[i] * gain[j] / variance;
+                }
+            }
+            state = model.transition(updated);
+            covariance = model.propagate(updatedCovariance);
+        }
+
+        int n = series.length;
+        double sigma2 = sumScaledSquares / n;
+        double objective = sigma2 > 0 ? Math.log(sigma2) + sumLogVariance / n : Double.POSITIVE_INFINITY;
+        return new LikelihoodResult(objective, state);
+    }
+
+    private record LikelihoodResult(double objective, double[] nextState) {
+    }
+
+    // Az ARMA rész Harvey-féle állapottér alakja: r = max(p, q + 1) dimenziós állapot, a megfigyelés az első komponens
+    private StateSpace stateSpace(double[] params, boolean includeMean) {
+        int offset = includeMean ? 1 : 0;
+        int r = Math.max(p, q + 1);
+        double[] ar = new double[r];
+        double[] selection = new double[r];
+        System.arraycopy(params, offset, ar, 0, p);
+        selection[0] = 1;
+        System.arraycopy(params, offset + p, selection, 1, q);
+        return new StateSpace(ar, selection);
+    }
+
+    /**
+     * Átmenet: x_{t+1} = T x_t + R e_t, ahol T első oszlopa az AR együtthatók, a fölötte lévő átló egyesekből áll,
+     * R = [1, theta_1, ..., theta_q].
+     */
+    private record StateSpace(double[] ar, double[] selection) {
+
+        int dimension() {
+            return ar.length;
+        }
+
+        double[] transition(double[] state) {
+            int r = ar.length;
+            double[] next = new double[r];
+            for (int i = 0; i < r; i++) {
+                next[i] = ar[i] * state[0] + (i + 1 < r ? state[i + 1] : 0);
+            }
+            return next;
+        }
+
+        // T P T' + R R' (P szimmetrikus, így T P T' = T (T P)')
+        double[][] propagate(double[][] covariance) {
+            int r = ar.length;
+            // (T P)' sorai: T P oszlopai, azaz T alkalmazva P oszlopaira
+            double[][] transposedProduct = new double[r][];
+            for (int i = 0; i < r; i++) {
+                transposedProduct[i] = transition(column(covariance, i));
+            }
+            double[][] next = new double[r][r];
+            for (int i = 0; i < r; i++) {
+                double[] column = transition(column(transposedProduct, i));
+                for (int j = 0; j < r; j++) {
+                    next[j][i] = column[j] + selection[i] * selection[j];
+                }
+            }
+            return next;
+        }
+
+        // A P = T P T' + R R' egyenlet megoldása (vektorizálva); null, ha nem megoldható
+        double[][] stationaryCovariance() {
+            int r = ar.length;
+            int size = r * r;
+            double[][] system = new double[size][size];
+            double[] rhs = new double[size];
+            for (int i = 0; i < r; i++) {
+                for (int j = 0; j < r; j++) {
+                    int row = i * r + j;
+                    system[row][row] += 1;
+                    for (int k = 0; k < r; k++) {
+                        for (int l = 0; l < r; l++) {
+                            system[row][k * r + l] -= entry(i, k) * entry(j, l);
+                        }
+                    }
+                    rhs[row] = selection[i] * selection[j];
+                }
+            }
+            double[] solution = LeastSquares.solve(system, rhs);
+            double[][] covariance = new double[r][r];
+            for (int i = 0; i < r; i++) {
+                for (int j = 0; j < r; j++) {
+                    covariance[i][j] = solution[i * r + j];
+                    if (!Double.isFinite(covariance[i][j])) {
+                        return null;
+                    }
+                }
+            }
+            return covariance;
+        }
+
+        private double entry(int i, int k) {
+            if (k == 0) {
+                return ar[i];
+            }
+            return k == i + 1 ? 1 : 0;
+        }
+
+        private static double[] column(double[][] matrix, int index) {
+            double[] column = new double[matrix.length];
+            for (int i = 0; i < matrix.length; i++) {
+                column[i] = matrix[i][index];
+            }
+            return column;
+        }
+    }
+
+    // Korlátozás nélküli paraméterekből: [átlag, stacionárius AR együtthatók, invertálható MA együtthatók]
+    private double[] constrain(double[] unconstrained, boolean includeMean) {
+        int offset = includeMean ? 1 : 0;
+        double[] params = unconstrained.clone();
+        double[] ar = constrainStationary(Arrays.copyOfRange(unconstrained, offset, offset + p));
+        double[] ma = constrainStationary(Arrays.copyOfRange(unconstrained, offset + p, offset + p + q));
+        System.arraycopy(ar, 0, params, offset, p);
+        for (int j = 0; j < q; j++) {
+            params[offset + p + j] = -ma[j];
+        }
+        return params;
+    }
+
+    // A constrain inverze; nem stacionárius (nem invertálható) kezdőértéknél az adott rész nulla, mint a statsmodels-nél
+    private double[] unconstrain(double[] params, boolean includeMean) {
+        int offset = includeMean ? 1 : 0;
+        double[] unconstrained = params.clone();
+        double[] ar = unconstrainStationary(Arrays.copyOfRange(params, offset, offset + p));
+        double[] negatedMa = Arrays.copyOfRange(params, offset + p, offset + p + q);
+        for (int j = 0; j < q; j++) {
+            negatedMa[j] = -negatedMa[j];
+        }
+        double[] ma = unconstrainStationary(negatedMa);
+        System.arraycopy(ar != null ? ar : new double[p], 0, unconstrained, offset, p);
+        System.arraycopy(ma != null ? ma : new double[q], 0, unconstrained, offset + p, q);
+        return unconstrained;
+    }
+
+    // Monahan (1984): parciális autokorrelációk x / sqrt(1 + x^2) alakban, majd Durbin-Levinson rekurzió
+    private static double[] constrainStationary(double[] unconstrained) {
+        int n = unconstrained.length;
+        double[] coefficients = new double[n];
+        double[] previous = new double[n];
+        for (int k = 0; k < n; k++) {
+            double partial = unconstrained[k] / Math.sqrt(1 + unconstrained[k] * unconstrained[k]);
+            System.arraycopy(coefficients, 0, previous, 0, k);
+            for (int j = 0; j < k; j++) {
+                coefficients[j] = previous[j] - partial * previous[k - 1 - j];
+            }
+            coefficients[k] = partial;
+        }
+        return coefficients;
+    }
+
+    // A constrainStationary inverze (visszafelé Durbin-Levinson); null, ha az együtthatók nem stacionáriusak
+    private static double[] unconstrainStationary(double[] coefficients) {
+        int n = coefficients.length;
+        double[] current = coefficients.clone();
+        double[] unconstrained = new double[n];
+        for (int k = n - 1; k >= 0; k--) {
+            double partial = current[k];
+            if (!(Math.abs(partial) < 1)) {
+                return null;
+            }
+            double scale = 1 - partial * partial;
+            unconstrained[k] = partial / Math.sqrt(scale);
+            double[] previous = new double[k];
+            for (int j = 0; j < k; j++) {
+                previous[j] = (current[j] + partial * current[k - 1 - j]) / scale;
+            }
+            current = previous;
+        }
+        return unconstrained;
+    }
+
+    // BFGS minimalizálás központi differencia gradienssel és Armijo visszalépéses vonalkereséssel
+    private static double[] minimize(ToDoubleFunction<double[]> objective, double[] initial) {
+        int k = initial.length;
+        double[] x = initial.clone();
+        double value = objective.applyAsDouble(x);
+        if (k == 0 || !Double.isFinite(value)) {
+            return x;
+        }
+        double[] gradient = gradient(objective, x);
+        double[][] inverseHessian = identity(k);
+
+        for (int iteration = 0; iteration < MAX_LIKELIHOOD_ITERATIONS; iteration++) {
+            if (maxAbs(gradient) < GRADIENT_TOLERANCE) {
+                break;
+            }
+            double[] direction = multiply(inverseHessian, gradient);
+            for (int i = 0; i < k; i++) {
+                direction[i] = -direction[i];
+            }
+            double slope = dot(gradient, direction);
+            if (slope >= 0) {
+                // Nem csökkenő irány: újrakezdés gradiens lépéssel
+                inverseHessian = identity(k);
+                direction = gradient.clone();
+                for (int i = 0; i < k; i++) {
+                    direction[i] = -direction[i];
+                }
+                slope = dot(gradient, direction);
+            }
+
+            double step = 1;
+            double[] candidate = new double[k];
+            double candidateValue;
+            while (true) {
+                for (int i = 0; i < k; i++) {
+                    candidate[i] = x[i] + step * direction[i];
+                }
+                candidateValue = objective.applyAsDouble(candidate);
+                if (Double.isFinite(candidateValue) && candidateValue <= value + 1e-4 * step * slope) {
+                    break;
+                }
+                step /= 2;
+                if (step < 1e-12) {
+                    return x;
+                }
+            }
+
+            double[] candidateGradient = gradient(objective, candidate);
+            double[] s = new double[k];
+            double[] y = new double[k];
+            for (int i = 0; i < k; i++) {
+                s[i] = candidate[i] - x[i];
+                y[i] = candidateGradient[i] - gradient[i];
+            }
+            double sy = dot(s, y);
+            if (sy > 1e-16) {
+                // H += (1 + y'Hy / s'y) ss' / s'y - (Hys' + sy'H) / s'y
+                double[] hy = multiply(inverseHessian, y);
+                double factor = (1 + dot(y, hy) / sy) / sy;
+                for (int i = 0; i < k; i++) {
+                    for (int j = 0; j < k; j++) {
+                        inverseHessian[i][j] += factor * s[i] * s[j] - (hy[i] * s[j] + s[i] * hy[j]) / sy;
+                    }
+                }
+            }
+            x = candidate.clone();
+            value = candidateValue;
+            gradient = candidateGradient;
+        }
+        return x;
+    }
+
+    private static double[] gradient(ToDoubleFunction<double[]> objective, double[] x) {
+        double[] gradient = new double[x.length];
+        double[] shifted = x.clone();
+        for (int i = 0; i < x.length; i++) {
+            double step = 1e-6 * Math.max(Math.abs(x[i]), 1);
+            shifted[i] = x[i] + step;
+            double forward = objective.applyAsDouble(shifted);
+            shifted[i] = x[i] - step;
+            double backward = objective.applyAsDouble(shifted);
+            shifted[i] = x[i];
+            gradient[i] = (forward - backward) / (2 * step);
+        }
+        return gradient;
+    }
+
+    private static double[][] identity(int size) {
+        double[][] identity = new double[size][size];
+        for (int i = 0; i < size; i++) {
+            identity[i][i] = 1;
+        }
+        return identity;
+    }
+
+    private static double[] multiply(double[][] matrix, double[] vector) {
+        double[] result = new double[matrix.length];
+        for (int i = 0; i < matrix.length; i++) {
+            result[i] = dot(matrix[i], vector);
+        }
+        return result;
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    private static double maxAbs(double[] values) {
+        double max = 0;
+        for (double value : values) {
+            max = Math.max(max, Math.abs(value));
+        }
+        return max;
+    }
+
+    private static double[] difference(double[] series) {
+        double[] result = new double[series.length - 1];
+        for (int i = 1; i < series.length; i++) {
+            result[i - 1] = series[i] - series[i - 1];
+        }
+        return result;
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static double sumOfSquares(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value * value;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,17 @@
+package hu.digital_twin.service.prediction.forecast;
+
+/**
+ * Idősor előrejelző (a Python PredictorModel.predict Java megfelelője).
+ * Primitív tömbökön dolgozik; a bemenet időrendben, egy VM egy jellemzőjének mintáit tartalmazza.
+ */
+public interface Forecaster {
+
+    /**
+     * @param timestamps a minták időpontja másodpercben, az ablak első mintájától számolva
+     * @param values a minták értéke (azonos hosszú, mint a timestamps)
+     * @param predictionLength az előrejelzés hossza (a Python szkriptnek átadott érték, másodpercben)
+     * @return az előrejelzett értékek
+     * @throws IllegalArgumentException ha a minták alapján nem becsülhető a modell
+     */
+    double[] forecast(double[] timestamps, double[] values, int predictionLength);
+}
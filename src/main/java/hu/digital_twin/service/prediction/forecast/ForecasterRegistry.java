@@ -0,0 +1,31 @@
+package hu.digital_twin.service.prediction.forecast;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A Java-ban elérhető előrejelzők a kérés modelType értéke szerint.
+ * Az itt nem szereplő modellek (pl. rf) továbbra is a Python szkripttel futnak.
+ */
+@Component
+public class ForecasterRegistry {
+
+    private final Map<String, Forecaster> forecasters = Map.of(
+            "lr", new LinearRegressionForecaster(),
+            // A Python szkript arima_settings beállításával megegyező rend: ARIMA(4, 0, 1)
+            "arima", new ArimaForecaster(4, 0, 1)
+    );
+
+    /**
+     * @param modelType a kérés modell típusa (kis- és nagybetű nem számít)
+     * @return az előrejelző, vagy üres, ha a modell csak Pythonban érhető el
+     */
+    public Optional<Forecaster> forModelType(String modelType) {
+        if (modelType == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(forecasters.get(modelType.toLowerCase()));
+    }
+}
@@ -0,0 +1,83 @@
+package hu.digital_twin.service.prediction.forecast;
+
+/**
+ * Legkisebb négyzetes megoldás Householder QR felbontással (a normálegyenletnél stabilabb).
+ * Rangszegény esetben a nem meghatározható együtthatók értéke 0.
+ */
+final class LeastSquares {
+
+    // Ennél kisebb (relatív) diagonális elem esetén az oszlop lineárisan függőnek számít
+    private static final double RANK_TOLERANCE = 1e-10;
+
+    private LeastSquares() {
+    }
+
+    /**
+     * Az ||A x - b|| minimalizálása.
+     *
+     * @param a sorfolytonos n x k mátrix (n >= k), a hívás után felülíródik
+     * @param b n hosszú jobb oldal, a hívás után felülíródik
+     * @return a k hosszú megoldás
+     */
+    static double[] solve(double[][] a, double[] b) {
+        int rows = a.length;
+        int cols = a[0].length;
+        double[] diagonal = new double[cols];
+        double scale = 0;
+
+        for (int k = 0; k < cols; k++) {
+            double norm = 0;
+            for (int i = k; i < rows; i++) {
+                norm = Math.hypot(norm, a[i][k]);
+            }
+            scale = Math.max(scale, norm);
+            if (norm == 0) {
+                diagonal[k] = 0;
+                continue;
+            }
+            if (a[k][k] > 0) {
+                norm = -norm;
+            }
+            // Householder vektor: v = a[k..][k] / (-norm), v[k] += 1
+            for (int i = k; i < rows; i++) {
+                a[i][k] /= -norm;
+            }
+            a[k][k] += 1;
+
+            for (int j = k + 1; j < cols; j++) {
+                double s = 0;
+                for (int i = k; i < rows; i++) {
+                    s += a[i][k] * a[i][j];
+                }
+                s = -s / a[k][k];
+                for (int i = k; i < rows; i++) {
+                    a[i][j] += s * a[i][k];
+                }
+            }
+            double s = 0;
+            for (int i = k; i < rows; i++) {
+                s += a[i][k] * b[i];
+            }
+            s = -s / a[k][k];
+            for (int i = k; i < rows; i++) {
+                b[i] += s * a[i][k];
+            }
+            diagonal[k] = norm;
+        }
+
+        // Visszahelyettesítés: R x = Q^T b
+        double[] x = new double[cols];
+        for (int k = cols - 1; k >= 0; k--) {
+            if (Math.abs(diagonal[k]) <= RANK_TOLERANCE * Math.max(scale, 1)) {
+                x[k] = 0;
+                continue;
+            }
+            double s = b[k];
+            for (int j = k + 1; j < cols; j++) {
+                s -= a[k][j] * x[j];
+            }
+            x[k] = s / diagonal[k];
+        }
+        return x;
+    }
+}
@@ -0,0 +1,48 @@
+package hu.digital_twin.service.prediction.forecast;
+
+/**
+ * Lineáris regresszió az idő függvényében (a Python LinearRegressionModel megfelelője).
+ * Az előrejelzés időpontjai az utolsó mintától 5 másodpercenként követik egymást,
+ * így predictionLength másodperchez ceil(predictionLength / 5) érték tartozik.
+ */
+public class LinearRegressionForecaster implements Forecaster {
+
+    // A jövőbeli időpontok lépésköze másodpercben (PredictorModel.create_future_timestamp)
+    private static final int STEP_SECONDS = 5;
+
+    @Override
+    public double[] forecast(double[] timestamps, double[] values, int predictionLength) {
+        int n = values.length;
+        if (n == 0 || timestamps.length != n) {
+            throw new IllegalArgumentException("Not enough data");
+        }
+
+        // Zárt alakú OLS: meredekség = cov(t, y) / var(t); konstans idő esetén a meredekség 0 (mint az sklearn)
+        double meanT = 0;
+        double meanY = 0;
+        for (int i = 0; i < n; i++) {
+            meanT += timestamps[i];
+            meanY += values[i];
+        }
+        meanT /= n;
+        meanY /= n;
+
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < n; i++) {
+            double dt = timestamps[i] - meanT;
+            covariance += dt * (values[i] - meanY);
+            variance += dt * dt;
+        }
+        double slope = variance == 0 ? 0 : covariance / variance;
+        double intercept = meanY - slope * meanT;
+
+        double last = timestamps[n - 1];
+        int steps = (predictionLength + STEP_SECONDS - 1) / STEP_SECONDS;
+        double[] result = new double[Math.max(0, steps)];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = intercept + slope * (last + (double) i * STEP_SECONDS + STEP_SECONDS);
+        }
+        return result;
+    }
+}
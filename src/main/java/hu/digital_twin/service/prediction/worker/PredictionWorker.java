@@ -0,0 +1,100 @@
+package hu.digital_twin.service.prediction.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Egy elindított Python predikciós worker folyamat és a hozzá tartozó csövek.
+ * Egyszerre egy kérést kaphat; a hívó felelős azért, hogy hiba után eldobja és újat indítson.
+ */
+class PredictionWorker {
+
+    private final String name;
+    private final Process process;
+    private final DataOutputStream toWorker;
+    private final DataInputStream fromWorker;
+
+    private PredictionWorker(String name, Process process) {
+        this.name = name;
+        this.process = process;
+        this.toWorker = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        this.fromWorker = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    /**
+     * Worker indítása és megvárása, amíg betölti a modulokat és READY-t jelez.
+     *
+     * @param name a worker neve (naplózáshoz)
+     * @param command a teljes parancssor (python, worker szkript)
+     * @param startTimeoutSeconds az indulásra szánt idő
+     */
+    static PredictionWorker start(String name, List<String> command, long startTimeoutSeconds) throws IOException {
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT) // a szkript kiírásai az alkalmazás stderr-jére mennek
+                .start();
+        PredictionWorker worker = new PredictionWorker(name, process);
+
+        try {
+            PredictionWorkerProtocol.Response ready = CompletableFuture
+                    .supplyAsync(() -> {
+                        try {
+                            return PredictionWorkerProtocol.readResponse(worker.fromWorker);
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    })
+                    .get(startTimeoutSeconds, TimeUnit.SECONDS);
+            if (!ready.ok() || !PredictionWorkerProtocol.READY.equals(ready.text())) {
+                throw new IOException("Prediction worker " + name + " failed to start: " + ready.text());
+            }
+        } catch (Exception e) {
+            worker.destroy();
+            throw e instanceof IOException io ? io : new IOException("Prediction worker " + name + " failed to start", e);
+        }
+        return worker;
+    }
+
+    /**
+     * Egy JSON kérés és a hozzá tartozó bináris keret elküldése, majd a válasz megvárása (blokkoló).
+     *
+     * @throws IOException ha a worker közben leállt (összeomlás vagy időtúllépés miatti leállítás)
+     */
+    PredictionWorkerProtocol.Response call(String requestJson, byte[] frame) throws IOException {
+        PredictionWorkerProtocol.writeRequest(toWorker, requestJson, frame);
+        return PredictionWorkerProtocol.readResponse(fromWorker);
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    // Azonnali leállítás; a folyamatban lévő call IOException-nel tér vissza
+    void destroy() {
+        process.destroyForcibly();
+    }
+
+    // Szabályos leállítás: a stdin lezárására a worker kilép
+    void shutdown() {
+        try {
+            toWorker.close();
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
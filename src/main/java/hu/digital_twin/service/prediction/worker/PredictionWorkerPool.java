@@ -0,0 +1,251 @@
+package hu.digital_twin.service.prediction.worker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.digital_twin.config.PredictionConfig;
+import hu.digital_twin.exception.PredictionWorkerUnavailableException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Előre elindított, hosszan futó Python predikciós workerek készlete (prediction.mode=worker).
+ * A pandas, sklearn és statsmodels importok workerenként egyszer töltődnek be, nem hívásonként.
+ * - egyszerre legfeljebb prediction.max-concurrent-calls predikció fut, a többi hívó vár,
+ * - hívásonkénti időkorlát: a túl sokáig futó worker leállításra kerül,
+ * - a szabad workerek rendszeres ping állapotellenőrzést kapnak,
+ * - a leállt vagy hibás workerek helyett új indul.
+ */
+@Service
+public class PredictionWorkerPool {
+
+    // Állapotellenőrzéskor a ping válaszra szánt idő
+    private static final long PING_TIMEOUT_SECONDS = 10;
+    private static final byte[] NO_FRAME = new byte[0];
+
+    private final PredictionConfig predictionConfig;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int poolSize;
+
+    // Szabad (betöltött, éppen nem dolgozó) workerek
+    private final LinkedBlockingQueue<PredictionWorker> idleWorkers = new LinkedBlockingQueue<>();
+    private final Semaphore callPermits;
+    private final AtomicInteger workerCounter = new AtomicInteger();
+    private final AtomicInteger restarts = new AtomicInteger();
+
+    // Időtúllépés figyelése: a túl sokáig futó worker leállításra kerül
+    private final ScheduledExecutorService watchdog;
+    // Workerek indítása és állapotellenőrzése (lassú, ezért nem a watchdog szálán fut)
+    private final ScheduledExecutorService maintenance;
+
+    public PredictionWorkerPool(PredictionConfig predictionConfig) {
+        this.predictionConfig = predictionConfig;
+        this.poolSize = Math.max(1, predictionConfig.getWorkerPoolSize());
+        this.callPermits = new Semaphore(Math.max(1, predictionConfig.getMaxConcurrentCalls()), true);
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "prediction-worker-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "prediction-worker-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Worker módban a workerek a háttérben indulnak, hogy az importok ne lassítsák az alkalmazás indulását
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        maintenance.execute(this::refill);
+        long interval = predictionConfig.getHealthCheckIntervalSeconds();
+        if (interval > 0) {
+            maintenance.scheduleWithFixedDelay(this::checkHealth, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Worker módban fut-e a predikció (prediction.mode=worker).
+     */
+    public boolean isEnabled() {
+        return predictionConfig.getMode() == PredictionConfig.Mode.WORKER;
+    }
+
+    /**
+     * Predikció futtatása egy szabad workerben.
+     *
+     * @param predictionLength az előrejelzés hossza másodpercben
+     * @param modelType a használt modell típusa (pl. lr, arima, rf)
+     * @param frame a tanító ablak bináris kerete (TrainingSeries.toFrame)
+     * @return a predikció JSON formátumban (VM név és a terhelési értékek listája)
+     * @throws PredictionWorkerUnavailableException ha nem sikerült workert indítani
+     * @throws TimeoutException ha a hívás nem kapott helyet vagy nem fejeződött be az időkorláton belül
+     * @throws IOException ha a worker leállt vagy hibát jelzett
+     */
+    public String predict(int predictionLength, String modelType, byte[] frame)
+            throws IOException, TimeoutException, InterruptedException {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("type", "predict");
+        fields.put("prediction_length", predictionLength);
+        fields.put("model_type", modelType);
+        String request = toJson(fields);
+
+        long timeoutSeconds = predictionConfig.getTimeoutSeconds();
+        if (!callPermits.tryAcquire(timeoutSeconds, TimeUnit.SECONDS)) {
+            throw new TimeoutException("No prediction slot became free within " + timeoutSeconds + " seconds");
+        }
+        try {
+            PredictionWorker worker = acquire();
+
+            AtomicBoolean timedOut = new AtomicBoolean(false);
+            ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+                timedOut.set(true);
+                worker.destroy();
+            }, timeoutSeconds, TimeUnit.SECONDS);
+
+            PredictionWorkerProtocol.Response response;
+            try {
+                response = worker.call(request, frame);
+                timeout.cancel(false);
+            } catch (IOException e) {
+                // A worker leállt (összeomlás vagy időtúllépés): eldobjuk, helyette új indul
+                timeout.cancel(false);
+                worker.destroy();
+                maintenance.execute(this::replaceWorker);
+                if (timedOut.get()) {
+                    throw new TimeoutException("Prediction timed out in worker " + worker.getName());
+                }
+                throw new IOException("Prediction worker " + worker.getName() + " crashed", e);
+            }
+
+            release(worker);
+            if (!response.ok()) {
+                throw new IOException("Prediction failed in worker " + worker.getName() + ": " + response.text());
+            }
+            return response.text();
+        } finally {
+            callPermits.release();
+        }
+    }
+
+    /**
+     * Az elindított workerek újraindításainak száma (összeomlás, időtúllépés vagy sikertelen ping miatt).
+     */
+    public int getRestartCount() {
+        return restarts.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        maintenance.shutdownNow();
+        PredictionWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.shutdown();
+        }
+    }
+
+    // Szabad worker kivétele; ha nincs (vagy mind leállt), új indul
+    private PredictionWorker acquire() {
+        PredictionWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            if (worker.isAlive()) {
+                return worker;
+            }
+            restarts.incrementAndGet();
+        }
+        try {
+            return startWorker();
+        } catch (IOException e) {
+            throw new PredictionWorkerUnavailableException("No prediction worker available", e);
+        }
+    }
+
+    // A worker visszakerül a szabadok közé; a pool méreténél több szabad worker leáll
+    private void release(PredictionWorker worker) {
+        if (idleWorkers.size() >= poolSize) {
+            worker.shutdown();
+        } else {
+            idleWorkers.offer(worker);
+        }
+    }
+
+    // A szabad workerek ping ellenőrzése; a nem válaszolók helyett új indul
+    private void checkHealth() {
+        int count = idleWorkers.size();
+        for (int i = 0; i < count; i++) {
+            PredictionWorker worker = idleWorkers.poll();
+            if (worker == null) {
+                break;
+            }
+            if (isHealthy(worker)) {
+                idleWorkers.offer(worker);
+            } else {
+                worker.destroy();
+                restarts.incrementAndGet();
+            }
+        }
+        refill();
+    }
+
+    private boolean isHealthy(PredictionWorker worker) {
+        if (!worker.isAlive()) {
+            return false;
+        }
+        ScheduledFuture<?> timeout = watchdog.schedule(worker::destroy, PING_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        try {
+            PredictionWorkerProtocol.Response response = worker.call(toJson(Map.of("type", "ping")), NO_FRAME);
+            return response.ok() && PredictionWorkerProtocol.PONG.equals(response.text());
+        } catch (IOException e) {
+            return false;
+        } finally {
+            timeout.cancel(false);
+        }
+    }
+
+    // Összeomlott worker pótlása, hogy a következő hívás már betöltött workert kapjon
+    private void replaceWorker() {
+        restarts.incrementAndGet();
+        refill();
+    }
+
+    // Feltöltés a pool méretéig (a dolgozó workereket is beleszámítva)
+    private void refill() {
+        int busy = Math.max(0, predictionConfig.getMaxConcurrentCalls() - callPermits.availablePermits());
+        while (idleWorkers.size() + busy < poolSize) {
+            try {
+                idleWorkers.offer(startWorker());
+            } catch (IOException e) {
+                // Nem végzetes: a következő hívás vagy állapotellenőrzés újra megpróbálja
+                e.printStackTrace();
+                return;
+            }
+        }
+    }
+
+    private PredictionWorker startWorker() throws IOException {
+        String name = "prediction-worker-" + workerCounter.incrementAndGet();
+        List<String> command = List.of(predictionConfig.getPythonCommand(), predictionConfig.getWorkerScriptPath());
+        return PredictionWorker.start(name, command, predictionConfig.getWorkerStartTimeoutSeconds());
+    }
+
+    private String toJson(Map<String, Object> request) throws IOException {
+        return objectMapper.writeValueAsString(request);
+    }
+}
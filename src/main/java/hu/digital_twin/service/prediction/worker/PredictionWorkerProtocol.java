@@ -0,0 +1,43 @@
+package hu.digital_twin.service.prediction.worker;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A Java és a Python predikciós worker (prediction_worker.py) közötti keretezett protokoll a stdin/stdout csöveken.
+ * Kérés: [int hossz][UTF-8 JSON: {"type": "predict", "prediction_length": ..., "model_type": ...} vagy {"type": "ping"}]
+ * [int hossz][tanító ablak bináris kerete (ping esetén üres)];
+ * válasz: [byte állapot][int hossz][UTF-8 szöveg (predikció JSON, "pong" vagy hibaüzenet)].
+ * Indulás után (az importok betöltése után) a worker egy OK állapotú READY választ küld.
+ */
+final class PredictionWorkerProtocol {
+
+    static final byte STATUS_OK = 0;
+    static final String READY = "READY";
+    static final String PONG = "pong";
+
+    private PredictionWorkerProtocol() {
+    }
+
+    static void writeRequest(DataOutputStream out, String json, byte[] frame) throws IOException {
+        byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.writeInt(frame.length);
+        out.write(frame);
+        out.flush();
+    }
+
+    static Response readResponse(DataInputStream in) throws IOException {
+        byte status = in.readByte();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new Response(status == STATUS_OK, new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    // Egy worker válasz: sikeres-e, és az eredmény vagy a hibaüzenet
+    record Response(boolean ok, String text) {
+    }
+}
@@ -1,8 +1,9 @@
 package hu.digital_twin.service.simulation;
 
 import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.jfr.BackupVmCreationEvent;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.digital_twin.model.ProcessedPredictionData;
-import hu.digital_twin.model.RequestData;
 import hu.digital_twin.service.infrastructure.VirtualMachineFactory;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
@@ -34,7 +35,7 @@ public class ScalingManager {
      * @return az utolsó backup VM létrehozásának időpontját percben
      */
     public int executeScalingTasks(SimulationContext context, ProcessedPredictionData predictionData,
-                                   RequestData lastUpdateData, Map<String, VirtualMachine> backUpVms,
+                                   FleetSnapshot fleet, Map<String, VirtualMachine> backUpVms,
                                    double loadThreshold) throws Exception {
         int lastBackupCreationMinute = 0;
 
@@ -47,7 +48,7 @@ public class ScalingManager {
 
                 // Egy adott VM predikciós terhelésének feldolgozása
                 lastBackupCreationMinute = Math.max(lastBackupCreationMinute,
-                        processVmTasks(vm, predictionData, context, lastUpdateData, backUpVms, loadThreshold));
+                        processVmTasks(vm, predictionData, context, fleet, backUpVms, loadThreshold));
             }
         }
 
@@ -59,7 +60,7 @@ public class ScalingManager {
      * @return backup VM létrehozásának legutolsó perc indexe (ha volt)
      */
     private int processVmTasks(VirtualMachine vm, ProcessedPredictionData predictionData,
-                               SimulationContext context, RequestData lastUpdateData,
+                               SimulationContext context, FleetSnapshot fleet,
                                Map<String, VirtualMachine> backUpVms, double loadThreshold) throws Exception {
         String vmId = vm.getVa().id;
         List<Double> loads = predictionData.getAvgLoadsPerMinute().get(vmId);
@@ -77,7 +78,7 @@ public class ScalingManager {
                 // Túlterhelés esetén backup VM létrehozása / használata
                 lastBackupCreationMinute = Math.max(lastBackupCreationMinute,
                         handleHighLoad(vm, vmId, loads.get(i), tasks.get(i), context,
-                                lastUpdateData, backUpVms, i));
+                                fleet, backUpVms, i));
             } else {
                 // Normál terhelés esetén csak egy VM-et használ
                 handleNormalLoad(vm, vmId, loads.get(i), tasks.get(i), context);
@@ -92,18 +93,32 @@ public class ScalingManager {
      * majd a feladat szétosztása.
      */
     private int handleHighLoad(VirtualMachine vm, String vmId, double load, int task,
-                               SimulationContext context, RequestData lastUpdateData,
+                               SimulationContext context, FleetSnapshot fleet,
                                Map<String, VirtualMachine> backUpVms, int minute) throws Exception {
         if (backUpVms.containsKey(vmId)) {
             // Már létező backup VM-et használunk
             taskExecutor.distributeTaskBetweenVms(vm, backUpVms.get(vmId), load, task, context, vmId);
             return 0;
         } else {
-            // Új backup VM létrehozása
-            createAndRegisterBackupVm(vmId, lastUpdateData, context, backUpVms);
+            // Új backup VM létrehozása (profilozáshoz JFR eseményként, a szimuláció léptetésével együtt)
+            BackupVmCreationEvent event = new BackupVmCreationEvent();
+            long simulatedStart = Timed.getFireCount();
+            event.begin();
+            createAndRegisterBackupVm(vmId, fleet, context, backUpVms);
 
             // Szimulációs idő léptetése a következő percig
             simulateUntilMinute(minute);
+            event.end();
+            if (event.shouldCommit()) {
+                event.tenant = context.getTenantId();
+                event.vm = vmId;
+                event.minute = minute;
+                event.load = load;
+                event.backupVms = backUpVms.size();
+                event.simulatedStart = simulatedStart;
+                event.simulatedSpan = Timed.getFireCount() - simulatedStart;
+                event.commit();
+            }
 
             // Feladat szétosztása backup és eredeti VM között
             taskExecutor.distributeTaskBetweenVms(vm, backUpVms.get(vmId), load, task, context, vmId);
@@ -122,9 +137,9 @@ public class ScalingManager {
     /**
      * Új backup VM létrehozása és regisztrálása.
      */
-    private void createAndRegisterBackupVm(String vmId, RequestData lastUpdateData,
+    private void createAndRegisterBackupVm(String vmId, FleetSnapshot fleet,
                                            SimulationContext context, Map<String, VirtualMachine> backUpVms) throws Exception {
-        VirtualMachine backupVm = vmFactory.createBackupVirtualMachine(vmId, lastUpdateData, context);
+        VirtualMachine backupVm = vmFactory.createBackupVirtualMachine(vmId, fleet, context);
         backUpVms.put(vmId, backupVm);
         context.incrementVmCount();
     }
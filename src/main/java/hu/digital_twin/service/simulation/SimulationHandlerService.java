@@ -2,12 +2,12 @@ package hu.digital_twin.service.simulation;
 
 import hu.digital_twin.exception.SimulationException;
 import hu.digital_twin.model.RequestData;
-import hu.digital_twin.service.util.DataSenderService;
 import hu.digital_twin.service.prediction.PredictionService;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 /**
  * A szimulációk kezeléséért felelős szolgáltatás.
@@ -16,23 +16,22 @@ import java.util.Map;
 @Service
 public class SimulationHandlerService {
 
-    private final DataSenderService dataSenderService;
+    // Az eredményeket fogadó végpont
+    static final String RECEIVER_URL = "http://localhost:8082/dummy/receiveData";
+
     private final PredictionService predictionService;
-    private final SimulationService simulationService;
+    private final SimulationJobService simulationJobService;
 
     /**
      * Konstruktor dependency injection-nel.
      *
-     * @param dataSenderService az adatok továbbításáért felelős szolgáltatás
      * @param predictionService a predikciós adatok előállításáért felelős szolgáltatás
-     * @param simulationService a szimulációs logikát megvalósító szolgáltatás
+     * @param simulationJobService a szimulációkat háttérben, job alapon futtató szolgáltatás
      */
-    public SimulationHandlerService(DataSenderService dataSenderService,
-                                    PredictionService predictionService,
-                                    SimulationService simulationService) {
-        this.dataSenderService = dataSenderService;
+    public SimulationHandlerService(PredictionService predictionService,
+                                    SimulationJobService simulationJobService) {
         this.predictionService = predictionService;
-        this.simulationService = simulationService;
+        this.simulationJobService = simulationJobService;
     }
 
     /**
@@ -51,27 +50,27 @@ public class SimulationHandlerService {
      * - baseline (alap szimuláció, predikció nélkül),
      * - predikció alapú, skálázás nélküli szimuláció,
      * - predikció alapú, skálázást is figyelembe vevő szimuláció.
+     * A hívás megvárja a háttérben futó job befejeződését.
      *
      * @param requestData az input kérésadatok
      * @throws SimulationException ha bármelyik szimuláció hibába ütközik
      */
     public void sendFutureBehaviour(RequestData requestData) throws SimulationException {
-        // 1. Alap szimuláció (baseline)
-        dataSenderService.sendData(
-                simulationService.doBaseline(requestData),
-                "http://localhost:8082/dummy/receiveData"
-        );
-
-        // 2. Predikcióval, de skálázás nélkül
-        dataSenderService.sendData(
-                simulationService.usePredictionWithoutScaling(requestData),
-                "http://localhost:8082/dummy/receiveData"
-        );
-
-        // 3. Predikcióval és dinamikus skálázással
-        dataSenderService.sendData(
-                simulationService.usePredictionWithScaling(requestData),
-                "http://localhost:8082/dummy/receiveData"
-        );
+        // A szinkron hívás is jobként, a SimulationScheduler-en keresztül fut (közös beengedés és fair ütemezés).
+        // classloader és process izolációnál több job és egy job stratégiái is párhuzamosan futnak, külön
+        // sandboxokban vagy worker JVM-ekben; izoláció nélkül (none) egyszerre csak egy szimuláció fut.
+        SimulationJob job = simulationJobService.submit(requestData);
+        try {
+            job.getCompletion().join();
+        } catch (CompletionException e) {
+            // A hibát az eredeti kivételként adjuk tovább
+            if (e.getCause() instanceof SimulationException simulationException) {
+                throw simulationException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new SimulationException("Simulation job " + job.getId() + " failed", e.getCause());
+        }
     }
 }
@@ -0,0 +1,179 @@
+package hu.digital_twin.service.simulation;
+
+import com.fasterxml.jackson.databind.util.RawValue;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Egy REQUEST FUTURE BEHAVIOUR kéréshez tartozó szimulációs job állapota.
+ * Stratégiánként tárolja az állapotot és az eredményt; minden változás növeli a verziót,
+ * és értesíti a long-poll módon várakozó klienseket.
+ */
+public class SimulationJob {
+
+    private final String id;
+    private final String tenantId;
+    private final Instant submittedAt = Instant.now();
+    private Instant startedAt;
+    private Instant finishedAt;
+    private SimulationJobStatus status = SimulationJobStatus.QUEUED;
+    private long version = 0;
+
+    // Stratégiánkénti állapot a futtatás sorrendjében
+    private final Map<String, StrategyState> strategies = new LinkedHashMap<>();
+
+    // A következő változásra várakozó long-poll kérések
+    private final List<Consumer<Map<String, Object>>> waiters = new ArrayList<>();
+
+    // A job befejeződésekor teljesül; hiba esetén az első stratégia hibájával zárul
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+
+    public SimulationJob(String id, String tenantId, List<String> strategyNames) {
+        this.id = id;
+        this.tenantId = tenantId;
+        for (String name : strategyNames) {
+            strategies.put(name, new StrategyState());
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public synchronized SimulationJobStatus getStatus() {
+        return status;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    synchronized void markRunning() {
+        status = SimulationJobStatus.RUNNING;
+        startedAt = Instant.now();
+        changed();
+    }
+
+    synchronized void markStrategyRunning(String strategy) {
+        strategies.get(strategy).status = SimulationJobStatus.RUNNING;
+        changed();
+    }
+
+    synchronized void markStrategyCompleted(String strategy, String result) {
+        StrategyState state = strategies.get(strategy);
+        state.status = SimulationJobStatus.COMPLETED;
+        state.result = result;
+        changed();
+    }
+
+    synchronized void markStrategyFailed(String strategy, String error) {
+        StrategyState state = strategies.get(strategy);
+        state.status = SimulationJobStatus.FAILED;
+        state.error = error;
+        changed();
+    }
+
+    synchronized void markFinished(Throwable failure) {
+        status = failure == null ? SimulationJobStatus.COMPLETED : SimulationJobStatus.FAILED;
+        finishedAt = Instant.now();
+        changed();
+        if (failure == null) {
+            completion.complete(null);
+        } else {
+            completion.completeExceptionally(failure);
+        }
+    }
+
+    /**
+     * A job befejeződését jelző future (szinkron hívók ezen várakoznak).
+     */
+    public CompletableFuture<Void> getCompletion() {
+        return completion;
+    }
+
+    /**
+     * Várakozó regisztrálása a következő állapotváltozásra.
+     * Ha a job már újabb, mint a kliens által ismert verzió, vagy már befejeződött, azonnal hívódik.
+     *
+     * @param knownVersion a kliens által utoljára látott verzió
+     * @param waiter a pillanatképet fogadó callback
+     * @return true, ha a callback azonnal lefutott
+     */
+    public boolean awaitChange(long knownVersion, Consumer<Map<String, Object>> waiter) {
+        Map<String, Object> snapshot;
+        synchronized (this) {
+            if (version <= knownVersion && !status.isFinished()) {
+                waiters.add(waiter);
+                return false;
+            }
+            snapshot = snapshot();
+        }
+        waiter.accept(snapshot);
+        return true;
+    }
+
+    /**
+     * Várakozó eltávolítása (pl. long-poll időtúllépés után).
+     */
+    public synchronized void removeWaiter(Consumer<Map<String, Object>> waiter) {
+        waiters.remove(waiter);
+    }
+
+    /**
+     * A job aktuális állapota JSON-ként szerializálható formában.
+     */
+    public synchronized Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("job_id", id);
+        result.put("status", status);
+        result.put("version", version);
+        result.put("submitted_at", submittedAt.toString());
+        result.put("started_at", startedAt != null ? startedAt.toString() : null);
+        result.put("finished_at", finishedAt != null ? finishedAt.toString() : null);
+
+        Map<String, Object> strategyStates = new LinkedHashMap<>();
+        strategies.forEach((name, state) -> {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("status", state.status);
+            // A stratégia eredménye már JSON, ezért beágyazva, nem szövegként kerül a válaszba
+            entry.put("result", state.result != null ? new RawValue(state.result) : null);
+            entry.put("error", state.error);
+            strategyStates.put(name, entry);
+        });
+        result.put("strategies", strategyStates);
+        return result;
+    }
+
+    // Verzió léptetése és a várakozók értesítése; a hívó már tartja a zárat
+    private void changed() {
+        version++;
+        if (waiters.isEmpty()) {
+            return;
+        }
+        Map<String, Object> snapshot = snapshot();
+        List<Consumer<Map<String, Object>>> notified = new ArrayList<>(waiters);
+        waiters.clear();
+        notified.forEach(waiter -> waiter.accept(snapshot));
+    }
+
+    // Egy stratégia futásának állapota és eredménye (a szimuláció JSON kimenete)
+    private static class StrategyState {
+        private SimulationJobStatus status = SimulationJobStatus.QUEUED;
+        private String result;
+        private String error;
+    }
+}
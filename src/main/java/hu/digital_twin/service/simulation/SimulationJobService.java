@@ -0,0 +1,172 @@
+package hu.digital_twin.service.simulation;
+
+import hu.digital_twin.config.SimulationJobConfig;
+import hu.digital_twin.context.TenantContext;
+import hu.digital_twin.exception.SimulationException;
+import hu.digital_twin.exception.SimulationJobRejectedException;
+import hu.digital_twin.model.RequestData;
+import hu.digital_twin.service.util.DataSenderService;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * REQUEST FUTURE BEHAVIOUR kérések futtatása háttérben, job alapon.
+ * A beküldés azonnal visszaadja a job azonosítót, a jobot a SimulationScheduler engedi be és indítja,
+ * az állapot és a stratégiánkénti eredmények a job-on keresztül kérdezhetők le (long-poll is).
+ * Az eredmények a korábbiakhoz hasonlóan a DataSenderService-en keresztül is továbbításra kerülnek.
+ */
+@Service
+public class SimulationJobService {
+
+    // A futtatott stratégiák sorrendben (a SimulationService stratégia kulcsai)
+    static final List<String> FUTURE_BEHAVIOUR_STRATEGIES =
+            List.of("baseline", "prediction_no_scaling", "prediction_with_scaling");
+
+    private final SimulationService simulationService;
+    private final DataSenderService dataSenderService;
+    private final SimulationJobConfig jobConfig;
+    private final SimulationScheduler scheduler;
+
+    // Ismert jobok azonosító szerint (a befejezettek a megőrzési idő után törlődnek)
+    private final Map<String, SimulationJob> jobs = new ConcurrentHashMap<>();
+
+    public SimulationJobService(SimulationService simulationService,
+                                DataSenderService dataSenderService,
+                                SimulationJobConfig jobConfig,
+                                SimulationScheduler scheduler) {
+        this.simulationService = simulationService;
+        this.dataSenderService = dataSenderService;
+        this.jobConfig = jobConfig;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Új szimulációs job beküldése az aktuális tenant nevében, az alapértelmezett határidővel.
+     *
+     * @param requestData a REQUEST FUTURE BEHAVIOUR kérés adatai
+     * @return a létrehozott job (azonnal, a szimulációk a háttérben futnak)
+     * @throws SimulationJobRejectedException ha a job sor megtelt
+     */
+    public SimulationJob submit(RequestData requestData) {
+        return submit(requestData, scheduler.defaultDeadline());
+    }
+
+    /**
+     * Új szimulációs job beküldése az aktuális tenant nevében.
+     *
+     * @param requestData a REQUEST FUTURE BEHAVIOUR kérés adatai
+     * @param deadlineMillis epoch milliszekundum, ameddig a jobnak el kell indulnia
+     * @return a létrehozott job (azonnal, a szimulációk a háttérben futnak)
+     * @throws SimulationJobRejectedException ha a job sor (vagy a tenant sora) megtelt
+     */
+    public SimulationJob submit(RequestData requestData, long deadlineMillis) {
+        purgeExpiredJobs();
+
+        String tenantId = TenantContext.getTenantId();
+        SimulationJob job = new SimulationJob(UUID.randomUUID().toString(), tenantId, FUTURE_BEHAVIOUR_STRATEGIES);
+        jobs.put(job.getId(), job);
+
+        try {
+            // A job a beküldő tenant hatókörében fut az ütemező szálán
+            scheduler.submit(tenantId, deadlineMillis,
+                    TenantContext.wrap(() -> run(job, requestData)),
+                    () -> job.markFinished(new SimulationException("Deadline exceeded before the simulation started")));
+        } catch (SimulationJobRejectedException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Job lekérdezése azonosító alapján; más tenant jobja nem látható.
+     */
+    public Optional<SimulationJob> findJob(String jobId) {
+        SimulationJob job = jobs.get(jobId);
+        if (job == null || !job.getTenantId().equals(TenantContext.getTenantId())) {
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    /**
+     * Long-poll várakozás felső korlátja milliszekundumban.
+     */
+    public long getMaxWaitMs() {
+        return jobConfig.getMaxWaitMs();
+    }
+
+    /**
+     * Az ütemező metrikái (sorhossz, várakozási és futási idők, elutasítások)
+     * a szimulációs eredmény gyorsítótár és a flottaállapot pillanatképek találati statisztikái.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = scheduler.getStats();
+        stats.put("result_cache", simulationService.getResultCacheStats());
+        stats.put("fleet_snapshot", simulationService.getFleetSnapshotStats());
+        return stats;
+    }
+
+    // A stratégiák (izoláció esetén párhuzamosan, külön sandboxokban) futnak; az eredmények küldése
+    // a stratégiák sorrendjében, a háttérben történik, amint az adott eredmény elkészült
+    private void run(SimulationJob job, RequestData requestData) {
+        job.markRunning();
+
+        Map<String, CompletableFuture<String>> results;
+        try {
+            FUTURE_BEHAVIOUR_STRATEGIES.forEach(job::markStrategyRunning);
+            results = simulationService.runStrategies(FUTURE_BEHAVIOUR_STRATEGIES, requestData);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            job.markFinished(e);
+            return;
+        }
+
+        CompletableFuture<Void> delivery = CompletableFuture.completedFuture(null);
+        for (Map.Entry<String, CompletableFuture<String>> entry : results.entrySet()) {
+            String strategy = entry.getKey();
+            CompletableFuture<String> result = entry.getValue().whenComplete((value, error) -> {
+                if (error == null) {
+                    job.markStrategyCompleted(strategy, value);
+                } else {
+                    job.markStrategyFailed(strategy, unwrap(error).getMessage());
+                }
+            });
+            delivery = delivery.thenCompose(ignored -> result.thenCompose(value ->
+                    dataSenderService.sendDataAsync(value, SimulationHandlerService.RECEIVER_URL)));
+        }
+
+        // Megvárjuk a szimulációkat és a küldéseket; az első hiba (stratégia sorrendben) a job hibája
+        Throwable failure = null;
+        try {
+            delivery.join();
+        } catch (CompletionException e) {
+            failure = unwrap(e);
+            failure.printStackTrace();
+        }
+        // Egy korábbi hiba miatt kimaradt küldések mellett a többi stratégiát is megvárjuk
+        CompletableFuture.allOf(results.values().toArray(new CompletableFuture[0]))
+                .exceptionally(error -> null)
+                .join();
+        job.markFinished(failure);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    // A megőrzési időn túli befejezett jobok törlése
+    private void purgeExpiredJobs() {
+        Instant threshold = Instant.now().minus(jobConfig.getRetentionMinutes(), ChronoUnit.MINUTES);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(threshold));
+    }
+}
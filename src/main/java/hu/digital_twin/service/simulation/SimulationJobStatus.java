@@ -0,0 +1,15 @@
+package hu.digital_twin.service.simulation;
+
+/**
+ * Egy szimulációs job, illetve a jobon belüli stratégia futásának állapota.
+ */
+public enum SimulationJobStatus {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED;
+
+    public boolean isFinished() {
+        return this == COMPLETED || this == FAILED;
+    }
+}
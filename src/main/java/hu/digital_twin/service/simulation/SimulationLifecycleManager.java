@@ -2,11 +2,10 @@ package hu.digital_twin.service.simulation;
 
 import hu.digital_twin.context.IaaSContext;
 import hu.digital_twin.context.SimulationContext;
-import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.digital_twin.service.infrastructure.EnergyService;
 import hu.digital_twin.service.infrastructure.IaaSManagerService;
 import hu.digital_twin.service.infrastructure.VirtualMachineFactory;
-import hu.digital_twin.service.io.RequestDataService;
 import hu.mta.sztaki.lpds.cloud.simulator.Timed;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
 import hu.u_szeged.inf.fog.simulator.demo.ScenarioBase;
@@ -18,25 +17,20 @@ import java.util.Map;
 /**
  * A szimuláció teljes életciklusát vezérlő szolgáltatás.
  * Felelős az infrastruktúra inicializálásáért, szimuláció elindításáért, futtatásáért, lezárásáért és az eredmények rögzítéséért.
+ * Állapotot nem tárol: a futásonkénti adatok (pl. kezdő- és végidőpont) a SimulationContext-ben vannak.
  */
 @Service
 public class SimulationLifecycleManager {
 
-    private final RequestDataService requestDataService;
     private final IaaSManagerService iaaSManagerService;
     private final EnergyService energyService;
     private final VirtualMachineFactory vmFactory;
     private final SimulationStatsService simulationStatsService;
 
-    private long starttime = 0; // szimuláció kezdőidőpontja (szimulációs idő)
-    private long stoptime = 0;  // szimuláció végidőpontja (szimulációs idő)
-
-    public SimulationLifecycleManager(RequestDataService requestDataService,
-                                      IaaSManagerService iaaSManagerService,
+    public SimulationLifecycleManager(IaaSManagerService iaaSManagerService,
                                       EnergyService energyService,
                                       VirtualMachineFactory vmFactory,
                                       SimulationStatsService simulationStatsService) {
-        this.requestDataService = requestDataService;
         this.iaaSManagerService = iaaSManagerService;
         this.energyService = energyService;
         this.vmFactory = vmFactory;
@@ -47,14 +41,33 @@ public class SimulationLifecycleManager {
      * Szimulációs környezet és virtuális gépek előkészítése.
      *
      * @param physicalMachineCount a fizikai gépek száma
+     * @param fleet a legutóbbi flottaállapot, amely alapján a VM-ek létrejönnek
      * @return a szimuláció kontextusa, amely tartalmazza az infrastruktúrát és VM metrikákat
      */
-    public SimulationContext initializeSimulation(int physicalMachineCount) throws Exception {
-        RequestData lastUpdateData = requestDataService.getLastData(); // utolsó frissítési kérés lekérése
+    public SimulationContext initializeSimulation(int physicalMachineCount, FleetSnapshot fleet) throws Exception {
+        return initializeSimulation(physicalMachineCount, fleet, null, null);
+    }
+
+    /**
+     * Mint az initializeSimulation(physicalMachineCount, fleet), a futás címkéivel a profilozó eseményekhez.
+     *
+     * @param tenantId a szimulációt kérő tenant (null esetén az alapértelmezett)
+     * @param strategy a futtatott stratégia kulcsa
+     */
+    public SimulationContext initializeSimulation(int physicalMachineCount, FleetSnapshot fleet,
+                                                  String tenantId, String strategy) throws Exception {
+        SimulationPhase phase = SimulationPhase.begin(SimulationMetrics.STAGE_IAAS_SETUP);
         IaaSContext iaasContext = iaaSManagerService.initializeIaaS(physicalMachineCount); // fizikai infrastruktúra inicializálása
         SimulationContext context = new SimulationContext(iaasContext); // szimulációs kontextus létrehozása
+        if (tenantId != null) {
+            context.setTenantId(tenantId);
+        }
+        if (strategy != null) {
+            context.setStrategy(strategy);
+        }
 
-        vmFactory.createVirtualMachines(lastUpdateData, context); // VM-ek létrehozása
+        vmFactory.createVirtualMachines(fleet, context); // VM-ek létrehozása
+        phase.end(context);
         return context;
     }
 
@@ -64,44 +77,63 @@ public class SimulationLifecycleManager {
      * @param context a szimuláció kontextusa
      */
     public void startSimulation(SimulationContext context) {
+        SimulationPhase boot = SimulationPhase.begin(SimulationMetrics.STAGE_VM_BOOT);
         Timed.simulateUntilLastEvent(); // elindítja az összes eddig beütemezett esemény szimulációját
-        setStarttime(Timed.getFireCount()); // menti a kezdési időpontot
+        context.setStartTime(Timed.getFireCount()); // menti a kezdési időpontot
+        boot.end(context);
+
+        SimulationPhase energy = SimulationPhase.begin(SimulationMetrics.STAGE_ENERGY_COLLECTION);
         energyService.setupEDC(context.getIaasContext()); // energiafogyasztás figyelés aktiválása
+        energy.end(context);
     }
 
     /**
      * Szimuláció futtatása meghatározott percekig.
      *
+     * @param context a szimuláció kontextusa (a futásidő méréséhez)
      * @param minutes futtatási idő percben
      */
-    public void runSimulation(int minutes) {
+    public void runSimulation(SimulationContext context, int minutes) {
+        SimulationPhase phase = SimulationPhase.begin(SimulationMetrics.STAGE_RUN);
         // futtatja a szimulációt az aktuális szimulációs idő + megadott időintervallumig
         Timed.simulateUntil(Timed.getFireCount() + (60L * 1000 * minutes));
+        phase.end(context);
     }
 
     /**
      * Szimuláció lezárása, energiafogyasztás lekérése, statisztikák legenerálása, és erőforrások felszabadítása.
      *
      * @param context a szimuláció kontextusa
-     * @param lastUpdateData utolsó frissítési adat
+     * @param fleet legutóbbi flottaállapot
      * @param backUpVms mentésre létrehozott VM-ek (pl. skálázáskor)
      * @return a szimuláció eredményeit tartalmazó statisztika szöveg
      */
-    public String finalizeSimulation(SimulationContext context, RequestData lastUpdateData,
+    public String finalizeSimulation(SimulationContext context, FleetSnapshot fleet,
                                      Map<String, VirtualMachine> backUpVms) {
-        setStoptime(Timed.getFireCount()); // szimulációs idő leállítása
+        context.setStopTime(Timed.getFireCount()); // szimulációs idő leállítása
+        SimulationPhase energy = SimulationPhase.begin(SimulationMetrics.STAGE_ENERGY_COLLECTION);
         double totalEnergyConsumption = energyService.stopEDC(); // energiafogyasztás összegyűjtése és EDC leállítása
         context.getMetrics().addEnergyConsumption(totalEnergyConsumption); // energia metrika elmentése
+        energy.end(context);
+
+        // energiafogyasztási log fájlba írás (a statisztika előtt, hogy az ideje benne legyen)
+        SimulationPhase logWriting = SimulationPhase.begin(SimulationMetrics.STAGE_LOG_WRITING);
+        EnergyDataCollector.writeToFile(ScenarioBase.resultDirectory);
+        logWriting.end(context);
 
         // statisztikák legenerálása (pl. időtartam, energia, adatmozgatás, VM szám, stb.)
         String stats = simulationStatsService.generateRuntimeStats(
-                getStoptime() - getStarttime(),
-                lastUpdateData,
+                context.getStopTime() - context.getStartTime(),
+                fleet,
                 context.getMetrics().getTotalEnergyConsumption(),
                 context.getMetrics().getTotalMovedData(),
                 context.getNumberOfVms(),
                 backUpVms,
-                context.getMetrics().getTotalTasks()
+                context.getMetrics().getTotalTasks(),
+                context.getMetrics().getConsumptionEvents(),
+                context.getMetrics().getCompletedConsumptions(),
+                context.getMetrics().getPeakHeapBytes(),
+                context.getMetrics().getStageNanos()
         );
 
         cleanupSimulation(backUpVms); // szimuláció erőforrásainak felszabadítása
@@ -109,30 +141,13 @@ public class SimulationLifecycleManager {
     }
 
     /**
-     * Szimuláció után az időkezelő és energia log mentése, backup VM-ek törlése.
+     * Szimuláció után az időkezelő visszaállítása, backup VM-ek törlése.
      */
     private void cleanupSimulation(Map<String, VirtualMachine> backUpVms) {
-        EnergyDataCollector.writeToFile(ScenarioBase.resultDirectory); // energiafogyasztási log fájlba írás
         Timed.resetTimed(); // Timed singleton visszaállítása
 
         if (backUpVms != null && !backUpVms.isEmpty()) {
             backUpVms.clear(); // backup VM-ek eltávolítása a memóriából
         }
     }
-
-    public long getStarttime() {
-        return starttime;
-    }
-
-    public void setStarttime(long starttime) {
-        this.starttime = starttime;
-    }
-
-    public long getStoptime() {
-        return stoptime;
-    }
-
-    public void setStoptime(long stoptime) {
-        this.stoptime = stoptime;
-    }
 }
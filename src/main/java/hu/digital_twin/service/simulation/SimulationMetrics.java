@@ -1,11 +1,29 @@
 package hu.digital_twin.service.simulation;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * A szimuláció során mért és összegzett metrikák nyilvántartására szolgáló osztály.
  * Tárolja az összesített energiafogyasztást, mozgatott adatmennyiséget és feldolgozott feladatok számát.
  */
 public class SimulationMetrics {
 
+    // A twin lépéseinek nevei (a statisztika stage_timings_ms mezőjében)
+    // A predikció a szimuláció előtt, az alkalmazásban fut, az ideje a bemenettel érkezik
+    public static final String STAGE_PREDICTION = "prediction";
+    // Fizikai gépek, repositoryk és a flotta VM-jeinek létrehozása
+    public static final String STAGE_IAAS_SETUP = "iaas_setup";
+    public static final String STAGE_PREDICTION_PROCESSING = "prediction_processing";
+    // A VM-ek indulása (Timed.simulateUntilLastEvent)
+    public static final String STAGE_VM_BOOT = "vm_boot";
+    public static final String STAGE_TASK_SCHEDULING = "task_scheduling";
+    public static final String STAGE_RUN = "simulation_run";
+    // Az energiafogyasztás gyűjtő indítása és leállítása (összegezve)
+    public static final String STAGE_ENERGY_COLLECTION = "energy_collection";
+    // Az energia log fájlba írása
+    public static final String STAGE_LOG_WRITING = "log_writing";
+
     // Teljes energiafogyasztás kilowattórában (kWh)
     private double totalEnergyConsumption = 0.0;
 
@@ -15,6 +33,18 @@ public class SimulationMetrics {
     // Összes végrehajtott feladat száma
     private int totalTasks = 0;
 
+    // A DISSECT-CF-ben indított erőforrás-fogyasztások (számítási feladatok és adatátvitelek) száma
+    private long consumptionEvents = 0;
+
+    // A DISSECT-CF-ben befejeződött erőforrás-fogyasztások (számítási feladatok és adatátvitelek) száma
+    private long completedConsumptions = 0;
+
+    // A futás közben mért legnagyobb foglalt heap bájtban (a lépések végén és a befejeződött fogyasztásoknál mérve)
+    private long peakHeapBytes = 0;
+
+    // A lépések falióra ideje nanoszekundumban, az első előfordulás sorrendjében
+    private final Map<String, Long> stageNanos = new LinkedHashMap<>();
+
     /**
      * Az összes metrika nullázása – új szimulációhoz használatos.
      */
@@ -22,6 +52,10 @@ public class SimulationMetrics {
         totalEnergyConsumption = 0.0;
         totalMovedData = 0;
         totalTasks = 0;
+        consumptionEvents = 0;
+        completedConsumptions = 0;
+        peakHeapBytes = 0;
+        stageNanos.clear();
     }
 
     /**
@@ -48,6 +82,48 @@ public class SimulationMetrics {
         this.totalTasks += tasks;
     }
 
+    /**
+     * Indított DISSECT-CF erőforrás-fogyasztások számának növelése.
+     * @param events hozzáadandó események száma
+     */
+    public void addConsumptionEvents(int events) {
+        this.consumptionEvents += events;
+    }
+
+    /**
+     * Egy befejeződött DISSECT-CF erőforrás-fogyasztás számlálása, a heap foglaltság mintavételezésével.
+     */
+    public void addCompletedConsumption() {
+        this.completedConsumptions++;
+        sampleHeap();
+    }
+
+    /**
+     * A foglalt heap mintavételezése; a legnagyobb érték marad meg.
+     * Sandbox módban a heap közös, így a párhuzamosan futó szimulációk foglalása is benne van.
+     */
+    public void sampleHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        peakHeapBytes = Math.max(peakHeapBytes, runtime.totalMemory() - runtime.freeMemory());
+    }
+
+    /**
+     * Egy lépés falióra idejének hozzáadása (az ismételt lépések, pl. több futtatás, összeadódnak).
+     * @param stage a lépés neve
+     * @param nanos időtartam nanoszekundumban
+     */
+    public void addStageTime(String stage, long nanos) {
+        stageNanos.merge(stage, nanos, Long::sum);
+    }
+
+    /**
+     * Lekérdezi a szimulációs metrikák lépésenkénti falióra idejét.
+     * @return lépés neve -> nanoszekundum
+     */
+    public Map<String, Long> getStageNanos() {
+        return stageNanos;
+    }
+
     /**
      * Lekérdezi a szimuláció teljes energiafogyasztását.
      * @return energiafogyasztás (kWh)
@@ -71,4 +147,28 @@ public class SimulationMetrics {
     public int getTotalTasks() {
         return totalTasks;
     }
+
+    /**
+     * Lekérdezi az indított DISSECT-CF erőforrás-fogyasztások számát.
+     * @return események száma
+     */
+    public long getConsumptionEvents() {
+        return consumptionEvents;
+    }
+
+    /**
+     * Lekérdezi a befejeződött DISSECT-CF erőforrás-fogyasztások számát.
+     * @return események száma
+     */
+    public long getCompletedConsumptions() {
+        return completedConsumptions;
+    }
+
+    /**
+     * Lekérdezi a futás közben mért legnagyobb foglalt heapet.
+     * @return heap bájtban
+     */
+    public long getPeakHeapBytes() {
+        return peakHeapBytes;
+    }
 }
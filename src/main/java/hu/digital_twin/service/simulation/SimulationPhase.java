@@ -0,0 +1,47 @@
+package hu.digital_twin.service.simulation;
+
+import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.jfr.SimulationPhaseEvent;
+import hu.mta.sztaki.lpds.cloud.simulator.Timed;
+
+/**
+ * Egy szimulációs lépés mérése: a falióra idő a statisztika stage_timings_ms mezőjébe kerül,
+ * és (ha a JFR felvétel kéri) SimulationPhaseEvent is készül a lépésről.
+ * A kontextus csak a lépés végén kell, mert az inicializálás hozza létre.
+ */
+public final class SimulationPhase {
+
+    private final String stage;
+    private final long startNanos;
+    private final long simulatedStart;
+    private final SimulationPhaseEvent event = new SimulationPhaseEvent();
+
+    private SimulationPhase(String stage) {
+        this.stage = stage;
+        this.simulatedStart = Timed.getFireCount();
+        event.begin();
+        this.startNanos = System.nanoTime();
+    }
+
+    public static SimulationPhase begin(String stage) {
+        return new SimulationPhase(stage);
+    }
+
+    public void end(SimulationContext context) {
+        context.getMetrics().addStageTime(stage, System.nanoTime() - startNanos);
+        context.getMetrics().sampleHeap();
+        event.end();
+        if (event.shouldCommit()) {
+            event.tenant = context.getTenantId();
+            event.strategy = context.getStrategy();
+            event.phase = stage;
+            event.fleetVms = context.getMaxInstrPerSecond().size();
+            event.scheduledVms = context.getNumberOfVms();
+            event.simulatedStart = simulatedStart;
+            event.simulatedSpan = Timed.getFireCount() - simulatedStart;
+            event.tasks = context.getMetrics().getTotalTasks();
+            event.consumptionEvents = context.getMetrics().getConsumptionEvents();
+            event.commit();
+        }
+    }
+}
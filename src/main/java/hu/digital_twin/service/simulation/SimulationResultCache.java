@@ -0,0 +1,138 @@
+package hu.digital_twin.service.simulation;
+
+import hu.digital_twin.config.SimulationCacheConfig;
+import hu.digital_twin.config.SimulationConfig;
+import hu.digital_twin.model.FleetSnapshot;
+import hu.digital_twin.model.RequestData;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A szimulációk eredményének (finalizeSimulation statisztika JSON) gyorsítótára.
+ * A kulcs a bemenet ujjlenyomata: tenant, a legutóbbi RequestData azonosítója, stratégia, a kérés paraméterei
+ * és a fizikai gépek száma. Méretkorlátos LRU, TTL lejárattal; a tenant minden UPDATE-je érvényteleníti a tenant
+ * összes bejegyzését.
+ */
+@Service
+public class SimulationResultCache {
+
+    private final SimulationCacheConfig cacheConfig;
+    private final SimulationConfig simulationConfig;
+
+    // Hozzáférési sorrendű LinkedHashMap: a legrégebben használt bejegyzés kerül ki először
+    private final LinkedHashMap<CacheKey, CacheEntry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public SimulationResultCache(SimulationCacheConfig cacheConfig, SimulationConfig simulationConfig) {
+        this.cacheConfig = cacheConfig;
+        this.simulationConfig = simulationConfig;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+                if (size() > cacheConfig.getMaxEntries()) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * A gyorsítótár kulcsa egy stratégia futtatásához.
+     *
+     * @return a kulcs, vagy null, ha a gyorsítótár ki van kapcsolva vagy nincs mentett UPDATE
+     */
+    public CacheKey keyFor(String tenantId, FleetSnapshot fleet, String strategy, RequestData request) {
+        if (!cacheConfig.isEnabled() || fleet == null || fleet.requestDataId() == null) {
+            return null;
+        }
+        return new CacheKey(tenantId, fleet.requestDataId(), strategy,
+                request.getPredictionLength(), request.getBasedOnLast(), request.getThreshold(),
+                request.getModelType(), request.getFeatureName(),
+                simulationConfig.getDefaultPhysicalMachines(), simulationConfig.getScalingPhysicalMachines());
+    }
+
+    /**
+     * @return a tárolt eredmény, vagy null (nincs, lejárt vagy a kulcs null)
+     */
+    public String get(CacheKey key) {
+        if (key == null) {
+            return null;
+        }
+        synchronized (entries) {
+            CacheEntry entry = entries.get(key);
+            if (entry != null && entry.expiresAt > System.currentTimeMillis()) {
+                hits.incrementAndGet();
+                return entry.result;
+            }
+            if (entry != null) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public void put(CacheKey key, String result) {
+        if (key == null || result == null) {
+            return;
+        }
+        long expiresAt = System.currentTimeMillis() + cacheConfig.getTtlMinutes() * 60_000;
+        synchronized (entries) {
+            entries.put(key, new CacheEntry(result, expiresAt));
+        }
+    }
+
+    /**
+     * A tenant összes tárolt eredményének törlése (minden UPDATE után).
+     */
+    public void invalidateTenant(String tenantId) {
+        synchronized (entries) {
+            int before = entries.size();
+            entries.keySet().removeIf(key -> key.tenantId().equals(tenantId));
+            invalidations.addAndGet(before - entries.size());
+        }
+    }
+
+    /**
+     * Gyorsítótár metrikák: találatok, tévesztések, találati arány, méret, kilakoltatások.
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long missCount = misses.get();
+        int size;
+        synchronized (entries) {
+            size = entries.size();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", cacheConfig.isEnabled());
+        stats.put("size", size);
+        stats.put("max_entries", cacheConfig.getMaxEntries());
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hit_ratio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("evictions", evictions.get());
+        stats.put("invalidations", invalidations.get());
+        return stats;
+    }
+
+    // A bemenet ujjlenyomata
+    public record CacheKey(String tenantId, long lastRequestId, String strategy,
+                           int predictionLength, int basedOnLast, double threshold,
+                           String modelType, String featureName,
+                           int defaultPhysicalMachines, int scalingPhysicalMachines) {
+    }
+
+    private record CacheEntry(String result, long expiresAt) {
+    }
+}
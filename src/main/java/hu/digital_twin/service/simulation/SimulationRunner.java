@@ -0,0 +1,139 @@
+package hu.digital_twin.service.simulation;
+
+import hu.digital_twin.config.SimulationConfig;
+import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.model.FleetSnapshot;
+import hu.digital_twin.model.ProcessedPredictionData;
+import hu.digital_twin.service.prediction.PredictionDataProcessor;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
+import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A szimulációs stratégiák által használt lépések (inicializálás, feladatok, futtatás, lezárás).
+ * Nem függ az adatbázistól és a predikciós szolgáltatástól, ezért Spring nélkül, sandboxban is összerakható.
+ */
+@Service
+public class SimulationRunner {
+
+    private final SimulationConfig config;
+    private final SimulationLifecycleManager lifecycleManager;
+    private final PredictionDataProcessor dataProcessor;
+    private final TaskExecutor taskExecutor;
+    private final ScalingManager scalingManager;
+
+    public SimulationRunner(SimulationConfig config,
+                            SimulationLifecycleManager lifecycleManager,
+                            PredictionDataProcessor dataProcessor,
+                            TaskExecutor taskExecutor,
+                            ScalingManager scalingManager) {
+        this.config = config;
+        this.lifecycleManager = lifecycleManager;
+        this.dataProcessor = dataProcessor;
+        this.taskExecutor = taskExecutor;
+        this.scalingManager = scalingManager;
+    }
+
+    /**
+     * Inicializálja a szimulációt adott számú fizikai géphez az utolsó frissítési adat alapján
+     */
+    public SimulationContext initializeSimulation(int physicalMachineCount, FleetSnapshot fleet) throws Exception {
+        return lifecycleManager.initializeSimulation(physicalMachineCount, fleet);
+    }
+
+    /**
+     * Inicializálja a szimulációt, a futás címkéivel (tenant, stratégia) a profilozó eseményekhez
+     */
+    public SimulationContext initializeSimulation(int physicalMachineCount, FleetSnapshot fleet,
+                                                  String tenantId, String strategy) throws Exception {
+        return lifecycleManager.initializeSimulation(physicalMachineCount, fleet, tenantId, strategy);
+    }
+
+    /**
+     * Elindítja a szimulációs események futását
+     */
+    public void startSimulation(SimulationContext context) {
+        lifecycleManager.startSimulation(context);
+    }
+
+    /**
+     * Lefuttatja a szimulációt adott percig
+     */
+    public void runSimulation(SimulationContext context, int minutes) {
+        lifecycleManager.runSimulation(context, minutes);
+    }
+
+    /**
+     * Szimuláció lezárása és statisztikák generálása
+     */
+    public String finalizeSimulation(SimulationContext context, FleetSnapshot fleet,
+                                     Map<String, VirtualMachine> backUpVms) {
+        return lifecycleManager.finalizeSimulation(context, fleet, backUpVms);
+    }
+
+    /**
+     * Előkészíti a predikciós adatokat percenkénti feldolgozásra
+     */
+    public ProcessedPredictionData processPerMinuteData(Map<String, List<Double>> predictionData,
+                                                        SimulationContext context) {
+        SimulationPhase phase = SimulationPhase.begin(SimulationMetrics.STAGE_PREDICTION_PROCESSING);
+        ProcessedPredictionData processed = dataProcessor.processPerMinuteData(predictionData, context);
+        phase.end(context);
+        return processed;
+    }
+
+    /**
+     * Nem skálázott feladatokat hajt végre egy adott VM-re
+     */
+    public void executeNonScalingTasks(VirtualMachine vm, ProcessedPredictionData predictionData,
+                                       SimulationContext context) throws NetworkNode.NetworkException {
+        taskExecutor.executeNonScalingTasks(vm, predictionData, context);
+    }
+
+    /**
+     * Baseline feladatok végrehajtása egy VM-en
+     */
+    public void executeBaselineTasks(VirtualMachine vm, FleetSnapshot fleet,
+                                     SimulationContext context, int predictionLength) throws NetworkNode.NetworkException {
+        taskExecutor.executeBaselineTasks(vm, fleet, context, predictionLength);
+    }
+
+    /**
+     * Skálázott feladatok végrehajtása
+     */
+    public int executeScalingTasks(SimulationContext context, ProcessedPredictionData predictionData,
+                                   FleetSnapshot fleet, Map<String, VirtualMachine> backUpVms,
+                                   double loadThreshold) throws Exception {
+        return scalingManager.executeScalingTasks(context, predictionData, fleet, backUpVms, loadThreshold);
+    }
+
+    /**
+     * Az összes VM listázása egy kontextusban
+     */
+    public List<VirtualMachine> getAllVirtualMachines(SimulationContext context) {
+        List<VirtualMachine> allVms = new ArrayList<>();
+        for (PhysicalMachine pm : context.getIaasContext().iaas.machines) {
+            allVms.addAll(pm.listVMs());
+        }
+        return allVms;
+    }
+
+    /**
+     * VM keresése név alapján
+     */
+    public VirtualMachine findVirtualMachineByName(SimulationContext context, String vmName) {
+        return getAllVirtualMachines(context).stream()
+                .filter(vm -> vm.getVa().id.equals(vmName))
+                .findFirst()
+                .orElse(null);
+    }
+
+    public SimulationConfig getConfig() {
+        return config;
+    }
+}
@@ -0,0 +1,299 @@
+package hu.digital_twin.service.simulation;
+
+import hu.digital_twin.config.SimulationIsolationConfig;
+import hu.digital_twin.config.SimulationJobConfig;
+import hu.digital_twin.exception.SimulationJobRejectedException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Beengedés-szabályozás és tenantok közötti súlyozott fair ütemezés a szimulációs jobokhoz.
+ * - korlátos sor (összesen és tenantonként), teli sor esetén 429,
+ * - egyszerre legfeljebb annyi job fut, amennyit a szimulációs kapacitás (sandbox/worker pool) elbír,
+ * - a következő job a legkisebb virtuális idejű tenanté (stride ütemezés: egy job 1/súly virtuális időt "fogyaszt"),
+ * - a határidőn túl még el nem indult job nem fut le; a várakozó jobokat egy időzített ellenőrzés is lejártatja,
+ *   így a lejárat akkor is jelzésre kerül, ha közben nem érkezik új job és nem szabadul fel kapacitás,
+ * - a várakozási és futási idők, elutasítások és lejárt jobok metrikaként lekérdezhetők.
+ */
+@Service
+public class SimulationScheduler {
+
+    private final SimulationJobConfig jobConfig;
+    private final int maxConcurrent;
+    private final ExecutorService jobExecutor;
+
+    // A várakozó jobok határidejének időzített ellenőrzése
+    private final ScheduledExecutorService deadlineSweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "simulation-job-deadlines");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Az ütemező állapota; minden módosítás a lock alatt történik
+    private final Object lock = new Object();
+    private final Map<String, TenantQueue> queues = new HashMap<>();
+    private int queuedTotal = 0;
+    private int running = 0;
+    private double virtualTime = 0;
+
+    // Metrikák
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final DurationStats queueWait = new DurationStats();
+    private final DurationStats runTime = new DurationStats();
+
+    public SimulationScheduler(SimulationJobConfig jobConfig, SimulationIsolationConfig isolationConfig) {
+        this.jobConfig = jobConfig;
+        this.maxConcurrent = jobConfig.getMaxConcurrent() > 0
+                ? jobConfig.getMaxConcurrent()
+                : capacityOf(isolationConfig);
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.jobExecutor = Executors.newFixedThreadPool(maxConcurrent,
+                runnable -> new Thread(runnable, "simulation-job-" + threadCounter.incrementAndGet()));
+        long sweepInterval = Math.max(1, jobConfig.getDeadlineSweepIntervalMs());
+        deadlineSweeper.scheduleWithFixedDelay(this::expireOverdue, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Egy job beengedése a tenant sorába.
+     *
+     * @param tenantId a beküldő tenant
+     * @param deadlineMillis epoch milliszekundum, ameddig a jobnak el kell indulnia
+     * @param task a job futtatása (a hívó tenant hatókörébe csomagolva)
+     * @param onExpired a határidő lejártakor (futtatás helyett) hívódik
+     * @throws SimulationJobRejectedException ha a teljes vagy a tenant sora megtelt
+     */
+    public void submit(String tenantId, long deadlineMillis, Runnable task, Runnable onExpired) {
+        List<ScheduledJob> expiredJobs;
+        String rejection = null;
+        synchronized (lock) {
+            expiredJobs = removeExpired(System.currentTimeMillis());
+
+            // Csak várakozó jobbal rendelkező tenantnak van sora (a kiürült sor törlődik)
+            TenantQueue queue = queues.get(tenantId);
+            int tenantQueued = queue != null ? queue.jobs.size() : 0;
+            if (queuedTotal >= jobConfig.getQueueCapacity()) {
+                rejection = "Simulation job queue is full, retry later";
+            } else if (tenantQueued >= jobConfig.getTenantQueueCapacity()) {
+                rejection = "Too many queued simulation jobs for tenant: " + tenantId;
+            } else {
+                if (queue == null) {
+                    // Új vagy visszatérő tenant nem gyűjthet előnyt: a virtuális ideje a globális virtuális idő
+                    queue = new TenantQueue(tenantId, weightOf(tenantId), virtualTime);
+                    queues.put(tenantId, queue);
+                }
+                queue.jobs.addLast(new ScheduledJob(task, onExpired, System.nanoTime(), deadlineMillis));
+                queuedTotal++;
+                submitted.incrementAndGet();
+            }
+        }
+        expiredJobs.forEach(job -> job.onExpired.run());
+
+        if (rejection != null) {
+            rejected.incrementAndGet();
+            throw new SimulationJobRejectedException(rejection);
+        }
+        dispatch();
+    }
+
+    /**
+     * Az alapértelmezett határidő a beküldés időpontjától számolva.
+     */
+    public long defaultDeadline() {
+        return System.currentTimeMillis() + jobConfig.getDefaultDeadlineMs();
+    }
+
+    /**
+     * Ütemezési metrikák: sorhossz, futó jobok, várakozási és futási idők, elutasítások.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Integer> depthPerTenant = new TreeMap<>();
+        int depth;
+        int runningNow;
+        synchronized (lock) {
+            queues.forEach((tenant, queue) -> depthPerTenant.put(tenant, queue.jobs.size()));
+            depth = queuedTotal;
+            runningNow = running;
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("max_concurrent", maxConcurrent);
+        stats.put("running", runningNow);
+        stats.put("queue_depth_total", depth);
+        stats.put("queue_depth_per_tenant", depthPerTenant);
+        stats.put("submitted_jobs", submitted.get());
+        stats.put("started_jobs", started.get());
+        stats.put("completed_jobs", completed.get());
+        stats.put("rejected_jobs", rejected.get());
+        stats.put("expired_jobs", expired.get());
+        queueWait.putInto(stats, "queue_wait");
+        runTime.putInto(stats, "run_time");
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deadlineSweeper.shutdownNow();
+        jobExecutor.shutdownNow();
+    }
+
+    // Időzített ellenőrzés: a határidőn túl még várakozó jobok lejáratása
+    private void expireOverdue() {
+        List<ScheduledJob> expiredJobs;
+        synchronized (lock) {
+            expiredJobs = removeExpired(System.currentTimeMillis());
+        }
+        for (ScheduledJob job : expiredJobs) {
+            try {
+                job.onExpired.run();
+            } catch (RuntimeException e) {
+                // Egy hibás visszahívás nem állíthatja le az időzített ellenőrzést
+                e.printStackTrace();
+            }
+        }
+    }
+
+    // Amíg van szabad kapacitás, a legkisebb virtuális idejű tenant következő jobja indul
+    private void dispatch() {
+        List<ScheduledJob> expiredJobs = new ArrayList<>();
+        synchronized (lock) {
+            long now = System.currentTimeMillis();
+            while (running < maxConcurrent && queuedTotal > 0) {
+                TenantQueue next = null;
+                for (TenantQueue queue : queues.values()) {
+                    if (!queue.jobs.isEmpty() && (next == null || queue.pass < next.pass)) {
+                        next = queue;
+                    }
+                }
+                ScheduledJob job = next.jobs.pollFirst();
+                queuedTotal--;
+                if (next.jobs.isEmpty()) {
+                    queues.remove(next.tenantId);
+                }
+
+                if (job.deadlineMillis < now) {
+                    expiredJobs.add(job);
+                    expired.incrementAndGet();
+                    continue;
+                }
+
+                virtualTime = next.pass;
+                next.pass += 1.0 / next.weight;
+                running++;
+                jobExecutor.execute(() -> execute(job));
+            }
+        }
+        expiredJobs.forEach(job -> job.onExpired.run());
+    }
+
+    private void execute(ScheduledJob job) {
+        long start = System.nanoTime();
+        queueWait.record(start - job.enqueuedAt);
+        started.incrementAndGet();
+        try {
+            job.task.run();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        } finally {
+            runTime.record(System.nanoTime() - start);
+            completed.incrementAndGet();
+            synchronized (lock) {
+                running--;
+            }
+            dispatch();
+        }
+    }
+
+    // A határidőn túli várakozó jobok kivétele a sorokból, a kiürült sorok törlésével (a hívó tartja a zárat)
+    private List<ScheduledJob> removeExpired(long now) {
+        List<ScheduledJob> expiredJobs = new ArrayList<>();
+        Iterator<TenantQueue> iterator = queues.values().iterator();
+        while (iterator.hasNext()) {
+            TenantQueue queue = iterator.next();
+            queue.jobs.removeIf(job -> {
+                if (job.deadlineMillis < now) {
+                    expiredJobs.add(job);
+                    return true;
+                }
+                return false;
+            });
+            if (queue.jobs.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        queuedTotal -= expiredJobs.size();
+        expired.addAndGet(expiredJobs.size());
+        return expiredJobs;
+    }
+
+    private double weightOf(String tenantId) {
+        Integer weight = jobConfig.getTenantWeights().get(tenantId);
+        return weight != null && weight > 0 ? weight : 1;
+    }
+
+    // Egyszerre futtatható jobok száma: egy job a stratégiáit párhuzamosan futtatja,
+    // ezért a sandbox/worker pool annyi jobot bír, ahányszor a stratégiák száma belefér
+    private static int capacityOf(SimulationIsolationConfig isolationConfig) {
+        if (isolationConfig.getMode() == SimulationIsolationConfig.Mode.NONE) {
+            return 1;
+        }
+        return Math.max(1, isolationConfig.getPoolSize() / SimulationJobService.FUTURE_BEHAVIOUR_STRATEGIES.size());
+    }
+
+    // Egy tenant várakozó jobjai és a virtuális ideje (pass); csak amíg van várakozó jobja, addig létezik
+    private static class TenantQueue {
+        private final String tenantId;
+        private final ArrayDeque<ScheduledJob> jobs = new ArrayDeque<>();
+        private final double weight;
+        private double pass;
+
+        TenantQueue(String tenantId, double weight, double pass) {
+            this.tenantId = tenantId;
+            this.weight = weight;
+            this.pass = pass;
+        }
+    }
+
+    private record ScheduledJob(Runnable task, Runnable onExpired, long enqueuedAt, long deadlineMillis) {
+    }
+
+    // Időtartam-statisztika (utolsó, átlag, maximum) milliszekundumban
+    private static class DurationStats {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final AtomicLong lastNanos = new AtomicLong();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        void record(long nanos) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(nanos);
+            lastNanos.set(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        void putInto(Map<String, Object> stats, String prefix) {
+            long n = count.get();
+            stats.put(prefix + "_last_ms", lastNanos.get() / 1_000_000.0);
+            stats.put(prefix + "_avg_ms", n == 0 ? 0.0 : totalNanos.get() / 1_000_000.0 / n);
+            stats.put(prefix + "_max_ms", maxNanos.get() / 1_000_000.0);
+        }
+    }
+}
@@ -1,67 +1,78 @@
 package hu.digital_twin.service.simulation;
 
-import hu.digital_twin.config.SimulationConfig;
-import hu.digital_twin.context.SimulationContext;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import hu.digital_twin.config.SimulationIsolationConfig;
+import hu.digital_twin.context.TenantContext;
 import hu.digital_twin.exception.SimulationException;
-import hu.digital_twin.model.ProcessedPredictionData;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.SimulationInput;
 import hu.digital_twin.service.io.RequestDataService;
-import hu.digital_twin.service.prediction.PredictionDataProcessor;
 import hu.digital_twin.service.prediction.PredictionService;
+import hu.digital_twin.service.simulation.sandbox.SimulationSandboxPool;
+import hu.digital_twin.service.simulation.worker.SimulationWorkerPool;
+import hu.digital_twin.service.util.PipelineMetrics;
 import hu.digital_twin.strategy.BaselineSimulationStrategy;
 import hu.digital_twin.strategy.PredictionWithScalingStrategy;
 import hu.digital_twin.strategy.PredictionWithoutScalingStrategy;
 import hu.digital_twin.strategy.SimulationStrategy;
-import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
-import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
-import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode;
-import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * Refaktorált szimuláció szolgáltatás
- * A felelősségek külön komponensekbe vannak kiszervezve a jobb karbantarthatóság érdekében
+ * Előkészíti a szimulációk bemenetét (utolsó frissítési adat, predikció), majd a stratégiákat
+ * izolált sandboxokban vagy worker JVM-ekben párhuzamosan, vagy izoláció nélkül egymás után futtatja.
+ * Maguk a szimulációs lépések a SimulationRunner-ben vannak.
  */
 @Service
 public class SimulationService {
 
     private final RequestDataService requestDataService;
     private final PredictionService predictionService;
-    private final SimulationConfig config;
+    private final SimulationIsolationConfig isolationConfig;
+    private final SimulationSandboxPool sandboxPool;
+    private final SimulationWorkerPool workerPool;
+    private final SimulationResultCache resultCache;
+    private final PipelineMetrics pipelineMetrics;
     private final Map<String, SimulationStrategy> strategies;
 
-    // Kiszervezett komponensek
-    private final SimulationLifecycleManager lifecycleManager;
-    private final PredictionDataProcessor dataProcessor;
-    private final TaskExecutor taskExecutor;
-    private final ScalingManager scalingManager;
+    // A gyorsítótárból visszaadott statisztika jelölése (a statisztikával azonos, tagolt formátumban)
+    private static final ObjectMapper STATS_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    // Izoláció nélkül a DISSECT-CF közös statikus állapota miatt egyszerre csak egy szimuláció futhat
+    private final Object inProcessLock = new Object();
 
     public SimulationService(RequestDataService requestDataService,
                              PredictionService predictionService,
-                             SimulationConfig config,
-                             SimulationLifecycleManager lifecycleManager,
-                             PredictionDataProcessor dataProcessor,
-                             TaskExecutor taskExecutor,
-                             ScalingManager scalingManager,
-                             @Lazy BaselineSimulationStrategy baselineStrategy,
-                             @Lazy PredictionWithoutScalingStrategy withoutScalingStrategy,
-                             @Lazy PredictionWithScalingStrategy withScalingStrategy) {
+                             SimulationIsolationConfig isolationConfig,
+                             SimulationSandboxPool sandboxPool,
+                             SimulationWorkerPool workerPool,
+                             SimulationResultCache resultCache,
+                             PipelineMetrics pipelineMetrics,
+                             BaselineSimulationStrategy baselineStrategy,
+                             PredictionWithoutScalingStrategy withoutScalingStrategy,
+                             PredictionWithScalingStrategy withScalingStrategy) {
         this.requestDataService = requestDataService;
         this.predictionService = predictionService;
-        this.config = config;
-        this.lifecycleManager = lifecycleManager;
-        this.dataProcessor = dataProcessor;
-        this.taskExecutor = taskExecutor;
-        this.scalingManager = scalingManager;
+        this.isolationConfig = isolationConfig;
+        this.sandboxPool = sandboxPool;
+        this.workerPool = workerPool;
+        this.resultCache = resultCache;
+        this.pipelineMetrics = pipelineMetrics;
 
         this.strategies = Map.of(
-                "baseline", baselineStrategy,
-                "prediction_no_scaling", withoutScalingStrategy,
-                "prediction_with_scaling", withScalingStrategy
+                BaselineSimulationStrategy.NAME, baselineStrategy,
+                PredictionWithoutScalingStrategy.NAME, withoutScalingStrategy,
+                PredictionWithScalingStrategy.NAME, withScalingStrategy
         );
     }
 
@@ -69,107 +80,168 @@ public class SimulationService {
      * Elindítja a predikciót skálázás nélkül
      */
     public String usePredictionWithoutScaling(RequestData currentRequestData) throws SimulationException {
-        return strategies.get("prediction_no_scaling").execute(currentRequestData);
+        return runStrategy("prediction_no_scaling", currentRequestData);
     }
 
     /**
      * Elindítja a predikciót skálázással
      */
     public String usePredictionWithScaling(RequestData currentRequestData) throws SimulationException {
-        return strategies.get("prediction_with_scaling").execute(currentRequestData);
+        return runStrategy("prediction_with_scaling", currentRequestData);
     }
 
     /**
      * Lefuttatja az alap baseline predikciót
      */
     public String doBaseline(RequestData currentRequestData) throws SimulationException {
-        return strategies.get("baseline").execute(currentRequestData);
-    }
-
-    /**
-     * Inicializálja a szimulációt adott számú fizikai géphez
-     */
-    public SimulationContext initializeSimulation(int physicalMachineCount) throws Exception {
-        return lifecycleManager.initializeSimulation(physicalMachineCount);
-    }
-
-    /**
-     * Elindítja a szimulációs események futását
-     */
-    public void startSimulation(SimulationContext context) {
-        lifecycleManager.startSimulation(context);
+        return runStrategy("baseline", currentRequestData);
     }
 
     /**
-     * Lefuttatja a szimulációt adott percig
+     * Lefuttatja a megadott kulcsú stratégiát (baseline, prediction_no_scaling, prediction_with_scaling)
      */
-    public void runSimulation(int minutes) {
-        lifecycleManager.runSimulation(minutes);
+    public String runStrategy(String strategyName, RequestData currentRequestData) throws SimulationException {
+        CompletableFuture<String> result = runStrategies(List.of(strategyName), currentRequestData).get(strategyName);
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof SimulationException simulationException) {
+                throw simulationException;
+            }
+            throw new SimulationException(strategyName + " simulation failed", e.getCause());
+        }
     }
 
     /**
-     * Szimuláció lezárása és statisztikák generálása
+     * Több stratégia futtatása ugyanarra a kérésre.
+     * Az utolsó frissítési adat és a predikció egyszer kerül lekérésre (a hívó szálán, a tenant hatókörében),
+     * majd izoláció esetén a stratégiák párhuzamosan, külön sandboxokban vagy worker JVM-ekben futnak.
+     *
+     * @param strategyNames a futtatandó stratégiák kulcsai
+     * @param currentRequestData a REQUEST FUTURE BEHAVIOUR kérés
+     * @return stratégiánként az eredmény future-je, a megadott sorrendben; sikertelen (üres) predikció esetén
+     *         a predikciós stratégiák future-je SimulationException-nel zárul
      */
-    public String finalizeSimulation(SimulationContext context, RequestData lastUpdateData,
-                                     Map<String, VirtualMachine> backUpVms) {
-        return lifecycleManager.finalizeSimulation(context, lastUpdateData, backUpVms);
-    }
+    public Map<String, CompletableFuture<String>> runStrategies(List<String> strategyNames,
+                                                                 RequestData currentRequestData) {
+        for (String strategyName : strategyNames) {
+            if (!strategies.containsKey(strategyName)) {
+                throw new IllegalArgumentException("Unknown simulation strategy: " + strategyName);
+            }
+        }
 
+        // A bemenet előkészítése: flottaállapot (memóriából) és predikció a szimulációk előtt, stratégiák között megosztva
+        FleetSnapshot fleet = requestDataService.getLatestFleet();
+
+        // Azonos bemenetre (utolsó UPDATE, kérés paraméterei) a korábbi eredmény kerül vissza
+        String tenantId = TenantContext.getTenantId();
+        Map<String, SimulationResultCache.CacheKey> cacheKeys = new LinkedHashMap<>();
+        Map<String, String> cachedResults = new LinkedHashMap<>();
+        for (String strategyName : strategyNames) {
+            SimulationResultCache.CacheKey key =
+                    resultCache.keyFor(tenantId, fleet, strategyName, currentRequestData);
+            cacheKeys.put(strategyName, key);
+            String cached = resultCache.get(key);
+            if (cached != null) {
+                cachedResults.put(strategyName, cached);
+            }
+        }
 
-    /**
-     * Előkészíti a predikciós adatokat percenkénti feldolgozásra
-     */
-    public ProcessedPredictionData processPerMinuteData(Map<String, List<Double>> predictionData,
-                                                        SimulationContext context) {
-        return dataProcessor.processPerMinuteData(predictionData, context);
+        // Predikció csak akkor kell, ha van gyorsítótárban nem talált, predikciót használó stratégia
+        Map<String, List<Double>> predictionData = null;
+        long predictionNanos = 0;
+        if (strategyNames.stream().anyMatch(name -> !"baseline".equals(name) && !cachedResults.containsKey(name))) {
+            long predictionStart = System.nanoTime();
+            predictionData = predictionService.predict(currentRequestData);
+            predictionNanos = System.nanoTime() - predictionStart;
+        }
+        // A predikció hibája esetén (üres eredmény) a predikciós stratégiák nem futnak és nem kerülnek gyorsítótárba
+        boolean predictionFailed = predictionData != null && predictionData.isEmpty();
+
+        // A metrikák tenant címkéje; a befejezés már a sandbox / worker szálán történik
+        String metricsTenant = PipelineMetrics.currentTenant();
+        Map<String, CompletableFuture<String>> results = new LinkedHashMap<>();
+        for (String strategyName : strategyNames) {
+            String cached = cachedResults.get(strategyName);
+            if (cached != null) {
+                results.put(strategyName, CompletableFuture.completedFuture(markCached(cached)));
+                continue;
+            }
+            if (predictionFailed && !"baseline".equals(strategyName)) {
+                pipelineMetrics.recordFailure(metricsTenant, PipelineMetrics.SIMULATION, strategyName);
+                results.put(strategyName, CompletableFuture.failedFuture(new SimulationException(
+                        "Prediction returned no data, " + strategyName + " simulation skipped")));
+                continue;
+            }
+
+            SimulationInput input = new SimulationInput(currentRequestData, fleet,
+                    "baseline".equals(strategyName) ? null : predictionData);
+            input.setTenantId(metricsTenant);
+            if (!"baseline".equals(strategyName)) {
+                input.setPredictionNanos(predictionNanos);
+            }
+
+            long start = System.nanoTime();
+            CompletableFuture<String> result = switch (isolationConfig.getMode()) {
+                case CLASSLOADER -> sandboxPool.submit(strategyName, input);
+                case PROCESS -> workerPool.submit(strategyName, input);
+                case NONE -> runInProcess(strategyName, input);
+            };
+            SimulationResultCache.CacheKey key = cacheKeys.get(strategyName);
+            result.thenAccept(value -> resultCache.put(key, value));
+            result.whenComplete((value, error) -> recordSimulation(metricsTenant, strategyName, start, value, error));
+            results.put(strategyName, result);
+        }
+        return results;
     }
 
-
     /**
-     * Nem skálázott feladatokat hajt végre egy adott VM-re
+     * A szimulációs eredmény gyorsítótár metrikái.
      */
-    public void executeNonScalingTasks(VirtualMachine vm, ProcessedPredictionData predictionData,
-                                       SimulationContext context) throws NetworkNode.NetworkException {
-        taskExecutor.executeNonScalingTasks(vm, predictionData, context);
+    public Map<String, Object> getResultCacheStats() {
+        return resultCache.getStats();
     }
 
     /**
-     * Baseline feladatok végrehajtása egy VM-en
+     * A flottaállapot pillanatképek metrikái (tenantok, becsült méret, találati arány).
      */
-    public void executeBaselineTasks(VirtualMachine vm, RequestData lastUpdateData,
-                                     SimulationContext context, int predictionLength) throws NetworkNode.NetworkException {
-        taskExecutor.executeBaselineTasks(vm, lastUpdateData, context, predictionLength);
+    public Map<String, Object> getFleetSnapshotStats() {
+        return requestDataService.getFleetSnapshotStats();
     }
 
-
-    /**
-     * Skálázott feladatok végrehajtása
-     */
-    public int executeScalingTasks(SimulationContext context, ProcessedPredictionData predictionData,
-                                   RequestData lastUpdateData, Map<String, VirtualMachine> backUpVms,
-                                   double loadThreshold) throws Exception {
-        return scalingManager.executeScalingTasks(context, predictionData, lastUpdateData, backUpVms, loadThreshold);
+    // A gyorsítótárból érkező eredmény "cached": true jelölést kap, mert a benne lévő futásidők
+    // (stage_timings_ms, twin_wall_ms) az eredeti futásra vonatkoznak
+    private static String markCached(String stats) {
+        try {
+            if (STATS_MAPPER.readTree(stats) instanceof ObjectNode json) {
+                json.put("cached", true);
+                return STATS_MAPPER.writeValueAsString(json);
+            }
+        } catch (JsonProcessingException e) {
+            // Nem JSON statisztika: változatlanul adjuk vissza
+        }
+        return stats;
     }
 
-    /**
-     * Az összes VM listázása egy kontextusban
-     */
-    public List<VirtualMachine> getAllVirtualMachines(SimulationContext context) {
-        List<VirtualMachine> allVms = new ArrayList<>();
-        for (PhysicalMachine pm : context.getIaasContext().iaas.machines) {
-            allVms.addAll(pm.listVMs());
+    // A teljes szimuláció (várakozással együtt) és a szimuláción belül mért lépések rögzítése
+    private void recordSimulation(String tenantId, String strategyName, long startNanos, String stats, Throwable error) {
+        if (error != null) {
+            pipelineMetrics.recordFailure(tenantId, PipelineMetrics.SIMULATION, strategyName);
+            return;
         }
-        return allVms;
+        pipelineMetrics.recordNanos(tenantId, PipelineMetrics.SIMULATION, strategyName, System.nanoTime() - startNanos);
+        pipelineMetrics.recordSimulationStages(tenantId, strategyName, stats);
     }
 
-    /**
-     * VM keresése név alapján
-     */
-    public VirtualMachine findVirtualMachineByName(SimulationContext context, String vmName) {
-        return getAllVirtualMachines(context).stream()
-                .filter(vm -> vm.getVa().id.equals(vmName))
-                .findFirst()
-                .orElse(null);
+    // Izoláció nélküli futtatás a hívó szálán, a közös JVM állapoton
+    private CompletableFuture<String> runInProcess(String strategyName, SimulationInput input) {
+        synchronized (inProcessLock) {
+            try {
+                return CompletableFuture.completedFuture(strategies.get(strategyName).execute(input));
+            } catch (SimulationException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
     }
 
     // === Getterek a külső hozzáféréshez ===
@@ -181,42 +253,4 @@ public class SimulationService {
     public PredictionService getPredictionService() {
         return predictionService;
     }
-
-    public SimulationConfig getConfig() {
-        return config;
-    }
-
-    public long getStarttime() {
-        return lifecycleManager.getStarttime();
-    }
-
-    public void setStarttime(long starttime) {
-        lifecycleManager.setStarttime(starttime);
-    }
-
-    public long getStoptime() {
-        return lifecycleManager.getStoptime();
-    }
-
-    public void setStoptime(long stoptime) {
-        lifecycleManager.setStoptime(stoptime);
-    }
-
-    // === Belső komponensek elérése (ha szükséges) ===
-
-    public SimulationLifecycleManager getLifecycleManager() {
-        return lifecycleManager;
-    }
-
-    public PredictionDataProcessor getDataProcessor() {
-        return dataProcessor;
-    }
-
-    public TaskExecutor getTaskExecutor() {
-        return taskExecutor;
-    }
-
-    public ScalingManager getScalingManager() {
-        return scalingManager;
-    }
-}
\ No newline at end of file
+}
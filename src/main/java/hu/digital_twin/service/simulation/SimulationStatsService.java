@@ -3,7 +3,7 @@ package hu.digital_twin.service.simulation;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
-import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.digital_twin.service.util.ResourceCalculationService;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
 import org.springframework.stereotype.Service;
@@ -24,23 +24,29 @@ public class SimulationStatsService {
      * Szimuláció futásidejére vonatkozó statisztikákat generál JSON formátumban.
      *
      * @param runtime Futásidő milliszekundumban
-     * @param lastUpdateData VM konfigurációs adatok
+     * @param fleet VM konfigurációs adatok (legutóbbi flottaállapot)
      * @param totalEnergyConsumption Összesített energiafogyasztás kWh-ban
      * @param totalMovedData Összesített adatátvitel MB-ban
      * @param vms Használt VM-ek száma
      * @param backUpVms Backup VM-ek térképe (lehet null baseline esetén)
      * @param totalTasks Szimulált taskok száma
+     * @param consumptionEvents Indított DISSECT-CF erőforrás-fogyasztások (számítás és adatátvitel) száma
+     * @param completedConsumptions Befejeződött (a DISSECT-CF által feldolgozott) erőforrás-fogyasztások száma
+     * @param peakHeapBytes A futás közben mért legnagyobb foglalt heap bájtban
+     * @param stageNanos A twin lépéseinek falióra ideje nanoszekundumban
      * @return JSON formátumú statisztikai összefoglaló
      */
-    public String generateRuntimeStats(long runtime, RequestData lastUpdateData,
+    public String generateRuntimeStats(long runtime, FleetSnapshot fleet,
                                        double totalEnergyConsumption,
                                        int totalMovedData,
                                        int vms, Map<String, VirtualMachine> backUpVms,
-                                       int totalTasks) {
+                                       int totalTasks, long consumptionEvents,
+                                       long completedConsumptions, long peakHeapBytes,
+                                       Map<String, Long> stageNanos) {
         double hours = runtime / 3600000.0;
         double minutes = runtime / 60000.0;
 
-        double iotCost = resourceCalculationService.calculateIoTCost(lastUpdateData, hours, backUpVms);
+        double iotCost = resourceCalculationService.calculateIoTCost(fleet, hours, backUpVms);
 
         try {
             ObjectMapper objectMapper = new ObjectMapper();
@@ -55,11 +61,29 @@ public class SimulationStatsService {
             statsMap.put("total_moved_data_mb", totalMovedData);
             statsMap.put("total_vm_tasks_simulated", totalTasks);
             statsMap.put("number_of_vms_utilized", vms);
+            statsMap.put("dissect_consumption_events", consumptionEvents);
+            statsMap.put("dissect_completed_consumptions", completedConsumptions);
+
+            // A twin saját futásideje lépésenként (ms), a metrikák ebből készülnek a szimuláció után
+            Map<String, Double> stageTimings = new LinkedHashMap<>();
+            long totalNanos = 0;
+            for (Map.Entry<String, Long> stage : stageNanos.entrySet()) {
+                stageTimings.put(stage.getKey(), toMillis(stage.getValue()));
+                totalNanos += stage.getValue();
+            }
+            statsMap.put("stage_timings_ms", stageTimings);
+            statsMap.put("twin_wall_ms", toMillis(totalNanos));
+            statsMap.put("peak_heap_mb", Math.round(peakHeapBytes / 1048576.0 * 10) / 10.0);
 
             return objectMapper.writeValueAsString(statsMap);
         } catch (JsonProcessingException e) {
             return "Failed to generate JSON stats";
         }
     }
+
+    // Nanoszekundum -> milliszekundum, három tizedesjegyre kerekítve
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
 }
 
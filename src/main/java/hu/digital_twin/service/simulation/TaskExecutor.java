@@ -2,9 +2,8 @@ package hu.digital_twin.service.simulation;
 
 import hu.digital_twin.context.SimulationContext;
 import hu.digital_twin.event.DataTransferEventHandler;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.digital_twin.model.ProcessedPredictionData;
-import hu.digital_twin.model.RequestData;
-import hu.digital_twin.model.VmData;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
 import hu.mta.sztaki.lpds.cloud.simulator.io.NetworkNode;
 import org.springframework.stereotype.Service;
@@ -56,23 +55,25 @@ public class TaskExecutor {
      * ismert használati adatok alapján számított.
      *
      * @param vm A virtuális gép, amelyen a baseline feladatokat végre kell hajtani
-     * @param lastUpdateData Legutóbbi frissítési adatok, tartalmazzák a VM használati információkat
+     * @param fleet Legutóbbi flottaállapot, tartalmazza a VM használati információkat
      * @param context Szimulációs kontextus
      * @param predictionLength A predikció hossza percekben
      * @throws NetworkNode.NetworkException Ha hálózati hiba történik
      */
-    public void executeBaselineTasks(VirtualMachine vm, RequestData lastUpdateData,
+    public void executeBaselineTasks(VirtualMachine vm, FleetSnapshot fleet,
                                      SimulationContext context, int predictionLength) throws NetworkNode.NetworkException {
-        // VM adatok keresése a név alapján
-        VmData vmData = findVmDataByName(vm.getVa().id, lastUpdateData);
-        if (vmData == null) return; // Ha nem találjuk a VM adatokat, kilépünk
+        // VM index keresése a név alapján
+        int index = fleet.indexOf(vm.getVa().id);
+        if (index < 0) return; // Ha nem találjuk a VM adatokat, kilépünk
+        String vmName = fleet.names()[index];
+        double usage = fleet.usage()[index];
 
         // Végrehajtjuk a baseline feladatokat a predikció hosszának megfelelően
         for (int i = 0; i < predictionLength; i++) {
             // Baseline utasítások számának kiszámítása a VM aktuális használata alapján
-            int instructions = calculateBaselineInstructions(vmData, context);
+            int instructions = calculateBaselineInstructions(vmName, usage, context);
             // Feladat végrehajtása inverz terheléssel (1 - usage)
-            executeTask(vm, 1 - vmData.getUsage(), instructions, context, vmData.getName());
+            executeTask(vm, 1 - usage, instructions, context, vmName);
         }
     }
 
@@ -125,6 +126,7 @@ public class TaskExecutor {
 
         // Metrikák frissítése a teljes feladat mennyiségével
         context.getMetrics().addTasks(task);
+        context.getMetrics().addConsumptionEvents(2);
     }
 
     /**
@@ -153,20 +155,7 @@ public class TaskExecutor {
 
         // Metrikák frissítése a végrehajtott feladatok számával
         context.getMetrics().addTasks(task);
-    }
-
-    /**
-     * VM adatok keresése név alapján
-     *
-     * @param vmName A keresett VM neve
-     * @param requestData A kérés adatok, amelyek tartalmazzák a VM listát
-     * @return A talált VmData objektum vagy null, ha nem található
-     */
-    private VmData findVmDataByName(String vmName, RequestData requestData) {
-        return requestData.getVmData().stream()
-                .filter(vd -> vd.getName().equals(vmName))
-                .findFirst()
-                .orElse(null);
+        context.getMetrics().addConsumptionEvents(1);
     }
 
     /**
@@ -175,13 +164,14 @@ public class TaskExecutor {
      * A számítás a VM aktuális használati százaléka és a maximális
      * utasítás/másodperc érték alapján történik.
      *
-     * @param vmData A VM adatok
+     * @param vmName A VM neve
+     * @param usage A VM legutóbbi használati százaléka
      * @param context Szimulációs kontextus
      * @return A kiszámított utasítások száma
      */
-    private int calculateBaselineInstructions(VmData vmData, SimulationContext context) {
+    private int calculateBaselineInstructions(String vmName, double usage, SimulationContext context) {
         return (int) Math.round(SimulationConstants.SECONDS_PER_MINUTE *
-                (vmData.getUsage() / 100.0) * context.getMaxInstrPerSecond().get(vmData.getName()));
+                (usage / 100.0) * context.getMaxInstrPerSecond().get(vmName));
     }
 
     /**
@@ -197,11 +187,14 @@ public class TaskExecutor {
      */
     private DataTransferEventHandler createDataTransferHandler(SimulationContext context, VirtualMachine vm, String vmId) {
         return new DataTransferEventHandler(
-                context.getIaasContext(),           // IaaS kontextus
+                context,                            // Szimulációs kontextus (IaaS, tenant, metrikák)
                 vm,                                 // Virtuális gép
                 context.getFileSizes().get(vmId),   // Fájl méretek a VM-hez
                 // Lambda kifejezés, amely frissíti a metrikákat amikor adatátvitel történik
-                () -> context.getMetrics().addMovedData(context.getFileSizes().get(vmId))
+                () -> {
+                    context.getMetrics().addMovedData(context.getFileSizes().get(vmId));
+                    context.getMetrics().addConsumptionEvents(1);
+                }
         );
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package hu.digital_twin.service.simulation.sandbox;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Child-first classloader egy szimulációs sandboxhoz.
+ * A DISSECT-CF (Timed, EnergyDataCollector stb.) és az alkalmazás szimulációs osztályai minden sandboxban
+ * újra betöltődnek, így a statikus állapotuk sandboxonként külön van. Minden más (JDK, Spring, Jackson)
+ * a szülő classloaderből jön és közös marad. Kivétel a JFR események csomagja: az eseménytípusok sandboxonként
+ * nem töltődnek be újra, így egy felvételben mindegyik egyszer szerepel.
+ */
+class SandboxClassLoader extends ClassLoader {
+
+    // Az izoláltan (sandboxonként külön) betöltött csomagok
+    private static final String[] ISOLATED_PREFIXES = {
+            "hu.mta.sztaki.lpds.",
+            "hu.u_szeged.inf.fog.",
+            "hu.digital_twin."
+    };
+
+    // Az izolált csomagokon belül is a szülőből betöltött csomagok (állapot nélküli JFR eseményosztályok)
+    private static final String[] SHARED_PREFIXES = {
+            "hu.digital_twin.jfr."
+    };
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    SandboxClassLoader(String name, ClassLoader parent) {
+        super(name, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!isIsolated(name)) {
+            return super.loadClass(name, resolve);
+        }
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loaded = findLoadedClass(name);
+            if (loaded == null) {
+                loaded = findClass(name);
+            }
+            if (resolve) {
+                resolveClass(loaded);
+            }
+            return loaded;
+        }
+    }
+
+    // Az osztály bájtkódját a szülő erőforrásaiból olvassa, így a Spring Boot fat jar-ból is működik
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        String resource = name.replace('.', '/') + ".class";
+        try (InputStream in = getParent().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new ClassNotFoundException(name);
+            }
+            byte[] bytecode = in.readAllBytes();
+            return defineClass(name, bytecode, 0, bytecode.length);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+    }
+
+    private static boolean isIsolated(String className) {
+        for (String prefix : SHARED_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return false;
+            }
+        }
+        for (String prefix : ISOLATED_PREFIXES) {
+            if (className.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
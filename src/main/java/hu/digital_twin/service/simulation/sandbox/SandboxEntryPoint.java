@@ -0,0 +1,75 @@
+package hu.digital_twin.service.simulation.sandbox;
+
+import hu.digital_twin.config.SimulationConfig;
+import hu.digital_twin.service.infrastructure.EnergyService;
+import hu.digital_twin.service.infrastructure.IaaSManagerService;
+import hu.digital_twin.service.infrastructure.NetworkConfigurationService;
+import hu.digital_twin.service.infrastructure.PhysicalMachineService;
+import hu.digital_twin.service.infrastructure.PowerStateService;
+import hu.digital_twin.service.infrastructure.RepositoryService;
+import hu.digital_twin.service.infrastructure.VirtualMachineFactory;
+import hu.digital_twin.service.prediction.PredictionDataProcessor;
+import hu.digital_twin.service.simulation.ScalingManager;
+import hu.digital_twin.service.simulation.SimulationLifecycleManager;
+import hu.digital_twin.service.simulation.SimulationRunner;
+import hu.digital_twin.service.simulation.SimulationStatsService;
+import hu.digital_twin.service.simulation.TaskExecutor;
+import hu.digital_twin.service.util.ResourceCalculationService;
+import hu.digital_twin.strategy.BaselineSimulationStrategy;
+import hu.digital_twin.strategy.PredictionWithScalingStrategy;
+import hu.digital_twin.strategy.PredictionWithoutScalingStrategy;
+import hu.digital_twin.strategy.SimulationStrategy;
+
+/**
+ * A sandbox classloaderben futó belépési pont.
+ * Spring nélkül, kézzel rakja össze a szimulációs komponenseket (ugyanazokat az osztályokat, mint a Spring
+ * kontextus, de a sandbox saját példányaival), majd lefuttatja a kért stratégiát.
+ * Reflexióval hívódik, ezért a szignatúra csak JDK típusokat használ.
+ */
+public final class SandboxEntryPoint {
+
+    private SandboxEntryPoint() {
+    }
+
+    /**
+     * @param encodedTask a SimulationInputCodec-kel kódolt feladat
+     * @return a szimuláció eredménye (JSON statisztika)
+     */
+    public static String run(byte[] encodedTask) throws Exception {
+        SimulationInputCodec.Task task = SimulationInputCodec.decode(encodedTask);
+
+        SimulationConfig config = new SimulationConfig();
+        config.setDefaultPhysicalMachines(task.getDefaultPhysicalMachines());
+        config.setScalingPhysicalMachines(task.getScalingPhysicalMachines());
+
+        return createStrategy(task.getStrategy(), createRunner(config)).execute(task.getInput());
+    }
+
+    // A Spring kontextusban injektált komponensgráf kézi felépítése (a JMH benchmarkok is ezt használják)
+    public static SimulationRunner createRunner(SimulationConfig config) {
+        PowerStateService powerStateService = new PowerStateService();
+        RepositoryService repositoryService = new RepositoryService(powerStateService);
+        PhysicalMachineService physicalMachineService =
+                new PhysicalMachineService(repositoryService, new NetworkConfigurationService());
+        IaaSManagerService iaaSManagerService =
+                new IaaSManagerService(repositoryService, physicalMachineService, powerStateService);
+
+        ResourceCalculationService resourceCalculationService = new ResourceCalculationService();
+        VirtualMachineFactory vmFactory = new VirtualMachineFactory(resourceCalculationService);
+        SimulationLifecycleManager lifecycleManager = new SimulationLifecycleManager(
+                iaaSManagerService, new EnergyService(), vmFactory, new SimulationStatsService(resourceCalculationService));
+
+        TaskExecutor taskExecutor = new TaskExecutor();
+        return new SimulationRunner(config, lifecycleManager, new PredictionDataProcessor(), taskExecutor,
+                new ScalingManager(vmFactory, taskExecutor));
+    }
+
+    public static SimulationStrategy createStrategy(String strategy, SimulationRunner runner) {
+        return switch (strategy) {
+            case BaselineSimulationStrategy.NAME -> new BaselineSimulationStrategy(runner);
+            case PredictionWithoutScalingStrategy.NAME -> new PredictionWithoutScalingStrategy(runner);
+            case PredictionWithScalingStrategy.NAME -> new PredictionWithScalingStrategy(runner);
+            default -> throw new IllegalArgumentException("Unknown simulation strategy: " + strategy);
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package hu.digital_twin.service.simulation.sandbox;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import hu.digital_twin.config.SimulationConfig;
+import hu.digital_twin.model.SimulationInput;
+
+import java.io.IOException;
+
+/**
+ * A sandboxnak vagy worker JVM-nek átadott szimulációs feladat (stratégia, konfiguráció, bemenet) bináris kódolása.
+ * A sandbox saját classloaderrel tölti be a modell osztályokat, a worker pedig külön folyamat, ezért objektumok
+ * helyett csak byte[] lépheti át a határt; a két oldal ugyanezzel az osztállyal kódol és dekódol.
+ * A kódolás Smile (bináris JSON), ami a sok számot tartalmazó predikciós adatnál jóval tömörebb a szöveges JSON-nál.
+ */
+public final class SimulationInputCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper(new SmileFactory())
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private SimulationInputCodec() {
+    }
+
+    public static byte[] encode(Task task) throws IOException {
+        return MAPPER.writeValueAsBytes(task);
+    }
+
+    /**
+     * Egy stratégia futtatásának kódolása az aktuális szimulációs konfigurációval.
+     */
+    public static byte[] encode(String strategy, SimulationConfig config, SimulationInput input) throws IOException {
+        return encode(new Task(strategy, config.getDefaultPhysicalMachines(), config.getScalingPhysicalMachines(), input));
+    }
+
+    public static Task decode(byte[] encoded) throws IOException {
+        return MAPPER.readValue(encoded, Task.class);
+    }
+
+    /**
+     * Egy sandboxban futtatandó szimuláció: a stratégia kulcsa, a fizikai gépek száma és a bemenet.
+     */
+    public static class Task {
+        private String strategy;
+        private int defaultPhysicalMachines;
+        private int scalingPhysicalMachines;
+        private SimulationInput input;
+
+        public Task() {
+        }
+
+        public Task(String strategy, int defaultPhysicalMachines, int scalingPhysicalMachines, SimulationInput input) {
+            this.strategy = strategy;
+            this.defaultPhysicalMachines = defaultPhysicalMachines;
+            this.scalingPhysicalMachines = scalingPhysicalMachines;
+            this.input = input;
+        }
+
+        public String getStrategy() { return strategy; }
+        public void setStrategy(String strategy) { this.strategy = strategy; }
+        public int getDefaultPhysicalMachines() { return defaultPhysicalMachines; }
+        public void setDefaultPhysicalMachines(int defaultPhysicalMachines) { this.defaultPhysicalMachines = defaultPhysicalMachines; }
+        public int getScalingPhysicalMachines() { return scalingPhysicalMachines; }
+        public void setScalingPhysicalMachines(int scalingPhysicalMachines) { this.scalingPhysicalMachines = scalingPhysicalMachines; }
+        public SimulationInput getInput() { return input; }
+        public void setInput(SimulationInput input) { this.input = input; }
+    }
+}
@@ -0,0 +1,43 @@
+package hu.digital_twin.service.simulation.sandbox;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Egy izolált szimulációs környezet: saját classloader, így saját DISSECT-CF statikus állapot.
+ * Egyszerre csak egy szimuláció futhat benne; a sandbox a futások között újrahasznosítható,
+ * mert minden szimuláció a végén visszaállítja az időkezelőt (Timed.resetTimed).
+ */
+class SimulationSandbox {
+
+    private static final String ENTRY_POINT = "hu.digital_twin.service.simulation.sandbox.SandboxEntryPoint";
+
+    private final SandboxClassLoader classLoader;
+    private final Method entryPoint;
+
+    SimulationSandbox(String name, ClassLoader parent) throws ReflectiveOperationException {
+        this.classLoader = new SandboxClassLoader(name, parent);
+        this.entryPoint = classLoader.loadClass(ENTRY_POINT).getMethod("run", byte[].class);
+    }
+
+    /**
+     * A kódolt feladat futtatása a sandboxban.
+     *
+     * @throws Exception a szimuláció által dobott (a sandbox classloaderéből származó) kivétel
+     */
+    String run(byte[] encodedTask) throws Exception {
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+        try {
+            return (String) entryPoint.invoke(null, (Object) encodedTask);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw e;
+        } finally {
+            thread.setContextClassLoader(previous);
+        }
+    }
+}
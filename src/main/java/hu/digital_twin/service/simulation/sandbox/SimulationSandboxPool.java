@@ -0,0 +1,94 @@
+package hu.digital_twin.service.simulation.sandbox;
+
+import hu.digital_twin.config.SimulationConfig;
+import hu.digital_twin.config.SimulationIsolationConfig;
+import hu.digital_twin.exception.SimulationException;
+import hu.digital_twin.model.SimulationInput;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Izolált szimulációs sandboxok készlete.
+ * Minden sandbox saját classloaderrel tölti be a DISSECT-CF-et, így a JVM-szintű statikus állapot
+ * (Timed óra, EnergyDataCollector) sandboxonként külön van, és a szimulációk külön magokon párhuzamosan futhatnak.
+ * A sandboxok lustán jönnek létre, legfeljebb poolSize darab; hibás futás után a sandbox eldobásra kerül.
+ */
+@Service
+public class SimulationSandboxPool {
+
+    private final SimulationConfig simulationConfig;
+    private final int poolSize;
+
+    // Szabad (éppen nem használt) sandboxok
+    private final LinkedBlockingQueue<SimulationSandbox> idleSandboxes = new LinkedBlockingQueue<>();
+    private final AtomicInteger sandboxCounter = new AtomicInteger();
+
+    // Annyi szál, ahány sandbox, így egy szál mindig kap szabad sandboxot
+    private final ExecutorService sandboxExecutor;
+
+    public SimulationSandboxPool(SimulationConfig simulationConfig, SimulationIsolationConfig isolationConfig) {
+        this.simulationConfig = simulationConfig;
+        this.poolSize = Math.max(1, isolationConfig.getPoolSize());
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.sandboxExecutor = Executors.newFixedThreadPool(poolSize,
+                runnable -> new Thread(runnable, "simulation-sandbox-" + threadCounter.incrementAndGet()));
+    }
+
+    /**
+     * Egy stratégia futtatása egy szabad sandboxban, a pool egyik szálán.
+     *
+     * @param strategy a stratégia kulcsa (baseline, prediction_no_scaling, prediction_with_scaling)
+     * @param input a szimuláció bemenete
+     * @return a szimuláció eredményét (JSON) szolgáltató future; hiba esetén SimulationException-nel zárul
+     */
+    public CompletableFuture<String> submit(String strategy, SimulationInput input) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        byte[] encodedTask;
+        try {
+            encodedTask = SimulationInputCodec.encode(strategy, simulationConfig, input);
+        } catch (Exception e) {
+            result.completeExceptionally(new SimulationException("Failed to encode simulation input", e));
+            return result;
+        }
+
+        sandboxExecutor.execute(() -> {
+            try {
+                SimulationSandbox sandbox = acquire();
+                result.complete(sandbox.run(encodedTask));
+                release(sandbox);
+            } catch (Throwable e) {
+                // A hibás futás (Error is, pl. StackOverflowError, OutOfMemoryError) után a sandbox állapota
+                // bizonytalan, ezért nem kerül vissza a készletbe; a hívó future-je minden esetben lezárul
+                result.completeExceptionally(new SimulationException(
+                        "Sandboxed " + strategy + " simulation failed: " + e.getMessage(), e));
+            }
+        });
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sandboxExecutor.shutdownNow();
+        idleSandboxes.clear();
+    }
+
+    // Szabad sandbox kivétele, vagy új létrehozása (a szálszám miatt legfeljebb poolSize él egyszerre)
+    private SimulationSandbox acquire() throws ReflectiveOperationException {
+        SimulationSandbox sandbox = idleSandboxes.poll();
+        if (sandbox != null) {
+            return sandbox;
+        }
+        return new SimulationSandbox("simulation-sandbox-" + sandboxCounter.incrementAndGet(),
+                SimulationSandboxPool.class.getClassLoader());
+    }
+
+    private void release(SimulationSandbox sandbox) {
+        idleSandboxes.offer(sandbox);
+    }
+}
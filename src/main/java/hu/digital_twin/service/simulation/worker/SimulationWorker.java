@@ -0,0 +1,100 @@
+package hu.digital_twin.service.simulation.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Egy elindított worker JVM és a hozzá tartozó csövek.
+ * Egyszerre egy feladatot kaphat; a hívó felelős azért, hogy hiba után eldobja és újat indítson.
+ */
+class SimulationWorker {
+
+    private final String name;
+    private final Process process;
+    private final DataOutputStream toWorker;
+    private final DataInputStream fromWorker;
+
+    private SimulationWorker(String name, Process process) {
+        this.name = name;
+        this.process = process;
+        this.toWorker = new DataOutputStream(new BufferedOutputStream(process.getOutputStream()));
+        this.fromWorker = new DataInputStream(new BufferedInputStream(process.getInputStream()));
+    }
+
+    /**
+     * Worker indítása és megvárása, amíg bemelegít és READY-t jelez.
+     *
+     * @param name a worker neve (naplózáshoz)
+     * @param command a teljes parancssor (java, JVM kapcsolók, classpath, főosztály)
+     * @param startTimeoutSeconds az indulásra szánt idő
+     */
+    static SimulationWorker start(String name, List<String> command, long startTimeoutSeconds) throws IOException {
+        Process process = new ProcessBuilder(command)
+                .redirectError(ProcessBuilder.Redirect.INHERIT) // a worker logjai az alkalmazás stderr-jére mennek
+                .start();
+        SimulationWorker worker = new SimulationWorker(name, process);
+
+        try {
+            WorkerProtocol.Response ready = CompletableFuture
+                    .supplyAsync(() -> {
+                        try {
+                            return WorkerProtocol.readResponse(worker.fromWorker);
+                        } catch (IOException e) {
+                            throw new IllegalStateException(e);
+                        }
+                    })
+                    .get(startTimeoutSeconds, TimeUnit.SECONDS);
+            if (!ready.ok() || !WorkerProtocol.READY.equals(ready.text())) {
+                throw new IOException("Worker " + name + " failed to start: " + ready.text());
+            }
+        } catch (Exception e) {
+            worker.destroy();
+            throw e instanceof IOException io ? io : new IOException("Worker " + name + " failed to start", e);
+        }
+        return worker;
+    }
+
+    /**
+     * Egy kódolt feladat elküldése és a válasz megvárása (blokkoló).
+     *
+     * @throws IOException ha a worker közben leállt (összeomlás, memóriahiány, időtúllépés miatti leállítás)
+     */
+    WorkerProtocol.Response execute(byte[] encodedTask) throws IOException {
+        WorkerProtocol.writeRequest(toWorker, encodedTask);
+        return WorkerProtocol.readResponse(fromWorker);
+    }
+
+    boolean isAlive() {
+        return process.isAlive();
+    }
+
+    String getName() {
+        return name;
+    }
+
+    // Azonnali leállítás; a folyamatban lévő execute IOException-nel tér vissza
+    void destroy() {
+        process.destroyForcibly();
+    }
+
+    // Szabályos leállítás: a stdin lezárására a worker kilép
+    void shutdown() {
+        try {
+            toWorker.close();
+            if (!process.waitFor(5, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        } catch (IOException e) {
+            process.destroyForcibly();
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package hu.digital_twin.service.simulation.worker;
+
+import hu.digital_twin.service.simulation.sandbox.SandboxEntryPoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+
+/**
+ * A szimulációs worker JVM belépési pontja (Spring nélkül).
+ * Bemelegítés (a DISSECT-CF és a szimulációs osztályok betöltése) után READY-t jelez, majd a stdin-en érkező
+ * feladatokat egymás után lefuttatja, és az eredményt a stdout-on küldi vissza. A stdin lezárásakor kilép.
+ */
+public final class SimulationWorkerMain {
+
+    // Előre betöltött osztályok, hogy az első szimuláció ne az osztálybetöltéssel kezdjen
+    private static final String[] WARM_UP_CLASSES = {
+            "hu.mta.sztaki.lpds.cloud.simulator.Timed",
+            "hu.mta.sztaki.lpds.cloud.simulator.iaas.IaaSService",
+            "hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine",
+            "hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine",
+            "hu.mta.sztaki.lpds.cloud.simulator.io.Repository",
+            "hu.u_szeged.inf.fog.simulator.util.EnergyDataCollector",
+            "hu.u_szeged.inf.fog.simulator.demo.ScenarioBase",
+            "hu.digital_twin.strategy.BaselineSimulationStrategy",
+            "hu.digital_twin.strategy.PredictionWithoutScalingStrategy",
+            "hu.digital_twin.strategy.PredictionWithScalingStrategy",
+            "hu.digital_twin.service.simulation.SimulationRunner"
+    };
+
+    private SimulationWorkerMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        // A stdout a protokollé; minden más kiírás (szimulátor logok) a stderr-re megy
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+        System.setOut(System.err);
+
+        for (String className : WARM_UP_CLASSES) {
+            Class.forName(className);
+        }
+        WorkerProtocol.writeResponse(out, WorkerProtocol.STATUS_OK, WorkerProtocol.READY);
+
+        byte[] task;
+        while ((task = WorkerProtocol.readRequest(in)) != null) {
+            try {
+                WorkerProtocol.writeResponse(out, WorkerProtocol.STATUS_OK, SandboxEntryPoint.run(task));
+            } catch (Exception e) {
+                e.printStackTrace();
+                String message = e.getCause() != null ? e + " (" + e.getCause() + ")" : String.valueOf(e);
+                WorkerProtocol.writeResponse(out, WorkerProtocol.STATUS_ERROR, message);
+            }
+        }
+    }
+}
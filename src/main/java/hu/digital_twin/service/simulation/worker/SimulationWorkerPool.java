@@ -0,0 +1,207 @@
+package hu.digital_twin.service.simulation.worker;
+
+import hu.digital_twin.config.SimulationConfig;
+import hu.digital_twin.config.SimulationIsolationConfig;
+import hu.digital_twin.exception.SimulationException;
+import hu.digital_twin.model.SimulationInput;
+import hu.digital_twin.service.simulation.sandbox.SimulationInputCodec;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Előre elindított szimulációs worker JVM-ek készlete (simulation.isolation.mode=process).
+ * A feladat (utolsó RequestData, predikció, stratégia) Smile kódolással, stdin/stdout csövön utazik.
+ * Minden worker saját heappel (-Xmx) fut, memóriahiány esetén kilép; a leállt vagy időtúllépés miatt
+ * leállított workert a pool újraindítja, így egy elszálló szimuláció nem érinti a webalkalmazást.
+ */
+@Service
+public class SimulationWorkerPool {
+
+    private static final String WORKER_MAIN = "hu.digital_twin.service.simulation.worker.SimulationWorkerMain";
+    // Spring Boot futtatható jar esetén a worker a jar saját indítóján keresztül indul
+    private static final String BOOT_LAUNCHER = "org.springframework.boot.loader.launch.PropertiesLauncher";
+
+    private final SimulationConfig simulationConfig;
+    private final SimulationIsolationConfig isolationConfig;
+    private final int poolSize;
+
+    // Szabad (bemelegített, éppen nem dolgozó) workerek
+    private final LinkedBlockingQueue<SimulationWorker> idleWorkers = new LinkedBlockingQueue<>();
+    private final AtomicInteger workerCounter = new AtomicInteger();
+    private final AtomicInteger restarts = new AtomicInteger();
+
+    // Annyi szál, ahány worker: egy szál egyszerre egy workert hajt
+    private final ExecutorService dispatchExecutor;
+    // Időtúllépés figyelése: a túl sokáig futó worker leállításra kerül
+    private final ScheduledExecutorService watchdog;
+
+    public SimulationWorkerPool(SimulationConfig simulationConfig, SimulationIsolationConfig isolationConfig) {
+        this.simulationConfig = simulationConfig;
+        this.isolationConfig = isolationConfig;
+        this.poolSize = Math.max(1, isolationConfig.getPoolSize());
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.dispatchExecutor = Executors.newFixedThreadPool(poolSize,
+                runnable -> new Thread(runnable, "simulation-worker-dispatch-" + threadCounter.incrementAndGet()));
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "simulation-worker-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Worker módban a workerek már induláskor elindulnak és bemelegszenek
+    @PostConstruct
+    public void start() {
+        if (isolationConfig.getMode() != SimulationIsolationConfig.Mode.PROCESS) {
+            return;
+        }
+        for (int i = 0; i < poolSize; i++) {
+            try {
+                idleWorkers.offer(startWorker());
+            } catch (IOException e) {
+                // Nem végzetes: az első feladat újra megpróbálja elindítani
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Egy stratégia futtatása egy szabad worker JVM-ben.
+     *
+     * @param strategy a stratégia kulcsa (baseline, prediction_no_scaling, prediction_with_scaling)
+     * @param input a szimuláció bemenete
+     * @return a szimuláció eredményét (JSON) szolgáltató future; hiba esetén SimulationException-nel zárul
+     */
+    public CompletableFuture<String> submit(String strategy, SimulationInput input) {
+        CompletableFuture<String> result = new CompletableFuture<>();
+        byte[] encodedTask;
+        try {
+            encodedTask = SimulationInputCodec.encode(strategy, simulationConfig, input);
+        } catch (IOException e) {
+            result.completeExceptionally(new SimulationException("Failed to encode simulation input", e));
+            return result;
+        }
+
+        dispatchExecutor.execute(() -> {
+            SimulationWorker worker;
+            try {
+                worker = acquire();
+            } catch (IOException e) {
+                result.completeExceptionally(new SimulationException("No simulation worker available", e));
+                return;
+            }
+
+            AtomicBoolean timedOut = new AtomicBoolean(false);
+            ScheduledFuture<?> timeout = watchdog.schedule(() -> {
+                timedOut.set(true);
+                worker.destroy();
+            }, isolationConfig.getWorkerTaskTimeoutSeconds(), TimeUnit.SECONDS);
+
+            try {
+                WorkerProtocol.Response response = worker.execute(encodedTask);
+                timeout.cancel(false);
+                idleWorkers.offer(worker);
+                if (response.ok()) {
+                    result.complete(response.text());
+                } else {
+                    result.completeExceptionally(new SimulationException(
+                            strategy + " simulation failed in worker " + worker.getName() + ": " + response.text()));
+                }
+            } catch (IOException e) {
+                // A worker leállt (összeomlás, memóriahiány vagy időtúllépés): eldobjuk, helyette új indul
+                timeout.cancel(false);
+                worker.destroy();
+                String reason = timedOut.get() ? "timed out" : "crashed";
+                result.completeExceptionally(new SimulationException(
+                        strategy + " simulation " + reason + " in worker " + worker.getName(), e));
+                replaceWorker();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Az elindított workerek újraindításainak száma (összeomlás vagy időtúllépés miatt).
+     */
+    public int getRestartCount() {
+        return restarts.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatchExecutor.shutdownNow();
+        watchdog.shutdownNow();
+        SimulationWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            worker.shutdown();
+        }
+    }
+
+    // Szabad worker kivétele; a leállt workerek helyett új indul
+    private SimulationWorker acquire() throws IOException {
+        SimulationWorker worker;
+        while ((worker = idleWorkers.poll()) != null) {
+            if (worker.isAlive()) {
+                return worker;
+            }
+            restarts.incrementAndGet();
+        }
+        return startWorker();
+    }
+
+    // Összeomlott worker pótlása, hogy a következő feladat már bemelegített workert kapjon
+    private void replaceWorker() {
+        restarts.incrementAndGet();
+        try {
+            idleWorkers.offer(startWorker());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private SimulationWorker startWorker() throws IOException {
+        String name = "simulation-worker-" + workerCounter.incrementAndGet();
+        return SimulationWorker.start(name, workerCommand(), isolationConfig.getWorkerStartTimeoutSeconds());
+    }
+
+    // A worker JVM parancssora: ugyanaz a java és classpath, mint az alkalmazásé, korlátozott heappel
+    private List<String> workerCommand() {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-Xmx" + isolationConfig.getWorkerMaxHeap());
+        command.add("-XX:+ExitOnOutOfMemoryError");
+        command.addAll(isolationConfig.getWorkerJvmArgs());
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+
+        if (isPackagedJar()) {
+            command.add("-Dloader.main=" + WORKER_MAIN);
+            command.add(BOOT_LAUNCHER);
+        } else {
+            command.add(WORKER_MAIN);
+        }
+        return command;
+    }
+
+    // Futtatható (fat) jar-ból indult-e az alkalmazás; ekkor az osztályok a BOOT-INF alatt vannak
+    private static boolean isPackagedJar() {
+        URL self = SimulationWorkerPool.class.getResource(SimulationWorkerPool.class.getSimpleName() + ".class");
+        return self != null && self.toString().contains("BOOT-INF");
+    }
+}
@@ -0,0 +1,62 @@
+package hu.digital_twin.service.simulation.worker;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A szülő és a worker JVM közötti keretezett (length-prefixed) protokoll a stdin/stdout csöveken.
+ * Kérés: [int hossz][kódolt feladat]; válasz: [byte állapot][int hossz][UTF-8 szöveg (eredmény vagy hibaüzenet)].
+ * Indulás után a worker egy OK állapotú READY választ küld.
+ */
+final class WorkerProtocol {
+
+    static final byte STATUS_OK = 0;
+    static final byte STATUS_ERROR = 1;
+    static final String READY = "READY";
+
+    private WorkerProtocol() {
+    }
+
+    static void writeRequest(DataOutputStream out, byte[] payload) throws IOException {
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    /**
+     * @return a kérés tartalma, vagy null, ha a szülő lezárta a csövet (leállítás)
+     */
+    static byte[] readRequest(DataInputStream in) throws IOException {
+        int length;
+        try {
+            length = in.readInt();
+        } catch (EOFException e) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        return payload;
+    }
+
+    static void writeResponse(DataOutputStream out, byte status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        out.writeByte(status);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+        out.flush();
+    }
+
+    static Response readResponse(DataInputStream in) throws IOException {
+        byte status = in.readByte();
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new Response(status == STATUS_OK, new String(bytes, StandardCharsets.UTF_8));
+    }
+
+    // Egy worker válasz: sikeres-e, és az eredmény vagy a hibaüzenet
+    record Response(boolean ok, String text) {
+    }
+}
@@ -1,11 +1,15 @@
 package hu.digital_twin.service.util;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * Szolgáltatás HTTP POST kérések JSON adatok küldésére.
  * Egyszerű wrapper a Spring RestTemplate felett.
@@ -16,6 +20,17 @@ public class DataSenderService {
     // RestTemplate példány, amely HTTP kérések lebonyolításáért felel
     private final RestTemplate restTemplate = new RestTemplate();
 
+    // Blokkoló feladatok executora (virtuális szálas módban virtuális szálakon fut)
+    private final AsyncTaskExecutor blockingExecutor;
+
+    private final PipelineMetrics pipelineMetrics;
+
+    public DataSenderService(@Qualifier("applicationTaskExecutor") AsyncTaskExecutor blockingExecutor,
+                             PipelineMetrics pipelineMetrics) {
+        this.blockingExecutor = blockingExecutor;
+        this.pipelineMetrics = pipelineMetrics;
+    }
+
     /**
      * JSON formátumú adat elküldése egy megadott URL-re HTTP POST metódussal.
      *
@@ -30,6 +45,23 @@ public class DataSenderService {
         // HttpEntity objektum létrehozása a kéréshez: tartalom + fejlécek
         HttpEntity<String> request = new HttpEntity<>(data, headers);
 
-        restTemplate.postForEntity(url, request, String.class);
+        long start = System.nanoTime();
+        try {
+            restTemplate.postForEntity(url, request, String.class);
+        } catch (RuntimeException e) {
+            pipelineMetrics.recordFailure(PipelineMetrics.DATA_SEND);
+            throw e;
+        }
+        pipelineMetrics.record(PipelineMetrics.DATA_SEND, start);
+    }
+
+    /**
+     * Az adat elküldése a blokkoló executoron, a hívó szál feltartása nélkül.
+     * A küldés a hívó tenant hatókörében fut.
+     *
+     * @return a küldés befejeződését jelző future (hiba esetén kivétellel zárul)
+     */
+    public CompletableFuture<Void> sendDataAsync(String data, String url) {
+        return CompletableFuture.runAsync(() -> sendData(data, url), blockingExecutor);
     }
 }
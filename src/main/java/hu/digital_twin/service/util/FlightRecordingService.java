@@ -0,0 +1,125 @@
+package hu.digital_twin.service.util;
+
+import hu.digital_twin.config.ProfilingConfig;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jakarta.annotation.PreDestroy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Java Flight Recorder felvétel indítása és leállítása futás közben.
+ * Egyszerre egy felvétel lehet aktív; a JVM és a twin saját eseményei (hu.digital_twin.*: szimulációs lépések,
+ * backup VM létrehozás, adatátvitel, Python predikció hívás) a beállított JFR beállítás készlettel kerülnek rögzítésre.
+ * Process módban a szimulációk a worker JVM-ekben futnak, azok eseményei ebbe a felvételbe nem kerülnek bele.
+ */
+@Service
+public class FlightRecordingService {
+
+    private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final ProfilingConfig profilingConfig;
+
+    // Az aktív (vagy az időkorlát miatt már leállt, de még le nem töltött) felvétel
+    private Recording recording;
+
+    public FlightRecordingService(ProfilingConfig profilingConfig) {
+        this.profilingConfig = profilingConfig;
+    }
+
+    public boolean isEnabled() {
+        return profilingConfig.isEnabled();
+    }
+
+    /**
+     * Új felvétel indítása.
+     *
+     * @param settings a JFR beállítás készlet neve (default, profile), null esetén a konfigurált
+     * @return a felvétel állapota
+     * @throws IllegalStateException ha már van felvétel
+     * @throws IllegalArgumentException ismeretlen beállítás készlet esetén
+     */
+    public synchronized Map<String, Object> start(String settings) throws IOException {
+        if (recording != null) {
+            throw new IllegalStateException("A recording is already in progress");
+        }
+        String settingsName = settings != null ? settings : profilingConfig.getSettings();
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (ParseException | IOException e) {
+            throw new IllegalArgumentException("Unknown JFR settings: " + settingsName, e);
+        }
+
+        Recording started = new Recording(configuration);
+        started.setName("digital-twin");
+        started.setToDisk(true);
+        started.setMaxSize(profilingConfig.getMaxSizeBytes());
+        started.setDuration(Duration.ofMinutes(Math.max(1, profilingConfig.getMaxDurationMinutes())));
+        started.start();
+        recording = started;
+        return getStatus();
+    }
+
+    /**
+     * A felvétel leállítása és mentése a felvételek könyvtárába.
+     *
+     * @return a mentett .jfr fájl
+     * @throws IllegalStateException ha nincs felvétel
+     */
+    public synchronized Path stop() throws IOException {
+        if (recording == null) {
+            throw new IllegalStateException("No recording in progress");
+        }
+        Recording stopped = recording;
+        recording = null;
+        try {
+            if (stopped.getState() == RecordingState.RUNNING) {
+                stopped.stop();
+            }
+            Path directory = Paths.get(profilingConfig.getRecordingDirectory());
+            Files.createDirectories(directory);
+            Path file = directory.resolve("digital-twin-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+            stopped.dump(file);
+            return file;
+        } finally {
+            stopped.close();
+        }
+    }
+
+    /**
+     * Az aktuális felvétel állapota.
+     */
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", profilingConfig.isEnabled());
+        status.put("recording", recording != null);
+        if (recording != null) {
+            status.put("state", recording.getState().name().toLowerCase());
+            status.put("started", recording.getStartTime() != null ? recording.getStartTime().toString() : null);
+            status.put("max_duration_minutes", recording.getDuration() != null ? recording.getDuration().toMinutes() : null);
+            status.put("size_bytes", recording.getSize());
+        }
+        return status;
+    }
+
+    // Leállításkor a felvétel (és az ideiglenes fájljai) lezárása
+    @PreDestroy
+    public synchronized void close() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package hu.digital_twin.service.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import hu.digital_twin.context.TenantContext;
+import hu.digital_twin.service.simulation.SimulationMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A twin feldolgozási lépéseinek Micrometer metrikái, a /actuator/prometheus végponton:
+ * - twin.stage.duration: időzítő lépésenként (stage), tenant és stratégia szerint címkézve,
+ * - twin.stage.failures: a hibával végződött lépések száma ugyanezekkel a címkékkel,
+ * - twin.ingest.vm.samples: a mentett VM adatok száma tenantonként.
+ * A tenant címke az aktuális TenantContext-ből jön (a megkülönböztetett tenantok számát a TenantTagMeterFilter
+ * korlátozza); a stratégia nélküli lépéseknél a stratégia "none".
+ * A szimulációs lépések a szimuláción belül (sandboxban, worker JVM-ben) mérődnek, és az eredmény
+ * stage_timings_ms mezőjében érkeznek vissza (recordSimulationStages).
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String STAGE_TIMER = "twin.stage.duration";
+    public static final String STAGE_FAILURES = "twin.stage.failures";
+    public static final String INGEST_VM_SAMPLES = "twin.ingest.vm.samples";
+
+    public static final String NO_STRATEGY = "none";
+
+    // Lépések
+    public static final String INGEST_PARSE = "ingest_parse";
+    public static final String DB_SAVE = "db_save";
+    public static final String PREDICTION = "prediction";
+    public static final String PREDICTION_TRAINING_LOAD = "prediction_training_load";
+    public static final String PREDICTION_NATIVE = "prediction_native";
+    public static final String PREDICTION_WORKER_CALL = "prediction_worker_call";
+    public static final String PREDICTION_SPAWN = "prediction_spawn";
+    public static final String PREDICTION_STDOUT_READ = "prediction_stdout_read";
+    public static final String PREDICTION_JSON_PARSE = "prediction_json_parse";
+    public static final String SIMULATION = "simulation";
+    public static final String DATA_SEND = "data_send";
+
+    // A korábbi, összevont szimulációs lépések; a részletes lépések összegeként továbbra is rögzítésre kerülnek
+    public static final String SIMULATION_INITIALIZE = "simulation_initialize";
+    public static final String SIMULATION_START = "simulation_start";
+    public static final String SIMULATION_FINALIZE = "simulation_finalize";
+
+    // Részletes szimulációs lépés -> az összevont lépés, amelybe beleszámít
+    private static final Map<String, String> AGGREGATE_STAGES = Map.of(
+            SimulationMetrics.STAGE_IAAS_SETUP, SIMULATION_INITIALIZE,
+            SimulationMetrics.STAGE_VM_BOOT, SIMULATION_START,
+            SimulationMetrics.STAGE_ENERGY_COLLECTION, SIMULATION_FINALIZE,
+            SimulationMetrics.STAGE_LOG_WRITING, SIMULATION_FINALIZE
+    );
+
+    // A szimulációs statisztika mezője, amelyben a szimuláción belül mért lépések érkeznek
+    public static final String STAGE_TIMINGS_FIELD = "stage_timings_ms";
+
+    private final MeterRegistry registry;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Egy stratégia nélküli lépés rögzítése az aktuális tenanthoz.
+     *
+     * @param stage a lépés neve
+     * @param startNanos a lépés kezdete (System.nanoTime)
+     */
+    public void record(String stage, long startNanos) {
+        recordNanos(currentTenant(), stage, NO_STRATEGY, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Egy lépés rögzítése megadott időtartammal.
+     */
+    public void recordNanos(String tenantId, String stage, String strategy, long nanos) {
+        Timer.builder(STAGE_TIMER)
+                .description("Wall-clock time of a digital twin pipeline stage")
+                .tags("stage", stage, "tenant", tenantId, "strategy", strategy)
+                .register(registry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Egy sikertelen lépés számlálása az aktuális tenanthoz.
+     */
+    public void recordFailure(String stage) {
+        recordFailure(currentTenant(), stage, NO_STRATEGY);
+    }
+
+    public void recordFailure(String tenantId, String stage, String strategy) {
+        Counter.builder(STAGE_FAILURES)
+                .description("Digital twin pipeline stages that ended with an error")
+                .tags("stage", stage, "tenant", tenantId, "strategy", strategy)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Mentett VM adatok számlálása az aktuális tenanthoz.
+     */
+    public void countVmSamples(long samples) {
+        Counter.builder(INGEST_VM_SAMPLES)
+                .description("VM samples saved by UPDATE requests")
+                .tags("tenant", currentTenant())
+                .register(registry)
+                .increment(samples);
+    }
+
+    /**
+     * A szimuláción belül mért lépések (a statisztika stage_timings_ms mezője) rögzítése a stratégiához.
+     * A predikció kimarad, azt a PredictionService már rögzítette. A részletes lépésekből a korábbi
+     * simulation_initialize / simulation_start / simulation_finalize idősorok is előállnak (AGGREGATE_STAGES).
+     * Hibás vagy régi formátumú statisztika esetén nem rögzít semmit.
+     */
+    public void recordSimulationStages(String tenantId, String strategy, String stats) {
+        JsonNode timings;
+        try {
+            timings = objectMapper.readTree(stats).path(STAGE_TIMINGS_FIELD);
+        } catch (IOException e) {
+            return;
+        }
+        Map<String, Long> aggregates = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = timings.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            if (PREDICTION.equals(field.getKey())) {
+                continue;
+            }
+            long nanos = Math.round(field.getValue().asDouble() * 1_000_000);
+            recordNanos(tenantId, field.getKey(), strategy, nanos);
+            String aggregate = AGGREGATE_STAGES.get(field.getKey());
+            if (aggregate != null) {
+                aggregates.merge(aggregate, nanos, Long::sum);
+            }
+        }
+        aggregates.forEach((stage, nanos) -> recordNanos(tenantId, stage, strategy, nanos));
+    }
+
+    /**
+     * A címkékben használt tenant: az aktuális, vagy az alapértelmezett, ha nincs beállítva.
+     */
+    public static String currentTenant() {
+        String tenantId = TenantContext.getTenantId();
+        return tenantId != null ? tenantId : TenantContext.DEFAULT_TENANT;
+    }
+}
@@ -1,7 +1,6 @@
 package hu.digital_twin.service.util;
 
-import hu.digital_twin.model.RequestData;
-import hu.digital_twin.model.VmData;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
 import org.springframework.stereotype.Service;
 
@@ -16,21 +15,23 @@ public class ResourceCalculationService {
     /**
      * IoT infrastruktúra költségeit számítja ki a VM-ek erőforrás-felhasználása alapján.
      *
-     * @param rd VM adatok
+     * @param fleet VM adatok (legutóbbi flottaállapot)
      * @param time Futásidő órában
      * @param backUpVms Backup VM-ek térképe (lehet null)
      * @return Összesített költség USD-ben
      */
-    public double calculateIoTCost(RequestData rd, double time, Map<String, VirtualMachine> backUpVms) {
+    public double calculateIoTCost(FleetSnapshot fleet, double time, Map<String, VirtualMachine> backUpVms) {
         double totalCost = 0.0;
+        long[] ram = fleet.ram();
+        int[] cpu = fleet.cpu();
 
-        for (VmData vd : rd.getVmData()) {
-            totalCost += (vd.getRam() / (1024.0 * 1024.0 * 1024.0)) * RAM_COST_PER_GB_PER_HOUR * time;
-            totalCost += vd.getCpu() * CPU_COST_PER_CORE_PER_HOUR * time;
+        for (int i = 0; i < fleet.size(); i++) {
+            totalCost += (ram[i] / (1024.0 * 1024.0 * 1024.0)) * RAM_COST_PER_GB_PER_HOUR * time;
+            totalCost += cpu[i] * CPU_COST_PER_CORE_PER_HOUR * time;
 
-            if (backUpVms != null && backUpVms.containsKey(vd.getName())) {
-                totalCost += (vd.getRam() / (1024.0 * 1024.0 * 1024.0)) * RAM_COST_PER_GB_PER_HOUR * time;
-                totalCost += vd.getCpu() * CPU_COST_PER_CORE_PER_HOUR * time;
+            if (backUpVms != null && backUpVms.containsKey(fleet.names()[i])) {
+                totalCost += (ram[i] / (1024.0 * 1024.0 * 1024.0)) * RAM_COST_PER_GB_PER_HOUR * time;
+                totalCost += cpu[i] * CPU_COST_PER_CORE_PER_HOUR * time;
             }
         }
 
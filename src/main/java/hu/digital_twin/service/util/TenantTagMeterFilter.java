@@ -0,0 +1,59 @@
+package hu.digital_twin.service.util;
+
+import hu.digital_twin.config.TenantRegistryConfig;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.config.MeterFilter;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A twin.* metrikák tenant címkéjének korlátozása: az első tenants.max-metric-tenants tenant saját címkét kap,
+ * a többi az "other" címke alá kerül. Így a tenant x lépés x stratégia idősorok száma nem nő korlát nélkül
+ * (a meterek soha nem törlődnek a registryből). A Spring Boot minden MeterRegistry-re alkalmazza.
+ */
+@Component
+public class TenantTagMeterFilter implements MeterFilter {
+
+    public static final String OTHER_TENANT = "other";
+
+    private static final String METER_PREFIX = "twin.";
+    private static final String TENANT_TAG = "tenant";
+
+    private final TenantRegistryConfig config;
+
+    // A saját címkét kapott tenantok; a korlátig bővül, utána nem változik
+    private final Set<String> tenants = ConcurrentHashMap.newKeySet();
+
+    public TenantTagMeterFilter(TenantRegistryConfig config) {
+        this.config = config;
+    }
+
+    @Override
+    public Meter.Id map(Meter.Id id) {
+        if (!id.getName().startsWith(METER_PREFIX)) {
+            return id;
+        }
+        String tenantId = id.getTag(TENANT_TAG);
+        if (tenantId == null || admit(tenantId)) {
+            return id;
+        }
+        return id.replaceTags(Tags.of(id.getTagsAsIterable()).and(TENANT_TAG, OTHER_TENANT));
+    }
+
+    private boolean admit(String tenantId) {
+        int limit = config.getMaxMetricTenants();
+        if (limit <= 0 || tenants.contains(tenantId)) {
+            return true;
+        }
+        synchronized (tenants) {
+            if (tenants.size() >= limit) {
+                return tenants.contains(tenantId);
+            }
+            tenants.add(tenantId);
+            return true;
+        }
+    }
+}
@@ -12,11 +12,19 @@ public class TransferHelperService extends ConsumptionEventAdapter {
     Repository to;
     StorageObject so;
     long start;
+    // Az átvitel befejeződésekor futó callback (pl. metrikák)
+    Runnable onComplete;
 
     public TransferHelperService(Repository from, Repository to, StorageObject so) throws NetworkNode.NetworkException {
+        this(from, to, so, () -> { });
+    }
+
+    public TransferHelperService(Repository from, Repository to, StorageObject so, Runnable onComplete)
+            throws NetworkNode.NetworkException {
         this.from = from;
         this.to = to;
         this.so = so;
+        this.onComplete = onComplete;
         this.from.registerObject(so);
         this.from.requestContentDelivery(so.id, to, this);
         this.start = Timed.getFireCount();
@@ -25,6 +33,7 @@ public class TransferHelperService extends ConsumptionEventAdapter {
     @Override
     public void conComplete() {
         this.from.deregisterObject(this.so);
+        onComplete.run();
     }
 
 
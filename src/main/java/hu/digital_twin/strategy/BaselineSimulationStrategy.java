@@ -2,8 +2,12 @@ package hu.digital_twin.strategy;
 
 import hu.digital_twin.exception.SimulationException;
 import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.digital_twin.model.RequestData;
-import hu.digital_twin.service.simulation.SimulationService;
+import hu.digital_twin.model.SimulationInput;
+import hu.digital_twin.service.simulation.SimulationMetrics;
+import hu.digital_twin.service.simulation.SimulationPhase;
+import hu.digital_twin.service.simulation.SimulationRunner;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
 import org.springframework.stereotype.Component;
@@ -14,54 +18,60 @@ import org.springframework.stereotype.Component;
 @Component
 public class BaselineSimulationStrategy implements SimulationStrategy {
 
-    private final SimulationService simulationService;
+    // A stratégia kulcsa (SimulationService, sandbox)
+    public static final String NAME = "baseline";
 
-    public BaselineSimulationStrategy(SimulationService simulationService) {
-        this.simulationService = simulationService;
+    private final SimulationRunner simulationRunner;
+
+    public BaselineSimulationStrategy(SimulationRunner simulationRunner) {
+        this.simulationRunner = simulationRunner;
     }
 
     /**
      * A stratégia végrehajtása:
      * - Inicializálja a szimulációt az alapértelmezett fizikai gépek számával
-     * - Lekéri az utolsó mentett kérés adatait
+     * - Az utolsó mentett kérés adatait a bemenetből veszi
      * - Elindítja a szimulációt
      * - Minden fizikai gépen és azon belül minden virtuális gépen konstans terhelést hajt végre (baseline feladatokat)
      * - Lefuttatja a szimulációt a kért időtartamig
      * - Lezárja a szimulációt és visszaadja az eredményeket
      *
-     * @param requestData a bemeneti kérés adatai
+     * @param input a szimuláció bemenete (kérés, utolsó frissítési adat, predikció)
      * @return a szimuláció eredményét tartalmazó string (pl. statisztikák)
      * @throws SimulationException ha a szimuláció során hiba történik
      */
     @Override
-    public String execute(RequestData requestData) throws SimulationException {
+    public String execute(SimulationInput input) throws SimulationException {
+        RequestData requestData = input.getRequestData();
         try {
-            // Szimuláció inicializálása az alapértelmezett fizikai gépek számával
-            SimulationContext context = simulationService.initializeSimulation(
-                    simulationService.getConfig().getDefaultPhysicalMachines());
+            // Az utolsó kérés adatai (pl. VM paraméterek) a bemenetből
+            FleetSnapshot fleet = input.getFleet();
 
-            // Az utolsó kérés adatainak lekérése (pl. VM paraméterek)
-            RequestData lastUpdateData = simulationService.getRequestDataService().getLastData();
+            // Szimuláció inicializálása az alapértelmezett fizikai gépek számával
+            SimulationContext context = simulationRunner.initializeSimulation(
+                    simulationRunner.getConfig().getDefaultPhysicalMachines(), fleet, input.getTenantId(), NAME);
 
             // Szimuláció elindítása (időzítő és energia mérés beállítása)
-            simulationService.startSimulation(context);
+            simulationRunner.startSimulation(context);
 
             // Minden fizikai gép és azon belüli VM-ek feldolgozása
+            SimulationPhase scheduling = SimulationPhase.begin(SimulationMetrics.STAGE_TASK_SCHEDULING);
             for (PhysicalMachine pm : context.getIaasContext().iaas.machines) {
                 for (VirtualMachine vm : pm.listVMs()) {
                     // VM számláló növelése a kontextusban
                     context.incrementVmCount();
 
                     // Baseline feladatok végrehajtása: konstans terhelés VM-enként
-                    simulationService.executeBaselineTasks(vm, lastUpdateData, context, requestData.getPredictionLength());
+                    simulationRunner.executeBaselineTasks(vm, fleet, context, requestData.getPredictionLength());
                 }
             }
+            scheduling.end(context);
 
             // Szimuláció futtatása a kérésben megadott ideig (percben)
-            simulationService.runSimulation(requestData.getPredictionLength());
+            simulationRunner.runSimulation(context, requestData.getPredictionLength());
 
             // Szimuláció lezárása, erőforrások felszabadítása, statisztikák készítése és visszaadása
-            return simulationService.finalizeSimulation(context, lastUpdateData, null);
+            return simulationRunner.finalizeSimulation(context, fleet, null);
 
         } catch (Exception e) {
             // Hibakezelés: SimulationException dobása, ha bármilyen hiba történik
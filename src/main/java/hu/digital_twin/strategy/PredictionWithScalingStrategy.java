@@ -3,8 +3,12 @@ package hu.digital_twin.strategy;
 import hu.digital_twin.model.ProcessedPredictionData;
 import hu.digital_twin.exception.SimulationException;
 import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.digital_twin.model.RequestData;
-import hu.digital_twin.service.simulation.SimulationService;
+import hu.digital_twin.model.SimulationInput;
+import hu.digital_twin.service.simulation.SimulationMetrics;
+import hu.digital_twin.service.simulation.SimulationPhase;
+import hu.digital_twin.service.simulation.SimulationRunner;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
 import org.springframework.stereotype.Component;
 
@@ -19,10 +23,13 @@ import java.util.concurrent.ConcurrentHashMap;
 @Component
 public class PredictionWithScalingStrategy implements SimulationStrategy {
 
-    private final SimulationService simulationService;
+    // A stratégia kulcsa (SimulationService, sandbox)
+    public static final String NAME = "prediction_with_scaling";
 
-    public PredictionWithScalingStrategy(SimulationService simulationService) {
-        this.simulationService = simulationService;
+    private final SimulationRunner simulationRunner;
+
+    public PredictionWithScalingStrategy(SimulationRunner simulationRunner) {
+        this.simulationRunner = simulationRunner;
     }
 
     /**
@@ -30,47 +37,53 @@ public class PredictionWithScalingStrategy implements SimulationStrategy {
      * - Inicializál egy ConcurrentHashMap-et a backup VM-ek tárolására,
      *   hogy párhuzamos környezetben is biztonságos legyen az elérésük
      * - Inicializálja a szimulációt a konfigurációból származó skálázott fizikai gépek számával
-     * - Lekéri az utolsó kérés adatait
-     * - Meghívja a predikciós modellt, majd a kapott adatokat percenként feldolgozza
+     * - Az utolsó kérés adatait a bemenetből veszi
+     * - A bemenetben kapott predikciós adatokat percenként feldolgozza
      * - Elindítja a szimulációt
      * - A predikciós adatok és konfiguráció alapján végrehajtja a skálázási feladatokat,
      *   amelyek tartalmazzák az esetleges backup VM-ek létrehozását és feladatok szétosztását
      * - Lefuttatja a szimulációt a fennmaradó időre, miután figyelembe vette az utolsó backup VM létrehozásának idejét
      * - Lezárja a szimulációt, visszaadja a statisztikákat, és átadja a backup VM-ek listáját a továbbfeldolgozáshoz
      *
-     * @param requestData bemeneti kérés adatai, pl. VM szám, küszöbértékek, előrejelzés időtartama
+     * @param input a szimuláció bemenete: a kérés (VM szám, küszöbérték, előrejelzés időtartama), az utolsó frissítési adat és a predikció
      * @return a szimuláció eredményét tartalmazó string (pl. statisztikák)
      * @throws SimulationException ha a szimuláció során hiba történik
      */
     @Override
-    public String execute(RequestData requestData) throws SimulationException {
+    public String execute(SimulationInput input) throws SimulationException {
+        RequestData requestData = input.getRequestData();
         try {
             // Backup VM-ek biztonságos tárolása párhuzamos környezetben
             Map<String, VirtualMachine> backUpVms = new ConcurrentHashMap<>();
 
+            // Utolsó kérés adatai a VM paraméterekhez a bemenetből
+            FleetSnapshot fleet = input.getFleet();
+
             // Szimuláció inicializálása a skálázáshoz ajánlott fizikai gépek számával
-            SimulationContext context = simulationService.initializeSimulation(
-                    simulationService.getConfig().getScalingPhysicalMachines());
+            SimulationContext context = simulationRunner.initializeSimulation(
+                    simulationRunner.getConfig().getScalingPhysicalMachines(), fleet, input.getTenantId(), NAME);
 
-            // Utolsó kérés adatainak lekérése a VM paraméterekhez
-            RequestData lastUpdateData = simulationService.getRequestDataService().getLastData();
+            // A predikció (a szimuláció előtt, az alkalmazásban futott) ideje a statisztikához
+            context.getMetrics().addStageTime(SimulationMetrics.STAGE_PREDICTION, input.getPredictionNanos());
 
-            // Predikció futtatása és adatok percenkénti feldolgozása a VM-ekhez
-            ProcessedPredictionData predictionData = simulationService.processPerMinuteData(
-                    simulationService.getPredictionService().predict(requestData), context);
+            // A predikció adatainak percenkénti feldolgozása a VM-ekhez
+            ProcessedPredictionData predictionData = simulationRunner.processPerMinuteData(
+                    input.getPredictionData(), context);
 
             // Szimuláció elindítása (időzítés, energia mérés)
-            simulationService.startSimulation(context);
+            simulationRunner.startSimulation(context);
 
             // Skálázási feladatok végrehajtása: backup VM-ek létrehozása, feladatok szétosztása
-            int lastBackupCreationMinute = simulationService.executeScalingTasks(
-                    context, predictionData, lastUpdateData, backUpVms, requestData.getThreshold());
+            SimulationPhase scheduling = SimulationPhase.begin(SimulationMetrics.STAGE_TASK_SCHEDULING);
+            int lastBackupCreationMinute = simulationRunner.executeScalingTasks(
+                    context, predictionData, fleet, backUpVms, requestData.getThreshold());
+            scheduling.end(context);
 
             // Szimuláció futtatása a predikció időtartamából levonva a backup VM létrehozásáig eltelt időt
-            simulationService.runSimulation(requestData.getPredictionLength() - lastBackupCreationMinute);
+            simulationRunner.runSimulation(context, requestData.getPredictionLength() - lastBackupCreationMinute);
 
             // Szimuláció lezárása, eredmények és backup VM-ek átadása további feldolgozásra
-            return simulationService.finalizeSimulation(context, lastUpdateData, backUpVms);
+            return simulationRunner.finalizeSimulation(context, fleet, backUpVms);
 
         } catch (Exception e) {
             throw new SimulationException("Prediction with scaling simulation failed", e);
@@ -3,8 +3,12 @@ package hu.digital_twin.strategy;
 import hu.digital_twin.model.ProcessedPredictionData;
 import hu.digital_twin.exception.SimulationException;
 import hu.digital_twin.context.SimulationContext;
+import hu.digital_twin.model.FleetSnapshot;
 import hu.digital_twin.model.RequestData;
-import hu.digital_twin.service.simulation.SimulationService;
+import hu.digital_twin.model.SimulationInput;
+import hu.digital_twin.service.simulation.SimulationMetrics;
+import hu.digital_twin.service.simulation.SimulationPhase;
+import hu.digital_twin.service.simulation.SimulationRunner;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.PhysicalMachine;
 import hu.mta.sztaki.lpds.cloud.simulator.iaas.VirtualMachine;
 import org.springframework.stereotype.Component;
@@ -16,59 +20,68 @@ import org.springframework.stereotype.Component;
 @Component
 public class PredictionWithoutScalingStrategy implements SimulationStrategy {
 
-    private final SimulationService simulationService;
+    // A stratégia kulcsa (SimulationService, sandbox)
+    public static final String NAME = "prediction_no_scaling";
 
-    public PredictionWithoutScalingStrategy(SimulationService simulationService) {
-        this.simulationService = simulationService;
+    private final SimulationRunner simulationRunner;
+
+    public PredictionWithoutScalingStrategy(SimulationRunner simulationRunner) {
+        this.simulationRunner = simulationRunner;
     }
 
     /**
      * Stratégia végrehajtása:
      * - Inicializálja a szimulációt az alapértelmezett fizikai gépek számával
-     * - Lekéri az utolsó kérés adatait
-     * - Meghívja a predikciós szolgáltatást és feldolgozza a percenkénti adatokat
+     * - Az utolsó kérés adatait a bemenetből veszi
+     * - Feldolgozza a bemenetben kapott predikció percenkénti adatait
      * - Elindítja a szimulációt
      * - VM-ekre alkalmazza a predikció alapú, de nem skálázott feladatokat
      * - Lefuttatja a szimulációt a megadott időtartamig
      * - Lezárja a szimulációt, generálja az eredményeket
      *
-     * @param requestData a bemeneti kérés adatai
+     * @param input a szimuláció bemenete (kérés, utolsó frissítési adat, predikció)
      * @return a szimuláció eredménye (statisztikák)
      * @throws SimulationException, ha hiba történik a szimuláció során
      */
     @Override
-    public String execute(RequestData requestData) throws SimulationException {
+    public String execute(SimulationInput input) throws SimulationException {
+        RequestData requestData = input.getRequestData();
         try {
+            // Utolsó kérés adatai (VM paraméterek, konfiguráció) a bemenetből
+            FleetSnapshot fleet = input.getFleet();
+
             // Szimuláció inicializálása az alapértelmezett fizikai gépek számával
-            SimulationContext context = simulationService.initializeSimulation(
-                    simulationService.getConfig().getDefaultPhysicalMachines());
+            SimulationContext context = simulationRunner.initializeSimulation(
+                    simulationRunner.getConfig().getDefaultPhysicalMachines(), fleet, input.getTenantId(), NAME);
 
-            // Utolsó kérés adatainak lekérése (VM paraméterek, konfiguráció)
-            RequestData lastUpdateData = simulationService.getRequestDataService().getLastData();
+            // A predikció (a szimuláció előtt, az alkalmazásban futott) ideje a statisztikához
+            context.getMetrics().addStageTime(SimulationMetrics.STAGE_PREDICTION, input.getPredictionNanos());
 
-            // Predikció lefuttatása Python modell segítségével, majd adatfeldolgozás percenként
-            ProcessedPredictionData predictionData = simulationService.processPerMinuteData(
-                    simulationService.getPredictionService().predict(requestData), context);
+            // A (Python modell által előállított) predikció percenkénti feldolgozása
+            ProcessedPredictionData predictionData = simulationRunner.processPerMinuteData(
+                    input.getPredictionData(), context);
 
             // Szimuláció elindítása (időzítés, energia mérés beállítása)
-            simulationService.startSimulation(context);
+            simulationRunner.startSimulation(context);
 
             // Fizikai gépek és VM-ek végigiterálása, nem skálázott predikciós feladatok végrehajtása
+            SimulationPhase scheduling = SimulationPhase.begin(SimulationMetrics.STAGE_TASK_SCHEDULING);
             for (PhysicalMachine pm : context.getIaasContext().iaas.machines) {
                 for (VirtualMachine vm : pm.listVMs()) {
                     // VM számláló növelése a szimulációs kontextusban
                     context.incrementVmCount();
 
                     // Feladat végrehajtása VM-en a predikciós adatok alapján, de skálázás nélkül
-                    simulationService.executeNonScalingTasks(vm, predictionData, context);
+                    simulationRunner.executeNonScalingTasks(vm, predictionData, context);
                 }
             }
+            scheduling.end(context);
 
             // Szimuláció futtatása a megadott predikciós időhosszra (percben)
-            simulationService.runSimulation(requestData.getPredictionLength());
+            simulationRunner.runSimulation(context, requestData.getPredictionLength());
 
             // Szimuláció lezárása, eredmények összeállítása és visszaadása
-            return simulationService.finalizeSimulation(context, lastUpdateData, null);
+            return simulationRunner.finalizeSimulation(context, fleet, null);
 
         } catch (Exception e) {
             // Hibakezelés, egyedi SimulationException dobása
@@ -1,8 +1,8 @@
 package hu.digital_twin.strategy;
 
 import hu.digital_twin.exception.SimulationException;
-import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.SimulationInput;
 
 public interface SimulationStrategy {
-    String execute(RequestData requestData) throws SimulationException;
+    String execute(SimulationInput input) throws SimulationException;
 }
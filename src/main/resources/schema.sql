@@ -22,3 +22,64 @@ CREATE TABLE IF NOT EXISTS vm_data (
                                        request_data_id INTEGER,
                                        FOREIGN KEY (request_data_id) REFERENCES request_data(id) ON DELETE CASCADE
     );
+
+-- Időrendi lekérdezések és a kérések VM adatainak join-ja index alapján, teljes táblaolvasás nélkül
+CREATE INDEX IF NOT EXISTS idx_request_data_timestamp ON request_data (timestamp);
+CREATE INDEX IF NOT EXISTS idx_vm_data_request_data_id ON vm_data (request_data_id);
+
+-- VM telemetria idősorként: VM-enként időrendben, klaszterezett kulccsal (WITHOUT ROWID), egész epoch időbélyeggel.
+-- A request_data_id a kulcs része, mert a kötegelt mentésnél több kérés is ugyanazt az időbélyeget kaphatja.
+CREATE TABLE IF NOT EXISTS vm_telemetry (
+                                            vm_name TEXT NOT NULL,
+                                            epoch_millis INTEGER NOT NULL,
+                                            request_data_id INTEGER NOT NULL,
+                                            core_processing_power REAL NOT NULL,
+                                            cpu INTEGER NOT NULL,
+                                            data_since_last_save INTEGER NOT NULL,
+                                            network_traffic INTEGER NOT NULL,
+                                            price_per_tick REAL NOT NULL,
+                                            ram INTEGER NOT NULL,
+                                            req_disk INTEGER NOT NULL,
+                                            startup_process INTEGER NOT NULL,
+                                            usage REAL NOT NULL,
+                                            PRIMARY KEY (vm_name, epoch_millis, request_data_id)
+) WITHOUT ROWID;
+
+-- Az "utolsó N minta VM-enként" lekérdezést maga a klaszterezett kulcs fedi (a sorok a kulcs B-fájában vannak).
+-- A legutóbbi kérés VM-jei, illetve kérésenkénti törlés
+CREATE INDEX IF NOT EXISTS idx_vm_telemetry_request ON vm_telemetry (request_data_id);
+
+
+-- Percenkénti és óránkénti összesítések VM-enként (usage és network_traffic: összeg az átlaghoz, min, max, utolsó, darab).
+-- Mentéskor inkrementálisan frissülnek; törléskor az érintett időszakok a vm_telemetry-ből újraszámolódnak.
+CREATE TABLE IF NOT EXISTS vm_rollup_minute (
+                                                vm_name TEXT NOT NULL,
+                                                bucket_millis INTEGER NOT NULL,
+                                                sample_count INTEGER NOT NULL,
+                                                usage_sum REAL NOT NULL,
+                                                usage_min REAL NOT NULL,
+                                                usage_max REAL NOT NULL,
+                                                usage_last REAL NOT NULL,
+                                                network_traffic_sum INTEGER NOT NULL,
+                                                network_traffic_min INTEGER NOT NULL,
+                                                network_traffic_max INTEGER NOT NULL,
+                                                network_traffic_last INTEGER NOT NULL,
+                                                last_millis INTEGER NOT NULL,
+                                                PRIMARY KEY (vm_name, bucket_millis)
+) WITHOUT ROWID;
+
+CREATE TABLE IF NOT EXISTS vm_rollup_hour (
+                                              vm_name TEXT NOT NULL,
+                                              bucket_millis INTEGER NOT NULL,
+                                              sample_count INTEGER NOT NULL,
+                                              usage_sum REAL NOT NULL,
+                                              usage_min REAL NOT NULL,
+                                              usage_max REAL NOT NULL,
+                                              usage_last REAL NOT NULL,
+                                              network_traffic_sum INTEGER NOT NULL,
+                                              network_traffic_min INTEGER NOT NULL,
+                                              network_traffic_max INTEGER NOT NULL,
+                                              network_traffic_last INTEGER NOT NULL,
+                                              last_millis INTEGER NOT NULL,
+                                              PRIMARY KEY (vm_name, bucket_millis)
+) WITHOUT ROWID;
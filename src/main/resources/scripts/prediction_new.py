@@ -1,7 +1,6 @@
 import json
-import sqlite3
+import struct
 import sys
-import os
 import pandas as pd
 import numpy as np
 from error_metrics import ErrorMetrics
@@ -11,6 +10,10 @@ from statsmodels.tsa.arima.model import ARIMA
 from pmdarima import auto_arima
 
 
+class PredictionError(Exception):
+    """A predikció nem végezhető el (pl. kevés adat, ismeretlen modell)"""
+
+
 class ArimaModel(PredictorModel):
     def __init__(self, simulation_settings):
         super().__init__("ARIMA", simulation_settings)
@@ -59,35 +62,25 @@ class LinearRegressionModel(PredictorModel):
         return result.tolist()
 
 
-def get_database_data():
-    """Adatbázisból adatok lekérése és paraméterek feldolgozása"""
-    feature = sys.argv[1]
-    based_on = int(sys.argv[2])
-    pred_length = int(sys.argv[3])
-    vm_count = int(sys.argv[4])
-    tenant_id = sys.argv[5]
-
-    # SQLite adatbázis elérési út
-    script_dir = os.path.dirname(os.path.abspath(__file__))
-    db_path = os.path.join(script_dir, "..", "db", f"{tenant_id}.db")
-
-    conn = sqlite3.connect(db_path)
-    cursor = conn.cursor()
+def parse_training_frame(frame):
+    """A Java által küldött tanító ablak feldolgozása.
+    Formátum (big-endian): [int VM-ek száma][int minták száma VM-enként],
+    majd VM-enként a minták időpontja (double, másodperc a VM első mintájától) és értéke (double)."""
+    if len(frame) < 8:
+        raise PredictionError("Missing training data")
+    vm_count, samples = struct.unpack_from(">ii", frame, 0)
+    if len(frame) != 8 + vm_count * samples * 16:
+        raise PredictionError("Malformed training data")
 
-    # SQL lekérdezés a szükséges adatokhoz
-    query = f"""
-    SELECT rd.timestamp, vd.{feature}, vd.name
-    FROM request_data rd
-    LEFT JOIN vm_data vd ON rd.id = vd.request_data_id
-    ORDER BY rd.timestamp DESC
-    LIMIT {based_on * vm_count};
-    """
-
-    cursor.execute(query)
-    rows = cursor.fetchall()
-    conn.close()
-
-    return rows, based_on, pred_length, vm_count
+    vm_data = {}
+    offset = 8
+    for i in range(vm_count):
+        timestamps = struct.unpack_from(f">{samples}d", frame, offset)
+        offset += samples * 8
+        values = struct.unpack_from(f">{samples}d", frame, offset)
+        offset += samples * 8
+        vm_data[f"vm_{i}"] = list(zip(timestamps, values))
+    return vm_data
 
 
 def calculate_error_metrics(data):
@@ -97,9 +90,7 @@ def calculate_error_metrics(data):
     train_data = data[:train_test_split]
 
     df = pd.DataFrame(train_data, columns=["timestamp", "feature"])
-    df["timestamp"] = pd.to_datetime(df["timestamp"])
-    start_time = df["timestamp"].min()
-    df["timestamp"] = (df["timestamp"] - start_time).dt.total_seconds()
+    df["timestamp"] = df["timestamp"] - df["timestamp"].min()
 
     # Linear regression predikció a metrikákhoz
     lr_model = LinearRegressionModel({})
@@ -110,37 +101,10 @@ def calculate_error_metrics(data):
     print("MAE:", ErrorMetrics.MAE(actual, predictions))
 
 
-def organize_data_by_vm(rows, based_on, vm_count):
-    """Adatok szervezése VM-ek szerint"""
-    vm_data = {}
-
-    # Inicializálás
-    for i in range(vm_count):
-        vm_key = f"vm_{i}"
-        vm_data[vm_key] = []
-
-    if len(rows) < based_on * vm_count:
-        print("Not enough data")
-        sys.exit(1)
-
-    rows.reverse()  # Időrendbe helyezés
-
-    # Adatok felosztása VM-ek szerint
-    for i in range(0, based_on * vm_count, vm_count):
-        for j in range(vm_count):
-            timestamp, value = rows[i + j][0], rows[i + j][1]
-            vm_key = f"vm_{j}"
-            vm_data[vm_key].append((timestamp, value))
-
-    return vm_data
-
-
 def prepare_dataframe(data_list):
     """DataFrame előkészítése predikciókhoz"""
     df = pd.DataFrame(data_list, columns=["timestamp", "feature"])
-    df["timestamp"] = pd.to_datetime(df["timestamp"])
-    start_time = df["timestamp"].min()
-    df["timestamp"] = (df["timestamp"] - start_time).dt.total_seconds()
+    df["timestamp"] = df["timestamp"] - df["timestamp"].min()
     return df
 
 
@@ -166,8 +130,7 @@ def generate_predictions(vm_data, pred_length, model_type):
     elif model_type == "rf":
         model = None  # RF nem objektumorientált, külön metódus
     else:
-        print("Unknown model type. Use: lr, arima, rf")
-        sys.exit(1)
+        raise PredictionError("Unknown model type. Use: lr, arima, rf")
 
     predictions = {}
 
@@ -246,16 +209,9 @@ def compression(data_list, batch_size=5):
     ]
 
 
-def main():
-    """Főprogram"""
-    # Adatok lekérése
-    rows, based_on, pred_length, vm_count = get_database_data()
-
-    # Előrejelzés típusa
-    model_type = sys.argv[6].lower()
-
-    # Adatok szervezése VM-ek szerint
-    vm_data = organize_data_by_vm(rows, based_on, vm_count)
+def predict(pred_length, model_type, vm_data):
+    """Predikció a Java által átadott tanító ablakon (a worker is ezt hívja)"""
+    model_type = model_type.lower()
 
     # Predikciók generálása
     predictions = generate_predictions(vm_data, pred_length, model_type)
@@ -264,12 +220,23 @@ def main():
     for i, (vm_key, pred_list) in enumerate(predictions.items()):
         print(f"{model_type.upper()} predictions for {vm_key}: {pred_list}")
 
+    return {f"VM{i}": pred_list for i, (_, pred_list) in enumerate(predictions.items())}
+
+
+def main():
+    """Főprogram: paraméterek a parancssorban (előrejelzés hossza, modell típus), a tanító ablak a stdin-en"""
+    try:
+        vm_data = parse_training_frame(sys.stdin.buffer.read())
+        result_data = predict(int(sys.argv[1]), sys.argv[2], vm_data)
+    except PredictionError as e:
+        print(e)
+        sys.exit(1)
+
     # JSON formátumú kimenet
     print("JSON_DATA_START")
-    result_data = {f"VM{i}": pred_list for i, (_, pred_list) in enumerate(predictions.items())}
     print(json.dumps(result_data))
     print("JSON_DATA_END")
 
 
 if __name__ == '__main__':
-    main()
\ No newline at end of file
+    main()
@@ -0,0 +1,75 @@
+import json
+import struct
+import sys
+import traceback
+
+# A nehéz importok (pandas, sklearn, statsmodels) egyszer, induláskor töltődnek be
+import prediction_new
+
+STATUS_OK = 0
+STATUS_ERROR = 1
+
+
+def read_block(stream):
+    """Egy hossz-előtagos blokk beolvasása; None, ha a szülő lezárta a csövet"""
+    header = stream.read(4)
+    if len(header) < 4:
+        return None
+    (length,) = struct.unpack(">i", header)
+    payload = stream.read(length)
+    if len(payload) < length:
+        return None
+    return payload
+
+
+def read_request(stream):
+    """Egy keretezett kérés beolvasása: [int hossz][UTF-8 JSON][int hossz][tanító ablak]"""
+    payload = read_block(stream)
+    if payload is None:
+        return None, None
+    frame = read_block(stream)
+    if frame is None:
+        return None, None
+    return json.loads(payload.decode("utf-8")), frame
+
+
+def write_response(stream, status, text):
+    """Válasz küldése: [byte állapot][int hossz][UTF-8 szöveg]"""
+    data = text.encode("utf-8")
+    stream.write(struct.pack(">bi", status, len(data)))
+    stream.write(data)
+    stream.flush()
+
+
+def handle(request, frame):
+    """Egy kérés feldolgozása; ping: állapotellenőrzés, predict: predikció a kéréssel érkező tanító ablakon"""
+    request_type = request.get("type")
+    if request_type == "ping":
+        return "pong"
+    if request_type == "predict":
+        vm_data = prediction_new.parse_training_frame(frame)
+        return json.dumps(prediction_new.predict(request["prediction_length"], request["model_type"], vm_data))
+    raise prediction_new.PredictionError(f"Unknown request type: {request_type}")
+
+
+def main():
+    """Hosszan futó predikciós worker: keretezett kérések a stdin-en, válaszok a stdout-on"""
+    protocol_in = sys.stdin.buffer
+    protocol_out = sys.stdout.buffer
+    # A szkriptek kiírásai (print) nem keveredhetnek a protokollba, ezért a stderr-re mennek
+    sys.stdout = sys.stderr
+
+    write_response(protocol_out, STATUS_OK, "READY")
+    while True:
+        request, frame = read_request(protocol_in)
+        if request is None:
+            break
+        try:
+            write_response(protocol_out, STATUS_OK, handle(request, frame))
+        except Exception as e:
+            traceback.print_exc()
+            write_response(protocol_out, STATUS_ERROR, str(e))
+
+
+if __name__ == '__main__':
+    main()
@@ -0,0 +1,106 @@
+package hu.digital_twin.service.prediction.forecast;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * A Java előrejelzők egyezése a Python modellek előrejelzéseivel a csomagolt database.db adatain.
+ * A referencia értékeket a forecast/generate_golden_forecasts.py állítja elő (a tanító ablak ugyanaz, mint itt).
+ * Tűrés: lr esetén kerekítési pontosság; arima esetén 1e-3 abszolút (a mintaértékek 0..1 közöttiek), mert a
+ * statsmodels L-BFGS és az ArimaForecaster BFGS optimalizálója ugyanazt a likelihood maximumot eltérő
+ * leállási pontossággal közelíti. Ha a golden fájl arima rész nélkül készült, az arima összehasonlítás kimarad.
+ */
+class ForecasterGoldenTest {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final double LR_TOLERANCE = 1e-9;
+    private static final double ARIMA_TOLERANCE = 1e-3;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void linearRegressionMatchesPythonModel() throws Exception {
+        JsonNode golden = golden();
+        assertMatches(new LinearRegressionForecaster(), golden, golden.get("lr"), LR_TOLERANCE);
+    }
+
+    @Test
+    void arimaMatchesStatsmodels() throws Exception {
+        JsonNode golden = golden();
+        assumeTrue(golden.has("arima"),
+                "golden_forecasts.json has no arima values; run generate_golden_forecasts.py with the script dependencies");
+        assertMatches(new ArimaForecaster(4, 0, 1), golden, golden.get("arima"), ARIMA_TOLERANCE);
+    }
+
+    private void assertMatches(Forecaster forecaster, JsonNode golden, JsonNode model, double tolerance)
+            throws Exception {
+        int predictionLength = model.get("prediction_length").asInt();
+        Iterator<Map.Entry<String, JsonNode>> forecasts = model.get("forecasts").fields();
+        while (forecasts.hasNext()) {
+            Map.Entry<String, JsonNode> expected = forecasts.next();
+            double[][] series = loadSeries(golden.get("database").asText(), expected.getKey(),
+                    golden.get("samples").asInt());
+            double[] actual = forecaster.forecast(series[0], series[1], predictionLength);
+
+            assertEquals(expected.getValue().size(), actual.length, expected.getKey());
+            for (int i = 0; i < actual.length; i++) {
+                assertEquals(expected.getValue().get(i).asDouble(), actual[i], tolerance,
+                        expected.getKey() + " [" + i + "]");
+            }
+        }
+    }
+
+    private JsonNode golden() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("/forecast/golden_forecasts.json")) {
+            assertNotNull(in, "forecast/golden_forecasts.json");
+            return objectMapper.readTree(in);
+        }
+    }
+
+    // Egy VM utolsó samples mintája időrendben, a TrainingSeries szerint: [időpontok másodpercben, értékek]
+    private double[][] loadSeries(String database, String vmName, int samples) throws Exception {
+        Path path = Path.of(getClass().getResource("/" + database).toURI());
+        List<LocalDateTime> timestamps = new ArrayList<>(samples);
+        List<Double> values = new ArrayList<>(samples);
+        try (Connection connection = DriverManager.getConnection("jdbc:sqlite:" + path);
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT r.timestamp, v.usage FROM vm_data v JOIN request_data r ON r.id = v.request_data_id "
+                             + "WHERE v.name = ? ORDER BY r.id DESC LIMIT ?")) {
+            statement.setString(1, vmName);
+            statement.setInt(2, samples);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    timestamps.add(0, LocalDateTime.parse(rs.getString(1), TIMESTAMP_FORMAT));
+                    values.add(0, rs.getDouble(2));
+                }
+            }
+        }
+
+        double[][] series = new double[2][timestamps.size()];
+        for (int i = 0; i < timestamps.size(); i++) {
+            series[0][i] = Duration.between(timestamps.get(0), timestamps.get(i)).toMillis() / 1000.0;
+            series[1][i] = values.get(i);
+        }
+        return series;
+    }
+}
@@ -0,0 +1,144 @@
+package hu.digital_twin.service.simulation.sandbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import hu.digital_twin.config.SimulationConfig;
+import hu.digital_twin.config.SimulationIsolationConfig;
+import hu.digital_twin.model.FleetSnapshot;
+import hu.digital_twin.model.RequestData;
+import hu.digital_twin.model.SimulationInput;
+import hu.digital_twin.strategy.BaselineSimulationStrategy;
+import hu.digital_twin.strategy.PredictionWithScalingStrategy;
+import hu.digital_twin.strategy.PredictionWithoutScalingStrategy;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * A három stratégia ugyanarra a bemenetre ugyanazt a statisztikát adja izoláció nélkül (egymás után, a közös
+ * DISSECT-CF állapoton) és classloader sandboxokban párhuzamosan futtatva.
+ * A twin saját falióra idejét és heap használatát tartalmazó mezők futásonként eltérnek, ezek nem számítanak.
+ */
+class SimulationIsolationEquivalenceTest {
+
+    private static final List<String> STRATEGIES = List.of(
+            BaselineSimulationStrategy.NAME,
+            PredictionWithoutScalingStrategy.NAME,
+            PredictionWithScalingStrategy.NAME);
+
+    private static final List<String> WALL_CLOCK_FIELDS = List.of("stage_timings_ms", "twin_wall_ms", "peak_heap_mb");
+
+    private static final int VM_COUNT = 6;
+    private static final int PREDICTION_LENGTH = 10;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void classloaderSandboxesMatchSequentialRuns() throws Exception {
+        SimulationConfig config = new SimulationConfig();
+        config.setDefaultPhysicalMachines(1);
+        config.setScalingPhysicalMachines(2);
+
+        // mode=none: a stratégiák egymás után, a teszt JVM közös állapotán
+        Map<String, ObjectNode> sequential = new LinkedHashMap<>();
+        for (String strategy : STRATEGIES) {
+            String stats = SandboxEntryPoint.createStrategy(strategy, SandboxEntryPoint.createRunner(config))
+                    .execute(input(strategy));
+            sequential.put(strategy, withoutWallClockFields(stats));
+        }
+
+        // mode=classloader: mindhárom egyszerre, külön sandboxokban
+        SimulationIsolationConfig isolationConfig = new SimulationIsolationConfig();
+        isolationConfig.setMode(SimulationIsolationConfig.Mode.CLASSLOADER);
+        isolationConfig.setPoolSize(STRATEGIES.size());
+        SimulationSandboxPool sandboxPool = new SimulationSandboxPool(config, isolationConfig);
+        try {
+            Map<String, CompletableFuture<String>> results = new LinkedHashMap<>();
+            for (String strategy : STRATEGIES) {
+                results.put(strategy, sandboxPool.submit(strategy, input(strategy)));
+            }
+            for (String strategy : STRATEGIES) {
+                String stats = results.get(strategy).get(5, TimeUnit.MINUTES);
+                assertEquals(sequential.get(strategy), withoutWallClockFields(stats), strategy);
+            }
+        } finally {
+            sandboxPool.shutdown();
+        }
+    }
+
+    private ObjectNode withoutWallClockFields(String stats) throws Exception {
+        ObjectNode json = (ObjectNode) objectMapper.readTree(stats);
+        json.remove(WALL_CLOCK_FIELDS);
+        return json;
+    }
+
+    // Minden futás saját bemenetet kap, mert a stratégiák módosíthatják a kérés adatait
+    private static SimulationInput input(String strategy) {
+        RequestData requestData = new RequestData();
+        requestData.setRequestType("REQUEST FUTURE BEHAVIOUR");
+        requestData.setVmsCount(VM_COUNT);
+        requestData.setPredictionLength(PREDICTION_LENGTH);
+        requestData.setThreshold(70.0);
+        FleetSnapshot fleet = fleet();
+        return new SimulationInput(requestData, fleet,
+                BaselineSimulationStrategy.NAME.equals(strategy) ? null : predictionData(fleet));
+    }
+
+    private static FleetSnapshot fleet() {
+        String[] names = new String[VM_COUNT];
+        double[] usage = new double[VM_COUNT];
+        for (int i = 0; i < VM_COUNT; i++) {
+            names[i] = "vm" + i;
+            usage[i] = 20 + i * 10;
+        }
+        return new FleetSnapshot(1L, "2025-01-01 12:00:00", names,
+                filled(new int[VM_COUNT], 1),
+                filled(new long[VM_COUNT], 1_073_741_824L),
+                filled(new double[VM_COUNT], 0.001),
+                filled(new int[VM_COUNT], 100),
+                filled(new long[VM_COUNT], 268_435_456L),
+                filled(new double[VM_COUNT], 0.0001),
+                filled(new int[VM_COUNT], 400),
+                usage,
+                filled(new int[VM_COUNT], 10));
+    }
+
+    // Percenként 12 érték; a páros VM-ek terhelése időnként a küszöb fölé megy, hogy a skálázás is dolgozzon
+    private static Map<String, List<Double>> predictionData(FleetSnapshot fleet) {
+        Map<String, List<Double>> predictionData = new LinkedHashMap<>();
+        int values = PREDICTION_LENGTH * 12;
+        for (int vm = 0; vm < fleet.size(); vm++) {
+            double amplitude = vm % 2 == 0 ? 40 : 5;
+            List<Double> series = new ArrayList<>(values);
+            for (int i = 0; i < values; i++) {
+                double value = fleet.usage()[vm] + amplitude * Math.sin(i * 2 * Math.PI / 60);
+                series.add(Math.max(0, Math.min(100, value)));
+            }
+            predictionData.put(fleet.names()[vm], series);
+        }
+        return predictionData;
+    }
+
+    private static int[] filled(int[] array, int value) {
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    private static long[] filled(long[] array, long value) {
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    private static double[] filled(double[] array, double value) {
+        Arrays.fill(array, value);
+        return array;
+    }
+}
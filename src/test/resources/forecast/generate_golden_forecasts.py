@@ -0,0 +1,98 @@
+"""
+Referencia előrejelzések (golden_forecasts.json) előállítása a ForecasterGoldenTest számára.
+
+A tanító ablak a csomagolt src/main/resources/db/database.db VM-enkénti utolsó SAMPLES mintája, ugyanúgy
+előkészítve, mint a Java TrainingSeries (időpont másodpercben az ablak első mintájától). Az előrejelzéseket a
+prediction_new.py modelljei adják (LinearRegressionModel, ArimaModel ARIMA(4, 0, 1)-gyel), így a szkript
+függőségei (pandas, scikit-learn, statsmodels, pmdarima) kellenek hozzá.
+Ha ezek nem telepíthetők, az lr értékek pontos racionális aritmetikával számolt OLS megoldásból készülnek (ez az
+sklearn LinearRegression eredménye kerekítés nélkül), az arima rész pedig kimarad; ilyenkor a teszt az arima
+összehasonlítást kihagyja.
+
+Használat (a projekt gyökeréből): python src/test/resources/forecast/generate_golden_forecasts.py
+"""
+import json
+import os
+import sqlite3
+import sys
+from datetime import datetime
+from fractions import Fraction
+
+ROOT = os.path.abspath(os.path.join(os.path.dirname(__file__), "..", "..", "..", ".."))
+DATABASE = os.path.join(ROOT, "src", "main", "resources", "db", "database.db")
+SCRIPTS = os.path.join(ROOT, "src", "main", "resources", "scripts")
+OUTPUT = os.path.join(os.path.dirname(os.path.abspath(__file__)), "golden_forecasts.json")
+
+SAMPLES = 120
+LR_PREDICTION_LENGTH = 300
+ARIMA_PREDICTION_LENGTH = 60
+TIMESTAMP_FORMAT = "%Y-%m-%d %H:%M:%S"
+
+
+def load_series(connection):
+    """VM-enként az utolsó SAMPLES minta időrendben: [(másodperc az első mintától, érték)]"""
+    vm_names = [row[0] for row in connection.execute("SELECT DISTINCT name FROM vm_data ORDER BY name")]
+    series = {}
+    for vm_name in vm_names:
+        rows = connection.execute(
+            "SELECT r.timestamp, v.usage FROM vm_data v JOIN request_data r ON r.id = v.request_data_id "
+            "WHERE v.name = ? ORDER BY r.id DESC LIMIT ?", (vm_name, SAMPLES)).fetchall()[::-1]
+        start = datetime.strptime(rows[0][0], TIMESTAMP_FORMAT)
+        series[vm_name] = [((datetime.strptime(ts, TIMESTAMP_FORMAT) - start).total_seconds(), value)
+                           for ts, value in rows]
+    return series
+
+
+def exact_linear_regression(data, prediction_length):
+    """OLS egyenes pontos racionális aritmetikával, a PredictorModel.create_future_timestamp időpontjaiban"""
+    ts = [Fraction(t) for t, _ in data]
+    ys = [Fraction(v) for _, v in data]
+    n = len(ts)
+    mean_t, mean_y = sum(ts) / n, sum(ys) / n
+    variance = sum((t - mean_t) ** 2 for t in ts)
+    slope = sum((t - mean_t) * (y - mean_y) for t, y in zip(ts, ys)) / variance if variance else Fraction(0)
+    intercept = mean_y - slope * mean_t
+    last = ts[-1]
+    return [float(intercept + slope * (last + step + 5)) for step in range(0, prediction_length, 5)]
+
+
+def main():
+    with sqlite3.connect(DATABASE) as connection:
+        series = load_series(connection)
+
+    golden = {
+        "database": "db/database.db",
+        "samples": SAMPLES,
+        "lr": {"prediction_length": LR_PREDICTION_LENGTH, "forecasts": {}},
+    }
+    try:
+        sys.path.insert(0, SCRIPTS)
+        import prediction_new
+    except ImportError as e:
+        print(f"Script dependencies not available ({e}): lr from exact OLS, arima skipped")
+        prediction_new = None
+
+    if prediction_new is None:
+        golden["lr"]["source"] = "exact OLS"
+        for vm_name, data in series.items():
+            golden["lr"]["forecasts"][vm_name] = exact_linear_regression(data, LR_PREDICTION_LENGTH)
+    else:
+        golden["lr"]["source"] = "prediction_new.LinearRegressionModel"
+        golden["arima"] = {"prediction_length": ARIMA_PREDICTION_LENGTH,
+                           "source": "prediction_new.ArimaModel ARIMA(4, 0, 1)", "forecasts": {}}
+        lr_model = prediction_new.LinearRegressionModel({})
+        vm_data = {vm_name: data for vm_name, data in series.items()}
+        arima = prediction_new.generate_predictions(vm_data, ARIMA_PREDICTION_LENGTH, "arima")
+        for vm_name, data in series.items():
+            df = prediction_new.prepare_dataframe(data)
+            golden["lr"]["forecasts"][vm_name] = lr_model.predict("feature", df, LR_PREDICTION_LENGTH, False)
+            golden["arima"]["forecasts"][vm_name] = arima[vm_name]
+
+    with open(OUTPUT, "w", encoding="utf-8") as f:
+        json.dump(golden, f, indent=2)
+        f.write("\n")
+    print(f"Written {OUTPUT}")
+
+
+if __name__ == "__main__":
+    main()